@@ -1,6 +1,7 @@
 package com.firefly.utils.concurrent;
 
 import com.firefly.utils.lang.AbstractLifeCycle;
+import com.firefly.utils.time.HierarchicalTimingWheel;
 
 import java.util.concurrent.*;
 
@@ -10,6 +11,11 @@ abstract public class Schedulers {
 
     private static int coreSize = Runtime.getRuntime().availableProcessors();
 
+    /**
+     * The scheduler of the timeout tasks. The value is "executor" or "timingWheel".
+     */
+    public static final String timeoutSchedulerType = System.getProperty("com.firefly.utils.concurrent.timeoutScheduler", "executor");
+
     private static Scheduler wrapScheduledExecutorService(final ScheduledExecutorService service) {
         return new SchedulerService(service);
     }
@@ -68,4 +74,25 @@ abstract public class Schedulers {
     public static Scheduler computation() {
         return createScheduler(coreSize);
     }
+
+    public static Scheduler createTimingWheelScheduler() {
+        return new HierarchicalTimingWheel();
+    }
+
+    /**
+     * Create the scheduler of the idle timeout tasks. It is selected by the system property
+     * "com.firefly.utils.concurrent.timeoutScheduler". The "timingWheel" creates a hierarchical timing wheel
+     * that is suitable for a large number of the connections and streams,
+     * and the "executor" creates a scheduled thread pool.
+     *
+     * @return The scheduler of the idle timeout tasks.
+     */
+    public static Scheduler createTimeoutScheduler() {
+        switch (timeoutSchedulerType) {
+            case "timingWheel":
+                return createTimingWheelScheduler();
+            default:
+                return createScheduler();
+        }
+    }
 }
@@ -2,6 +2,9 @@ package com.firefly.utils.json;
 
 import com.firefly.utils.BeanUtils;
 import com.firefly.utils.exception.CommonRuntimeException;
+import com.firefly.utils.io.IO;
+import com.firefly.utils.json.io.JsonByteBufferReader;
+import com.firefly.utils.json.io.JsonByteBufferWriter;
 import com.firefly.utils.json.io.JsonStringReader;
 import com.firefly.utils.json.io.JsonStringWriter;
 import com.firefly.utils.json.parser.GeneralJSONObjectStateMacine;
@@ -10,7 +13,10 @@ import com.firefly.utils.json.serializer.SerialStateMachine;
 import com.firefly.utils.lang.GenericTypeReference;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 
 import static com.firefly.utils.json.parser.ComplexTypeParser.getImplClass;
 
@@ -64,4 +70,93 @@ public abstract class Json {
         }
     }
 
+    /**
+     * Serialize the object and write the UTF-8 bytes to the output stream. The output stream is not closed.
+     *
+     * @param obj The object.
+     * @param out The output stream.
+     */
+    public static void writeTo(Object obj, OutputStream out) {
+        try (JsonWriter writer = new JsonByteBufferWriter(out)) {
+            SerialStateMachine.toJson(obj, writer);
+        } catch (IOException e) {
+            throw new CommonRuntimeException(e);
+        }
+    }
+
+    /**
+     * Parse the UTF-8 bytes between the position and the limit of the buffer. The position of the buffer is not changed.
+     *
+     * @param buffer The UTF-8 JSON bytes.
+     * @param clazz  The object type.
+     * @param <T>    The object type.
+     * @return The object.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T toObject(ByteBuffer buffer, Class<T> clazz) {
+        try (JsonReader reader = new JsonByteBufferReader(buffer)) {
+            return (T) ParserStateMachine.toObject(reader, clazz, clazz);
+        } catch (IOException e) {
+            throw new CommonRuntimeException(e);
+        }
+    }
+
+    public static <T> T toObject(ByteBuffer buffer, GenericTypeReference<T> typeReference) {
+        return toObject(buffer, typeReference.getType());
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T toObject(ByteBuffer buffer, Type type) {
+        try (JsonReader reader = new JsonByteBufferReader(buffer)) {
+            Class<?> extractedClass = BeanUtils.extractClass(type);
+            return (T) ParserStateMachine.toObject(reader, getImplClass(extractedClass), type);
+        } catch (IOException e) {
+            throw new CommonRuntimeException(e);
+        }
+    }
+
+    public static JsonObject toJsonObject(ByteBuffer buffer) {
+        try (JsonReader reader = new JsonByteBufferReader(buffer)) {
+            return GeneralJSONObjectStateMacine.toJsonObject(reader);
+        } catch (IOException e) {
+            throw new CommonRuntimeException(e);
+        }
+    }
+
+    public static JsonArray toJsonArray(ByteBuffer buffer) {
+        try (JsonReader reader = new JsonByteBufferReader(buffer)) {
+            return GeneralJSONObjectStateMacine.toJsonArray(reader);
+        } catch (IOException e) {
+            throw new CommonRuntimeException(e);
+        }
+    }
+
+    /**
+     * Read the UTF-8 bytes from the input stream and parse them. The input stream is not closed.
+     *
+     * @param in    The input stream.
+     * @param clazz The object type.
+     * @param <T>   The object type.
+     * @return The object.
+     */
+    public static <T> T toObject(InputStream in, Class<T> clazz) {
+        return toObject(readBytes(in), clazz);
+    }
+
+    public static <T> T toObject(InputStream in, GenericTypeReference<T> typeReference) {
+        return toObject(readBytes(in), typeReference.getType());
+    }
+
+    public static <T> T toObject(InputStream in, Type type) {
+        return toObject(readBytes(in), type);
+    }
+
+    private static ByteBuffer readBytes(InputStream in) {
+        try {
+            return ByteBuffer.wrap(IO.readBytes(in));
+        } catch (IOException e) {
+            throw new CommonRuntimeException(e);
+        }
+    }
+
 }
@@ -0,0 +1,410 @@
+package com.firefly.utils.json.compiler;
+
+import com.firefly.utils.StringUtils;
+import com.firefly.utils.classproxy.AbstractProxyFactory;
+import com.firefly.utils.json.JsonReader;
+import com.firefly.utils.json.JsonWriter;
+import com.firefly.utils.json.Parser;
+import com.firefly.utils.json.Serializer;
+import com.firefly.utils.json.parser.*;
+import com.firefly.utils.json.serializer.*;
+import com.firefly.utils.json.support.ParserMetaInfo;
+import com.firefly.utils.json.support.SerializerMetaInfo;
+import com.firefly.utils.lang.bean.PropertyAccess;
+import javassist.*;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The compiled mode generates a class per bean type that reads and writes the properties by the direct getter,
+ * setter, and field access instead of the reflective property access. The parser finds the property
+ * by a switch on the precomputed hash of the field name.
+ * <p>
+ * The compiled mode is disabled by default. Enable it by the system property
+ * "com.fireflysource.utils.json.compiled=true" or invoke setEnabled(true) before the first JSON conversion.
+ * If a bean type or a property is not accessible by the generated class, the reflective access is used.
+ *
+ * @author Pengtao Qiu
+ */
+public class ObjectCodecCompiler {
+
+    private static volatile boolean enabled = Boolean.getBoolean("com.fireflysource.utils.json.compiled");
+
+    private static final Map<Class<?>, Class<?>> WRAPPER_MAP = new HashMap<>();
+    private static final Map<Class<?>, String> WRITER_METHOD_MAP = new HashMap<>();
+    private static final Map<Class<?>, Class<?>> WRITER_TYPE_MAP = new HashMap<>();
+    private static final Map<Class<?>, String> READER_METHOD_MAP = new HashMap<>();
+    private static final Map<Class<?>, Class<?>> READER_TYPE_MAP = new HashMap<>();
+    private static final Set<String> FAILED_CODECS = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    static {
+        WRAPPER_MAP.put(int.class, Integer.class);
+        WRAPPER_MAP.put(long.class, Long.class);
+        WRAPPER_MAP.put(short.class, Short.class);
+        WRAPPER_MAP.put(byte.class, Byte.class);
+        WRAPPER_MAP.put(boolean.class, Boolean.class);
+        WRAPPER_MAP.put(char.class, Character.class);
+        WRAPPER_MAP.put(float.class, Float.class);
+        WRAPPER_MAP.put(double.class, Double.class);
+
+        WRITER_METHOD_MAP.put(IntSerializer.class, "writeInt");
+        WRITER_TYPE_MAP.put(IntSerializer.class, int.class);
+        WRITER_METHOD_MAP.put(LongSerializer.class, "writeLong");
+        WRITER_TYPE_MAP.put(LongSerializer.class, long.class);
+        WRITER_METHOD_MAP.put(ShortSerializer.class, "writeShort");
+        WRITER_TYPE_MAP.put(ShortSerializer.class, short.class);
+        WRITER_METHOD_MAP.put(ByteSerializer.class, "writeByte");
+        WRITER_TYPE_MAP.put(ByteSerializer.class, byte.class);
+        WRITER_METHOD_MAP.put(BoolSerializer.class, "writeBoolean");
+        WRITER_TYPE_MAP.put(BoolSerializer.class, boolean.class);
+        WRITER_METHOD_MAP.put(StringSerializer.class, "writeStringWithQuote");
+        WRITER_TYPE_MAP.put(StringSerializer.class, String.class);
+
+        READER_METHOD_MAP.put(IntParser.class, "readInt()");
+        READER_TYPE_MAP.put(IntParser.class, int.class);
+        READER_METHOD_MAP.put(LongParser.class, "readLong()");
+        READER_TYPE_MAP.put(LongParser.class, long.class);
+        READER_METHOD_MAP.put(ShortParser.class, "readInt()");
+        READER_TYPE_MAP.put(ShortParser.class, short.class);
+        READER_METHOD_MAP.put(BooleanParser.class, "readBoolean()");
+        READER_TYPE_MAP.put(BooleanParser.class, boolean.class);
+        READER_METHOD_MAP.put(StringParser.class, "readString()");
+        READER_TYPE_MAP.put(StringParser.class, String.class);
+    }
+
+    /**
+     * Writes the properties of the bean between the object brackets.
+     */
+    public interface PropertyWriter {
+        void write(JsonWriter writer, Object obj) throws IOException;
+    }
+
+    /**
+     * Creates the bean and reads the properties by the index of the sorted parser meta information.
+     */
+    public interface PropertyReader {
+        Object newInstance();
+
+        /**
+         * Find the property by the field name.
+         *
+         * @param field The field name.
+         * @return The index of the parser meta information or -1 if the bean has not this property.
+         */
+        int indexOf(char[] field);
+
+        void read(Object obj, int index, JsonReader reader) throws IOException;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        ObjectCodecCompiler.enabled = enabled;
+    }
+
+    /**
+     * Generate the property writer of the bean.
+     *
+     * @param clazz     The bean type.
+     * @param metaInfos The serializer meta information that is created by the EncodeCompiler.
+     * @return The property writer or null if the bean type is not accessible.
+     */
+    public static PropertyWriter createPropertyWriter(Class<?> clazz, SerializerMetaInfo[] metaInfos) {
+        if (!isAccessible(clazz)) {
+            return null;
+        }
+        try {
+            ClassPool classPool = ClassPool.getDefault();
+            classPool.insertClassPath(new ClassClassPath(PropertyWriter.class));
+            classPool.insertClassPath(new ClassClassPath(clazz));
+
+            CtClass cc = classPool.makeClass("com.firefly.utils.json.compiler.PropertyWriter" + UUID.randomUUID().toString().replace("-", ""));
+            cc.addInterface(classPool.get(PropertyWriter.class.getName()));
+            cc.addField(CtField.make("private com.firefly.utils.json.support.SerializerMetaInfo[] metaInfos;", cc));
+            cc.addField(CtField.make("private char[][] names;", cc));
+            cc.addField(CtField.make("private com.firefly.utils.json.Serializer[] serializers;", cc));
+
+            CtConstructor constructor = new CtConstructor(new CtClass[]{
+                    classPool.get(SerializerMetaInfo.class.getName() + "[]"),
+                    classPool.get("char[][]"),
+                    classPool.get(Serializer.class.getName() + "[]")}, cc);
+            constructor.setBody("{this.metaInfos = $1; this.names = $2; this.serializers = $3;}");
+            cc.addConstructor(constructor);
+            cc.addMethod(CtMethod.make(createWriteMethodCode(clazz, metaInfos), cc));
+
+            char[][] names = new char[metaInfos.length][];
+            Serializer[] serializers = new Serializer[metaInfos.length];
+            for (int i = 0; i < metaInfos.length; i++) {
+                names[i] = metaInfos[i].getPropertyName();
+                serializers[i] = metaInfos[i].getSerializer();
+            }
+            return (PropertyWriter) cc.toClass(getClassLoader(clazz), null)
+                                      .getConstructor(SerializerMetaInfo[].class, char[][].class, Serializer[].class)
+                                      .newInstance(metaInfos, names, serializers);
+        } catch (Throwable e) {
+            reportCompileFailure("writer", clazz, e);
+            return null;
+        }
+    }
+
+    private static String createWriteMethodCode(Class<?> clazz, SerializerMetaInfo[] metaInfos) {
+        StringBuilder code = new StringBuilder();
+        code.append("public void write(com.firefly.utils.json.JsonWriter writer, Object obj) throws java.io.IOException {\n")
+            .append(StringUtils.replace("\t{} bean = ({}) obj;\n", clazz.getCanonicalName(), clazz.getCanonicalName()));
+
+        for (int i = 0; i < metaInfos.length; i++) {
+            SerializerMetaInfo metaInfo = metaInfos[i];
+            code.append(StringUtils.replace("\twriter.write(names[{}]);\n", i));
+
+            PropertyAccess propertyAccess = metaInfo.getPropertyAccess();
+            Method getter = propertyAccess.getGetterMethod();
+            String value;
+            Class<?> type;
+            if (getter != null) {
+                value = isAccessible(getter) ? "bean." + getter.getName() + "()" : null;
+                type = getter.getReturnType();
+            } else {
+                Field field = propertyAccess.getField();
+                value = isAccessible(field) ? "bean." + field.getName() : null;
+                type = field.getType();
+            }
+
+            if (value == null) {
+                code.append(StringUtils.replace("\tmetaInfos[{}].toJson(obj, writer);\n", i));
+                continue;
+            }
+
+            Class<?> serializerClass = metaInfo.getSerializer().getClass();
+            String writerMethod = WRITER_METHOD_MAP.get(serializerClass);
+            Class<?> writerType = WRITER_TYPE_MAP.get(serializerClass);
+            if (type.isPrimitive()) {
+                if (type == writerType) {
+                    code.append(StringUtils.replace("\twriter.{}({});\n", writerMethod, value));
+                } else {
+                    code.append(StringUtils.replace("\tserializers[{}].convertTo(writer, (Object) {}.valueOf({}));\n",
+                            i, WRAPPER_MAP.get(type).getName(), value));
+                }
+            } else {
+                String var = "v" + i;
+                if (writerType != null && (type == writerType || type == WRAPPER_MAP.get(writerType))) {
+                    String unboxed = writerType.isPrimitive() ? var + "." + writerType.getName() + "Value()" : var;
+                    code.append(StringUtils.replace("\t{} {} = {};\n", type.getName(), var, value))
+                        .append(StringUtils.replace("\tif ({} == null) writer.writeNull(); else writer.{}({});\n", var, writerMethod, unboxed));
+                } else {
+                    code.append(StringUtils.replace("\tObject {} = (Object) {};\n", var, value))
+                        .append(StringUtils.replace("\tif ({} == null) writer.writeNull(); else serializers[{}].convertTo(writer, {});\n", var, i, var));
+                }
+            }
+        }
+        code.append("}");
+        return code.toString();
+    }
+
+    /**
+     * Generate the property reader of the bean.
+     *
+     * @param clazz     The bean type.
+     * @param metaInfos The parser meta information that is created by the DecodeCompiler.
+     * @return The property reader or null if the bean type or the default constructor is not accessible.
+     */
+    public static PropertyReader createPropertyReader(Class<?> clazz, ParserMetaInfo[] metaInfos) {
+        if (!isAccessible(clazz) || Modifier.isAbstract(clazz.getModifiers())) {
+            return null;
+        }
+        try {
+            Constructor<?> defaultConstructor = clazz.getConstructor();
+            if (!isAccessible(defaultConstructor)) {
+                return null;
+            }
+
+            ClassPool classPool = ClassPool.getDefault();
+            classPool.insertClassPath(new ClassClassPath(PropertyReader.class));
+            classPool.insertClassPath(new ClassClassPath(clazz));
+
+            CtClass cc = classPool.makeClass("com.firefly.utils.json.compiler.PropertyReader" + UUID.randomUUID().toString().replace("-", ""));
+            cc.addInterface(classPool.get(PropertyReader.class.getName()));
+            cc.addField(CtField.make("private com.firefly.utils.json.support.ParserMetaInfo[] metaInfos;", cc));
+            cc.addField(CtField.make("private char[][] names;", cc));
+            cc.addField(CtField.make("private com.firefly.utils.json.Parser[] parsers;", cc));
+            cc.addField(CtField.make("private java.lang.Class[] types;", cc));
+
+            CtConstructor constructor = new CtConstructor(new CtClass[]{
+                    classPool.get(ParserMetaInfo.class.getName() + "[]"),
+                    classPool.get("char[][]"),
+                    classPool.get(Parser.class.getName() + "[]"),
+                    classPool.get(Class.class.getName() + "[]")}, cc);
+            constructor.setBody("{this.metaInfos = $1; this.names = $2; this.parsers = $3; this.types = $4;}");
+            cc.addConstructor(constructor);
+            cc.addMethod(CtMethod.make(StringUtils.replace("public Object newInstance() {\n\treturn new {}();\n}", clazz.getCanonicalName()), cc));
+            cc.addMethod(CtMethod.make(createIndexOfMethodCode(metaInfos), cc));
+            cc.addMethod(CtMethod.make(createReadMethodCode(clazz, metaInfos), cc));
+
+            char[][] names = new char[metaInfos.length][];
+            Parser[] parsers = new Parser[metaInfos.length];
+            Class<?>[] types = new Class<?>[metaInfos.length];
+            for (int i = 0; i < metaInfos.length; i++) {
+                names[i] = metaInfos[i].getPropertyName();
+                parsers[i] = metaInfos[i].getParser();
+                types[i] = metaInfos[i].getExtractedType();
+            }
+            return (PropertyReader) cc.toClass(getClassLoader(clazz), null)
+                                      .getConstructor(ParserMetaInfo[].class, char[][].class, Parser[].class, Class[].class)
+                                      .newInstance(metaInfos, names, parsers, types);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (Throwable e) {
+            reportCompileFailure("reader", clazz, e);
+            return null;
+        }
+    }
+
+    /**
+     * Print the exception of compiling the property writer or reader once per bean type.
+     * The caller falls back to the reflective codec.
+     *
+     * @param codec The generated codec kind.
+     * @param clazz The bean type.
+     * @param e     The compiling exception.
+     */
+    private static void reportCompileFailure(String codec, Class<?> clazz, Throwable e) {
+        if (FAILED_CODECS.add(codec + ":" + clazz.getName())) {
+            System.err.println("compile the property " + codec + " of " + clazz.getName()
+                    + " exception, use the reflective access. " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Compute the hash of the field name. It is the same as the String hash code.
+     *
+     * @param field The field name.
+     * @return The hash of the field name.
+     */
+    public static int hash(char[] field) {
+        int h = 0;
+        for (char c : field) {
+            h = 31 * h + c;
+        }
+        return h;
+    }
+
+    private static String createIndexOfMethodCode(ParserMetaInfo[] metaInfos) {
+        Map<Integer, List<Integer>> hashMap = new TreeMap<>();
+        for (int i = 0; i < metaInfos.length; i++) {
+            hashMap.computeIfAbsent(hash(metaInfos[i].getPropertyName()), k -> new ArrayList<>()).add(i);
+        }
+
+        StringBuilder code = new StringBuilder();
+        code.append("public int indexOf(char[] field) {\n")
+            .append("\tint h = 0;\n")
+            .append("\tfor (int i = 0; i < field.length; i++) {\n")
+            .append("\t\th = 31 * h + field[i];\n")
+            .append("\t}\n")
+            .append("\tswitch (h) {\n");
+        hashMap.forEach((hash, indexes) -> {
+            code.append(StringUtils.replace("\t\tcase {}:\n", hash));
+            indexes.forEach(i -> code.append(StringUtils.replace("\t\t\tif (java.util.Arrays.equals(field, names[{}])) return {};\n", i, i)));
+            code.append("\t\t\treturn -1;\n");
+        });
+        code.append("\t\tdefault:\n")
+            .append("\t\t\treturn -1;\n")
+            .append("\t}\n")
+            .append("}");
+        return code.toString();
+    }
+
+    private static String createReadMethodCode(Class<?> clazz, ParserMetaInfo[] metaInfos) {
+        StringBuilder code = new StringBuilder();
+        code.append("public void read(Object obj, int index, com.firefly.utils.json.JsonReader reader) throws java.io.IOException {\n")
+            .append(StringUtils.replace("\t{} bean = ({}) obj;\n", clazz.getCanonicalName(), clazz.getCanonicalName()))
+            .append("\tswitch (index) {\n");
+
+        for (int i = 0; i < metaInfos.length; i++) {
+            ParserMetaInfo metaInfo = metaInfos[i];
+            PropertyAccess propertyAccess = metaInfo.getPropertyAccess();
+            Method setter = propertyAccess.getSetterMethod();
+            String assignment;
+            Class<?> type;
+            if (setter != null) {
+                assignment = isAccessible(setter) ? "bean." + setter.getName() + "({});" : null;
+                type = setter.getParameterTypes()[0];
+            } else {
+                Field field = propertyAccess.getField();
+                assignment = field != null && isAccessible(field) && !Modifier.isFinal(field.getModifiers())
+                        ? "bean." + field.getName() + " = {};" : null;
+                type = field != null ? field.getType() : null;
+            }
+
+            code.append(StringUtils.replace("\t\tcase {}:\n", i));
+            if (assignment == null || type.getCanonicalName() == null) {
+                code.append(StringUtils.replace("\t\t\tmetaInfos[{}].invoke(obj, reader);\n", i));
+            } else {
+                code.append("\t\t\t").append(StringUtils.replace(assignment, createValueCode(i, metaInfo, type))).append('\n');
+            }
+            code.append("\t\t\treturn;\n");
+        }
+        code.append("\t\tdefault:\n")
+            .append("\t\t\treturn;\n")
+            .append("\t}\n")
+            .append("}");
+        return code.toString();
+    }
+
+    private static String createValueCode(int i, ParserMetaInfo metaInfo, Class<?> type) {
+        Class<?> parserClass = metaInfo.getParser().getClass();
+        String readerMethod = READER_METHOD_MAP.get(parserClass);
+        Class<?> readerType = READER_TYPE_MAP.get(parserClass);
+        if (readerType != null) {
+            String value = readerType == short.class ? "(short) reader." + readerMethod : "reader." + readerMethod;
+            if (type == readerType) {
+                return value;
+            } else if (type == WRAPPER_MAP.get(readerType)) {
+                return StringUtils.replace("{}.valueOf({})", type.getName(), value);
+            }
+        }
+
+        String value = StringUtils.replace("parsers[{}].convertTo(reader, types[{}])", i, i);
+        if (type.isPrimitive()) {
+            return StringUtils.replace("(({}) {}).{}Value()", WRAPPER_MAP.get(type).getName(), value, type.getName());
+        } else {
+            return StringUtils.replace("({}) {}", type.getCanonicalName(), value);
+        }
+    }
+
+    private static boolean isAccessible(Class<?> clazz) {
+        if (clazz.getCanonicalName() == null) {
+            return false;
+        }
+        for (Class<?> c = clazz; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+            if (c.getEnclosingClass() != null && !Modifier.isStatic(c.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAccessible(Member member) {
+        return member != null
+                && Modifier.isPublic(member.getModifiers())
+                && !Modifier.isStatic(member.getModifiers())
+                && isAccessible(member.getDeclaringClass());
+    }
+
+    private static ClassLoader getClassLoader(Class<?> clazz) {
+        ClassLoader classLoader = clazz.getClassLoader();
+        return classLoader != null ? classLoader : AbstractProxyFactory.classLoader;
+    }
+
+}
@@ -37,12 +37,8 @@ abstract public class AbstractJsonStringWriter extends JsonWriter {
 
     @Override
     public void write(int c) {
-        int newcount = count + 1;
-        if (newcount > buf.length) {
-            expandCapacity(newcount);
-        }
-        buf[count] = (char) c;
-        count = newcount;
+        ensureCapacity(1);
+        buf[count++] = (char) c;
     }
 
     @Override
@@ -59,12 +55,9 @@ abstract public class AbstractJsonStringWriter extends JsonWriter {
             return;
         }
 
-        int newcount = count + len;
-        if (newcount > buf.length) {
-            expandCapacity(newcount);
-        }
+        ensureCapacity(len);
         System.arraycopy(c, off, buf, count, len);
-        count = newcount;
+        count += len;
     }
 
     @Override
@@ -74,12 +67,9 @@ abstract public class AbstractJsonStringWriter extends JsonWriter {
 
     @Override
     public void write(String str, int off, int len) {
-        int newcount = count + len;
-        if (newcount > buf.length) {
-            expandCapacity(newcount);
-        }
+        ensureCapacity(len);
         str.getChars(off, off + len, buf, count);
-        count = newcount;
+        count += len;
     }
 
     @Override
@@ -137,12 +127,8 @@ abstract public class AbstractJsonStringWriter extends JsonWriter {
             return;
         }
         int size = (i < 0) ? IOUtils.stringSize(-i) + 1 : IOUtils.stringSize(i);
+        ensureCapacity(size);
         int newcount = count + size;
-
-        if (newcount > buf.length) {
-            expandCapacity(newcount);
-        }
-
         IOUtils.getChars(i, newcount, buf);
         count = newcount;
     }
@@ -166,11 +152,8 @@ abstract public class AbstractJsonStringWriter extends JsonWriter {
 
         int size = (i < 0) ? IOUtils.stringSize(-i) + 1 : IOUtils.stringSize(i);
 
+        ensureCapacity(size);
         int newcount = count + size;
-        if (newcount > buf.length) {
-            expandCapacity(newcount);
-        }
-
         IOUtils.getChars(i, newcount, buf);
         count = newcount;
     }
@@ -183,6 +166,19 @@ abstract public class AbstractJsonStringWriter extends JsonWriter {
         return count;
     }
 
+    /**
+     * Make sure that the buffer has enough space for the characters that will be written. The subclass may flush the
+     * buffered characters here, so the caller must read the count after invoking this method.
+     *
+     * @param size The number of characters that will be written.
+     */
+    protected void ensureCapacity(int size) {
+        int newcount = count + size;
+        if (newcount > buf.length) {
+            expandCapacity(newcount);
+        }
+    }
+
     protected void expandCapacity(int minimumCapacity) {
         int newCapacity = (buf.length * 3) / 2 + 1;
 
@@ -0,0 +1,97 @@
+package com.firefly.utils.json.io;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The JSON reader parses the UTF-8 bytes between the position and the limit of the buffer directly.
+ * It reads the buffer by the absolute index, so the position of the buffer is not changed.
+ *
+ * @author Pengtao Qiu
+ */
+public class JsonByteBufferReader extends AbstractJsonReader {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+
+    public JsonByteBufferReader(ByteBuffer buffer) {
+        super(buffer.remaining());
+        this.buffer = buffer;
+        this.offset = buffer.position();
+    }
+
+    @Override
+    protected char charAt(int index) {
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    protected String newString(int start, int length) {
+        char[] chars = new char[length];
+        int len = decode(start, length, chars, 0);
+        return new String(chars, 0, len);
+    }
+
+    @Override
+    protected char[] newChars(int start, int length) {
+        char[] chars = new char[length];
+        int len = decode(start, length, chars, 0);
+        return len == length ? chars : Arrays.copyOf(chars, len);
+    }
+
+    @Override
+    protected void writeChars(JsonStringWriter writer, int start, int length) {
+        writer.ensureCapacity(length);
+        writer.count += decode(start, length, writer.buf, writer.count);
+    }
+
+    @Override
+    protected boolean regionMatches(int start, char[] chs) {
+        for (int i = 0; i < chs.length; i++) {
+            char ch = chs[i];
+            if (ch >= 0x80 || ch != buffer.get(offset + start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decode the UTF-8 bytes into the characters. The number of decoded characters is not greater than the number
+     * of bytes. The malformed byte is replaced with U+FFFD.
+     *
+     * @param start     The start index of the bytes.
+     * @param length    The length of the bytes.
+     * @param dst       The destination characters.
+     * @param dstOffset The offset of the destination characters.
+     * @return The number of decoded characters.
+     */
+    private int decode(int start, int length, char[] dst, int dstOffset) {
+        int i = offset + start;
+        int end = i + length;
+        int n = dstOffset;
+        while (i < end) {
+            int b = buffer.get(i++);
+            if (b >= 0) {
+                dst[n++] = (char) b;
+            } else if ((b >> 5) == -2 && i < end) {
+                dst[n++] = (char) (((b & 0x1F) << 6) | (buffer.get(i++) & 0x3F));
+            } else if ((b >> 4) == -2 && i + 1 < end) {
+                dst[n++] = (char) (((b & 0x0F) << 12)
+                        | ((buffer.get(i++) & 0x3F) << 6)
+                        | (buffer.get(i++) & 0x3F));
+            } else if ((b >> 3) == -2 && i + 2 < end) {
+                int codePoint = ((b & 0x07) << 18)
+                        | ((buffer.get(i++) & 0x3F) << 12)
+                        | ((buffer.get(i++) & 0x3F) << 6)
+                        | (buffer.get(i++) & 0x3F);
+                dst[n++] = Character.highSurrogate(codePoint);
+                dst[n++] = Character.lowSurrogate(codePoint);
+            } else {
+                dst[n++] = '\uFFFD';
+            }
+        }
+        return n - dstOffset;
+    }
+
+}
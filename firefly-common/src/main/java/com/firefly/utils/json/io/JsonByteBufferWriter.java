@@ -0,0 +1,125 @@
+package com.firefly.utils.json.io;
+
+import com.firefly.utils.json.exception.JsonException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+
+/**
+ * The JSON writer encodes the characters to UTF-8 bytes. When the character buffer is full,
+ * it encodes the characters into the pooled byte buffer and writes the bytes to the output stream,
+ * so the serialized JSON string is never built in the memory.
+ * <p>
+ * Closing the writer flushes the remaining bytes, but it does not close the output stream.
+ *
+ * @author Pengtao Qiu
+ */
+public class JsonByteBufferWriter extends JsonStringWriter {
+
+    private static final ThreadLocal<SoftReference<ByteBuffer>> byteBufLocal = new ThreadLocal<>();
+
+    private final OutputStream out;
+    private ByteBuffer byteBuf;
+
+    public JsonByteBufferWriter(OutputStream out) {
+        this.out = out;
+        SoftReference<ByteBuffer> ref = byteBufLocal.get();
+        if (ref != null) {
+            byteBuf = ref.get();
+            byteBufLocal.set(null);
+        }
+        if (byteBuf == null) {
+            byteBuf = ByteBuffer.allocate(8 * 1024);
+        }
+    }
+
+    @Override
+    protected void ensureCapacity(int size) {
+        if (count + size > buf.length) {
+            encode(false);
+            if (count + size > buf.length) {
+                expandCapacity(count + size);
+            }
+        }
+    }
+
+    /**
+     * Encode the buffered characters into the byte buffer.
+     *
+     * @param endOfInput If false, the trailing high surrogate is kept until the low surrogate is written.
+     */
+    private void encode(boolean endOfInput) {
+        int end = count;
+        if (!endOfInput && end > 0 && Character.isHighSurrogate(buf[end - 1])) {
+            end--;
+        }
+
+        for (int i = 0; i < end; i++) {
+            if (byteBuf.remaining() < 4) {
+                drain();
+            }
+
+            char c = buf[i];
+            if (c < 0x80) {
+                byteBuf.put((byte) c);
+            } else if (c < 0x800) {
+                byteBuf.put((byte) (0xC0 | (c >> 6)));
+                byteBuf.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(buf[i + 1])) {
+                int codePoint = Character.toCodePoint(c, buf[++i]);
+                byteBuf.put((byte) (0xF0 | (codePoint >> 18)));
+                byteBuf.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                byteBuf.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                byteBuf.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                byteBuf.put((byte) '?');
+            } else {
+                byteBuf.put((byte) (0xE0 | (c >> 12)));
+                byteBuf.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                byteBuf.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+
+        if (end < count) {
+            buf[0] = buf[end];
+            count = 1;
+        } else {
+            count = 0;
+        }
+    }
+
+    private void drain() {
+        try {
+            out.write(byteBuf.array(), byteBuf.arrayOffset(), byteBuf.position());
+            byteBuf.clear();
+        } catch (IOException e) {
+            throw new JsonException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        encode(true);
+        drain();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new JsonException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            encode(true);
+            drain();
+        } finally {
+            byteBuf.clear();
+            byteBufLocal.set(new SoftReference<>(byteBuf));
+            super.close();
+        }
+    }
+
+}
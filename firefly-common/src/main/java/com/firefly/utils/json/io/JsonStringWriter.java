@@ -176,10 +176,7 @@ public class JsonStringWriter extends AbstractJsonStringWriter {
     @Override
     public void writeStringWithQuote(String value) {
         char[] escapedValue = escapeJsonString(value);
-        int newCount = count + escapedValue.length + 2;
-        if (newCount > buf.length) {
-            expandCapacity(newCount);
-        }
+        ensureCapacity(escapedValue.length + 2);
         writeCharsWithQuote(escapedValue);
     }
 
@@ -187,6 +184,7 @@ public class JsonStringWriter extends AbstractJsonStringWriter {
     public void writeStringArray(String[] array) {
         int arrayLen = array.length;
         if (arrayLen == 0) {
+            ensureCapacity(2);
             buf[count++] = ARRAY_PRE;
             buf[count++] = ARRAY_SUF;
             return;
@@ -202,10 +200,7 @@ public class JsonStringWriter extends AbstractJsonStringWriter {
             totalSize += escapedValue.length + 2 + 1;
         }
 
-        int newCount = count + totalSize;
-        if (newCount > buf.length) {
-            expandCapacity(newCount);
-        }
+        ensureCapacity(totalSize);
 
         buf[count++] = ARRAY_PRE;
         for (int i = 0; ; ++i) {
@@ -221,16 +216,14 @@ public class JsonStringWriter extends AbstractJsonStringWriter {
     private <T extends Number> void writeNumberArray(T[] array, int elementMaxLen, Action1<T> copyToChars) {
         int arrayLen = array.length;
         if (arrayLen == 0) {
+            ensureCapacity(2);
             buf[count++] = ARRAY_PRE;
             buf[count++] = ARRAY_SUF;
             return;
         }
 
         int iMax = arrayLen - 1;
-        int newCount = count + (elementMaxLen + 1) * arrayLen + 2 - 1;
-        if (newCount > buf.length) {
-            expandCapacity(newCount);
-        }
+        ensureCapacity((elementMaxLen + 1) * arrayLen + 2 - 1);
 
         buf[count++] = ARRAY_PRE;
         for (int i = 0; ; i++) {
@@ -309,15 +302,13 @@ public class JsonStringWriter extends AbstractJsonStringWriter {
     public void writeBooleanArray(Boolean[] array) {
         int arrayLen = array.length;
         if (arrayLen == 0) {
+            ensureCapacity(2);
             buf[count++] = ARRAY_PRE;
             buf[count++] = ARRAY_SUF;
             return;
         }
         int iMax = arrayLen - 1;
-        int newCount = count + (5 + 1) * arrayLen + 2 - 1;
-        if (newCount > buf.length) {
-            expandCapacity(newCount);
-        }
+        ensureCapacity((5 + 1) * arrayLen + 2 - 1);
 
         buf[count++] = ARRAY_PRE;
         for (int i = 0; ; i++) {
@@ -0,0 +1,58 @@
+package com.firefly.utils.json.parser;
+
+import com.firefly.utils.json.JsonReader;
+import com.firefly.utils.json.compiler.ObjectCodecCompiler;
+import com.firefly.utils.json.compiler.ObjectCodecCompiler.PropertyReader;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * The object parser uses the generated property reader. If the bean type can not be compiled,
+ * it uses the reflective property access of the object parser.
+ *
+ * @author Pengtao Qiu
+ */
+public class CompiledObjectParser extends ObjectParser {
+
+    private Class<?> beanClass;
+    private PropertyReader propertyReader;
+
+    @Override
+    public void init(Class<?> clazz, Type type) {
+        super.init(clazz, type);
+        beanClass = clazz;
+        propertyReader = ObjectCodecCompiler.createPropertyReader(clazz, parserMetaInfos);
+    }
+
+    public boolean isCompiled() {
+        return propertyReader != null;
+    }
+
+    @Override
+    protected Object newInstance(Class<?> clazz) {
+        if (propertyReader != null && clazz == beanClass) {
+            return propertyReader.newInstance();
+        } else {
+            return super.newInstance(clazz);
+        }
+    }
+
+    @Override
+    protected int indexOf(char[] field) {
+        if (propertyReader != null) {
+            return propertyReader.indexOf(field);
+        } else {
+            return super.indexOf(field);
+        }
+    }
+
+    @Override
+    protected void invoke(Object obj, int index, JsonReader reader) throws IOException {
+        if (propertyReader != null) {
+            propertyReader.read(obj, index, reader);
+        } else {
+            super.invoke(obj, index, reader);
+        }
+    }
+}
@@ -7,15 +7,16 @@ import com.firefly.utils.json.compiler.DecodeCompiler;
 import com.firefly.utils.json.exception.JsonException;
 import com.firefly.utils.json.support.ParserMetaInfo;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 
 public class ObjectParser implements Parser {
 
-    private ParserMetaInfo[] parserMetaInfos;
+    protected ParserMetaInfo[] parserMetaInfos;
     private int max;
-    private Map<String, ParserMetaInfo> map;
+    private Map<String, Integer> map;
     private boolean useMap;
 
     public void init(Class<?> clazz, Type type) {
@@ -23,27 +24,22 @@ public class ObjectParser implements Parser {
         max = parserMetaInfos.length - 1;
         if (max >= 8) {
             map = new HashMap<>();
-            for (ParserMetaInfo parserMetaInfo : parserMetaInfos) {
-                map.put(parserMetaInfo.getPropertyNameString(), parserMetaInfo);
+            for (int i = 0; i < parserMetaInfos.length; i++) {
+                map.put(parserMetaInfos[i].getPropertyNameString(), i);
             }
             useMap = true;
         }
     }
 
     @Override
-    public Object convertTo(JsonReader reader, Class<?> clazz) {
+    public Object convertTo(JsonReader reader, Class<?> clazz) throws IOException {
         if (reader.isNull())
             return null;
 
         if (!reader.isObject())
             throw new JsonException("json string is not object format");
 
-        Object obj;
-        try {
-            obj = clazz.newInstance();
-        } catch (Throwable e) {
-            throw new CommonRuntimeException(e);
-        }
+        Object obj = newInstance(clazz);
 
         if (reader.isEmptyObject())
             return obj;
@@ -55,11 +51,11 @@ public class ObjectParser implements Parser {
                 throw new JsonException("missing ':'");
 
             if (field == null) { // the same order，skip
-                parser.invoke(obj, reader);
+                invoke(obj, i, reader);
             } else {
-                ParserMetaInfo np = find(field);
-                if (np != null)
-                    np.invoke(obj, reader);
+                int index = indexOf(field);
+                if (index >= 0)
+                    invoke(obj, index, reader);
                 else
                     reader.skipValue();
             }
@@ -87,9 +83,9 @@ public class ObjectParser implements Parser {
             if (!reader.isColon())
                 throw new JsonException("missing ':'");
 
-            ParserMetaInfo np = find(field);
-            if (np != null)
-                np.invoke(obj, reader);
+            int index = indexOf(field);
+            if (index >= 0)
+                invoke(obj, index, reader);
             else
                 reader.skipValue();
 
@@ -103,16 +99,29 @@ public class ObjectParser implements Parser {
         }
     }
 
-    private ParserMetaInfo find(char[] field) {
+    protected Object newInstance(Class<?> clazz) {
+        try {
+            return clazz.newInstance();
+        } catch (Throwable e) {
+            throw new CommonRuntimeException(e);
+        }
+    }
+
+    protected int indexOf(char[] field) {
         if (useMap) {
-            return map.get(new String(field));
+            Integer index = map.get(new String(field));
+            return index != null ? index : -1;
         } else {
-            for (ParserMetaInfo parserMetaInfo : parserMetaInfos) {
-                if (parserMetaInfo.equals(field))
-                    return parserMetaInfo;
+            for (int i = 0; i < parserMetaInfos.length; i++) {
+                if (parserMetaInfos[i].equals(field))
+                    return i;
             }
         }
-        return null;
+        return -1;
+    }
+
+    protected void invoke(Object obj, int index, JsonReader reader) throws IOException {
+        parserMetaInfos[index].invoke(obj, reader);
     }
 
 }
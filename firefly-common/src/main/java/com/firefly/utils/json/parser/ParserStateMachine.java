@@ -5,6 +5,7 @@ import com.firefly.utils.function.Func2;
 import com.firefly.utils.json.JsonReader;
 import com.firefly.utils.json.Parser;
 import com.firefly.utils.json.annotation.DateFormat;
+import com.firefly.utils.json.compiler.ObjectCodecCompiler;
 import com.firefly.utils.json.exception.JsonException;
 import com.firefly.utils.json.support.ClassType;
 
@@ -106,7 +107,7 @@ public class ParserStateMachine {
     }
 
     private static Parser createObjectParser(Class<?> clazz, Type type) {
-        ObjectParser objectParser = new ObjectParser();
+        ObjectParser objectParser = ObjectCodecCompiler.isEnabled() ? new CompiledObjectParser() : new ObjectParser();
         PARSER_MAP.put(type.getTypeName(), objectParser);
         objectParser.init(clazz, type);
         return objectParser;
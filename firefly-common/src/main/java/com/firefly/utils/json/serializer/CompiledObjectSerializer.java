@@ -0,0 +1,66 @@
+package com.firefly.utils.json.serializer;
+
+import com.firefly.utils.json.JsonWriter;
+import com.firefly.utils.json.Serializer;
+import com.firefly.utils.json.compiler.EncodeCompiler;
+import com.firefly.utils.json.compiler.ObjectCodecCompiler;
+import com.firefly.utils.json.compiler.ObjectCodecCompiler.PropertyWriter;
+import com.firefly.utils.json.support.SerializerMetaInfo;
+
+import java.io.IOException;
+
+import static com.firefly.utils.json.JsonStringSymbol.OBJ_PRE;
+import static com.firefly.utils.json.JsonStringSymbol.OBJ_SUF;
+
+/**
+ * The object serializer uses the generated property writer. If the bean type can not be compiled,
+ * it uses the reflective property access.
+ *
+ * @author Pengtao Qiu
+ */
+public class CompiledObjectSerializer implements Serializer {
+
+    private final boolean circularReferenceCheck;
+    private SerializerMetaInfo[] serializerMetaInfos;
+    private PropertyWriter propertyWriter;
+
+    public CompiledObjectSerializer(boolean circularReferenceCheck) {
+        this.circularReferenceCheck = circularReferenceCheck;
+    }
+
+    public void init(Class<?> clazz) {
+        serializerMetaInfos = EncodeCompiler.compile(clazz);
+        propertyWriter = ObjectCodecCompiler.createPropertyWriter(clazz, serializerMetaInfos);
+    }
+
+    public boolean isCompiled() {
+        return propertyWriter != null;
+    }
+
+    @Override
+    public void convertTo(JsonWriter writer, Object obj) throws IOException {
+        if (circularReferenceCheck) {
+            if (writer.existRef(obj)) { // prevent circular reference
+                writer.writeNull();
+                return;
+            }
+            writer.pushRef(obj);
+        }
+
+        writer.append(OBJ_PRE);
+        if (propertyWriter != null) {
+            propertyWriter.write(writer, obj);
+        } else {
+            for (SerializerMetaInfo metaInfo : serializerMetaInfos) {
+                writer.write(metaInfo.getPropertyName());
+                metaInfo.toJson(obj, writer);
+            }
+        }
+        writer.append(OBJ_SUF);
+
+        if (circularReferenceCheck) {
+            writer.popRef();
+        }
+    }
+
+}
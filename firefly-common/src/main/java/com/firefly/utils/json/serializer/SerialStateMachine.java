@@ -6,6 +6,7 @@ import com.firefly.utils.function.Func1;
 import com.firefly.utils.json.JsonWriter;
 import com.firefly.utils.json.Serializer;
 import com.firefly.utils.json.annotation.DateFormat;
+import com.firefly.utils.json.compiler.ObjectCodecCompiler;
 import com.firefly.utils.json.exception.JsonException;
 import com.firefly.utils.json.support.ClassType;
 
@@ -135,6 +136,9 @@ abstract public class SerialStateMachine {
     }
 
     private static Serializer createObjectSerializer(Class<?> clazz) {
+        if (ObjectCodecCompiler.isEnabled()) {
+            return createCompiledObjectSerializer(clazz, true);
+        }
         ObjectSerializer objectSerializer = new ObjectSerializer();
         SERIAL_MAP.put(clazz, objectSerializer);
         objectSerializer.init(clazz);
@@ -142,12 +146,22 @@ abstract public class SerialStateMachine {
     }
 
     private static Serializer createObjectNoCheckSerializer(Class<?> clazz) {
+        if (ObjectCodecCompiler.isEnabled()) {
+            return createCompiledObjectSerializer(clazz, false);
+        }
         ObjectNoCheckSerializer objectNoCheckSerializer = new ObjectNoCheckSerializer();
         SERIAL_MAP.put(clazz, objectNoCheckSerializer);
         objectNoCheckSerializer.init(clazz);
         return objectNoCheckSerializer;
     }
 
+    private static Serializer createCompiledObjectSerializer(Class<?> clazz, boolean circularReferenceCheck) {
+        CompiledObjectSerializer compiledObjectSerializer = new CompiledObjectSerializer(circularReferenceCheck);
+        SERIAL_MAP.put(clazz, compiledObjectSerializer);
+        compiledObjectSerializer.init(clazz);
+        return compiledObjectSerializer;
+    }
+
     private static Serializer createTimeSerializer(Class<?> clazz, DateFormat dateFormat) {
         if ((clazz == Date.class || Date.class.isAssignableFrom(clazz))) {
             if (dateFormat == null) {
@@ -3,31 +3,61 @@ package com.firefly.utils.lang.pool;
 import com.firefly.utils.concurrent.Atomics;
 import com.firefly.utils.concurrent.Promise;
 import com.firefly.utils.concurrent.ReentrantLocker;
+import com.firefly.utils.concurrent.Scheduler;
+import com.firefly.utils.concurrent.Schedulers;
 import com.firefly.utils.exception.CommonRuntimeException;
 import com.firefly.utils.function.Action0;
+import com.firefly.utils.function.Action1;
 import com.firefly.utils.lang.AbstractLifeCycle;
 import com.firefly.utils.lang.LeakDetector;
 
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * The bounded pool does not block any thread when it is exhausted. The caller that can not take an object
+ * is queued as a waiter, the released object is handed off to the waiter directly,
+ * and the waiter fails with a TimeoutException when the timeout task of the scheduler runs before the handoff.
+ * <p>
+ * By default, the pools share one scheduler of a daemon thread. The caller can pass its own scheduler,
+ * and the pool does not stop it.
+ *
  * @author Pengtao Qiu
  */
 public class BoundedAsynchronousPool<T> extends AbstractLifeCycle implements AsynchronousPool<T> {
 
-    public static final int defaultPoolServiceThreadNumber = Integer.getInteger("com.firefly.utils.lang.pool.asynchronous.number", Runtime.getRuntime().availableProcessors());
+    /**
+     * The order of the waiters that receive the released objects.
+     */
+    public enum HandoffMode {
+        /**
+         * The released object is handed off to the waiter that has waited for the longest time.
+         */
+        FIFO,
+        /**
+         * The released object is handed off to the latest waiter.
+         * The waiters that have waited for a long time are likely to time out when the pool is overloaded.
+         */
+        LIFO
+    }
+
+    private static final Scheduler sharedScheduler = createSharedScheduler();
 
     protected final int maxSize;
     protected final AtomicInteger createdObjectSize = new AtomicInteger(0);
     protected final long timeout;
     protected final BlockingQueue<PooledObject<T>> queue;
+    protected final ConcurrentLinkedDeque<Waiter<T>> waiters = new ConcurrentLinkedDeque<>();
+    protected final Scheduler scheduler;
     protected final ExecutorService service;
     protected final ObjectFactory<T> objectFactory;
     protected final Validator<T> validator;
     protected final Dispose<T> dispose;
     protected final LeakDetector<PooledObject<T>> leakDetector;
     protected final ReentrantLocker locker = new ReentrantLocker();
+    protected volatile HandoffMode handoffMode = HandoffMode.FIFO;
+    protected volatile Action1<Long> waitTimeListener;
 
     public BoundedAsynchronousPool(ObjectFactory<T> objectFactory, Validator<T> validator, Dispose<T> dispose) {
         this(32, objectFactory, validator, dispose);
@@ -42,17 +72,48 @@ public class BoundedAsynchronousPool<T> extends AbstractLifeCycle implements Asy
                                    ObjectFactory<T> objectFactory, Validator<T> validator, Dispose<T> dispose,
                                    Action0 noLeakCallback) {
         this(maxSize, timeout,
-                Executors.newFixedThreadPool(defaultPoolServiceThreadNumber, r -> new Thread(r, "firefly bounded asynchronous pool")),
+                sharedScheduler,
                 objectFactory, validator, dispose,
                 new LeakDetector<>(noLeakCallback));
     }
 
+    /**
+     * Create the pool with the scheduler of the waiter timeout tasks. The scheduler can be shared by many pools,
+     * and the caller stops it after the pools stop.
+     */
+    public BoundedAsynchronousPool(int maxSize, long timeout,
+                                   Scheduler scheduler,
+                                   ObjectFactory<T> objectFactory, Validator<T> validator, Dispose<T> dispose,
+                                   LeakDetector<PooledObject<T>> leakDetector) {
+        this(maxSize, timeout, scheduler, null, objectFactory, validator, dispose, leakDetector);
+    }
+
+    /**
+     * Create the pool with an executor service. The waiters do not block any thread, so the executor service
+     * only schedules the timeout tasks if it is a ScheduledExecutorService. Otherwise, the shared scheduler is used.
+     * The executor service is shut down when the pool stops.
+     *
+     * @deprecated Use the constructor with a {@link Scheduler}.
+     */
+    @Deprecated
     public BoundedAsynchronousPool(int maxSize, long timeout,
                                    ExecutorService service,
                                    ObjectFactory<T> objectFactory, Validator<T> validator, Dispose<T> dispose,
                                    LeakDetector<PooledObject<T>> leakDetector) {
+        this(maxSize, timeout,
+                service instanceof ScheduledExecutorService
+                        ? new Schedulers.SchedulerService((ScheduledExecutorService) service)
+                        : sharedScheduler,
+                service, objectFactory, validator, dispose, leakDetector);
+    }
+
+    private BoundedAsynchronousPool(int maxSize, long timeout,
+                                    Scheduler scheduler, ExecutorService service,
+                                    ObjectFactory<T> objectFactory, Validator<T> validator, Dispose<T> dispose,
+                                    LeakDetector<PooledObject<T>> leakDetector) {
         this.maxSize = maxSize;
         this.timeout = timeout;
+        this.scheduler = scheduler;
         this.service = service;
         this.objectFactory = objectFactory;
         this.validator = validator;
@@ -62,23 +123,69 @@ public class BoundedAsynchronousPool<T> extends AbstractLifeCycle implements Asy
         start();
     }
 
+    private static Scheduler createSharedScheduler() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "firefly bounded asynchronous pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return new Schedulers.SchedulerService(executor);
+    }
+
+    protected static class Waiter<T> {
+        protected final Promise.Completable<PooledObject<T>> completable;
+        protected final long startTime;
+        protected final AtomicBoolean done = new AtomicBoolean(false);
+        protected volatile Scheduler.Future timeoutFuture;
+
+        protected Waiter(Promise.Completable<PooledObject<T>> completable) {
+            this.completable = completable;
+            this.startTime = System.nanoTime();
+        }
+
+        /**
+         * Only one of the handoff and the timeout task can complete the waiter.
+         *
+         * @return If return true, the current thread completes the waiter.
+         */
+        protected boolean prepareComplete() {
+            return done.compareAndSet(false, true);
+        }
+    }
+
     protected void createObject(Promise.Completable<PooledObject<T>> completable) {
+        Atomics.getAndIncrement(createdObjectSize, maxSize);
+        createNewObject(completable);
+    }
+
+    /**
+     * Create a new object in the capacity that has been counted in the created object size.
+     * If the creation fails, the capacity is handed to the next waiter.
+     *
+     * @param completable The caller that receives the new object.
+     */
+    private void createNewObject(Promise.Completable<PooledObject<T>> completable) {
         try {
-            Atomics.getAndIncrement(createdObjectSize, maxSize);
             CompletableFuture<PooledObject<T>> tmp = objectFactory.createNew(this);
             tmp.thenAccept(completable::succeeded).exceptionally(e0 -> {
-                Atomics.getAndDecrement(createdObjectSize, 0);
+                releaseCapacity();
                 completable.failed(e0);
                 return null;
             });
         } catch (Exception e) {
             System.err.println(e.getMessage());
-            Atomics.getAndDecrement(createdObjectSize, 0);
+            releaseCapacity();
+            completable.failed(e);
         }
     }
 
     protected void destroyObject(PooledObject<T> pooledObject) {
-        Atomics.getAndDecrement(createdObjectSize, 0);
+        disposeObject(pooledObject);
+        releaseCapacity();
+    }
+
+    private void disposeObject(PooledObject<T> pooledObject) {
         try {
             dispose.destroy(pooledObject);
         } catch (Exception e) {
@@ -86,6 +193,30 @@ public class BoundedAsynchronousPool<T> extends AbstractLifeCycle implements Asy
         }
     }
 
+    private void releaseCapacity() {
+        Atomics.getAndDecrement(createdObjectSize, 0);
+        createObjectForWaiter();
+    }
+
+    /**
+     * The waiters are queued when the pool has created the max number of objects.
+     * If an object is destroyed or fails to create, the next waiter creates a new object.
+     */
+    private void createObjectForWaiter() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        locker.lock(() -> {
+            if (maxSize - getCreatedObjectSize() > 0) {
+                Waiter<T> waiter = pollWaiter();
+                if (waiter != null) {
+                    takeWaiter(waiter);
+                    createObject(waiter.completable);
+                }
+            }
+        });
+    }
+
     @Override
     public CompletableFuture<PooledObject<T>> take() {
         Promise.Completable<PooledObject<T>> completable = new Promise.Completable<>();
@@ -94,27 +225,79 @@ public class BoundedAsynchronousPool<T> extends AbstractLifeCycle implements Asy
             checkObjectFromPool(pooledObject, completable);
             return completable;
         } else { // the queue is empty
-            return locker.lock(() -> {
+            boolean created = locker.lock(() -> {
                 int availableSize = maxSize - getCreatedObjectSize();
                 if (availableSize > 0) {
                     createObject(completable);
-                    return completable;
+                    return true;
                 } else {
-                    service.execute(() -> {
-                        try {
-                            PooledObject<T> object = queue.poll(timeout, TimeUnit.MILLISECONDS);
-                            if (object != null) {
-                                checkObjectFromPool(object, completable);
-                            } else {
-                                completable.failed(new TimeoutException("take pooled object timeout"));
-                            }
-                        } catch (InterruptedException e) {
-                            completable.failed(e);
-                        }
-                    });
-                    return completable;
+                    return false;
                 }
             });
+            if (!created) {
+                addWaiter(completable);
+            }
+            return completable;
+        }
+    }
+
+    private void addWaiter(Promise.Completable<PooledObject<T>> completable) {
+        Waiter<T> waiter = new Waiter<>(completable);
+        waiter.timeoutFuture = scheduler.schedule(() -> {
+            if (waiter.prepareComplete()) {
+                waiters.remove(waiter);
+                completable.failed(new TimeoutException("take pooled object timeout"));
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+        waiters.offer(waiter);
+        // the object may be released or destroyed before the waiter is queued
+        handoff();
+        createObjectForWaiter();
+    }
+
+    private Waiter<T> pollWaiter() {
+        Waiter<T> waiter;
+        switch (handoffMode) {
+            case LIFO:
+                while ((waiter = waiters.pollLast()) != null) {
+                    if (waiter.prepareComplete()) {
+                        return waiter;
+                    }
+                }
+                return null;
+            default:
+                while ((waiter = waiters.pollFirst()) != null) {
+                    if (waiter.prepareComplete()) {
+                        return waiter;
+                    }
+                }
+                return null;
+        }
+    }
+
+    private void handoff() {
+        while (!waiters.isEmpty()) {
+            PooledObject<T> pooledObject = queue.poll();
+            if (pooledObject == null) {
+                return;
+            }
+
+            Waiter<T> waiter = pollWaiter();
+            if (waiter != null) {
+                takeWaiter(waiter);
+                checkObjectFromPool(pooledObject, waiter.completable);
+            } else if (!queue.offer(pooledObject)) {
+                pooledObject.prepareTake();
+                destroyObject(pooledObject);
+            }
+        }
+    }
+
+    private void takeWaiter(Waiter<T> waiter) {
+        waiter.timeoutFuture.cancel();
+        Action1<Long> listener = waitTimeListener;
+        if (listener != null) {
+            listener.call(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waiter.startTime));
         }
     }
 
@@ -124,8 +307,9 @@ public class BoundedAsynchronousPool<T> extends AbstractLifeCycle implements Asy
                 pooledObject.setPhantomReference(getLeakDetector().register(pooledObject, pooledObject.getLeakCallback()));
                 completable.succeeded(pooledObject);
             } else {
-                destroyObject(pooledObject);
-                createObject(completable);
+                // the new object replaces the invalid object in the same capacity
+                disposeObject(pooledObject);
+                createNewObject(completable);
             }
         } else {
             completable.failed(new CommonRuntimeException("the pooled object has been used"));
@@ -141,19 +325,12 @@ public class BoundedAsynchronousPool<T> extends AbstractLifeCycle implements Asy
             return;
         }
 
+        pooledObject.clear();
         if (queue.offer(pooledObject)) {
-            pooledObject.clear();
+            handoff();
         } else {
             // the queue is full
-            service.execute(() -> {
-                try {
-                    if (!queue.offer(pooledObject, timeout, TimeUnit.MILLISECONDS)) {
-                        destroyObject(pooledObject);
-                    }
-                } catch (InterruptedException e) {
-                    destroyObject(pooledObject);
-                }
-            });
+            destroyObject(pooledObject);
         }
     }
 
@@ -192,6 +369,42 @@ public class BoundedAsynchronousPool<T> extends AbstractLifeCycle implements Asy
         return leakDetector;
     }
 
+    /**
+     * Get the number of the callers that wait for the released objects.
+     *
+     * @return The number of the callers that wait for the released objects.
+     */
+    public int getWaitingSize() {
+        return waiters.size();
+    }
+
+    public HandoffMode getHandoffMode() {
+        return handoffMode;
+    }
+
+    /**
+     * Set the order of the waiters that receive the released objects. The default mode is FIFO.
+     *
+     * @param handoffMode The order of the waiters that receive the released objects.
+     */
+    public void setHandoffMode(HandoffMode handoffMode) {
+        this.handoffMode = handoffMode;
+    }
+
+    public Action1<Long> getWaitTimeListener() {
+        return waitTimeListener;
+    }
+
+    /**
+     * Set the listener that receives the time (in milliseconds) that the waiter waits for the released object.
+     * It is usually used to update a histogram.
+     *
+     * @param waitTimeListener The wait time listener.
+     */
+    public void setWaitTimeListener(Action1<Long> waitTimeListener) {
+        this.waitTimeListener = waitTimeListener;
+    }
+
     @Override
     protected void init() {
     }
@@ -199,13 +412,22 @@ public class BoundedAsynchronousPool<T> extends AbstractLifeCycle implements Asy
     @Override
     protected void destroy() {
         try {
+            Waiter<T> waiter;
+            while ((waiter = waiters.poll()) != null) {
+                if (waiter.prepareComplete()) {
+                    waiter.timeoutFuture.cancel();
+                    waiter.completable.failed(new CommonRuntimeException("the pool has been stopped"));
+                }
+            }
             PooledObject<T> pooledObject;
             while ((pooledObject = queue.poll()) != null) {
                 pooledObject.prepareTake();
                 destroyObject(pooledObject);
             }
             leakDetector.stop();
-            service.shutdown();
+            if (service != null) {
+                service.shutdown();
+            }
         } catch (Exception e) {
             System.err.println(e.getMessage());
         }
@@ -0,0 +1,430 @@
+package com.firefly.utils.time;
+
+import com.firefly.utils.concurrent.Scheduler;
+import com.firefly.utils.lang.AbstractLifeCycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The hierarchical timing wheel is a scheduler for a large number of timeout tasks, such as the idle timeout of the connections.
+ * <p>
+ * The wheel of the level 0 has 2^wheelBits slots and every slot is a tick. The slot of the level n covers
+ * all slots of the level n - 1. When the wheel of the level n - 1 turns around,
+ * the tasks of the current slot of the level n are moved to the lower levels.
+ * Adding and cancelling a task are O(1). The new tasks and the cancelled tasks are queued,
+ * and only the timer thread changes the wheels.
+ * <p>
+ * The timer thread computes the deadline of every tick from the start time, so the wheel does not drift.
+ * It skips the empty ticks and parks until the next non-empty slot, so an idle wheel does not wake up every tick.
+ * The expired tasks of a tick are dispatched to the executor in batches.
+ * <p>
+ * When the wheel stops, the pending tasks are kept and they are scheduled again when the wheel restarts.
+ *
+ * @author Pengtao Qiu
+ */
+public class HierarchicalTimingWheel extends AbstractLifeCycle implements Scheduler {
+
+    private static final int WAITING = 0;
+    private static final int RUNNING = 1;
+    private static final int CANCELLED = 2;
+    private static final int DONE = 3;
+
+    private final long tickNanos;
+    private final int wheelBits;
+    private final long wheelMask;
+    private final Bucket[][] wheels;
+    private final long maxTicks;
+    private final int batchSize;
+    private final Executor executor;
+    private volatile ExecutorService ownedExecutor;
+    private final ConcurrentLinkedQueue<TimerTask> newTasks = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<TimerTask> cancelledTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger taskSize = new AtomicInteger();
+
+    private volatile long startTime;
+    private volatile Thread timerThread;
+    private volatile boolean idle;
+    private long currentTick;
+
+    public HierarchicalTimingWheel() {
+        this(10, TimeUnit.MILLISECONDS, 8, 4);
+    }
+
+    public HierarchicalTimingWheel(long tick, TimeUnit unit, int wheelBits, int levels) {
+        this(tick, unit, wheelBits, levels, null, 256);
+    }
+
+    /**
+     * Create the hierarchical timing wheel.
+     *
+     * @param tick      The time of a tick. It is the accuracy of the timer.
+     * @param unit      The time unit of the tick.
+     * @param wheelBits A wheel has 2^wheelBits slots.
+     * @param levels    The number of the wheels. The timer covers tick * 2^(wheelBits * levels) without rescheduling.
+     * @param executor  The executor runs the expired tasks. If it is null, the timer creates a thread pool when it starts.
+     * @param batchSize The max number of the expired tasks that run in a task of the executor.
+     */
+    public HierarchicalTimingWheel(long tick, TimeUnit unit, int wheelBits, int levels,
+                                   Executor executor, int batchSize) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("the tick must be greater than 0");
+        }
+        if (wheelBits <= 0 || levels <= 0 || wheelBits * levels > 62) {
+            throw new IllegalArgumentException("the wheel size is illegal");
+        }
+        this.tickNanos = unit.toNanos(tick);
+        this.wheelBits = wheelBits;
+        this.wheelMask = (1L << wheelBits) - 1;
+        this.maxTicks = 1L << (wheelBits * levels);
+        this.batchSize = Math.max(batchSize, 1);
+        this.wheels = new Bucket[levels][1 << wheelBits];
+        for (Bucket[] wheel : wheels) {
+            for (int i = 0; i < wheel.length; i++) {
+                wheel[i] = new Bucket();
+            }
+        }
+        this.executor = executor;
+    }
+
+    @Override
+    public Future schedule(Runnable task, long delay, TimeUnit unit) {
+        return add(new TimerTask(task, unit.toNanos(delay), 0L, false));
+    }
+
+    @Override
+    public Future scheduleWithFixedDelay(Runnable task, long initialDelay, long delay, TimeUnit unit) {
+        return add(new TimerTask(task, unit.toNanos(initialDelay), unit.toNanos(delay), false));
+    }
+
+    @Override
+    public Future scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        return add(new TimerTask(task, unit.toNanos(initialDelay), unit.toNanos(period), true));
+    }
+
+    /**
+     * Get the number of the tasks that wait to run.
+     *
+     * @return The number of the tasks that wait to run.
+     */
+    public int getTaskSize() {
+        return taskSize.get();
+    }
+
+    private TimerTask add(TimerTask task) {
+        start();
+        taskSize.incrementAndGet();
+        offerNewTask(task);
+        return task;
+    }
+
+    private void offerNewTask(TimerTask task) {
+        newTasks.offer(task);
+        if (idle) {
+            LockSupport.unpark(timerThread);
+        }
+    }
+
+    private class TimerThread implements Runnable {
+
+        // the lists are used by the timer thread only
+        private final List<TimerTask> expiredTasks = new ArrayList<>();
+        private final List<TimerTask> cascadedTasks = new ArrayList<>();
+
+        @Override
+        public void run() {
+            while (start) {
+                long now = System.nanoTime();
+                long nowTick = (now - startTime) / tickNanos;
+                if (currentTick < nowTick) {
+                    // the empty ticks are skipped, and the timer catches up the non-empty ticks one by one when it is late
+                    long tick = Math.min(nextNonEmptyTick(), nowTick);
+                    if (tick - 1 > currentTick) {
+                        currentTick = tick - 1;
+                    }
+                    currentTick++;
+                    removeCancelledTasks();
+                    cascade(expiredTasks, cascadedTasks);
+                    addNewTasks(expiredTasks);
+                    wheels[0][(int) (currentTick & wheelMask)].transferTo(expiredTasks);
+                    dispatch(expiredTasks);
+                    expiredTasks.clear();
+                } else if (newTasks.isEmpty()) {
+                    removeCancelledTasks();
+                    idle = true;
+                    // the new task may be added before the idle flag is set
+                    if (newTasks.isEmpty()) {
+                        long nextTick = nextNonEmptyTick();
+                        if (nextTick == Long.MAX_VALUE) {
+                            LockSupport.park(this);
+                        } else {
+                            LockSupport.parkNanos(this, startTime + nextTick * tickNanos - now);
+                        }
+                    }
+                    idle = false;
+                } else {
+                    LockSupport.parkNanos(this, startTime + (currentTick + 1) * tickNanos - now);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the next tick that expires the tasks of the level 0 or moves the tasks from a higher level.
+     *
+     * @return The next non-empty tick or Long.MAX_VALUE if the wheels are empty.
+     */
+    private long nextNonEmptyTick() {
+        long nextTick = Long.MAX_VALUE;
+        int slots = 1 << wheelBits;
+        for (int level = 0; level < wheels.length; level++) {
+            int shift = level * wheelBits;
+            for (int i = 1; i <= slots; i++) {
+                long slot = (currentTick >>> shift) + i;
+                if (!wheels[level][(int) (slot & wheelMask)].isEmpty()) {
+                    nextTick = Math.min(nextTick, slot << shift);
+                    break;
+                }
+            }
+            if (nextTick == currentTick + 1) {
+                break;
+            }
+        }
+        return nextTick;
+    }
+
+    private void removeCancelledTasks() {
+        TimerTask task;
+        while ((task = cancelledTasks.poll()) != null) {
+            if (task.bucket != null) {
+                task.bucket.remove(task);
+            }
+        }
+    }
+
+    private void cascade(List<TimerTask> expiredTasks, List<TimerTask> cascadedTasks) {
+        for (int level = wheels.length - 1; level > 0; level--) {
+            int shift = level * wheelBits;
+            if ((currentTick & ((1L << shift) - 1)) == 0) {
+                wheels[level][(int) ((currentTick >>> shift) & wheelMask)].transferTo(cascadedTasks);
+                cascadedTasks.forEach(task -> place(task, expiredTasks));
+                cascadedTasks.clear();
+            }
+        }
+    }
+
+    private void addNewTasks(List<TimerTask> expiredTasks) {
+        TimerTask task;
+        while ((task = newTasks.poll()) != null) {
+            if (task.state.get() == WAITING) {
+                task.deadlineTick = toTick(task.deadline);
+                place(task, expiredTasks);
+            }
+        }
+    }
+
+    private long toTick(long deadline) {
+        long elapsed = deadline - startTime;
+        return elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+    }
+
+    private void place(TimerTask task, List<TimerTask> expiredTasks) {
+        long delta = task.deadlineTick - currentTick;
+        if (delta <= 0) {
+            expiredTasks.add(task);
+            return;
+        }
+
+        // the task is moved to the lower level when the slot of the last level expires
+        long tick = delta < maxTicks ? task.deadlineTick : currentTick + maxTicks - 1;
+        long ticks = tick - currentTick;
+        int level = 0;
+        while (level < wheels.length - 1 && ticks >= (1L << ((level + 1) * wheelBits))) {
+            level++;
+        }
+        wheels[level][(int) ((tick >>> (level * wheelBits)) & wheelMask)].add(task);
+    }
+
+    private void dispatch(List<TimerTask> expiredTasks) {
+        Executor e = executor != null ? executor : ownedExecutor;
+        for (int i = 0; i < expiredTasks.size(); i += batchSize) {
+            List<TimerTask> batch = new ArrayList<>(expiredTasks.subList(i, Math.min(i + batchSize, expiredTasks.size())));
+            try {
+                e.execute(() -> batch.forEach(TimerTask::run));
+            } catch (RejectedExecutionException x) {
+                System.err.println("the timing wheel executor rejects " + batch.size() + " expired tasks");
+                x.printStackTrace();
+            }
+        }
+    }
+
+    private class TimerTask implements Future {
+        private final Runnable task;
+        private final long period;
+        private final boolean fixedRate;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private volatile long deadline;
+        private long deadlineTick;
+
+        // the bucket fields are changed by the timer thread only
+        private Bucket bucket;
+        private TimerTask prev;
+        private TimerTask next;
+
+        private TimerTask(Runnable task, long delay, long period, boolean fixedRate) {
+            this.task = task;
+            this.period = period;
+            this.fixedRate = fixedRate;
+            this.deadline = System.nanoTime() + delay;
+        }
+
+        private void run() {
+            // the one-shot task is done before it runs, so the task size only counts the tasks that wait to run
+            if (!state.compareAndSet(WAITING, period > 0 ? RUNNING : DONE)) {
+                return;
+            }
+            if (period <= 0) {
+                taskSize.decrementAndGet();
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                System.err.println("run the timer task exception, " + t.getMessage());
+                t.printStackTrace();
+            }
+
+            if (period > 0) {
+                deadline = fixedRate ? deadline + period : System.nanoTime() + period;
+                if (state.compareAndSet(RUNNING, WAITING)) {
+                    offerNewTask(this);
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel() {
+            while (true) {
+                int s = state.get();
+                if (s == CANCELLED || s == DONE) {
+                    return false;
+                }
+                if (state.compareAndSet(s, CANCELLED)) {
+                    taskSize.decrementAndGet();
+                    if (s == WAITING) {
+                        cancelledTasks.offer(this);
+                    }
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * The doubly linked list of the tasks. It is changed by the timer thread only.
+     */
+    private static class Bucket {
+        private TimerTask head;
+        private TimerTask tail;
+
+        private void add(TimerTask task) {
+            task.bucket = this;
+            task.prev = tail;
+            task.next = null;
+            if (tail == null) {
+                head = task;
+            } else {
+                tail.next = task;
+            }
+            tail = task;
+        }
+
+        private void remove(TimerTask task) {
+            if (task.prev == null) {
+                head = task.next;
+            } else {
+                task.prev.next = task.next;
+            }
+            if (task.next == null) {
+                tail = task.prev;
+            } else {
+                task.next.prev = task.prev;
+            }
+            task.bucket = null;
+            task.prev = null;
+            task.next = null;
+        }
+
+        private boolean isEmpty() {
+            return head == null;
+        }
+
+        private void transferTo(List<TimerTask> tasks) {
+            TimerTask task = head;
+            while (task != null) {
+                TimerTask next = task.next;
+                task.bucket = null;
+                task.prev = null;
+                task.next = null;
+                tasks.add(task);
+                task = next;
+            }
+            head = null;
+            tail = null;
+        }
+    }
+
+    private ExecutorService createOwnedExecutor() {
+        AtomicInteger threadId = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = new Thread(r, "firefly timing wheel worker " + threadId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    protected void init() {
+        if (executor == null) {
+            ownedExecutor = createOwnedExecutor();
+        }
+        startTime = System.nanoTime();
+        currentTick = 0;
+        start = true;
+        Thread thread = new Thread(new TimerThread(), "firefly timing wheel");
+        thread.setDaemon(true);
+        timerThread = thread;
+        thread.start();
+    }
+
+    @Override
+    protected void destroy() {
+        start = false;
+        Thread thread = timerThread;
+        LockSupport.unpark(thread);
+        boolean stopped = true;
+        if (thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = false;
+            }
+        }
+        if (stopped) {
+            // the ticks of the placed tasks are relative to the start time, so they are placed again when the wheel restarts
+            List<TimerTask> tasks = new ArrayList<>();
+            for (Bucket[] wheel : wheels) {
+                for (Bucket bucket : wheel) {
+                    bucket.transferTo(tasks);
+                }
+            }
+            tasks.forEach(newTasks::offer);
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package test.utils.json.compiler;
+
+import com.firefly.utils.json.Json;
+import com.firefly.utils.json.compiler.ObjectCodecCompiler;
+import com.firefly.utils.json.io.JsonStringReader;
+import com.firefly.utils.json.io.JsonStringWriter;
+import com.firefly.utils.json.parser.CompiledObjectParser;
+import com.firefly.utils.json.serializer.CompiledObjectSerializer;
+import org.junit.Assert;
+import org.junit.Test;
+import test.utils.json.SimpleObj;
+import test.utils.json.SimpleObj2;
+import test.utils.json.github.MediaContent;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestObjectCodecCompiler {
+
+    private static String toJson(CompiledObjectSerializer serializer, Object obj) throws IOException {
+        try (JsonStringWriter writer = new JsonStringWriter()) {
+            serializer.convertTo(writer, obj);
+            return writer.toString();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T toObject(CompiledObjectParser parser, String json, Class<T> clazz) throws IOException {
+        try (JsonStringReader reader = new JsonStringReader(json)) {
+            return (T) parser.convertTo(reader, clazz);
+        }
+    }
+
+    @Test
+    public void testSimpleObject() throws IOException {
+        SimpleObj obj = new SimpleObj();
+        obj.setName("Pengtao\n\"Qiu\"");
+        obj.setAge(20);
+        obj.setId(-33);
+        obj.setDate(1000L);
+        obj.setType((short) 2);
+        obj.setWeight(55.5f);
+        obj.setHeight(170.5);
+        SimpleObj contact = new SimpleObj();
+        contact.setName("contact");
+        obj.setContact1(contact);
+
+        CompiledObjectSerializer serializer = new CompiledObjectSerializer(false);
+        serializer.init(SimpleObj.class);
+        Assert.assertThat(serializer.isCompiled(), is(true));
+        String json = toJson(serializer, obj);
+        Assert.assertThat(json, is(Json.toJson(obj)));
+
+        CompiledObjectParser parser = new CompiledObjectParser();
+        parser.init(SimpleObj.class, SimpleObj.class);
+        Assert.assertThat(parser.isCompiled(), is(true));
+        SimpleObj ret = toObject(parser, json, SimpleObj.class);
+        Assert.assertThat(ret.getName(), is(obj.getName()));
+        Assert.assertThat(ret.getAge(), is(20));
+        Assert.assertThat(ret.getId(), is(-33));
+        Assert.assertThat(ret.getDate(), is(1000L));
+        Assert.assertThat(ret.getType(), is((short) 2));
+        Assert.assertThat(ret.getWeight(), is(55.5f));
+        Assert.assertThat(ret.getHeight(), is(170.5));
+        Assert.assertThat(ret.getContact1().getName(), is("contact"));
+        Assert.assertThat(ret.getContact2() == null, is(true));
+
+        // the fields are out of order and the unknown fields are skipped
+        ret = toObject(parser, "{\"unknown\":[1,2], \"name\":\"hello\", \"age\":3, \"id\":null, \"foo\":{\"a\":1}}", SimpleObj.class);
+        Assert.assertThat(ret.getName(), is("hello"));
+        Assert.assertThat(ret.getAge(), is(3));
+        Assert.assertThat(ret.getId(), is(0));
+    }
+
+    @Test
+    public void testComplexObject() throws IOException {
+        SimpleObj2 obj = new SimpleObj2();
+        obj.setId(10);
+        obj.setSex('m');
+        obj.setSymbol("abc".toCharArray());
+        obj.setBigDecimal(new BigDecimal("3.14"));
+
+        CompiledObjectSerializer serializer = new CompiledObjectSerializer(true);
+        serializer.init(SimpleObj2.class);
+        String json = toJson(serializer, obj);
+        Assert.assertThat(json, is(Json.toJson(obj)));
+
+        CompiledObjectParser parser = new CompiledObjectParser();
+        parser.init(SimpleObj2.class, SimpleObj2.class);
+        SimpleObj2 ret = toObject(parser, json, SimpleObj2.class);
+        Assert.assertThat(ret.getId(), is(10));
+        Assert.assertThat(ret.getSex(), is('m'));
+        Assert.assertThat(new String(ret.getSymbol()), is("abc"));
+        Assert.assertThat(ret.getBigDecimal(), is(new BigDecimal("3.14")));
+
+        MediaContent record = MediaContent.createRecord();
+        serializer = new CompiledObjectSerializer(false);
+        serializer.init(MediaContent.class);
+        json = toJson(serializer, record);
+        Assert.assertThat(json, is(Json.toJson(record)));
+
+        parser = new CompiledObjectParser();
+        parser.init(MediaContent.class, MediaContent.class);
+        Assert.assertThat(Json.toJson(toObject(parser, json, MediaContent.class)), is(json));
+    }
+
+    @Test
+    public void testPublicField() throws IOException {
+        FieldObj obj = new FieldObj();
+        obj.name = "field";
+        obj.age = 18;
+
+        CompiledObjectSerializer serializer = new CompiledObjectSerializer(false);
+        serializer.init(FieldObj.class);
+        Assert.assertThat(serializer.isCompiled(), is(true));
+        String json = toJson(serializer, obj);
+        Assert.assertThat(json, is("{\"age\":18,\"name\":\"field\"}"));
+
+        CompiledObjectParser parser = new CompiledObjectParser();
+        parser.init(FieldObj.class, FieldObj.class);
+        Assert.assertThat(parser.isCompiled(), is(true));
+        FieldObj ret = toObject(parser, json, FieldObj.class);
+        Assert.assertThat(ret.name, is("field"));
+        Assert.assertThat(ret.age, is(18));
+    }
+
+    @Test
+    public void testHash() {
+        Assert.assertThat(ObjectCodecCompiler.hash("hello".toCharArray()), is("hello".hashCode()));
+        Assert.assertThat(ObjectCodecCompiler.hash(new char[0]), is(0));
+    }
+
+    public static class FieldObj {
+        public String name;
+        public int age;
+    }
+}
@@ -0,0 +1,30 @@
+package test.utils.json.github;
+
+import com.firefly.utils.json.compiler.ObjectCodecCompiler;
+
+/**
+ * Run it and JsonBenchmark.analyze in the separate JVM to compare the compiled codecs with the reflective codecs.
+ *
+ * @author Pengtao Qiu
+ */
+public class CompiledJsonBenchmark {
+
+    public static void main(String[] args) {
+        final int times = 1000 * 1000 * 2;
+        boolean compiled = args.length == 0 || Boolean.parseBoolean(args[0]);
+        ObjectCodecCompiler.setEnabled(compiled);
+        System.out.println("compiled mode: " + compiled);
+
+        System.out.println("warm up start");
+        JsonBenchmark.analyze(times / 2);
+        System.out.println("warm up end");
+        System.out.println("=======================");
+        System.out.println();
+        System.out.println();
+
+        System.out.println("benchmark start");
+        JsonBenchmark.analyze(times);
+        System.out.println("benchmark end");
+        System.out.println("=======================");
+    }
+}
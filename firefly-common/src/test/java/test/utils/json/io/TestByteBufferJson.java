@@ -0,0 +1,105 @@
+package test.utils.json.io;
+
+import com.firefly.utils.json.Json;
+import com.firefly.utils.json.JsonArray;
+import com.firefly.utils.json.JsonObject;
+import com.firefly.utils.lang.GenericTypeReference;
+import org.junit.Assert;
+import org.junit.Test;
+import test.utils.json.SimpleObj;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestByteBufferJson {
+
+    private static final String NAME = "Pengtao\n\"Qiu\" 你好 \uD83D\uDE00 é\t\\/\u0001";
+
+    private static byte[] toBytes(Object obj) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Json.writeTo(obj, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testWriteTo() {
+        SimpleObj obj = new SimpleObj();
+        obj.setName(NAME);
+        obj.setAge(20);
+        obj.setDate(-9223372036854775808L);
+        obj.setWeight(55.5f);
+        String json = Json.toJson(obj);
+        Assert.assertThat(new String(toBytes(obj), StandardCharsets.UTF_8), is(json));
+        Assert.assertThat(toBytes(obj), is(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testLargeObject() {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            list.add(i + "_" + NAME);
+        }
+        String json = Json.toJson(list);
+        byte[] bytes = toBytes(list);
+        Assert.assertThat(bytes, is(json.getBytes(StandardCharsets.UTF_8)));
+
+        List<String> ret = Json.toObject(ByteBuffer.wrap(bytes), new GenericTypeReference<List<String>>() {
+        });
+        Assert.assertThat(ret, is(list));
+    }
+
+    @Test
+    public void testToObject() {
+        SimpleObj obj = new SimpleObj();
+        obj.setName(NAME);
+        obj.setId(33);
+        obj.setHeight(170.5);
+        SimpleObj contact = new SimpleObj();
+        contact.setName("中文 contact");
+        obj.setContact1(contact);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(512);
+        buffer.put((byte) 'x').put(toBytes(obj)).flip();
+        buffer.position(1);
+        SimpleObj ret = Json.toObject(buffer, SimpleObj.class);
+        Assert.assertThat(buffer.position(), is(1));
+        Assert.assertThat(ret.getName(), is(NAME));
+        Assert.assertThat(ret.getId(), is(33));
+        Assert.assertThat(ret.getHeight(), is(170.5));
+        Assert.assertThat(ret.getContact1().getName(), is("中文 contact"));
+
+        ret = Json.toObject(new ByteArrayInputStream(toBytes(obj)), SimpleObj.class);
+        Assert.assertThat(ret.getName(), is(NAME));
+    }
+
+    @Test
+    public void testNonASCIIField() {
+        String json = "{\"名字\":\"" + "值" + "\", \"Ã©\":1, \"é\":2}";
+        JsonObject object = Json.toJsonObject(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+        Assert.assertThat(object.getString("名字"), is("值"));
+        Assert.assertThat(object.getInteger("Ã©"), is(1));
+        Assert.assertThat(object.getInteger("é"), is(2));
+
+        Map<String, Integer> map = new HashMap<>();
+        map.put("é", 2);
+        Map<String, Integer> ret = Json.toObject(ByteBuffer.wrap(toBytes(map)), new GenericTypeReference<Map<String, Integer>>() {
+        });
+        Assert.assertThat(ret, is(map));
+
+        JsonArray array = Json.toJsonArray(ByteBuffer.wrap("[\"\\u4f60\", 1, true]".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertThat(array.getString(0), is("你"));
+        Assert.assertThat(array.getInteger(1), is(1));
+        Assert.assertThat(array.getBoolean(2), is(true));
+    }
+}
@@ -1,16 +1,20 @@
 package test.utils.lang.pool;
 
 import com.firefly.utils.concurrent.Promise;
+import com.firefly.utils.concurrent.Scheduler;
+import com.firefly.utils.concurrent.Schedulers;
 import com.firefly.utils.concurrent.ThreadUtils;
 import com.firefly.utils.exception.CommonRuntimeException;
 import com.firefly.utils.lang.pool.AsynchronousPool;
 import com.firefly.utils.lang.pool.BoundedAsynchronousPool;
+import com.firefly.utils.lang.pool.Pool;
 import com.firefly.utils.lang.pool.PooledObject;
 import com.firefly.utils.lang.LeakDetector;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -220,7 +224,7 @@ public class TestAsyncPool {
         BoundedAsynchronousPool<TestPooledObject> asynchronousPool = new BoundedAsynchronousPool<>(
                 10,
                 10 * 1000L,
-                Executors.newCachedThreadPool(),
+                Schedulers.createScheduler(),
                 pool -> { // object factory
                     Promise.Completable<PooledObject<TestPooledObject>> completable = new Promise.Completable<>();
                     int x = i.getAndIncrement();
@@ -253,6 +257,185 @@ public class TestAsyncPool {
         Assert.assertTrue(leaked.get());
     }
 
+    @Test
+    public void testHandoff() throws Exception {
+        BoundedAsynchronousPool<TestPooledObject> pool = createPool(1);
+        List<Long> waitTimes = new CopyOnWriteArrayList<>();
+        pool.setWaitTimeListener(waitTimes::add);
+        PooledObject<TestPooledObject> o = pool.take().get();
+
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<PooledObject<TestPooledObject>> w1 = pool.take();
+        CompletableFuture<PooledObject<TestPooledObject>> w2 = pool.take();
+        w1.thenAccept(p -> order.add(1));
+        w2.thenAccept(p -> order.add(2));
+        Assert.assertThat(pool.getWaitingSize(), is(2));
+        Assert.assertThat(w1.isDone(), is(false));
+
+        o.release();
+        Assert.assertThat(w1.get(), is(o));
+        Assert.assertThat(w2.isDone(), is(false));
+        w1.get().release();
+        Assert.assertThat(w2.get(), is(o));
+        Assert.assertThat(order, is(Arrays.asList(1, 2)));
+        Assert.assertThat(waitTimes.size(), is(2));
+        Assert.assertThat(pool.getWaitingSize(), is(0));
+        Assert.assertThat(pool.size(), is(0));
+
+        pool.setHandoffMode(BoundedAsynchronousPool.HandoffMode.LIFO);
+        order.clear();
+        w1 = pool.take();
+        w2 = pool.take();
+        w1.thenAccept(p -> order.add(1));
+        w2.thenAccept(p -> {
+            order.add(2);
+            p.release();
+        });
+        o.release();
+        Assert.assertThat(w1.get(), is(o));
+        Assert.assertThat(order, is(Arrays.asList(2, 1)));
+        pool.stop();
+    }
+
+    @Test
+    public void testWaitTimeout() throws Exception {
+        AtomicInteger i = new AtomicInteger();
+        BoundedAsynchronousPool<TestPooledObject> pool = new BoundedAsynchronousPool<>(1, 200L, p -> {
+            Promise.Completable<PooledObject<TestPooledObject>> completable = new Promise.Completable<>();
+            completable.succeeded(new PooledObject<>(new TestPooledObject(i.getAndIncrement()), p, () -> {
+            }));
+            return completable;
+        }, o -> !o.getObject().closed, o -> o.getObject().closed = true, () -> {
+        });
+        PooledObject<TestPooledObject> o = pool.take().get();
+        CompletableFuture<PooledObject<TestPooledObject>> waiter = pool.take();
+        try {
+            waiter.get();
+            Assert.fail("the waiter must time out");
+        } catch (ExecutionException e) {
+            Assert.assertThat(e.getCause(), instanceOf(TimeoutException.class));
+        }
+        Assert.assertThat(pool.getWaitingSize(), is(0));
+
+        o.release();
+        Assert.assertThat(pool.size(), is(1));
+        Assert.assertThat(pool.take().get(), is(o));
+        pool.stop();
+    }
+
+    @Test
+    public void testCreateObjectForWaiter() throws Exception {
+        AtomicInteger i = new AtomicInteger();
+        List<Promise.Completable<PooledObject<TestPooledObject>>> creating = new CopyOnWriteArrayList<>();
+        BoundedAsynchronousPool<TestPooledObject> pool = new BoundedAsynchronousPool<>(1, 2000L, p -> {
+            Promise.Completable<PooledObject<TestPooledObject>> completable = new Promise.Completable<>();
+            if (i.get() == 0) {
+                creating.add(completable);
+            } else {
+                completable.succeeded(new PooledObject<>(new TestPooledObject(i.get()), p, () -> {
+                }));
+            }
+            i.getAndIncrement();
+            return completable;
+        }, o -> !o.getObject().closed, o -> o.getObject().closed = true, () -> {
+        });
+
+        CompletableFuture<PooledObject<TestPooledObject>> first = pool.take();
+        CompletableFuture<PooledObject<TestPooledObject>> waiter = pool.take();
+        Assert.assertThat(pool.getWaitingSize(), is(1));
+
+        // the failed creation hands the capacity to the waiter
+        creating.get(0).failed(new CommonRuntimeException("create object exception"));
+        Assert.assertThat(first.isCompletedExceptionally(), is(true));
+        PooledObject<TestPooledObject> o = waiter.get(1, TimeUnit.SECONDS);
+        Assert.assertThat(o.getObject().i, is(1));
+        Assert.assertThat(pool.getWaitingSize(), is(0));
+        Assert.assertThat(pool.getCreatedObjectSize(), is(1));
+
+        // the destroyed object hands the capacity to the waiter
+        waiter = pool.take();
+        Assert.assertThat(pool.getWaitingSize(), is(1));
+        o.getObject().closed = true;
+        o.release();
+        PooledObject<TestPooledObject> o2 = waiter.get(1, TimeUnit.SECONDS);
+        Assert.assertThat(o2.getObject().i, is(2));
+        Assert.assertThat(pool.getCreatedObjectSize(), is(1));
+        pool.stop();
+    }
+
+    @Test
+    public void testExecutorServiceConstructor() throws Exception {
+        ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor();
+        @SuppressWarnings("deprecation")
+        BoundedAsynchronousPool<TestPooledObject> pool = new BoundedAsynchronousPool<>(1, 200L, service, p -> {
+            Promise.Completable<PooledObject<TestPooledObject>> completable = new Promise.Completable<>();
+            completable.succeeded(new PooledObject<>(new TestPooledObject(0), p, () -> {
+            }));
+            return completable;
+        }, o -> !o.getObject().closed, o -> o.getObject().closed = true, new LeakDetector<>(() -> {
+        }));
+        PooledObject<TestPooledObject> o = pool.take().get();
+        try {
+            pool.take().get();
+            Assert.fail("the waiter must time out");
+        } catch (ExecutionException e) {
+            Assert.assertThat(e.getCause(), instanceOf(TimeoutException.class));
+        }
+        o.release();
+        pool.stop();
+        Assert.assertThat(service.isShutdown(), is(true));
+    }
+
+    @Test
+    public void testSharedScheduler() throws Exception {
+        // the pools share the default scheduler, so the waiters time out after the other pool stops
+        BoundedAsynchronousPool<TestPooledObject> pool1 = createPool(1, 200L, null);
+        BoundedAsynchronousPool<TestPooledObject> pool2 = createPool(1, 200L, null);
+        assertTimeout(pool1);
+        pool1.stop();
+        assertTimeout(pool2);
+        pool2.stop();
+
+        // the pool does not stop the scheduler of the caller
+        Scheduler scheduler = Schedulers.createScheduler();
+        BoundedAsynchronousPool<TestPooledObject> pool3 = createPool(1, 200L, scheduler);
+        BoundedAsynchronousPool<TestPooledObject> pool4 = createPool(1, 200L, scheduler);
+        assertTimeout(pool3);
+        pool3.stop();
+        assertTimeout(pool4);
+        pool4.stop();
+        scheduler.stop();
+    }
+
+    private void assertTimeout(BoundedAsynchronousPool<TestPooledObject> pool) throws Exception {
+        PooledObject<TestPooledObject> o = pool.take().get();
+        try {
+            pool.take().get(2, TimeUnit.SECONDS);
+            Assert.fail("the waiter must time out");
+        } catch (ExecutionException e) {
+            Assert.assertThat(e.getCause(), instanceOf(TimeoutException.class));
+        }
+        o.release();
+    }
+
+    private BoundedAsynchronousPool<TestPooledObject> createPool(int size, long timeout, Scheduler scheduler) {
+        Pool.ObjectFactory<TestPooledObject> factory = p -> {
+            Promise.Completable<PooledObject<TestPooledObject>> completable = new Promise.Completable<>();
+            completable.succeeded(new PooledObject<>(new TestPooledObject(0), p, () -> {
+            }));
+            return completable;
+        };
+        if (scheduler == null) {
+            return new BoundedAsynchronousPool<>(size, timeout, factory, o -> !o.getObject().closed,
+                    o -> o.getObject().closed = true, () -> {
+            });
+        } else {
+            return new BoundedAsynchronousPool<>(size, timeout, scheduler, factory, o -> !o.getObject().closed,
+                    o -> o.getObject().closed = true, new LeakDetector<>(() -> {
+            }));
+        }
+    }
+
     private BoundedAsynchronousPool<TestPooledObject> createPool(int size) {
         AtomicInteger i = new AtomicInteger();
         return new BoundedAsynchronousPool<>(size, pool -> {
@@ -0,0 +1,124 @@
+package test.utils.time;
+
+import com.firefly.utils.concurrent.Scheduler;
+import com.firefly.utils.time.HierarchicalTimingWheel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestHierarchicalTimingWheel {
+
+    @Test
+    public void testSchedule() throws InterruptedException {
+        // 4 slots per wheel, so the tasks are moved from the higher levels
+        HierarchicalTimingWheel timer = new HierarchicalTimingWheel(10, TimeUnit.MILLISECONDS, 2, 3);
+        int number = 50;
+        CountDownLatch latch = new CountDownLatch(number);
+        AtomicBoolean early = new AtomicBoolean(false);
+        for (int i = 0; i < number; i++) {
+            long delay = i * 20L;
+            long start = System.nanoTime();
+            timer.schedule(() -> {
+                if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < delay) {
+                    early.set(true);
+                }
+                latch.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        Assert.assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        Assert.assertThat(early.get(), is(false));
+        Assert.assertThat(timer.getTaskSize(), is(0));
+        timer.stop();
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        HierarchicalTimingWheel timer = new HierarchicalTimingWheel();
+        AtomicInteger count = new AtomicInteger();
+        Scheduler.Future future = timer.schedule(count::incrementAndGet, 100, TimeUnit.MILLISECONDS);
+        CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(latch::countDown, 200, TimeUnit.MILLISECONDS);
+        Assert.assertThat(timer.getTaskSize(), is(2));
+
+        Assert.assertThat(future.cancel(), is(true));
+        Assert.assertThat(future.cancel(), is(false));
+        Assert.assertThat(latch.await(2, TimeUnit.SECONDS), is(true));
+        Assert.assertThat(count.get(), is(0));
+        Assert.assertThat(timer.getTaskSize(), is(0));
+        timer.stop();
+    }
+
+    @Test
+    public void testFixedRate() throws InterruptedException {
+        HierarchicalTimingWheel timer = new HierarchicalTimingWheel();
+        CountDownLatch latch = new CountDownLatch(5);
+        Scheduler.Future future = timer.scheduleAtFixedRate(latch::countDown, 0, 20, TimeUnit.MILLISECONDS);
+        Assert.assertThat(latch.await(2, TimeUnit.SECONDS), is(true));
+        Assert.assertThat(future.cancel(), is(true));
+        Assert.assertThat(timer.getTaskSize(), is(0));
+
+        AtomicInteger count = new AtomicInteger();
+        future = timer.scheduleWithFixedDelay(count::incrementAndGet, 10, 20, TimeUnit.MILLISECONDS);
+        Thread.sleep(300L);
+        future.cancel();
+        int c = count.get();
+        Assert.assertThat(c, greaterThan(1));
+        Thread.sleep(100L);
+        Assert.assertThat(count.get(), lessThanOrEqualTo(c + 1));
+        timer.stop();
+    }
+
+    @Test
+    public void testRestart() throws InterruptedException {
+        HierarchicalTimingWheel timer = new HierarchicalTimingWheel();
+        CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(latch::countDown, 10, TimeUnit.MILLISECONDS);
+        Assert.assertThat(latch.await(2, TimeUnit.SECONDS), is(true));
+
+        CountDownLatch pending = new CountDownLatch(1);
+        timer.schedule(pending::countDown, 200, TimeUnit.MILLISECONDS);
+        timer.stop();
+        Assert.assertThat(timer.isStopped(), is(true));
+
+        // the wheel restarts with a new executor and keeps the pending task
+        CountDownLatch restarted = new CountDownLatch(1);
+        timer.schedule(restarted::countDown, 10, TimeUnit.MILLISECONDS);
+        Assert.assertThat(restarted.await(2, TimeUnit.SECONDS), is(true));
+        Assert.assertThat(pending.await(2, TimeUnit.SECONDS), is(true));
+        timer.stop();
+    }
+
+    @Test
+    public void testIdle() throws InterruptedException {
+        HierarchicalTimingWheel timer = new HierarchicalTimingWheel(10, TimeUnit.MILLISECONDS, 2, 3);
+        CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(latch::countDown, 10, TimeUnit.MILLISECONDS);
+        Assert.assertThat(latch.await(2, TimeUnit.SECONDS), is(true));
+
+        // the idle wheel parks until a new task is added
+        Thread.sleep(300L);
+        for (long delay : new long[]{30L, 500L}) {
+            CountDownLatch taskLatch = new CountDownLatch(1);
+            AtomicBoolean early = new AtomicBoolean(false);
+            long start = System.nanoTime();
+            timer.schedule(() -> {
+                if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < delay) {
+                    early.set(true);
+                }
+                taskLatch.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+            Assert.assertThat(taskLatch.await(2, TimeUnit.SECONDS), is(true));
+            Assert.assertThat(early.get(), is(false));
+        }
+        timer.stop();
+    }
+}
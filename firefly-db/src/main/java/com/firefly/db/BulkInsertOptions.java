@@ -0,0 +1,81 @@
+package com.firefly.db;
+
+/**
+ * The options of the bulk insert. The records are inserted in chunks on one connection,
+ * and only the parameters of the current chunk are held in memory.
+ *
+ * @author Pengtao Qiu
+ */
+public class BulkInsertOptions {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    public static final int DEFAULT_MAX_PARAMETERS = 32767;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private boolean multiValues;
+    private int maxParameters = DEFAULT_MAX_PARAMETERS;
+
+    public BulkInsertOptions() {
+    }
+
+    public BulkInsertOptions(int chunkSize, boolean multiValues) {
+        setChunkSize(chunkSize);
+        this.multiValues = multiValues;
+    }
+
+    /**
+     * Get the number of records that are sent to the database in one round trip.
+     *
+     * @return The chunk size.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("the chunk size must be greater than 0");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * If true, the chunk is inserted by a multi-row statement, such as, "insert into t (a, b) values (?, ?), (?, ?)".
+     * Otherwise, the chunk is inserted by the JDBC batch. The database must support the multi-row VALUES syntax.
+     *
+     * @return If true, the insert statement is rewritten to the multi-row statement.
+     */
+    public boolean isMultiValues() {
+        return multiValues;
+    }
+
+    public void setMultiValues(boolean multiValues) {
+        this.multiValues = multiValues;
+    }
+
+    /**
+     * Get the max number of the parameters of the multi-row statement. The chunk size is reduced
+     * when the parameters of the chunk exceed this limit.
+     *
+     * @return The max number of the parameters.
+     */
+    public int getMaxParameters() {
+        return maxParameters;
+    }
+
+    public void setMaxParameters(int maxParameters) {
+        if (maxParameters <= 0) {
+            throw new IllegalArgumentException("the max parameter number must be greater than 0");
+        }
+        this.maxParameters = maxParameters;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkInsertOptions{" +
+                "chunkSize=" + chunkSize +
+                ", multiValues=" + multiValues +
+                ", maxParameters=" + maxParameters +
+                '}';
+    }
+}
@@ -229,6 +229,63 @@ public interface SQLConnection {
      */
     <T> CompletableFuture<T> namedQuery(String sql, Func1<SQLResultSet, T> handler, Object paramObject);
 
+    /**
+     * Open a forward-only cursor to fetch the records on demand. The records are bound to object when they are fetched,
+     * so the whole result is never loaded into memory.
+     *
+     * @param sql       A SQL that may contain one or more '?' placeholders.
+     * @param clazz     The Class reference of bound object.
+     * @param fetchSize The number of rows that the JDBC driver fetches from the database when more rows are needed.
+     * @param params    SQL parameters.
+     * @param <T>       The type of bound object.
+     * @return The cursor that is wrapped by CompletableFuture.
+     */
+    <T> CompletableFuture<SQLCursor<T>> queryForCursor(String sql, Class<T> clazz, int fetchSize, Object... params);
+
+    /**
+     * Open a forward-only cursor to fetch the records on demand.
+     *
+     * @param sql       A SQL that may contain one or more placeholders. The placeholder starts with ":" or "&", such as,
+     *                  "select * from test where id in (:idList)",
+     *                  "select * from test where id = :id",
+     *                  "select * from test where id = :{id}",
+     *                  "select * from test where id = &id"
+     * @param clazz     The Class reference of bound object.
+     * @param fetchSize The number of rows that the JDBC driver fetches from the database when more rows are needed.
+     * @param paramMap  Named SQL parameters.
+     * @param <T>       The type of bound object.
+     * @return The cursor that is wrapped by CompletableFuture.
+     */
+    <T> CompletableFuture<SQLCursor<T>> namedQueryForCursor(String sql, Class<T> clazz, int fetchSize, Map<String, Object> paramMap);
+
+    /**
+     * Open a forward-only cursor to fetch the records on demand.
+     *
+     * @param sql         A SQL that may contain one or more placeholders. The placeholder starts with ":" or "&", such as,
+     *                    "select * from test where id in (:idList)",
+     *                    "select * from test where id = :id",
+     *                    "select * from test where id = :{id}",
+     *                    "select * from test where id = &id"
+     * @param clazz       The Class reference of bound object.
+     * @param fetchSize   The number of rows that the JDBC driver fetches from the database when more rows are needed.
+     * @param paramObject Named SQL parameters.
+     * @param <T>         The type of bound object.
+     * @return The cursor that is wrapped by CompletableFuture.
+     */
+    <T> CompletableFuture<SQLCursor<T>> namedQueryForCursor(String sql, Class<T> clazz, int fetchSize, Object paramObject);
+
+    /**
+     * Open a forward-only cursor to fetch the records on demand.
+     *
+     * @param sql       A SQL that may contain one or more '?' placeholders.
+     * @param rowMapper The function that converts the current row to javabean. It must not move the cursor of the result set.
+     * @param fetchSize The number of rows that the JDBC driver fetches from the database when more rows are needed.
+     * @param params    SQL parameters.
+     * @param <T>       The type of converted object.
+     * @return The cursor that is wrapped by CompletableFuture.
+     */
+    <T> CompletableFuture<SQLCursor<T>> queryForCursor(String sql, Func1<SQLResultSet, T> rowMapper, int fetchSize, Object... params);
+
     /**
      * Update records.
      *
@@ -328,6 +385,27 @@ public interface SQLConnection {
      */
     <T, R> CompletableFuture<List<R>> insertObjectBatch(List<T> list, Class<T> clazz);
 
+    /**
+     * Insert a large number of javabeans in chunks. The parameters are only created for the current chunk.
+     *
+     * @param iterable The javabeans.
+     * @param clazz    The javabean Class.
+     * @param options  The chunk size and the statement mode.
+     * @param <T>      The type of javabean.
+     * @return The number of the inserted rows that is wrapped by CompletableFuture.
+     */
+    <T> CompletableFuture<Long> bulkInsert(Iterable<? extends T> iterable, Class<T> clazz, BulkInsertOptions options);
+
+    /**
+     * Insert a large number of javabeans in chunks using the default options.
+     *
+     * @param iterable The javabeans.
+     * @param clazz    The javabean Class.
+     * @param <T>      The type of javabean.
+     * @return The number of the inserted rows that is wrapped by CompletableFuture.
+     */
+    <T> CompletableFuture<Long> bulkInsert(Iterable<? extends T> iterable, Class<T> clazz);
+
     /**
      * Execute a sql to batch inserting data.
      *
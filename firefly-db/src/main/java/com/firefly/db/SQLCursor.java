@@ -0,0 +1,37 @@
+package com.firefly.db;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The forward-only cursor of the query result. The records are fetched from the database and bound to objects on demand,
+ * so the whole result is never loaded into memory.
+ * The cursor is not thread safe, the next fetching should be invoked after the previous fetching completes.
+ *
+ * @author Pengtao Qiu
+ */
+public interface SQLCursor<T> {
+
+    /**
+     * Fetch the next records. If the returned list size is less than the requested size,
+     * the cursor is exhausted and the statement is closed.
+     *
+     * @param size The max number of records.
+     * @return The records that are wrapped by CompletableFuture.
+     */
+    CompletableFuture<List<T>> fetch(int size);
+
+    /**
+     * If return true, the cursor has no more record.
+     *
+     * @return If return true, the cursor has no more record.
+     */
+    boolean isExhausted();
+
+    /**
+     * Close the result set and statement of the cursor. It does not close the connection.
+     *
+     * @return The future is completed when the statement is closed.
+     */
+    CompletableFuture<Void> close();
+}
@@ -172,6 +172,28 @@ public class JDBCConnection implements SQLConnection {
         return query(preparedSqlAndValues.getPreparedSql(), handler, preparedSqlAndValues.getValues().toArray());
     }
 
+    @Override
+    public <T> CompletableFuture<SQLCursor<T>> queryForCursor(String sql, Class<T> clazz, int fetchSize, Object... params) {
+        return jdbcHelper.async(connection, (conn, helper) -> helper.queryForCursor(connection, sql, clazz, fetchSize, params));
+    }
+
+    @Override
+    public <T> CompletableFuture<SQLCursor<T>> namedQueryForCursor(String sql, Class<T> clazz, int fetchSize, Map<String, Object> paramMap) {
+        PreparedSqlAndValues preparedSqlAndValues = getPreparedSqlAndValues(sql, paramMap);
+        return queryForCursor(preparedSqlAndValues.getPreparedSql(), clazz, fetchSize, preparedSqlAndValues.getValues().toArray());
+    }
+
+    @Override
+    public <T> CompletableFuture<SQLCursor<T>> namedQueryForCursor(String sql, Class<T> clazz, int fetchSize, Object paramObject) {
+        PreparedSqlAndValues preparedSqlAndValues = getPreparedSqlAndValues(sql, paramObject);
+        return queryForCursor(preparedSqlAndValues.getPreparedSql(), clazz, fetchSize, preparedSqlAndValues.getValues().toArray());
+    }
+
+    @Override
+    public <T> CompletableFuture<SQLCursor<T>> queryForCursor(String sql, Func1<SQLResultSet, T> rowMapper, int fetchSize, Object... params) {
+        return jdbcHelper.async(connection, (conn, helper) -> helper.queryForCursor(connection, sql, rs -> rowMapper.call(new JDBCResultSet(rs)), fetchSize, params));
+    }
+
     @Override
     public CompletableFuture<Integer> update(String sql, Object... params) {
         return jdbcHelper.async(connection, (conn, helper) -> helper.update(connection, sql, params));
@@ -233,6 +255,16 @@ public class JDBCConnection implements SQLConnection {
         });
     }
 
+    @Override
+    public <T> CompletableFuture<Long> bulkInsert(Iterable<? extends T> iterable, Class<T> clazz, BulkInsertOptions options) {
+        return jdbcHelper.async(connection, (conn, helper) -> helper.bulkInsert(connection, clazz, iterable.iterator(), options));
+    }
+
+    @Override
+    public <T> CompletableFuture<Long> bulkInsert(Iterable<? extends T> iterable, Class<T> clazz) {
+        return bulkInsert(iterable, clazz, new BulkInsertOptions());
+    }
+
     @Override
     public <R> CompletableFuture<R> insertBatch(String sql, Object[][] params, Func1<SQLResultSet, R> handler) {
         return jdbcHelper.async(connection, (conn, helper) -> {
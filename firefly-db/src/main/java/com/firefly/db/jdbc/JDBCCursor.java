@@ -0,0 +1,133 @@
+package com.firefly.db.jdbc;
+
+import com.firefly.db.DBException;
+import com.firefly.db.SQLCursor;
+import com.firefly.db.jdbc.helper.JDBCHelper;
+import com.firefly.db.jdbc.helper.RowMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.firefly.db.jdbc.helper.JDBCConnectionUtils.fillStatement;
+
+/**
+ * The cursor drives a forward-only and read-only JDBC result set. The records are fetched in the JDBC helper executor.
+ * <p>
+ * Some JDBC drivers need the special settings to stream the result set, for example, the PostgreSQL driver
+ * only uses the fetch size when the auto commit is false, and the MySQL driver streams the result set
+ * when the fetch size is Integer.MIN_VALUE.
+ * </p>
+ *
+ * @author Pengtao Qiu
+ */
+public class JDBCCursor<T> implements SQLCursor<T> {
+
+    private static Logger log = LoggerFactory.getLogger("firefly-system");
+
+    private final JDBCHelper jdbcHelper;
+    private final Connection connection;
+    private final RowMapper<T> rowMapper;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private volatile boolean exhausted;
+    private boolean closed;
+
+    public JDBCCursor(JDBCHelper jdbcHelper, Connection connection, RowMapper<T> rowMapper) {
+        this.jdbcHelper = jdbcHelper;
+        this.connection = connection;
+        this.rowMapper = rowMapper;
+    }
+
+    /**
+     * Execute the query and open the result set. It blocks the current thread.
+     *
+     * @param sql       A SQL that may contain one or more '?' placeholders.
+     * @param fetchSize The number of rows that the JDBC driver fetches from the database when more rows are needed.
+     * @param params    SQL parameters.
+     */
+    public synchronized void open(String sql, int fetchSize, Object... params) {
+        try {
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            fillStatement(statement, 0, params);
+            resultSet = statement.executeQuery();
+            if (log.isDebugEnabled()) {
+                log.debug("open the cursor, sql: {}, fetch size: {}", sql, fetchSize);
+            }
+        } catch (SQLException e) {
+            log.error("open cursor exception, sql: {}", e, sql);
+            closeStatement();
+            throw new DBException(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<T>> fetch(int size) {
+        return jdbcHelper.async(connection, (conn, helper) -> fetchRows(size));
+    }
+
+    private synchronized List<T> fetchRows(int size) {
+        if (exhausted) {
+            return Collections.emptyList();
+        }
+        if (closed) {
+            throw new DBException("the cursor is closed");
+        }
+
+        List<T> rows = new ArrayList<>(Math.min(size, 1024));
+        try {
+            while (rows.size() < size && resultSet.next()) {
+                rows.add(rowMapper.mapRow(resultSet));
+            }
+        } catch (SQLException e) {
+            log.error("fetch cursor exception", e);
+            closeStatement();
+            throw new DBException(e);
+        }
+        if (rows.size() < size) {
+            exhausted = true;
+            closeStatement();
+        }
+        return rows;
+    }
+
+    @Override
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    @Override
+    public CompletableFuture<Void> close() {
+        return jdbcHelper.async(connection, (conn, helper) -> {
+            closeStatement();
+            return null;
+        });
+    }
+
+    private synchronized void closeStatement() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+        } catch (SQLException e) {
+            log.error("close result set exception", e);
+        }
+        try {
+            if (statement != null) {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            log.error("close statement exception", e);
+        }
+        log.debug("close the cursor");
+    }
+}
@@ -6,9 +6,12 @@ import com.firefly.db.annotation.Table;
 import com.firefly.utils.Assert;
 import com.firefly.utils.ReflectUtils;
 import com.firefly.utils.StringUtils;
+import com.firefly.utils.collection.ConcurrentLinkedHashMap;
 import com.firefly.utils.collection.ConcurrentReferenceHashMap;
 import org.apache.commons.dbutils.BeanProcessor;
 import org.apache.commons.dbutils.PropertyHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
@@ -25,6 +28,25 @@ import java.util.*;
 
 public class DefaultBeanProcessor extends BeanProcessor {
 
+    private static Logger log = LoggerFactory.getLogger("firefly-system");
+
+    public static final int DEFAULT_MAX_ROW_MAPPERS = 1024;
+
+    public enum MapperMode {
+        /**
+         * The bean properties are set by reflection.
+         */
+        REFLECTION,
+
+        /**
+         * The row mapper class is generated for the bean class and the columns of the result set.
+         * It falls back to the reflection mode when the bean class or the setters are not public.
+         */
+        GENERATED
+    }
+
+    private final MapperMode mapperMode;
+    private final Map<RowMapperKey, RowMapper<?>> rowMapperCache;
     private final ConcurrentReferenceHashMap<Class<?>, Map<String, Mapper>> mapperCache = new ConcurrentReferenceHashMap<>(128);
     private final ConcurrentReferenceHashMap<Class<?>, SQLMapper> insertCache = new ConcurrentReferenceHashMap<>(128);
     private final ConcurrentReferenceHashMap<Class<?>, SQLMapper> queryCache = new ConcurrentReferenceHashMap<>(128);
@@ -55,8 +77,32 @@ public class DefaultBeanProcessor extends BeanProcessor {
         primitiveDefaults.put(Character.TYPE, (char) 0);
     }
 
+    public DefaultBeanProcessor() {
+        this(MapperMode.valueOf(System.getProperty("com.firefly.db.jdbc.helper.DefaultBeanProcessor.mapperMode", MapperMode.GENERATED.name())),
+                DEFAULT_MAX_ROW_MAPPERS);
+    }
+
+    /**
+     * Create the bean processor.
+     *
+     * @param mapperMode    The way to set the bean properties.
+     * @param maxRowMappers The max number of the cached row mappers. The row mapper is cached by the bean class and the column labels.
+     *                      The evicted row mapper is created again from the generated class, the class is not generated again.
+     */
+    public DefaultBeanProcessor(MapperMode mapperMode, int maxRowMappers) {
+        this.mapperMode = mapperMode;
+        this.rowMapperCache = new ConcurrentLinkedHashMap<>(true, maxRowMappers);
+    }
+
+    public MapperMode getMapperMode() {
+        return mapperMode;
+    }
+
     @Override
     public <T> T toBean(ResultSet rs, Class<? extends T> type) throws SQLException {
+        if (mapperMode == MapperMode.GENERATED) {
+            return this.getRowMapper(rs.getMetaData(), type).mapRow(rs);
+        }
         T bean = this.newInstance(type);
         return this.populateBean(rs, bean);
     }
@@ -69,6 +115,14 @@ public class DefaultBeanProcessor extends BeanProcessor {
             return results;
         }
 
+        if (mapperMode == MapperMode.GENERATED) {
+            RowMapper<? extends T> rowMapper = this.getRowMapper(rs.getMetaData(), type);
+            do {
+                results.add(rowMapper.mapRow(rs));
+            } while (rs.next());
+            return results;
+        }
+
         PropertyDescriptor[] props = this.propertyDescriptors(type);
         int[] columnToProperty = this.mapColumnsToProperties(rs.getMetaData(), props, type);
 
@@ -79,6 +133,115 @@ public class DefaultBeanProcessor extends BeanProcessor {
         return results;
     }
 
+    /**
+     * Get the row mapper of the bean class and the columns of the result set. In the generated mode,
+     * the row mapper class is generated at the first time and it is cached.
+     *
+     * @param rsmd The result set meta data.
+     * @param type The bean type.
+     * @param <T>  The bean type.
+     * @return The row mapper.
+     * @throws SQLException if a database error occurs.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RowMapper<T> getRowMapper(ResultSetMetaData rsmd, Class<T> type) throws SQLException {
+        if (mapperMode == MapperMode.REFLECTION) {
+            return this.createReflectionRowMapper(rsmd, type);
+        }
+
+        RowMapperKey key = new RowMapperKey(type, getColumnLabels(rsmd));
+        RowMapper<T> rowMapper = (RowMapper<T>) rowMapperCache.get(key);
+        if (rowMapper == null) {
+            // the concurrent misses create the row mappers of the same generated class
+            rowMapper = this.createGeneratedRowMapper(rsmd, type);
+            rowMapperCache.put(key, rowMapper);
+        }
+        return rowMapper;
+    }
+
+    /**
+     * Create the row mapper that gets the row mapper from the first row of the result set.
+     * It is used when the result set is not opened.
+     *
+     * @param type The bean type.
+     * @param <T>  The bean type.
+     * @return The row mapper.
+     */
+    public <T> RowMapper<T> createRowMapper(Class<T> type) {
+        return new RowMapper<T>() {
+
+            private RowMapper<T> rowMapper;
+
+            @Override
+            public T mapRow(ResultSet resultSet) throws SQLException {
+                if (rowMapper == null) {
+                    rowMapper = getRowMapper(resultSet.getMetaData(), type);
+                }
+                return rowMapper.mapRow(resultSet);
+            }
+        };
+    }
+
+    private <T> RowMapper<T> createReflectionRowMapper(ResultSetMetaData rsmd, Class<T> type) throws SQLException {
+        PropertyDescriptor[] props = this.propertyDescriptors(type);
+        int[] columnToProperty = this.mapColumnsToProperties(rsmd, props, type);
+        return rs -> this.createBean(rs, type, props, columnToProperty);
+    }
+
+    private <T> RowMapper<T> createGeneratedRowMapper(ResultSetMetaData rsmd, Class<T> type) throws SQLException {
+        PropertyDescriptor[] props = this.propertyDescriptors(type);
+        int[] columnToProperty = this.mapColumnsToProperties(rsmd, props, type);
+        if (RowMapperGenerator.isAccessible(type, props, columnToProperty)) {
+            try {
+                // the property handlers may convert any value, so the columns are converted by the bean processor
+                boolean typed = !propertyHandlers.iterator().hasNext();
+                return RowMapperGenerator.generate(this, type, props, columnToProperty, typed);
+            } catch (Throwable e) {
+                log.error("generate the row mapper exception, type: {}", e, type.getName());
+            }
+        }
+        return rs -> this.createBean(rs, type, props, columnToProperty);
+    }
+
+    private String[] getColumnLabels(ResultSetMetaData rsmd) throws SQLException {
+        int cols = rsmd.getColumnCount();
+        String[] labels = new String[cols];
+        for (int col = 1; col <= cols; col++) {
+            String columnName = rsmd.getColumnLabel(col);
+            if (null == columnName || 0 == columnName.length()) {
+                columnName = rsmd.getColumnName(col);
+            }
+            labels[col - 1] = columnName;
+        }
+        return labels;
+    }
+
+    /**
+     * Convert the column value to the setter parameter type.
+     *
+     * @param rs    The result set.
+     * @param index The column index.
+     * @param prop  The property that has a setter.
+     * @return The converted value.
+     * @throws SQLException if the value can not be converted.
+     */
+    Object convertColumn(ResultSet rs, int index, PropertyDescriptor prop) throws SQLException {
+        Class<?> propType = prop.getPropertyType();
+        Object value = this.processColumn(rs, index, propType);
+        if (value == null && propType.isPrimitive()) {
+            value = primitiveDefaults.get(propType);
+        }
+
+        Class<?> firstParam = prop.getWriteMethod().getParameterTypes()[0];
+        value = this.applyPropertyHandlers(firstParam, value);
+        if (!this.isCompatibleType(value, firstParam)) {
+            throw new SQLException(
+                    "Cannot set " + prop.getName() + ": incompatible types, cannot convert "
+                            + value.getClass().getName() + " to " + firstParam.getName());
+        }
+        return value;
+    }
+
     /**
      * Creates a new object and initializes its fields from the ResultSet.
      *
@@ -174,12 +337,7 @@ public class DefaultBeanProcessor extends BeanProcessor {
 
         try {
             Class<?> firstParam = setter.getParameterTypes()[0];
-            for (PropertyHandler handler : propertyHandlers) {
-                if (handler.match(firstParam, value)) {
-                    value = handler.apply(firstParam, value);
-                    break;
-                }
-            }
+            value = this.applyPropertyHandlers(firstParam, value);
 
             // Don't call setter if the value object isn't the right type
             if (this.isCompatibleType(value, firstParam)) {
@@ -205,6 +363,15 @@ public class DefaultBeanProcessor extends BeanProcessor {
         }
     }
 
+    private Object applyPropertyHandlers(Class<?> firstParam, Object value) {
+        for (PropertyHandler handler : propertyHandlers) {
+            if (handler.match(firstParam, value)) {
+                return handler.apply(firstParam, value);
+            }
+        }
+        return value;
+    }
+
     /**
      * ResultSet.getObject() returns an Integer object for an INT column.  The
      * setter method for the property might take an Integer or a primitive int.
@@ -550,6 +717,31 @@ public class DefaultBeanProcessor extends BeanProcessor {
         return ret;
     }
 
+    private static class RowMapperKey {
+        private final Class<?> type;
+        private final String[] columnLabels;
+        private final int hash;
+
+        private RowMapperKey(Class<?> type, String[] columnLabels) {
+            this.type = type;
+            this.columnLabels = columnLabels;
+            this.hash = 31 * type.hashCode() + Arrays.hashCode(columnLabels);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RowMapperKey that = (RowMapperKey) o;
+            return type == that.type && Arrays.equals(columnLabels, that.columnLabels);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
     public static class Mapper {
         public String propertyName;
         public String columnName;
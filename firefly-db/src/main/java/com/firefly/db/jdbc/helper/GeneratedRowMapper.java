@@ -0,0 +1,45 @@
+package com.firefly.db.jdbc.helper;
+
+import java.beans.PropertyDescriptor;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The super class of the row mappers that are generated by {@link RowMapperGenerator}.
+ * The generated class creates the bean and calls the setters with the typed result set getters directly.
+ *
+ * @author Pengtao Qiu
+ */
+public abstract class GeneratedRowMapper<T> implements RowMapper<T> {
+
+    protected final DefaultBeanProcessor processor;
+    protected final PropertyDescriptor[] props;
+
+    public GeneratedRowMapper(DefaultBeanProcessor processor, PropertyDescriptor[] props) {
+        this.processor = processor;
+        this.props = props;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T mapRow(ResultSet resultSet) throws SQLException {
+        return (T) populate(resultSet, newBean());
+    }
+
+    protected abstract Object newBean();
+
+    protected abstract Object populate(ResultSet resultSet, Object bean) throws SQLException;
+
+    /**
+     * Convert the column that has not a typed getter. It is the same as the reflection mapper.
+     *
+     * @param resultSet     The result set.
+     * @param index         The column index.
+     * @param propertyIndex The property index.
+     * @return The value that is compatible with the setter parameter.
+     * @throws SQLException if a database error occurs.
+     */
+    protected Object convertColumn(ResultSet resultSet, int index, int propertyIndex) throws SQLException {
+        return processor.convertColumn(resultSet, index, props[propertyIndex]);
+    }
+}
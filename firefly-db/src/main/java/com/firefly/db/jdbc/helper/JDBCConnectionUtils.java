@@ -5,7 +5,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
 
 /**
  * @author Pengtao Qiu
@@ -46,4 +48,32 @@ public class JDBCConnectionUtils {
             log.error("close connection exception", e);
         }
     }
+
+    /**
+     * Set the parameters of the prepared statement.
+     *
+     * @param statement The prepared statement.
+     * @param offset    The number of the parameters that are set before.
+     * @param params    The parameters.
+     * @throws SQLException if a database error occurs.
+     */
+    public static void fillStatement(PreparedStatement statement, int offset, Object... params) throws SQLException {
+        if (params == null) {
+            return;
+        }
+        for (int i = 0; i < params.length; i++) {
+            int index = offset + i + 1;
+            if (params[i] != null) {
+                statement.setObject(index, params[i]);
+            } else {
+                int sqlType = Types.VARCHAR;
+                try {
+                    sqlType = statement.getParameterMetaData().getParameterType(index);
+                } catch (SQLException ignored) {
+                    // the driver does not support the parameter meta data
+                }
+                statement.setNull(index, sqlType);
+            }
+        }
+    }
 }
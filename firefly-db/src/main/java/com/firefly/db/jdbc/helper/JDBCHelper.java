@@ -1,8 +1,11 @@
 package com.firefly.db.jdbc.helper;
 
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Timer;
 import com.firefly.db.*;
+import com.firefly.db.jdbc.JDBCCursor;
 import com.firefly.db.jdbc.helper.DefaultBeanProcessor.Mapper;
 import com.firefly.db.jdbc.helper.DefaultBeanProcessor.SQLMapper;
 import com.firefly.utils.Assert;
@@ -24,6 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
@@ -44,6 +48,8 @@ public class JDBCHelper extends AbstractLifeCycle {
     private final boolean monitorEnable;
     private final MetricReporterFactory metricReporterFactory;
     private final LatencyTopTracker latencyTopTracker;
+    private final Meter bulkInsertRowMeter;
+    private final Timer bulkInsertChunkTimer;
 
     public JDBCHelper(DataSource dataSource) {
         this(dataSource, true, null);
@@ -72,6 +78,8 @@ public class JDBCHelper extends AbstractLifeCycle {
         }
 
         latencyTopTracker = new LatencyTopTracker(getMetrics());
+        bulkInsertRowMeter = getMetrics().meter("db.JDBCHelper.bulkInsert.rows");
+        bulkInsertChunkTimer = getMetrics().timer("db.JDBCHelper.bulkInsert.chunk.time");
 
         this.dataSource = dataSource;
         if (monitorEnable) {
@@ -296,6 +304,27 @@ public class JDBCHelper extends AbstractLifeCycle {
         }
     }
 
+    public <T> JDBCCursor<T> queryForCursor(Connection connection, String sql, Class<T> t, int fetchSize, Object... params) {
+        return this.queryForCursor(connection, sql, defaultBeanProcessor.createRowMapper(t), fetchSize, params);
+    }
+
+    /**
+     * Execute the query and open a forward-only cursor. The records are mapped when they are fetched.
+     *
+     * @param connection The JDBC connection.
+     * @param sql        A SQL that may contain one or more '?' placeholders.
+     * @param rowMapper  Map the current row to an object.
+     * @param fetchSize  The number of rows that the JDBC driver fetches from the database when more rows are needed.
+     * @param params     SQL parameters.
+     * @param <T>        The type of mapped object.
+     * @return The opened cursor.
+     */
+    public <T> JDBCCursor<T> queryForCursor(Connection connection, String sql, RowMapper<T> rowMapper, int fetchSize, Object... params) {
+        JDBCCursor<T> cursor = new JDBCCursor<>(this, connection, rowMapper);
+        cursor.open(sql, fetchSize, params);
+        return cursor;
+    }
+
     public int update(String sql, Object... params) {
         try (Connection connection = dataSource.getConnection()) {
             int ret = this.update(connection, sql, params);
@@ -418,6 +447,127 @@ public class JDBCHelper extends AbstractLifeCycle {
         }
     }
 
+    /**
+     * Insert the javabeans in chunks on one connection. The parameters are only created for the current chunk,
+     * so the iterator can provide a huge number of javabeans. The full chunks reuse one prepared statement.
+     * The inserted rows are marked in the "db.JDBCHelper.bulkInsert.rows" meter.
+     *
+     * @param connection The JDBC connection.
+     * @param t          The javabean Class.
+     * @param iterator   The javabeans.
+     * @param options    The chunk size and the statement mode.
+     * @param <T>        The type of javabean.
+     * @return The number of the inserted rows.
+     */
+    public <T> long bulkInsert(Connection connection, Class<T> t, Iterator<? extends T> iterator, BulkInsertOptions options) {
+        SQLMapper sqlMapper = defaultBeanProcessor.generateInsertSQL(t);
+        Assert.notNull(sqlMapper, "the sql mapper must not be null");
+        Assert.notEmpty(sqlMapper.propertyMap, "the property map must not be empty");
+
+        String[] properties = new String[sqlMapper.propertyMap.size()];
+        sqlMapper.propertyMap.forEach((property, index) -> properties[index] = property);
+        int chunkSize = options.getChunkSize();
+        if (options.isMultiValues()) {
+            chunkSize = Math.max(Math.min(chunkSize, options.getMaxParameters() / properties.length), 1);
+        }
+
+        Object[][] chunk = new Object[chunkSize][];
+        PreparedStatement chunkStatement = null;
+        long count = 0;
+        long start = System.nanoTime();
+        try {
+            while (iterator.hasNext()) {
+                int rows = 0;
+                while (rows < chunkSize && iterator.hasNext()) {
+                    Object object = iterator.next();
+                    Object[] params = new Object[properties.length];
+                    for (int i = 0; i < properties.length; i++) {
+                        try {
+                            params[i] = ReflectUtils.get(object, properties[i]);
+                        } catch (Throwable ignored) {
+                        }
+                    }
+                    chunk[rows++] = params;
+                }
+
+                if (rows == chunkSize) {
+                    if (chunkStatement == null) {
+                        chunkStatement = prepareBulkInsert(connection, sqlMapper.sql, properties.length, rows, options);
+                    }
+                    executeBulkInsert(chunkStatement, chunk, rows, options);
+                } else {
+                    try (PreparedStatement statement = prepareBulkInsert(connection, sqlMapper.sql, properties.length, rows, options)) {
+                        executeBulkInsert(statement, chunk, rows, options);
+                    }
+                }
+                Arrays.fill(chunk, 0, rows, null);
+                count += rows;
+                bulkInsertRowMeter.mark(rows);
+            }
+        } catch (SQLException e) {
+            log.error("bulk insert exception, sql: {}", e, sqlMapper.sql);
+            throw new DBException(e);
+        } finally {
+            if (chunkStatement != null) {
+                try {
+                    chunkStatement.close();
+                } catch (SQLException e) {
+                    log.error("close statement exception", e);
+                }
+            }
+        }
+
+        if (log.isDebugEnabled()) {
+            long time = System.nanoTime() - start;
+            log.debug("bulk insert {} rows, time: {}ms, rate: {} rows/s, {}", count,
+                    TimeUnit.NANOSECONDS.toMillis(time), time > 0 ? count * 1000_000_000L / time : count, options);
+        }
+        return count;
+    }
+
+    private PreparedStatement prepareBulkInsert(Connection connection, String sql, int parameters, int rows,
+                                                BulkInsertOptions options) throws SQLException {
+        if (options.isMultiValues() && rows > 1) {
+            // insert into t (a, b) values (?, ?) -> insert into t (a, b) values (?, ?), (?, ?)
+            StringBuilder values = new StringBuilder(parameters * 3);
+            values.append(", (?");
+            for (int i = 1; i < parameters; i++) {
+                values.append(", ?");
+            }
+            values.append(')');
+            StringBuilder multiValuesSql = new StringBuilder(sql.length() + values.length() * (rows - 1));
+            multiValuesSql.append(sql);
+            for (int i = 1; i < rows; i++) {
+                multiValuesSql.append(values);
+            }
+            return connection.prepareStatement(multiValuesSql.toString());
+        } else {
+            return connection.prepareStatement(sql);
+        }
+    }
+
+    private void executeBulkInsert(PreparedStatement statement, Object[][] chunk, int rows, BulkInsertOptions options) throws SQLException {
+        Timer.Context context = bulkInsertChunkTimer.time();
+        try {
+            if (options.isMultiValues()) {
+                int offset = 0;
+                for (int i = 0; i < rows; i++) {
+                    fillStatement(statement, offset, chunk[i]);
+                    offset += chunk[i].length;
+                }
+                statement.executeUpdate();
+            } else {
+                for (int i = 0; i < rows; i++) {
+                    fillStatement(statement, 0, chunk[i]);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        } finally {
+            context.stop();
+        }
+    }
+
     public <T> T insert(Connection connection, String sql, Object... params) {
         try {
             return runner.insert(connection, sql, new ScalarHandler<T>(), params);
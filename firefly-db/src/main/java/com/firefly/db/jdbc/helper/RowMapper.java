@@ -0,0 +1,15 @@
+package com.firefly.db.jdbc.helper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Map the current row of the result set to an object.
+ *
+ * @author Pengtao Qiu
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    T mapRow(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,218 @@
+package com.firefly.db.jdbc.helper;
+
+import com.firefly.utils.StringUtils;
+import com.firefly.utils.classproxy.AbstractProxyFactory;
+import com.firefly.utils.exception.CommonRuntimeException;
+import javassist.*;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.SQLXML;
+import java.sql.Timestamp;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generate the row mapper class for a bean class and the columns of a result set.
+ * The generated class calls the typed getters of the result set and the setters of the bean directly,
+ * so it does not box the primitive values, look up the column mapping or invoke the setters by reflection.
+ * <p>
+ * The generated classes are never unloaded, so a class is generated once for the same bean type and populating code,
+ * and all bean processors create the row mappers of this class.
+ *
+ * @author Pengtao Qiu
+ */
+class RowMapperGenerator {
+
+    private static final Map<Class<?>, String> typedGetters = new IdentityHashMap<>();
+    private static final Map<Class<?>, Class<?>> primitiveWrappers = new IdentityHashMap<>();
+    private static final Map<Class<?>, Map<String, Class<?>>> generatedClasses = new ConcurrentHashMap<>();
+    private static final AtomicInteger classId = new AtomicInteger();
+
+    static {
+        typedGetters.put(String.class, "getString");
+        typedGetters.put(Integer.TYPE, "getInt");
+        typedGetters.put(Integer.class, "getInt");
+        typedGetters.put(Long.TYPE, "getLong");
+        typedGetters.put(Long.class, "getLong");
+        typedGetters.put(Boolean.TYPE, "getBoolean");
+        typedGetters.put(Boolean.class, "getBoolean");
+        typedGetters.put(Double.TYPE, "getDouble");
+        typedGetters.put(Double.class, "getDouble");
+        typedGetters.put(Float.TYPE, "getFloat");
+        typedGetters.put(Float.class, "getFloat");
+        typedGetters.put(Short.TYPE, "getShort");
+        typedGetters.put(Short.class, "getShort");
+        typedGetters.put(Byte.TYPE, "getByte");
+        typedGetters.put(Byte.class, "getByte");
+        typedGetters.put(Timestamp.class, "getTimestamp");
+        typedGetters.put(SQLXML.class, "getSQLXML");
+
+        primitiveWrappers.put(Integer.TYPE, Integer.class);
+        primitiveWrappers.put(Long.TYPE, Long.class);
+        primitiveWrappers.put(Boolean.TYPE, Boolean.class);
+        primitiveWrappers.put(Double.TYPE, Double.class);
+        primitiveWrappers.put(Float.TYPE, Float.class);
+        primitiveWrappers.put(Short.TYPE, Short.class);
+        primitiveWrappers.put(Byte.TYPE, Byte.class);
+        primitiveWrappers.put(Character.TYPE, Character.class);
+    }
+
+    /**
+     * Check whether the generated class can create the bean and call the setters.
+     *
+     * @param type             The bean type.
+     * @param props            The property descriptors.
+     * @param columnToProperty The column indices in the result set.
+     * @return If true, the row mapper can be generated.
+     */
+    static boolean isAccessible(Class<?> type, PropertyDescriptor[] props, int[] columnToProperty) {
+        if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())
+                || (type.getEnclosingClass() != null && !Modifier.isStatic(type.getModifiers()))) {
+            return false;
+        }
+        try {
+            Constructor<?> constructor = type.getConstructor();
+            if (!Modifier.isPublic(constructor.getModifiers())) {
+                return false;
+            }
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+
+        for (int i = 1; i < columnToProperty.length; i++) {
+            if (columnToProperty[i] < 0) {
+                continue;
+            }
+            Method setter = props[columnToProperty[i]].getWriteMethod();
+            if (setter != null && !Modifier.isPublic(setter.getDeclaringClass().getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generate the row mapper.
+     *
+     * @param processor        The bean processor converts the columns that have not typed getters.
+     * @param type             The bean type.
+     * @param props            The property descriptors.
+     * @param columnToProperty The column indices in the result set.
+     * @param typed            If false, all columns are converted by the bean processor.
+     * @param <T>              The bean type.
+     * @return The row mapper.
+     * @throws Exception if the row mapper can not be created.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> RowMapper<T> generate(DefaultBeanProcessor processor, Class<T> type,
+                                     PropertyDescriptor[] props, int[] columnToProperty,
+                                     boolean typed) throws Exception {
+        String populateCode = createPopulateCode(type, props, columnToProperty, typed);
+        Class<?> rowMapperClass = generatedClasses.computeIfAbsent(type, t -> new ConcurrentHashMap<>())
+                                                  .computeIfAbsent(populateCode, code -> {
+                                                      try {
+                                                          return generateClass(type, code);
+                                                      } catch (Exception e) {
+                                                          throw new CommonRuntimeException(e);
+                                                      }
+                                                  });
+        return (RowMapper<T>) rowMapperClass.getConstructor(DefaultBeanProcessor.class, PropertyDescriptor[].class)
+                                            .newInstance(processor, props);
+    }
+
+    private static Class<?> generateClass(Class<?> type, String populateCode) throws Exception {
+        ClassPool classPool = ClassPool.getDefault();
+        classPool.insertClassPath(new ClassClassPath(GeneratedRowMapper.class));
+        classPool.insertClassPath(new ClassClassPath(type));
+
+        CtClass cc = classPool.makeClass("com.firefly.db.jdbc.helper.RowMapper$" + type.getSimpleName() + "$" + classId.incrementAndGet());
+        cc.setSuperclass(classPool.get(GeneratedRowMapper.class.getName()));
+
+        CtConstructor constructor = new CtConstructor(new CtClass[]{
+                classPool.get(DefaultBeanProcessor.class.getName()),
+                classPool.get(PropertyDescriptor.class.getName() + "[]")}, cc);
+        constructor.setBody("{super($1, $2);}");
+        cc.addConstructor(constructor);
+
+        cc.addMethod(CtMethod.make(createNewBeanCode(type), cc));
+        cc.addMethod(CtMethod.make(populateCode, cc));
+
+        Class<?> rowMapperClass = cc.toClass(AbstractProxyFactory.classLoader, null);
+        // the class pool does not keep the compiled class
+        cc.detach();
+        return rowMapperClass;
+    }
+
+    static String createNewBeanCode(Class<?> type) {
+        return StringUtils.replace("protected Object newBean(){\n\treturn new {}();\n}", type.getName());
+    }
+
+    static String createPopulateCode(Class<?> type, PropertyDescriptor[] props, int[] columnToProperty, boolean typed) {
+        StringBuilder code = new StringBuilder();
+        code.append("protected Object populate(java.sql.ResultSet rs, Object obj) throws java.sql.SQLException {\n")
+            .append(StringUtils.replace("\t{} bean = ({})obj;\n", type.getName(), type.getName()));
+
+        for (int i = 1; i < columnToProperty.length; i++) {
+            if (columnToProperty[i] < 0) {
+                continue;
+            }
+            Method setter = props[columnToProperty[i]].getWriteMethod();
+            if (setter == null || setter.getParameterTypes().length != 1) {
+                continue;
+            }
+
+            Class<?> paramType = setter.getParameterTypes()[0];
+            String getter = typed ? typedGetters.get(paramType) : null;
+            if (getter == null || paramType != props[columnToProperty[i]].getPropertyType()) {
+                code.append(createConvertedSetterCode(setter, paramType, i, columnToProperty[i]));
+            } else if (paramType.isPrimitive() || paramType == String.class
+                    || paramType == Timestamp.class || paramType == SQLXML.class) {
+                // the getters return null or the primitive default value when the column is SQL NULL
+                code.append(StringUtils.replace("\tbean.{}(rs.{}({}));\n", setter.getName(), getter, i));
+            } else {
+                Class<?> primitiveType = getPrimitiveType(paramType);
+                code.append(StringUtils.replace("\t{} v{} = rs.{}({});\n", primitiveType.getName(), i, getter, i))
+                    .append(StringUtils.replace("\tif (rs.wasNull()) bean.{}(({})null);\n", setter.getName(), paramType.getName()))
+                    .append(StringUtils.replace("\telse bean.{}({}.valueOf(v{}));\n", setter.getName(), paramType.getName(), i));
+            }
+        }
+
+        code.append("\treturn bean;\n")
+            .append("}");
+        return code.toString();
+    }
+
+    private static String createConvertedSetterCode(Method setter, Class<?> paramType, int index, int propertyIndex) {
+        if (paramType.isPrimitive()) {
+            // the converted value of the primitive type is not null
+            String wrapper = primitiveWrappers.get(paramType).getName();
+            return StringUtils.replace("\tbean.{}((({})convertColumn(rs, {}, {})).{}Value());\n",
+                    setter.getName(), wrapper, index, propertyIndex, paramType.getName());
+        } else {
+            return StringUtils.replace("\tbean.{}(({})convertColumn(rs, {}, {}));\n",
+                    setter.getName(), getTypeName(paramType), index, propertyIndex);
+        }
+    }
+
+    private static Class<?> getPrimitiveType(Class<?> wrapper) {
+        for (Map.Entry<Class<?>, Class<?>> entry : primitiveWrappers.entrySet()) {
+            if (entry.getValue() == wrapper) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalArgumentException("the type " + wrapper.getName() + " is not a primitive wrapper");
+    }
+
+    private static String getTypeName(Class<?> type) {
+        if (type.isArray()) {
+            return getTypeName(type.getComponentType()) + "[]";
+        } else {
+            return type.getName();
+        }
+    }
+}
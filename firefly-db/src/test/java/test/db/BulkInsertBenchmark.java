@@ -0,0 +1,106 @@
+package test.db;
+
+import com.firefly.db.BulkInsertOptions;
+import com.firefly.db.jdbc.helper.JDBCHelper;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compare inserting the users one by one with the bulk insert in the JDBC batch and the multi-row VALUES modes.
+ * It inserts the users into the H2 memory database.
+ *
+ * @author Pengtao Qiu
+ */
+public class BulkInsertBenchmark {
+
+    private static final int rows = 20_000;
+    private static final int chunkSize = 1000;
+    private static final int warmUp = 3;
+    private static final int iterations = 5;
+
+    public static void main(String[] args) throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:benchmark");
+        config.setDriverClassName("org.h2.Driver");
+        config.setAutoCommit(false);
+        HikariDataSource ds = new HikariDataSource(config);
+        JDBCHelper jdbcHelper = new JDBCHelper(ds);
+        createTable(jdbcHelper);
+
+        List<User> users = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            User user = new User();
+            user.setName("test" + i);
+            user.setPassword("test_pwd" + i);
+            user.setOtherInfo(i % 2 == 0 ? null : "other" + i);
+            users.add(user);
+        }
+
+        BulkInsertOptions batch = new BulkInsertOptions(chunkSize, false);
+        BulkInsertOptions multiValues = new BulkInsertOptions(chunkSize, true);
+        for (int i = 0; i < warmUp; i++) {
+            insertOneByOne(jdbcHelper, users);
+            bulkInsert(jdbcHelper, users, batch);
+            bulkInsert(jdbcHelper, users, multiValues);
+        }
+
+        long oneByOneTime = 0;
+        long batchTime = 0;
+        long multiValuesTime = 0;
+        for (int i = 0; i < iterations; i++) {
+            oneByOneTime += insertOneByOne(jdbcHelper, users);
+            batchTime += bulkInsert(jdbcHelper, users, batch);
+            multiValuesTime += bulkInsert(jdbcHelper, users, multiValues);
+        }
+        System.out.println("rows: " + rows + ", chunk size: " + chunkSize + ", iterations: " + iterations);
+        System.out.println("one by one: " + (oneByOneTime / iterations / 1000_000.0) + "ms/insert");
+        System.out.println("JDBC batch: " + (batchTime / iterations / 1000_000.0) + "ms/insert");
+        System.out.println("multi-row values: " + (multiValuesTime / iterations / 1000_000.0) + "ms/insert");
+        ds.close();
+    }
+
+    static void createTable(JDBCHelper jdbcHelper) {
+        jdbcHelper.update("drop schema if exists test");
+        jdbcHelper.update("create schema test");
+        jdbcHelper.update("set mode MySQL");
+        jdbcHelper.update(
+                "CREATE TABLE `test`.`user`(id BIGINT AUTO_INCREMENT PRIMARY KEY, pt_name VARCHAR(255), pt_password VARCHAR(255), other_info VARCHAR(255))");
+    }
+
+    static long insertOneByOne(JDBCHelper jdbcHelper, List<User> users) throws SQLException {
+        try (Connection connection = jdbcHelper.getConnection()) {
+            long start = System.nanoTime();
+            for (User user : users) {
+                jdbcHelper.insertObject(connection, user);
+            }
+            connection.commit();
+            long time = System.nanoTime() - start;
+            clear(jdbcHelper, connection);
+            return time;
+        }
+    }
+
+    static long bulkInsert(JDBCHelper jdbcHelper, List<User> users, BulkInsertOptions options) throws SQLException {
+        try (Connection connection = jdbcHelper.getConnection()) {
+            long start = System.nanoTime();
+            long count = jdbcHelper.bulkInsert(connection, User.class, users.iterator(), options);
+            connection.commit();
+            long time = System.nanoTime() - start;
+            if (count != rows) {
+                throw new IllegalStateException("the inserted row number is " + count);
+            }
+            clear(jdbcHelper, connection);
+            return time;
+        }
+    }
+
+    static void clear(JDBCHelper jdbcHelper, Connection connection) throws SQLException {
+        jdbcHelper.update(connection, "truncate table `test`.`user`");
+        connection.commit();
+    }
+}
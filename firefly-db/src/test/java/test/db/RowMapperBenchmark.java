@@ -0,0 +1,88 @@
+package test.db;
+
+import com.firefly.db.jdbc.helper.DefaultBeanProcessor;
+import com.firefly.db.jdbc.helper.DefaultBeanProcessor.MapperMode;
+import com.firefly.db.jdbc.helper.JDBCHelper;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.commons.dbutils.QueryRunner;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Compare the reflection row mapper with the generated row mapper. It queries the users from the H2 memory database.
+ *
+ * @author Pengtao Qiu
+ */
+public class RowMapperBenchmark {
+
+    private static final int rows = 100_000;
+    private static final int warmUp = 5;
+    private static final int iterations = 10;
+
+    public static void main(String[] args) throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:benchmark");
+        config.setDriverClassName("org.h2.Driver");
+        config.setAutoCommit(false);
+        HikariDataSource ds = new HikariDataSource(config);
+
+        JDBCHelper reflectionHelper = createJDBCHelper(ds, MapperMode.REFLECTION);
+        JDBCHelper generatedHelper = createJDBCHelper(ds, MapperMode.GENERATED);
+        initData(reflectionHelper);
+
+        String sql = "select * from `test`.`user`";
+        for (int i = 0; i < warmUp; i++) {
+            query(reflectionHelper, sql);
+            query(generatedHelper, sql);
+        }
+
+        long reflectionTime = 0;
+        long generatedTime = 0;
+        for (int i = 0; i < iterations; i++) {
+            reflectionTime += query(reflectionHelper, sql);
+            generatedTime += query(generatedHelper, sql);
+        }
+        System.out.println("rows: " + rows + ", iterations: " + iterations);
+        System.out.println("reflection: " + (reflectionTime / iterations / 1000_000.0) + "ms/query");
+        System.out.println("generated: " + (generatedTime / iterations / 1000_000.0) + "ms/query");
+        ds.close();
+    }
+
+    static JDBCHelper createJDBCHelper(HikariDataSource ds, MapperMode mapperMode) {
+        return new JDBCHelper(ds, new QueryRunner(ds),
+                new DefaultBeanProcessor(mapperMode, DefaultBeanProcessor.DEFAULT_MAX_ROW_MAPPERS),
+                null, false, null);
+    }
+
+    static void initData(JDBCHelper jdbcHelper) throws SQLException {
+        jdbcHelper.update("drop schema if exists test");
+        jdbcHelper.update("create schema test");
+        jdbcHelper.update("set mode MySQL");
+        jdbcHelper.update(
+                "CREATE TABLE `test`.`user`(id BIGINT AUTO_INCREMENT PRIMARY KEY, pt_name VARCHAR(255), pt_password VARCHAR(255), other_info VARCHAR(255))");
+
+        Object[][] params = new Object[rows][3];
+        for (int i = 0; i < rows; i++) {
+            params[i][0] = "test" + i;
+            params[i][1] = "test_pwd" + i;
+            params[i][2] = i % 2 == 0 ? null : "other" + i;
+        }
+        try (Connection connection = jdbcHelper.getConnection()) {
+            jdbcHelper.getRunner().batch(connection, "insert into `test`.`user`(pt_name, pt_password, other_info) values(?,?,?)", params);
+            connection.commit();
+        }
+    }
+
+    static long query(JDBCHelper jdbcHelper, String sql) {
+        long start = System.nanoTime();
+        List<User> users = jdbcHelper.queryForList(sql, User.class);
+        long time = System.nanoTime() - start;
+        if (users.size() != rows) {
+            throw new IllegalStateException("the user number is " + users.size());
+        }
+        return time;
+    }
+}
@@ -3,16 +3,23 @@ package test.db;
 import com.firefly.db.RecordNotFound;
 import com.firefly.db.jdbc.helper.DefaultBeanProcessor;
 import com.firefly.db.jdbc.helper.DefaultBeanProcessor.Mapper;
+import com.firefly.db.jdbc.helper.DefaultBeanProcessor.MapperMode;
 import com.firefly.db.jdbc.helper.DefaultBeanProcessor.SQLMapper;
 import com.firefly.db.jdbc.helper.JDBCHelper;
+import com.firefly.db.jdbc.helper.RowMapper;
 import com.firefly.utils.concurrent.Promise;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.apache.commons.dbutils.QueryRunner;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -139,6 +146,56 @@ public class TestJDBCHelper {
         System.out.println(sqlMapper);
     }
 
+    @Test
+    public void testMapperMode() {
+        Assert.assertThat(jdbcHelper.getDefaultBeanProcessor().getMapperMode(), is(MapperMode.GENERATED));
+        JDBCHelper reflectionHelper = new JDBCHelper(jdbcHelper.getDataSource(),
+                new QueryRunner(jdbcHelper.getDataSource()),
+                new DefaultBeanProcessor(MapperMode.REFLECTION, 16),
+                null, false, null);
+
+        String sql = "select id, pt_name, other_info from `test`.`user` order by id";
+        List<User> generatedUsers = jdbcHelper.queryForList(sql, User.class);
+        List<User> reflectionUsers = reflectionHelper.queryForList(sql, User.class);
+        Assert.assertThat(generatedUsers.size(), is(size));
+        Assert.assertThat(reflectionUsers.size(), is(size));
+        for (int i = 0; i < size; i++) {
+            User user = generatedUsers.get(i);
+            Assert.assertThat(user.getId(), is(i + 1L));
+            Assert.assertThat(user.getName(), is("test" + (i + 1)));
+            Assert.assertThat(user.getPassword(), nullValue());
+            Assert.assertThat(user.getOtherInfo(), nullValue());
+            Assert.assertThat(user.toString(), is(reflectionUsers.get(i).toString()));
+        }
+    }
+
+    @Test
+    public void testGeneratedClassReused() throws SQLException {
+        DefaultBeanProcessor processor = new DefaultBeanProcessor(MapperMode.GENERATED, 1);
+        String sql1 = "select id, pt_name from `test`.`user`";
+        String sql2 = "select id, pt_password from `test`.`user`";
+
+        RowMapper<User> mapper1 = getRowMapper(processor, sql1);
+        RowMapper<User> mapper2 = getRowMapper(processor, sql2);
+        Assert.assertThat(mapper1.getClass() == mapper2.getClass(), is(false));
+
+        // the evicted row mapper is created again, but the class is not generated again
+        RowMapper<User> mapper3 = getRowMapper(processor, sql1);
+        Assert.assertThat(mapper3.getClass() == mapper1.getClass(), is(true));
+
+        // the bean processors share the generated classes
+        RowMapper<User> mapper4 = getRowMapper(new DefaultBeanProcessor(MapperMode.GENERATED, 16), sql2);
+        Assert.assertThat(mapper4.getClass() == mapper2.getClass(), is(true));
+    }
+
+    private RowMapper<User> getRowMapper(DefaultBeanProcessor processor, String sql) throws SQLException {
+        try (Connection connection = jdbcHelper.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            return processor.getRowMapper(resultSet.getMetaData(), User.class);
+        }
+    }
+
     @Test
     public void testAsync() throws Exception {
         Promise.Completable<List<User>> completable = jdbcHelper.async(jdbcHelper.getConnection(), (conn, helper) -> {
@@ -1,5 +1,8 @@
 package test.db;
 
+import com.firefly.db.BulkInsertOptions;
+import com.firefly.db.DefaultMetricReporterFactory;
+import com.firefly.db.MetricReporterFactory;
 import com.firefly.db.SQLClient;
 import com.firefly.db.SQLConnection;
 import com.firefly.db.jdbc.JDBCClient;
@@ -12,10 +15,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
@@ -24,6 +24,7 @@ import static org.hamcrest.Matchers.is;
 public class TestSQLClient {
 
     private SQLClient sqlClient;
+    private MetricReporterFactory metricReporterFactory = new DefaultMetricReporterFactory();
     private int size = 10;
 
     public TestSQLClient() {
@@ -32,7 +33,7 @@ public class TestSQLClient {
         config.setDriverClassName("org.h2.Driver");
         config.setAutoCommit(false);
         HikariDataSource ds = new HikariDataSource(config);
-        sqlClient = new JDBCClient(ds);
+        sqlClient = new JDBCClient(ds, true, metricReporterFactory);
     }
 
     private <T> CompletableFuture<T> exec(Func1<SQLConnection, CompletableFuture<T>> func1) {
@@ -147,4 +148,42 @@ public class TestSQLClient {
         exec(c -> c.namedQueryForSingleColumn("select count(*) from test.user where pt_name in (:nameList)", paramMap))
                 .thenAccept(count -> Assert.assertThat(count, is(2L))).get();
     }
+
+    @Test
+    public void testBulkInsert() throws Exception {
+        int rows = 25;
+        List<User> users = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            User user = new User();
+            user.setName("bulk " + i);
+            user.setPassword("bulk pwd " + i);
+            user.setOtherInfo(i % 2 == 0 ? null : "bulk other " + i);
+            users.add(user);
+        }
+
+        // two full chunks and the last chunk has 5 rows
+        Assert.assertThat(exec(c -> c.bulkInsert(users, User.class, new BulkInsertOptions(10, false))).get(), is((long) rows));
+        Assert.assertThat(getBulkInsertChunks(), is(3L));
+        Assert.assertThat(exec(c -> c.bulkInsert(users, User.class, new BulkInsertOptions(10, true))).get(), is((long) rows));
+        Assert.assertThat(getBulkInsertChunks(), is(6L));
+
+        // the user has 3 parameters, so the max parameters limit the chunk to 2 rows
+        BulkInsertOptions options = new BulkInsertOptions(10, true);
+        options.setMaxParameters(7);
+        Assert.assertThat(exec(c -> c.bulkInsert(users, User.class, options)).get(), is((long) rows));
+        Assert.assertThat(getBulkInsertChunks(), is(19L));
+
+        List<User> list = exec(c -> c.queryForList("select * from test.user where id > ? order by id", User.class, size)).get();
+        Assert.assertThat(list.size(), is(rows * 3));
+        for (int i = 0; i < list.size(); i++) {
+            User user = users.get(i % rows);
+            Assert.assertThat(list.get(i).getName(), is(user.getName()));
+            Assert.assertThat(list.get(i).getPassword(), is(user.getPassword()));
+            Assert.assertThat(list.get(i).getOtherInfo(), is(user.getOtherInfo()));
+        }
+    }
+
+    private long getBulkInsertChunks() {
+        return metricReporterFactory.getMetricRegistry().timer("db.JDBCHelper.bulkInsert.chunk.time").getCount();
+    }
 }
@@ -20,6 +20,9 @@ public class Config {
     private Handler handler;
 
     private boolean monitorEnable = true;
+    private boolean pooledReadBuffer = false;
+    private int maxMergedOutputBuffers = 1024;
+    private long maxMergedOutputBytes = 1024 * 1024;
     private MetricReporterFactory metricReporterFactory = ServiceUtils.loadService(MetricReporterFactory.class, new DefaultMetricReporterFactory());
 
     /**
@@ -187,11 +190,72 @@ public class Config {
         this.monitorEnable = monitorEnable;
     }
 
+    /**
+     * If the pooledReadBuffer is true, the session reads data into the direct buffers that are acquired from a pooled arena,
+     * and the buffer returns to the arena after the {@link Decoder#decode(java.nio.ByteBuffer, Session)} returns.
+     * In this mode, the decoder must copy the data that it needs after the decode method returns.
+     *
+     * @return pooledReadBuffer The default value is false.
+     */
+    public boolean isPooledReadBuffer() {
+        return pooledReadBuffer;
+    }
+
+    /**
+     * If the pooledReadBuffer is true, the session reads data into the direct buffers that are acquired from a pooled arena,
+     * and the buffer returns to the arena after the {@link Decoder#decode(java.nio.ByteBuffer, Session)} returns.
+     * In this mode, the decoder must copy the data that it needs after the decode method returns.
+     *
+     * @param pooledReadBuffer pooledReadBuffer. The default value is false.
+     */
+    public void setPooledReadBuffer(boolean pooledReadBuffer) {
+        this.pooledReadBuffer = pooledReadBuffer;
+    }
+
+    /**
+     * Get the max number of the buffers that are merged into one gathering write.
+     *
+     * @return The max number of the merged buffers. The default value is 1024.
+     */
+    public int getMaxMergedOutputBuffers() {
+        return maxMergedOutputBuffers;
+    }
+
+    /**
+     * Set the max number of the buffers that are merged into one gathering write.
+     *
+     * @param maxMergedOutputBuffers The max number of the merged buffers. The default value is 1024.
+     */
+    public void setMaxMergedOutputBuffers(int maxMergedOutputBuffers) {
+        this.maxMergedOutputBuffers = maxMergedOutputBuffers;
+    }
+
+    /**
+     * Get the max bytes that are merged into one gathering write.
+     * The single entry that is larger than this value is written alone.
+     *
+     * @return The max merged bytes. The default value is 1MB.
+     */
+    public long getMaxMergedOutputBytes() {
+        return maxMergedOutputBytes;
+    }
+
+    /**
+     * Set the max bytes that are merged into one gathering write.
+     * The single entry that is larger than this value is written alone.
+     *
+     * @param maxMergedOutputBytes The max merged bytes. The default value is 1MB.
+     */
+    public void setMaxMergedOutputBytes(long maxMergedOutputBytes) {
+        this.maxMergedOutputBytes = maxMergedOutputBytes;
+    }
+
     @Override
     public String toString() {
         return "Firefly asynchronous TCP configuration {" +
                 "timeout=" + timeout +
                 ", asynchronousCorePoolSize=" + asynchronousCorePoolSize +
+                ", pooledReadBuffer=" + pooledReadBuffer +
                 '}';
     }
 }
@@ -3,5 +3,15 @@ package com.firefly.net;
 import java.nio.ByteBuffer;
 
 public interface Decoder {
+
+	/**
+	 * Decode the received data. If the session reads data with the pooled buffer, the buffer returns to the pool
+	 * after this method returns. So the decoder must not hold the buffer, it needs to copy the remaining data
+	 * that will be parsed in the next time.
+	 *
+	 * @param buf     The received data.
+	 * @param session The current session.
+	 * @throws Throwable The decoding exception.
+	 */
 	void decode(ByteBuffer buf, Session session) throws Throwable;
 }
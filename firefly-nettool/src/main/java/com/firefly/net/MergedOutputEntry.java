@@ -10,7 +10,10 @@ import static com.firefly.net.OutputEntryType.MERGED_BUFFER;
 
 /**
  * @author Pengtao Qiu
+ * @deprecated The session merges the queued output entries into one gathering write itself,
+ * so it is not necessary to merge the buffers before writing them.
  */
+@Deprecated
 public class MergedOutputEntry extends AbstractOutputEntry<ByteBuffer[]> {
 
     public MergedOutputEntry(List<Callback> callbackList, List<ByteBuffer> byteBufferList) {
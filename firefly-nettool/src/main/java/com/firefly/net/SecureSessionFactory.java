@@ -1,7 +1,10 @@
 package com.firefly.net;
 
+import com.codahale.metrics.MetricRegistry;
+
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * @author Pengtao Qiu
@@ -19,4 +22,21 @@ public interface SecureSessionFactory {
 
     List<String> getSupportedProtocols();
 
+    /**
+     * Set the executor that runs the delegated tasks of the SSL handshake, such as verifying the certificate.
+     * If it is not set, the delegated tasks run in the I/O thread.
+     *
+     * @param handshakeExecutor The handshake executor. It should be bounded.
+     */
+    default void setHandshakeExecutor(Executor handshakeExecutor) {
+    }
+
+    /**
+     * Set the metric registry that records the handshake latency and the in-flight handshakes.
+     *
+     * @param metricRegistry The metric registry.
+     */
+    default void setMetricRegistry(MetricRegistry metricRegistry) {
+    }
+
 }
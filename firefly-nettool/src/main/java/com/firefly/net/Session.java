@@ -19,6 +19,16 @@ public interface Session {
 
     void encode(Object message);
 
+    /**
+     * Pass the data to the decoder of the session. The I/O thread decodes the received data itself,
+     * and other threads use it to decode the data that has been kept, such as the application records
+     * that are received while the TLS handshake runs in the handshake executor.
+     *
+     * @param buf The received data.
+     */
+    default void decode(ByteBuffer buf) {
+    }
+
     void write(OutputEntry<?> entry);
 
     void write(ByteBuffer byteBuffer, Callback callback);
@@ -0,0 +1,128 @@
+package com.firefly.net.buffer;
+
+import com.codahale.metrics.Counter;
+import com.firefly.net.BufferPool;
+import com.firefly.utils.io.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The direct buffer arena keeps the released direct buffers in the size classes of 1KB step.
+ * The buffer can be acquired and released by the different threads.
+ *
+ * @author Pengtao Qiu
+ */
+public class DirectBufferArena implements BufferPool {
+
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_MAX_POOLED_BUFFERS_PER_SIZE = 256;
+
+    private final int maxBufferSize;
+    private final int maxPooledBuffersPerSize;
+    private final Queue<ByteBuffer>[] sizeClasses;
+    private final AtomicInteger[] sizeClassCounts;
+    private final Counter hitCount;
+    private final Counter missCount;
+    private final Counter outstandingBytes;
+
+    public DirectBufferArena(Counter hitCount, Counter missCount, Counter outstandingBytes) {
+        this(DEFAULT_MAX_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS_PER_SIZE, hitCount, missCount, outstandingBytes);
+    }
+
+    /**
+     * Create a direct buffer arena.
+     *
+     * @param maxBufferSize           The max pooled buffer size. The larger buffer is allocated directly and is not pooled.
+     * @param maxPooledBuffersPerSize The max number of the released buffers that are kept for each size class.
+     * @param hitCount                The counter of acquiring a pooled buffer.
+     * @param missCount               The counter of allocating a new buffer.
+     * @param outstandingBytes        The counter of the bytes that have been acquired but not been released.
+     */
+    @SuppressWarnings("unchecked")
+    public DirectBufferArena(int maxBufferSize, int maxPooledBuffersPerSize,
+                             Counter hitCount, Counter missCount, Counter outstandingBytes) {
+        this.maxBufferSize = BufferUtils.normalizeBufferSize(maxBufferSize);
+        this.maxPooledBuffersPerSize = maxPooledBuffersPerSize;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.outstandingBytes = outstandingBytes;
+
+        int classes = this.maxBufferSize >>> 10;
+        sizeClasses = new Queue[classes];
+        sizeClassCounts = new AtomicInteger[classes];
+        for (int i = 0; i < classes; i++) {
+            sizeClasses[i] = new ConcurrentLinkedQueue<>();
+            sizeClassCounts[i] = new AtomicInteger();
+        }
+    }
+
+    private int sizeClassIndex(int capacity) {
+        return (capacity >>> 10) - 1;
+    }
+
+    @Override
+    public ByteBuffer acquire(int size) {
+        int capacity = BufferUtils.normalizeBufferSize(Math.max(size, 1));
+        outstandingBytes.inc(capacity);
+        if (capacity > maxBufferSize) {
+            missCount.inc();
+            return ByteBuffer.allocateDirect(capacity);
+        }
+
+        int index = sizeClassIndex(capacity);
+        ByteBuffer buffer = sizeClasses[index].poll();
+        if (buffer != null) {
+            sizeClassCounts[index].decrementAndGet();
+            hitCount.inc();
+            buffer.clear();
+            return buffer;
+        } else {
+            missCount.inc();
+            return ByteBuffer.allocateDirect(capacity);
+        }
+    }
+
+    /**
+     * Release the buffer that is acquired from this arena. The heap buffers and the buffers that are not
+     * allocated in the size classes are ignored, and they are not subtracted from the outstanding bytes.
+     *
+     * @param buffer The buffer that is acquired from this arena.
+     */
+    @Override
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+
+        int capacity = buffer.capacity();
+        if (!buffer.isDirect() || (capacity & 1023) != 0) {
+            // the arena only allocates the direct buffers whose capacity is a multiple of 1KB
+            return;
+        }
+
+        outstandingBytes.dec(capacity);
+        if (capacity > maxBufferSize) {
+            return;
+        }
+
+        int index = sizeClassIndex(capacity);
+        if (sizeClassCounts[index].incrementAndGet() <= maxPooledBuffersPerSize) {
+            sizeClasses[index].offer(buffer);
+        } else {
+            sizeClassCounts[index].decrementAndGet();
+        }
+    }
+
+    @Override
+    public int size() {
+        int count = 0;
+        for (AtomicInteger sizeClassCount : sizeClassCounts) {
+            count += sizeClassCount.get();
+        }
+        return count;
+    }
+
+}
@@ -4,16 +4,21 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 
+import com.firefly.net.BufferPool;
 import com.firefly.utils.concurrent.Callback;
+import com.firefly.utils.concurrent.CountingCallback;
 import com.firefly.utils.io.BufferReaderHandler;
 import com.firefly.utils.io.FileUtils;
 
 public class FileRegion implements Closeable {
 
+	public static final long MAX_MAPPED_SIZE = 64 * 1024 * 1024;
+
 	private final File file;
 	private final long position;
 	private final long length;
@@ -78,6 +83,77 @@ public class FileRegion implements Closeable {
 		return ret;
 	}
 
+	/**
+	 * Map the file region into memory and pass the mapped buffers to the handler. The mapped buffers are written to
+	 * the socket from the page cache, so the file content is not copied into the JVM heap.
+	 *
+	 * @param callback The callback is completed when all mapped buffers are written.
+	 * @param handler  The mapped buffer handler.
+	 * @return The bytes of the file region.
+	 * @throws IOException The I/O exception
+	 */
+	public long transferMappedTo(Callback callback, BufferReaderHandler handler) throws IOException {
+		if (length <= 0) {
+			callback.succeeded();
+			return 0;
+		}
+
+		int bufferCount = (int) ((length + MAX_MAPPED_SIZE - 1) / MAX_MAPPED_SIZE);
+		CountingCallback countingCallback = new CountingCallback(callback, bufferCount);
+		FileChannel fc = getFileChannel();
+		long count = 0;
+		while (count < length) {
+			long size = Math.min(MAX_MAPPED_SIZE, length - count);
+			ByteBuffer buf = fc.map(FileChannel.MapMode.READ_ONLY, position + count, size);
+			count += size;
+			handler.readBuffer(buf, countingCallback, count);
+		}
+		return count;
+	}
+
+	/**
+	 * Read the file region into one pooled direct buffer repeatedly. The handler must consume the buffer before it
+	 * returns, because the buffer is reused to read the next part of file. For example, the TLS session encrypts
+	 * the buffer synchronously.
+	 *
+	 * @param callback   The callback is completed when all parts of file are handled.
+	 * @param bufferPool The buffer pool.
+	 * @param bufferSize The buffer size.
+	 * @param handler    The buffer handler.
+	 * @return The bytes of the file region.
+	 * @throws IOException The I/O exception
+	 */
+	public long transferPooledTo(Callback callback, BufferPool bufferPool, int bufferSize,
+								 BufferReaderHandler handler) throws IOException {
+		if (length <= 0) {
+			callback.succeeded();
+			return 0;
+		}
+
+		int bufferCount = (int) ((length + bufferSize - 1) / bufferSize);
+		CountingCallback countingCallback = new CountingCallback(callback, bufferCount);
+		FileChannel fc = getFileChannel();
+		ByteBuffer buf = bufferPool.acquire(bufferSize);
+		try {
+			long count = 0;
+			while (count < length) {
+				buf.clear();
+				buf.limit((int) Math.min(bufferSize, length - count));
+				while (buf.hasRemaining()) {
+					if (fc.read(buf, position + count + buf.position()) < 0) {
+						throw new IOException("The file region is out of the file size");
+					}
+				}
+				buf.flip();
+				count += buf.remaining();
+				handler.readBuffer(buf, countingCallback, count);
+			}
+			return count;
+		} finally {
+			bufferPool.release(buf);
+		}
+	}
+
 	@Override
 	public void close() throws IOException {
 		if (fileChannel != null)
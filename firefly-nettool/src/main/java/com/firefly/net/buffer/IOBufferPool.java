@@ -8,6 +8,11 @@ import org.slf4j.LoggerFactory;
 import java.lang.ref.SoftReference;
 import java.nio.ByteBuffer;
 
+/**
+ * @deprecated Use {@link SlabBufferPool}. It pools the buffers in the size classes and the released buffers can be
+ * reused by the other threads.
+ */
+@Deprecated
 public class IOBufferPool implements BufferPool {
     private static Logger log = LoggerFactory.getLogger("firefly-system");
 
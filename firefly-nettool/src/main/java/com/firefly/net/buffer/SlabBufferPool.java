@@ -0,0 +1,328 @@
+package com.firefly.net.buffer;
+
+import com.firefly.net.BufferPool;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The slab buffer pool keeps the buffers in the power-of-two size classes.
+ * The released buffers are cached in the current thread first, and the thread cache overflows into a shared
+ * lock-free queue of each size class. So the buffer can be released by the different thread that acquired it.
+ * The bytes that are held by the shared queues never exceed the max pooled bytes.
+ * <p>
+ * The pool samples the acquired buffers to detect leaks. If a sampled buffer is collected by GC before it is released,
+ * the leak counter increases.
+ *
+ * @author Pengtao Qiu
+ */
+public class SlabBufferPool implements BufferPool {
+
+    public static final int DEFAULT_MIN_BUFFER_SIZE = 1024;
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 1024 * 1024;
+    public static final int DEFAULT_MAX_THREAD_CACHED_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_THREAD_CACHE_SIZE = 8;
+    public static final long DEFAULT_MAX_POOLED_BYTES = 64L * 1024 * 1024;
+    public static final int DEFAULT_LEAK_DETECTION_INTERVAL = 128;
+
+    /**
+     * The shared heap buffer pool. It is used by codecs to allocate the temporary buffers.
+     */
+    public static final SlabBufferPool HEAP = new SlabBufferPool(false);
+
+    /**
+     * The shared direct buffer pool.
+     */
+    public static final SlabBufferPool DIRECT = new SlabBufferPool(true);
+
+    private final boolean directBuffer;
+    private final int minSizeShift;
+    private final int maxSizeShift;
+    private final int maxThreadCachedSizeShift;
+    private final long maxPooledBytes;
+    private final int leakDetectionInterval;
+
+    private final Queue<ByteBuffer>[] sharedQueues;
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final ThreadLocal<ThreadCache> threadCache;
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder releaseCount = new LongAdder();
+    private final LongAdder allocateCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final ReferenceQueue<ByteBuffer> leakQueue = new ReferenceQueue<>();
+    private final ConcurrentHashMap<Object, TrackedBuffer> trackedBuffers = new ConcurrentHashMap<>();
+
+    public SlabBufferPool() {
+        this(true);
+    }
+
+    public SlabBufferPool(boolean directBuffer) {
+        this(directBuffer, DEFAULT_MIN_BUFFER_SIZE, DEFAULT_MAX_BUFFER_SIZE, DEFAULT_MAX_THREAD_CACHED_BUFFER_SIZE,
+                DEFAULT_THREAD_CACHE_SIZE, DEFAULT_MAX_POOLED_BYTES, DEFAULT_LEAK_DETECTION_INTERVAL);
+    }
+
+    /**
+     * Create a slab buffer pool.
+     *
+     * @param directBuffer             If true, the pool allocates direct buffers, otherwise, it allocates heap buffers.
+     * @param minBufferSize            The smallest size class. It is rounded up to the power of two.
+     * @param maxBufferSize            The largest size class. It is rounded up to the power of two.
+     *                                 The larger buffer is allocated directly and is not pooled.
+     * @param maxThreadCachedSize      The largest size class that is cached in the thread.
+     * @param threadCacheSize          The max number of the buffers of each size class in the thread cache.
+     * @param maxPooledBytes           The max bytes that are held by the shared queues.
+     * @param leakDetectionInterval    Sample one of the specified number of acquired buffers to detect leaks.
+     *                                 If it is less than or equal to 0, the leak detection is disabled.
+     */
+    @SuppressWarnings("unchecked")
+    public SlabBufferPool(boolean directBuffer, int minBufferSize, int maxBufferSize, int maxThreadCachedSize,
+                          int threadCacheSize, long maxPooledBytes, int leakDetectionInterval) {
+        if (minBufferSize <= 0) {
+            throw new IllegalArgumentException("minBufferSize: " + minBufferSize);
+        }
+        if (maxBufferSize < minBufferSize) {
+            throw new IllegalArgumentException("maxBufferSize: " + maxBufferSize);
+        }
+        this.directBuffer = directBuffer;
+        this.minSizeShift = sizeShift(minBufferSize);
+        this.maxSizeShift = sizeShift(maxBufferSize);
+        this.maxThreadCachedSizeShift = Math.min(sizeShift(Math.max(maxThreadCachedSize, 1)), maxSizeShift);
+        this.maxPooledBytes = maxPooledBytes;
+        this.leakDetectionInterval = leakDetectionInterval;
+
+        int classes = maxSizeShift - minSizeShift + 1;
+        sharedQueues = new Queue[classes];
+        for (int i = 0; i < classes; i++) {
+            sharedQueues[i] = new ConcurrentLinkedQueue<>();
+        }
+        int threadCachedClasses = Math.max(maxThreadCachedSizeShift - minSizeShift + 1, 0);
+        threadCache = ThreadLocal.withInitial(() -> new ThreadCache(threadCachedClasses, threadCacheSize));
+    }
+
+    private static int sizeShift(int size) {
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    @Override
+    public ByteBuffer acquire(int size) {
+        acquireCount.increment();
+        ThreadCache cache = threadCache.get();
+        int shift = Math.max(sizeShift(size), minSizeShift);
+        ByteBuffer buffer;
+        if (shift > maxSizeShift) {
+            allocateCount.increment();
+            buffer = allocate(size);
+        } else {
+            int index = shift - minSizeShift;
+            buffer = shift <= maxThreadCachedSizeShift ? cache.pop(index) : null;
+            if (buffer == null) {
+                buffer = sharedQueues[index].poll();
+                if (buffer != null) {
+                    pooledBytes.addAndGet(-buffer.capacity());
+                }
+            }
+            if (buffer == null) {
+                allocateCount.increment();
+                buffer = allocate(1 << shift);
+            } else {
+                buffer.clear();
+            }
+        }
+
+        if (leakDetectionInterval > 0 && ++cache.acquired % leakDetectionInterval == 0) {
+            track(buffer);
+        }
+        return buffer;
+    }
+
+    @Override
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+
+        releaseCount.increment();
+        if (!trackedBuffers.isEmpty()) {
+            untrack(buffer);
+        }
+
+        int capacity = buffer.capacity();
+        if (buffer.isDirect() != directBuffer || Integer.bitCount(capacity) != 1) {
+            return;
+        }
+
+        int shift = sizeShift(capacity);
+        if (shift < minSizeShift || shift > maxSizeShift) {
+            return;
+        }
+
+        int index = shift - minSizeShift;
+        if (shift <= maxThreadCachedSizeShift && threadCache.get().push(index, buffer)) {
+            return;
+        }
+
+        if (pooledBytes.addAndGet(capacity) <= maxPooledBytes) {
+            sharedQueues[index].offer(buffer);
+        } else {
+            pooledBytes.addAndGet(-capacity);
+        }
+    }
+
+    /**
+     * Get the number of the buffers in the shared queues.
+     *
+     * @return The number of the buffers in the shared queues.
+     */
+    @Override
+    public int size() {
+        int count = 0;
+        for (Queue<ByteBuffer> queue : sharedQueues) {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    public boolean isDirectBuffer() {
+        return directBuffer;
+    }
+
+    public long getAcquireCount() {
+        return acquireCount.sum();
+    }
+
+    public long getReleaseCount() {
+        return releaseCount.sum();
+    }
+
+    public long getAllocateCount() {
+        return allocateCount.sum();
+    }
+
+    /**
+     * Get the number of the sampled buffers that are collected by GC before they are released.
+     *
+     * @return The leak count.
+     */
+    public long getLeakCount() {
+        detectLeaks();
+        return leakCount.sum();
+    }
+
+    /**
+     * Get the bytes that are held by the shared queues.
+     *
+     * @return The pooled bytes.
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return directBuffer ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private void track(ByteBuffer buffer) {
+        detectLeaks();
+        TrackedBuffer trackedBuffer = new TrackedBuffer(buffer, leakQueue);
+        trackedBuffers.put(trackedBuffer, trackedBuffer);
+    }
+
+    private void untrack(ByteBuffer buffer) {
+        BufferKey key = threadCache.get().key;
+        key.buffer = buffer;
+        key.hash = System.identityHashCode(buffer);
+        try {
+            trackedBuffers.remove(key);
+        } finally {
+            key.buffer = null;
+        }
+    }
+
+    private void detectLeaks() {
+        Object ref;
+        while ((ref = leakQueue.poll()) != null) {
+            if (trackedBuffers.remove(ref) != null) {
+                leakCount.increment();
+            }
+        }
+    }
+
+    private static class TrackedBuffer extends WeakReference<ByteBuffer> {
+
+        private final int hash;
+
+        private TrackedBuffer(ByteBuffer buffer, ReferenceQueue<ByteBuffer> queue) {
+            super(buffer, queue);
+            hash = System.identityHashCode(buffer);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class BufferKey {
+
+        private ByteBuffer buffer;
+        private int hash;
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TrackedBuffer && ((TrackedBuffer) o).get() == buffer;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class ThreadCache {
+
+        private final ByteBuffer[][] stacks;
+        private final int[] sizes;
+        private final BufferKey key = new BufferKey();
+        private int acquired;
+
+        private ThreadCache(int classes, int threadCacheSize) {
+            stacks = new ByteBuffer[classes][threadCacheSize];
+            sizes = new int[classes];
+        }
+
+        private ByteBuffer pop(int index) {
+            int size = sizes[index];
+            if (size == 0) {
+                return null;
+            }
+            size--;
+            ByteBuffer buffer = stacks[index][size];
+            stacks[index][size] = null;
+            sizes[index] = size;
+            return buffer;
+        }
+
+        private boolean push(int index, ByteBuffer buffer) {
+            int size = sizes[index];
+            ByteBuffer[] stack = stacks[index];
+            if (size == stack.length) {
+                return false;
+            }
+            stack[size] = buffer;
+            sizes[index] = size + 1;
+            return true;
+        }
+    }
+}
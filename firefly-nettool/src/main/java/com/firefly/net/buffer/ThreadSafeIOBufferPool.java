@@ -4,6 +4,11 @@ import com.firefly.net.BufferPool;
 
 import java.nio.ByteBuffer;
 
+/**
+ * @deprecated Use {@link SlabBufferPool}. It pools the buffers in the size classes and the released buffers can be
+ * reused by the other threads.
+ */
+@Deprecated
 public class ThreadSafeIOBufferPool implements BufferPool {
 
     private final ThreadLocal<BufferPool> safeBufferPool;
@@ -1,13 +1,16 @@
 package com.firefly.net.tcp;
 
 import com.firefly.net.Client;
+import com.firefly.net.SecureSession;
 import com.firefly.net.SecureSessionFactory;
+import com.firefly.net.SecureSessionHandshakeListener;
 import com.firefly.net.Session;
 import com.firefly.net.tcp.aio.AsynchronousTcpClient;
 import com.firefly.utils.concurrent.Promise;
 import com.firefly.utils.function.Action1;
 import com.firefly.utils.lang.AbstractLifeCycle;
 
+import java.net.InetSocketAddress;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
@@ -121,18 +124,25 @@ public class SimpleTcpClient extends AbstractLifeCycle {
             });
         } else {
             config.setDecoder(AbstractSimpleHandler.sslDecoder);
+            config.getSecureSessionFactory().setMetricRegistry(config.getMetricReporterFactory().getMetricRegistry());
             config.setHandler(new AbstractHandler() {
 
                 @Override
                 public void sessionOpened(Session session) throws Throwable {
                     SecureSessionFactory factory = config.getSecureSessionFactory();
-                    session.attachObject(new SecureTcpConnectionImpl(session, factory.create(session, true, ssl -> {
+                    SecureSessionHandshakeListener listener = ssl -> {
                         Object o = session.getAttachment();
                         if (o != null && o instanceof SecureTcpConnectionImpl) {
                             SecureTcpConnectionImpl c = (SecureTcpConnectionImpl) o;
                             sessionOpen(session, c);
                         }
-                    })));
+                    };
+                    // the client session cache of the SSL context is keyed by the peer host and port
+                    InetSocketAddress address = session.getRemoteAddress();
+                    SecureSession secureSession = address != null
+                            ? factory.create(session, true, address.getHostString(), address.getPort(), listener)
+                            : factory.create(session, true, listener);
+                    session.attachObject(new SecureTcpConnectionImpl(session, secureSession));
                 }
             });
         }
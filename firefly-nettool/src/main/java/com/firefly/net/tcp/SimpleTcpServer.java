@@ -76,6 +76,7 @@ public class SimpleTcpServer extends AbstractLifeCycle {
             });
         } else {
             config.setDecoder(AbstractSimpleHandler.sslDecoder);
+            config.getSecureSessionFactory().setMetricRegistry(config.getMetricReporterFactory().getMetricRegistry());
             config.setHandler(new AbstractHandler() {
 
                 @Override
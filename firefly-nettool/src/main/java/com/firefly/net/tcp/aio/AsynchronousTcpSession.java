@@ -17,10 +17,10 @@ import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AsynchronousTcpSession implements Session {
 
@@ -47,13 +47,25 @@ public class AsynchronousTcpSession implements Session {
     private final NetEvent netEvent;
     private volatile Object attachment;
 
-    private final Lock outputLock = new ReentrantLock();
-    private boolean isWriting = false;
-    private final Queue<OutputEntry<?>> outputBuffer = new LinkedList<>();
+    private final Queue<OutputEntry<?>> outputBuffer = new ConcurrentLinkedQueue<>();
+    // the size of the concurrent queue is not a constant-time operation
+    private final AtomicInteger outputBufferSize = new AtomicInteger();
+    private final AtomicBoolean writing = new AtomicBoolean(false);
+    private final GatheringWriteCompletionHandler gatheringWriteCompletionHandler = new GatheringWriteCompletionHandler();
+    // the following fields are only accessed by the thread that holds the writing flag
+    private OutputEntry<?> pendingEntry;
+    private ByteBuffer[] gatheringBuffers = new ByteBuffer[16];
+    private int gatheringOffset;
+    private int gatheringLength;
+    private Callback[] gatheringCallbacks = new Callback[16];
+    private int gatheringCallbackCount;
     private final BufferSizePredictor bufferSizePredictor = new AdaptiveBufferSizePredictor();
+    private final BufferPool readBufferPool;
 
-    AsynchronousTcpSession(int sessionId, Config config, SessionMetric sessionMetric, NetEvent netEvent, AsynchronousSocketChannel socketChannel) {
+    AsynchronousTcpSession(int sessionId, Config config, SessionMetric sessionMetric, BufferPool readBufferPool,
+                           NetEvent netEvent, AsynchronousSocketChannel socketChannel) {
         this.sessionId = sessionId;
+        this.readBufferPool = readBufferPool;
         this.openTime = Millisecond100Clock.currentTimeMillis();
         this.config = config;
         this.netEvent = netEvent;
@@ -65,18 +77,30 @@ public class AsynchronousTcpSession implements Session {
     private ByteBuffer allocateReadBuffer() {
         int size = BufferUtils.normalizeBufferSize(bufferSizePredictor.nextBufferSize());
         sessionMetric.getAllocatedInputBufferSize().update(size);
-        return ByteBuffer.allocate(size);
+        if (readBufferPool != null) {
+            return readBufferPool.acquire(size);
+        } else {
+            return ByteBuffer.allocate(size);
+        }
+    }
+
+    private void releaseReadBuffer(ByteBuffer buf) {
+        if (readBufferPool != null && buf != null) {
+            readBufferPool.release(buf);
+        }
     }
 
     void _read() {
+        ByteBuffer buf = null;
         try {
-            final ByteBuffer buf = allocateReadBuffer();
+            buf = allocateReadBuffer();
             if (log.isDebugEnabled()) {
                 log.debug("The session {} allocates buffer. Its size is {}", getSessionId(), buf.remaining());
             }
             socketChannel.read(buf, config.getTimeout(), TimeUnit.MILLISECONDS, this, new InputCompletionHandler(buf));
         } catch (Exception e) {
             log.warn("register read event exception. {}", e.getMessage());
+            releaseReadBuffer(buf);
             closeNow();
         }
     }
@@ -94,6 +118,7 @@ public class AsynchronousTcpSession implements Session {
             session.lastReadTime = Millisecond100Clock.currentTimeMillis();
             if (currentReadBytes < 0) {
                 log.info("The session {} input channel is shutdown, {}", session.getSessionId(), currentReadBytes);
+                releaseReadBuffer(buf);
                 session.closeNow();
                 return;
             }
@@ -110,6 +135,7 @@ public class AsynchronousTcpSession implements Session {
             } catch (Throwable t) {
                 netEvent.notifyExceptionCaught(session, t);
             } finally {
+                releaseReadBuffer(buf);
                 _read();
             }
         }
@@ -121,28 +147,17 @@ public class AsynchronousTcpSession implements Session {
             } else {
                 log.warn("The session {} reads data failure. It will force to close.", t, session.getSessionId());
             }
+            releaseReadBuffer(buf);
             closeNow();
         }
     }
 
-    private class OutputEntryCompletionHandler<V extends Number, T> implements CompletionHandler<V, AsynchronousTcpSession> {
-
-        private final OutputEntry<T> entry;
-
-        private OutputEntryCompletionHandler(OutputEntry<T> entry) {
-            this.entry = entry;
-        }
+    private class GatheringWriteCompletionHandler implements CompletionHandler<Long, AsynchronousTcpSession> {
 
         @Override
-        public void completed(V currentWrittenBytes, AsynchronousTcpSession session) {
+        public void completed(Long currentWrittenBytes, AsynchronousTcpSession session) {
             lastWrittenTime = Millisecond100Clock.currentTimeMillis();
-            if (log.isDebugEnabled()) {
-                log.debug("The session {} completed writing {} bytes, remaining {} bytes",
-                        session.getSessionId(),
-                        currentWrittenBytes, entry.remaining());
-            }
-
-            long w = currentWrittenBytes.longValue();
+            long w = currentWrittenBytes;
             if (w < 0) {
                 log.info("The session {} output channel is shutdown, {}", getSessionId(), currentWrittenBytes);
                 closeNow();
@@ -154,156 +169,191 @@ public class AsynchronousTcpSession implements Session {
             }
             writtenBytes += w;
 
-            if (entry.remaining() > 0) {
-                _write(entry);
-            } else {
-                writingCompletedCallback(entry.getCallback());
+            while (gatheringOffset < gatheringLength && !gatheringBuffers[gatheringOffset].hasRemaining()) {
+                gatheringBuffers[gatheringOffset] = null;
+                gatheringOffset++;
             }
-        }
-
-        @Override
-        public void failed(Throwable t, AsynchronousTcpSession session) {
-            writingFailedCallback(entry.getCallback(), t);
-        }
-
-
-        private void writingCompletedCallback(Callback callback) {
-            callback.succeeded();
-            OutputEntry<?> entry = getNextOutputEntry();
-            if (entry != null) {
-                _write(entry);
+            if (gatheringOffset < gatheringLength) {
+                if (log.isDebugEnabled()) {
+                    log.debug("The session {} remains {} buffers to write", getSessionId(), gatheringLength - gatheringOffset);
+                }
+                gatheringWrite();
+                return;
             }
-        }
 
-        private OutputEntry<?> getNextOutputEntry() {
-            OutputEntry<?> entry = null;
-            outputLock.lock();
-            try {
-                sessionMetric.getOutputBufferQueueSize().update(outputBuffer.size());
-                if (outputBuffer.isEmpty()) {
-                    isWriting = false;
-                } else {
-                    List<OutputEntry<?>> entries = new LinkedList<>();
-
-                    OutputEntry<?> obj;
-                    boolean disconnection = false;
-                    while ((obj = outputBuffer.poll()) != null) {
-                        if (disconnection) {
-                            log.warn("The session {} is waiting close. The entry [{}/{}] will discard", getSessionId(), obj.getOutputEntryType(), obj.remaining());
-                            continue;
-                        }
-                        if (obj.getOutputEntryType() != OutputEntryType.DISCONNECTION) {
-                            entries.add(obj);
-                        } else {
-                            disconnection = true;
-                        }
-                    }
-                    if (disconnection) {
-                        outputBuffer.offer(DISCONNECTION_FLAG);
-                    }
+            for (int i = 0; i < gatheringCallbackCount; i++) {
+                Callback callback = gatheringCallbacks[i];
+                gatheringCallbacks[i] = null;
+                callback.succeeded();
+            }
+            gatheringCallbackCount = 0;
 
-                    if (entries.isEmpty()) {
-                        if (!outputBuffer.isEmpty()) {
-                            obj = outputBuffer.peek();
-                            if (obj.getOutputEntryType() == OutputEntryType.DISCONNECTION) {
-                                entry = DISCONNECTION_FLAG;
-                                outputBuffer.poll();
-                            }
-                        }
-                    } else {
-                        if (entries.size() == 1) {
-                            entry = entries.get(0);
-                        } else {
-                            // merge ByteBuffer to ByteBuffer Array
-                            List<Callback> callbackList = new LinkedList<>();
-                            List<ByteBuffer> byteBufferList = new LinkedList<>();
-                            entries.forEach(e -> {
-                                callbackList.add(e.getCallback());
-                                switch (e.getOutputEntryType()) {
-                                    case BYTE_BUFFER:
-                                        ByteBufferOutputEntry byteBufferOutputEntry = (ByteBufferOutputEntry) e;
-                                        byteBufferList.add(byteBufferOutputEntry.getData());
-                                        break;
-                                    case BYTE_BUFFER_ARRAY:
-                                        ByteBufferArrayOutputEntry byteBufferArrayOutputEntry = (ByteBufferArrayOutputEntry) e;
-                                        byteBufferList.addAll(Arrays.asList(byteBufferArrayOutputEntry.getData()));
-                                        break;
-                                    case MERGED_BUFFER:
-                                        MergedOutputEntry mergedOutputEntry = (MergedOutputEntry) e;
-                                        byteBufferList.addAll(Arrays.asList(mergedOutputEntry.getData()));
-                                        break;
-                                }
-                            });
-                            sessionMetric.getMergedOutputBufferSize().update(callbackList.size());
-                            entry = new MergedOutputEntry(callbackList, byteBufferList);
-                        }
-                    }
-                }
-            } finally {
-                outputLock.unlock();
+            if (!writeNextBatch()) {
+                writing.set(false);
+                flush();
             }
-            return entry;
         }
 
-        private void writingFailedCallback(Callback callback, Throwable t) {
+        @Override
+        public void failed(Throwable t, AsynchronousTcpSession session) {
             if (t instanceof InterruptedByTimeoutException) {
                 log.info("Write data failure. The session {} idle {}ms timeout. It will close.", getSessionId(), getIdleTimeout());
             } else {
                 log.warn("The session {} writes data failure. It will close.", t, getSessionId());
             }
-            _writingFailedCallback(callback, t);
+            writingFailed(t);
         }
+    }
 
-        private void _writingFailedCallback(Callback callback, Throwable t) {
-            outputLock.lock();
-            try {
-                int bufferSize = outputBuffer.size();
-                log.warn("The session {} has {} buffer data can not output", getSessionId(), bufferSize);
-                outputBuffer.clear();
-                isWriting = false;
-                shutdownSocketChannel();
-            } finally {
-                outputLock.unlock();
+    private void flush() {
+        while (writing.compareAndSet(false, true)) {
+            if (writeNextBatch()) {
+                return;
+            }
+            writing.set(false);
+            if (outputBuffer.isEmpty()) {
+                return;
             }
-            callback.failed(t);
         }
     }
 
-    private void _write(final OutputEntry<?> entry) {
-        try {
+    private OutputEntry<?> pollOutputEntry() {
+        if (pendingEntry != null) {
+            OutputEntry<?> entry = pendingEntry;
+            pendingEntry = null;
+            return entry;
+        } else {
+            return pollQueuedEntry();
+        }
+    }
+
+    private OutputEntry<?> pollQueuedEntry() {
+        OutputEntry<?> entry = outputBuffer.poll();
+        if (entry != null) {
+            outputBufferSize.decrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Merge the queued entries into one gathering write. Only the thread that holds the writing flag calls this method.
+     *
+     * @return If true, a gathering write is in flight or the session is shutting down.
+     */
+    private boolean writeNextBatch() {
+        gatheringOffset = 0;
+        gatheringLength = 0;
+        gatheringCallbackCount = 0;
+        long gatheringBytes = 0;
+        sessionMetric.getOutputBufferQueueSize().update(outputBufferSize.get() + (pendingEntry != null ? 1 : 0));
+
+        OutputEntry<?> entry;
+        batch:
+        while ((entry = pollOutputEntry()) != null) {
+            ByteBuffer[] buffers;
             switch (entry.getOutputEntryType()) {
-                case BYTE_BUFFER: {
-                    ByteBufferOutputEntry byteBufferOutputEntry = (ByteBufferOutputEntry) entry;
-                    socketChannel.write(byteBufferOutputEntry.getData(),
-                            config.getTimeout(), TimeUnit.MILLISECONDS, this,
-                            new OutputEntryCompletionHandler<>(byteBufferOutputEntry));
-                }
-                break;
-                case BYTE_BUFFER_ARRAY: {
-                    ByteBufferArrayOutputEntry byteBuffersEntry = (ByteBufferArrayOutputEntry) entry;
-                    socketChannel.write(byteBuffersEntry.getData(), 0, byteBuffersEntry.getData().length,
-                            config.getTimeout(), TimeUnit.MILLISECONDS, this,
-                            new OutputEntryCompletionHandler<>(byteBuffersEntry));
-                }
-                break;
-                case MERGED_BUFFER: {
-                    MergedOutputEntry mergedOutputEntry = (MergedOutputEntry) entry;
-                    socketChannel.write(mergedOutputEntry.getData(), 0, mergedOutputEntry.getData().length,
-                            config.getTimeout(), TimeUnit.MILLISECONDS, this,
-                            new OutputEntryCompletionHandler<>(mergedOutputEntry));
-                }
-                break;
+                case BYTE_BUFFER:
+                    buffers = null;
+                    break;
+                case BYTE_BUFFER_ARRAY:
+                case MERGED_BUFFER:
+                    buffers = (ByteBuffer[]) entry.getData();
+                    break;
                 case DISCONNECTION: {
+                    if (gatheringCallbackCount > 0) {
+                        pendingEntry = entry;
+                        break batch;
+                    }
+                    OutputEntry<?> discarded;
+                    while ((discarded = pollQueuedEntry()) != null) {
+                        log.warn("The session {} is waiting close. The entry [{}/{}] will discard", getSessionId(), discarded.getOutputEntryType(), discarded.remaining());
+                        failEntry(discarded, new NetException("The session " + getSessionId() + " is closed"));
+                    }
                     log.info("The session {} has completed output. It will close.", getSessionId());
                     shutdownSocketChannel();
+                    return true;
                 }
-                break;
                 default:
                     throw new NetException("unknown output entry type");
             }
+            int bufferCount = buffers == null ? 1 : buffers.length;
+            long remaining = entry.remaining();
+            if (gatheringCallbackCount > 0
+                    && (gatheringLength + bufferCount > config.getMaxMergedOutputBuffers()
+                    || gatheringBytes + remaining > config.getMaxMergedOutputBytes())) {
+                pendingEntry = entry;
+                break batch;
+            }
+
+            ensureGatheringCapacity(bufferCount);
+            if (buffers == null) {
+                gatheringBuffers[gatheringLength++] = (ByteBuffer) entry.getData();
+            } else {
+                System.arraycopy(buffers, 0, gatheringBuffers, gatheringLength, bufferCount);
+                gatheringLength += bufferCount;
+            }
+            gatheringCallbacks[gatheringCallbackCount++] = entry.getCallback();
+            gatheringBytes += remaining;
+        }
+
+        if (gatheringCallbackCount == 0) {
+            return false;
+        }
+
+        sessionMetric.getOutputBatchSize().update(gatheringCallbackCount);
+        sessionMetric.getMergedOutputBufferSize().update(gatheringLength);
+        gatheringWrite();
+        return true;
+    }
+
+    private void ensureGatheringCapacity(int bufferCount) {
+        if (gatheringLength + bufferCount > gatheringBuffers.length) {
+            gatheringBuffers = Arrays.copyOf(gatheringBuffers, Math.max(gatheringBuffers.length << 1, gatheringLength + bufferCount));
+        }
+        if (gatheringCallbackCount == gatheringCallbacks.length) {
+            gatheringCallbacks = Arrays.copyOf(gatheringCallbacks, gatheringCallbacks.length << 1);
+        }
+    }
+
+    private void gatheringWrite() {
+        try {
+            socketChannel.write(gatheringBuffers, gatheringOffset, gatheringLength - gatheringOffset,
+                    config.getTimeout(), TimeUnit.MILLISECONDS, this, gatheringWriteCompletionHandler);
         } catch (Exception e) {
             log.warn("register write event exception. {}", e.getMessage());
-            shutdownSocketChannel();
+            writingFailed(e);
+        }
+    }
+
+    private void writingFailed(Throwable t) {
+        List<OutputEntry<?>> failedEntries = new ArrayList<>();
+        if (pendingEntry != null) {
+            failedEntries.add(pendingEntry);
+            pendingEntry = null;
+        }
+        OutputEntry<?> entry;
+        while ((entry = pollQueuedEntry()) != null) {
+            failedEntries.add(entry);
+        }
+        Callback[] callbacks = Arrays.copyOf(gatheringCallbacks, gatheringCallbackCount);
+        Arrays.fill(gatheringCallbacks, null);
+        Arrays.fill(gatheringBuffers, null);
+        gatheringCallbackCount = 0;
+        gatheringOffset = 0;
+        gatheringLength = 0;
+        log.warn("The session {} has {} buffer data can not output", getSessionId(), callbacks.length + failedEntries.size());
+        writing.set(false);
+        shutdownSocketChannel();
+        for (Callback callback : callbacks) {
+            callback.failed(t);
+        }
+        failedEntries.forEach(e -> failEntry(e, t));
+    }
+
+    private void failEntry(OutputEntry<?> entry, Throwable t) {
+        Callback callback = entry.getCallback();
+        if (callback != null) {
+            callback.failed(t);
         }
     }
 
@@ -315,24 +365,13 @@ public class AsynchronousTcpSession implements Session {
         if (waitingForClose.get() && entry.getOutputEntryType() != OutputEntryType.DISCONNECTION) {
             log.warn("The session {} is waiting for close. The entry [{}/{}] can not write to remote endpoint.",
                     getSessionId(), entry.getOutputEntryType(), entry.remaining());
+            failEntry(entry, new NetException("The session " + getSessionId() + " is waiting for close"));
             return;
         }
 
-        boolean writeEntry = false;
-        outputLock.lock();
-        try {
-            if (!isWriting) {
-                isWriting = true;
-                writeEntry = true;
-            } else {
-                outputBuffer.offer(entry);
-            }
-        } finally {
-            outputLock.unlock();
-        }
-        if (writeEntry) {
-            _write(entry);
-        }
+        outputBufferSize.incrementAndGet();
+        outputBuffer.offer(entry);
+        flush();
     }
 
     @Override
@@ -353,9 +392,10 @@ public class AsynchronousTcpSession implements Session {
     @Override
     public void write(FileRegion file, Callback callback) {
         try (FileRegion fileRegion = file) {
-            fileRegion.transferTo(callback, (buf, countingCallback, count) -> write(buf, countingCallback));
+            fileRegion.transferMappedTo(callback, (buf, countingCallback, count) -> write(buf, countingCallback));
         } catch (Throwable t) {
             log.error("transfer file error", t);
+            callback.failed(t);
         }
     }
 
@@ -374,6 +414,15 @@ public class AsynchronousTcpSession implements Session {
         netEvent.notifyMessageReceived(this, message);
     }
 
+    @Override
+    public void decode(ByteBuffer buf) {
+        try {
+            config.getDecoder().decode(buf, this);
+        } catch (Throwable t) {
+            netEvent.notifyExceptionCaught(this, t);
+        }
+    }
+
     @Override
     public void encode(Object message) {
         try {
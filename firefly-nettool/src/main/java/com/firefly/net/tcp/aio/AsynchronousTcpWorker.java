@@ -1,9 +1,11 @@
 package com.firefly.net.tcp.aio;
 
 import com.codahale.metrics.MetricRegistry;
+import com.firefly.net.BufferPool;
 import com.firefly.net.Config;
 import com.firefly.net.NetEvent;
 import com.firefly.net.Worker;
+import com.firefly.net.buffer.DirectBufferArena;
 import com.firefly.net.tcp.aio.metric.SessionMetric;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,12 +21,21 @@ public class AsynchronousTcpWorker implements Worker {
     private final Config config;
     private final NetEvent netEvent;
     private final SessionMetric sessionMetric;
+    private final BufferPool readBufferPool;
 
     AsynchronousTcpWorker(Config config, NetEvent netEvent) {
         this.config = config;
         this.netEvent = netEvent;
         MetricRegistry metrics = config.getMetricReporterFactory().getMetricRegistry();
         sessionMetric = new SessionMetric(metrics, "aio.tcpSession");
+        if (config.isPooledReadBuffer()) {
+            readBufferPool = new DirectBufferArena(
+                    sessionMetric.getReadBufferPoolHitCount(),
+                    sessionMetric.getReadBufferPoolMissCount(),
+                    sessionMetric.getReadBufferOutstandingBytes());
+        } else {
+            readBufferPool = null;
+        }
     }
 
     @Override
@@ -35,7 +46,7 @@ public class AsynchronousTcpWorker implements Worker {
             socketChannel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
             socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, false);
 
-            AsynchronousTcpSession session = new AsynchronousTcpSession(sessionId, config, sessionMetric, netEvent, socketChannel);
+            AsynchronousTcpSession session = new AsynchronousTcpSession(sessionId, config, sessionMetric, readBufferPool, netEvent, socketChannel);
             netEvent.notifySessionOpened(session);
             session._read();
         } catch (IOException e) {
@@ -13,13 +13,21 @@ public class SessionMetric {
     private final Histogram allocatedInputBufferSize;
     private final Histogram outputBufferQueueSize;
     private final Histogram mergedOutputBufferSize;
+    private final Histogram outputBatchSize;
+    private final Counter readBufferPoolHitCount;
+    private final Counter readBufferPoolMissCount;
+    private final Counter readBufferOutstandingBytes;
 
     public SessionMetric(MetricRegistry metrics, String prefix) {
         activeSessionCount = metrics.counter(prefix + ".activeSessionCount");
         duration = metrics.histogram(prefix + ".duration");
         outputBufferQueueSize = metrics.histogram(prefix + ".outputBufferQueueSize");
         mergedOutputBufferSize = metrics.histogram(prefix + ".mergedOutputBufferSize");
+        outputBatchSize = metrics.histogram(prefix + ".outputBatchSize");
         allocatedInputBufferSize = metrics.histogram(prefix + ".allocatedInputBufferSize");
+        readBufferPoolHitCount = metrics.counter(prefix + ".readBufferPool.hit");
+        readBufferPoolMissCount = metrics.counter(prefix + ".readBufferPool.miss");
+        readBufferOutstandingBytes = metrics.counter(prefix + ".readBufferPool.outstandingBytes");
     }
 
     public Counter getActiveSessionCount() {
@@ -41,4 +49,20 @@ public class SessionMetric {
     public Histogram getMergedOutputBufferSize() {
         return mergedOutputBufferSize;
     }
+
+    public Histogram getOutputBatchSize() {
+        return outputBatchSize;
+    }
+
+    public Counter getReadBufferPoolHitCount() {
+        return readBufferPoolHitCount;
+    }
+
+    public Counter getReadBufferPoolMissCount() {
+        return readBufferPoolMissCount;
+    }
+
+    public Counter getReadBufferOutstandingBytes() {
+        return readBufferOutstandingBytes;
+    }
 }
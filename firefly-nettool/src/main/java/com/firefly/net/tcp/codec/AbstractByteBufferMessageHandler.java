@@ -18,6 +18,7 @@ abstract public class AbstractByteBufferMessageHandler<T> extends AbstractMessag
         try {
             merge(buf);
             parse();
+            keepRemaining(buf);
         } catch (Throwable t) {
             exception.call(t);
         }
@@ -37,5 +38,18 @@ abstract public class AbstractByteBufferMessageHandler<T> extends AbstractMessag
         }
     }
 
+    /**
+     * The received buffer may be returned to the pool after parsing, so copy the remaining data.
+     *
+     * @param buf The received buffer
+     */
+    protected void keepRemaining(ByteBuffer buf) {
+        if (buffer == buf && buffer.hasRemaining()) {
+            ByteBuffer tmp = ByteBuffer.allocate(buffer.remaining());
+            tmp.put(buffer).flip();
+            buffer = tmp;
+        }
+    }
+
     abstract protected void parse();
 }
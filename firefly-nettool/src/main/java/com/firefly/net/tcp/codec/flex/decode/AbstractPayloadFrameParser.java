@@ -13,6 +13,7 @@ abstract public class AbstractPayloadFrameParser<T extends Frame> implements Fle
     protected Frame frame;
     protected State state = State.HEADER;
     protected int payloadLength;
+    protected int payloadPosition;
     protected byte[] data;
 
     public Pair<Result, T> parse(ByteBuffer buffer, Frame header) {
@@ -42,17 +43,27 @@ abstract public class AbstractPayloadFrameParser<T extends Frame> implements Fle
 
     abstract protected Result parseFrameHeader(ByteBuffer buffer);
 
+    /**
+     * Copy the payload to the frame data. If the payload is split into several buffers,
+     * the received part is copied at once, so the frame parser does not merge the buffers of the payload.
+     *
+     * @param buffer The received buffer.
+     * @return The parsing result.
+     */
     protected Pair<Result, T> parsePayload(ByteBuffer buffer) {
         if (payloadLength == 0) {
             return generateResult(buffer);
         }
 
-        if (buffer.remaining() < payloadLength) {
+        if (data == null) {
+            data = new byte[payloadLength];
+        }
+        int length = Math.min(buffer.remaining(), payloadLength - payloadPosition);
+        buffer.get(data, payloadPosition, length);
+        payloadPosition += length;
+        if (payloadPosition < payloadLength) {
             return new Pair<>(Result.UNDERFLOW, null);
         }
-
-        data = new byte[payloadLength];
-        buffer.get(data);
         return generateResult(buffer);
     }
 
@@ -61,6 +72,7 @@ abstract public class AbstractPayloadFrameParser<T extends Frame> implements Fle
     protected void reset() {
         frame = null;
         payloadLength = 0;
+        payloadPosition = 0;
         data = null;
         state = State.HEADER;
     }
@@ -27,6 +27,7 @@ public class FrameParser extends AbstractByteBufferMessageHandler<Frame> {
         parserMap.put(FrameType.DATA, new MessageFrameParser());
         parserMap.put(FrameType.PING, new PingFrameParser());
         parserMap.put(FrameType.DISCONNECTION, new DisconnectionFrameParser());
+        parserMap.put(FrameType.WINDOW_UPDATE, new WindowUpdateFrameParser());
     }
 
     @Override
@@ -0,0 +1,39 @@
+package com.firefly.net.tcp.codec.flex.decode;
+
+import com.firefly.net.tcp.codec.exception.ProtocolException;
+import com.firefly.net.tcp.codec.flex.protocol.Frame;
+import com.firefly.net.tcp.codec.flex.protocol.WindowUpdateFrame;
+import com.firefly.utils.lang.Pair;
+
+import java.nio.ByteBuffer;
+
+import static com.firefly.net.tcp.codec.flex.protocol.WindowUpdateFrame.WINDOW_UPDATE_FRAME_LENGTH;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class WindowUpdateFrameParser implements FlexParser<WindowUpdateFrame> {
+
+    @Override
+    public Pair<Result, WindowUpdateFrame> parse(ByteBuffer buffer, Frame header) {
+        Pair<Result, WindowUpdateFrame> pair = new Pair<>();
+        if (buffer.remaining() < WINDOW_UPDATE_FRAME_LENGTH) {
+            pair.first = Result.UNDERFLOW;
+            return pair;
+        }
+
+        int streamId = buffer.getInt();
+        int windowDelta = buffer.getInt();
+        if (streamId < 0 || windowDelta <= 0) {
+            throw new ProtocolException("The window update frame format error");
+        }
+        pair.second = new WindowUpdateFrame(header, streamId, windowDelta);
+
+        if (buffer.hasRemaining()) {
+            pair.first = Result.OVERFLOW;
+        } else {
+            pair.first = Result.COMPLETE;
+        }
+        return pair;
+    }
+}
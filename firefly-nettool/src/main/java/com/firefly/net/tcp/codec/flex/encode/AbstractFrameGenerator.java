@@ -0,0 +1,43 @@
+package com.firefly.net.tcp.codec.flex.encode;
+
+import com.firefly.net.BufferPool;
+import com.firefly.net.tcp.codec.Generator;
+import com.firefly.net.tcp.codec.flex.protocol.Frame;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+
+/**
+ * The frame generator computes the frame length first, and it writes the frame header and payload
+ * to the buffer that is allocated by the caller, so the frame can be generated into a pooled buffer.
+ *
+ * @author Pengtao Qiu
+ */
+abstract public class AbstractFrameGenerator<T extends Frame> implements Generator {
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public ByteBuffer generate(Object object) {
+        return generate((T) object, ByteBuffer::allocate);
+    }
+
+    /**
+     * Generate the frame to the pooled buffer. The caller releases the buffer when the buffer has been written.
+     *
+     * @param frame The frame.
+     * @param pool  The buffer pool.
+     * @return The buffer in flush mode.
+     */
+    public ByteBuffer generate(T frame, BufferPool pool) {
+        return generate(frame, pool::acquire);
+    }
+
+    /**
+     * Generate the frame.
+     *
+     * @param frame     The frame.
+     * @param allocator It allocates the buffer of the frame length.
+     * @return The buffer in flush mode.
+     */
+    abstract public ByteBuffer generate(T frame, IntFunction<ByteBuffer> allocator);
+}
@@ -7,34 +7,70 @@ import io.protostuff.ProtostuffIOUtil;
 import io.protostuff.Schema;
 import io.protostuff.runtime.RuntimeSchema;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 /**
+ * The Protostuff meta info generator. Every thread reuses a linked buffer,
+ * so the serialization does not allocate the buffer for each meta info.
+ *
  * @author Pengtao Qiu
  */
 public class DefaultMetaInfoGenerator implements MetaInfoGenerator {
 
     public static final Schema<Request> requestSchema = RuntimeSchema.getSchema(Request.class);
     public static final Schema<Response> responseSchema = RuntimeSchema.getSchema(Response.class);
+    public static final int DEFAULT_BUFFER_SIZE = 4 * 1024;
+
+    private static final ThreadLocal<ProtostuffSerialized> serializedCache = ThreadLocal.withInitial(ProtostuffSerialized::new);
 
     @Override
     public byte[] generate(Object object) {
-        byte[] data;
-        if (object instanceof Request) {
-            LinkedBuffer buffer = LinkedBuffer.allocate();
-            try {
-                data = ProtostuffIOUtil.toByteArray((Request) object, requestSchema, buffer);
-            } finally {
-                buffer.clear();
+        LinkedBuffer buffer = serializedCache.get().buffer;
+        try {
+            if (object instanceof Request) {
+                return ProtostuffIOUtil.toByteArray((Request) object, requestSchema, buffer);
+            } else if (object instanceof Response) {
+                return ProtostuffIOUtil.toByteArray((Response) object, responseSchema, buffer);
+            } else {
+                throw new IllegalArgumentException("The meta info type must be Request or Response");
             }
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public Serialized serialize(Object object) {
+        ProtostuffSerialized serialized = serializedCache.get();
+        serialized.buffer.clear();
+        if (object instanceof Request) {
+            serialized.length = ProtostuffIOUtil.writeTo(serialized.buffer, (Request) object, requestSchema);
         } else if (object instanceof Response) {
-            LinkedBuffer buffer = LinkedBuffer.allocate();
+            serialized.length = ProtostuffIOUtil.writeTo(serialized.buffer, (Response) object, responseSchema);
+        } else {
+            throw new IllegalArgumentException("The meta info type must be Request or Response");
+        }
+        return serialized;
+    }
+
+    private static class ProtostuffSerialized implements Serialized {
+
+        private final LinkedBuffer buffer = LinkedBuffer.allocate(DEFAULT_BUFFER_SIZE);
+        private int length;
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
             try {
-                data = ProtostuffIOUtil.toByteArray((Response) object, responseSchema, buffer);
+                LinkedBuffer.writeTo(out, buffer);
             } finally {
                 buffer.clear();
             }
-        } else {
-            throw new IllegalArgumentException("The meta info type must be Request or Response");
         }
-        return data;
     }
 }
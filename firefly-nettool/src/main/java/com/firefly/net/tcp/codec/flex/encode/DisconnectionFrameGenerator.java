@@ -1,11 +1,11 @@
 package com.firefly.net.tcp.codec.flex.encode;
 
-import com.firefly.net.tcp.codec.Generator;
 import com.firefly.net.tcp.codec.flex.protocol.DisconnectionFrame;
 import com.firefly.net.tcp.codec.flex.protocol.Frame;
 
 import java.nio.ByteBuffer;
 import java.util.Optional;
+import java.util.function.IntFunction;
 
 import static com.firefly.net.tcp.codec.flex.encode.FrameGenerator.headerGenerator;
 import static com.firefly.net.tcp.codec.flex.protocol.DisconnectionFrame.DISCONNECTION_FRAME_HEADER_LENGTH;
@@ -14,19 +14,18 @@ import static com.firefly.net.tcp.codec.flex.protocol.Frame.FRAME_HEADER_LENGTH;
 /**
  * @author Pengtao Qiu
  */
-public class DisconnectionFrameGenerator implements Generator {
-    @Override
-    public ByteBuffer generate(Object object) {
-        DisconnectionFrame frame = (DisconnectionFrame) object;
+public class DisconnectionFrameGenerator extends AbstractFrameGenerator<DisconnectionFrame> {
 
+    @Override
+    public ByteBuffer generate(DisconnectionFrame frame, IntFunction<ByteBuffer> allocator) {
         short payloadLength = Optional.ofNullable(frame.getData()).map(d -> d.length)
                                       .filter(len -> len <= Frame.MAX_PAYLOAD_LENGTH)
                                       .map(Integer::shortValue).orElse((short) 0);
 
-        ByteBuffer buffer = ByteBuffer.allocate(FRAME_HEADER_LENGTH + DISCONNECTION_FRAME_HEADER_LENGTH + payloadLength);
+        ByteBuffer buffer = allocator.apply(FRAME_HEADER_LENGTH + DISCONNECTION_FRAME_HEADER_LENGTH + payloadLength);
 
         // generate header
-        buffer.put(headerGenerator.generate(frame));
+        headerGenerator.generate(frame, buffer);
         buffer.put(frame.getCode());
 
         // generate payload
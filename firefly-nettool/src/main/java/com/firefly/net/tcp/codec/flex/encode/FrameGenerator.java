@@ -1,6 +1,6 @@
 package com.firefly.net.tcp.codec.flex.encode;
 
-import com.firefly.net.tcp.codec.Generator;
+import com.firefly.net.BufferPool;
 import com.firefly.net.tcp.codec.flex.protocol.Frame;
 import com.firefly.net.tcp.codec.flex.protocol.FrameType;
 
@@ -14,16 +14,31 @@ import java.util.Map;
 public class FrameGenerator {
 
     public static final FrameHeaderGenerator headerGenerator = new FrameHeaderGenerator();
-    private static final Map<FrameType, Generator> generatorMap = new EnumMap<>(FrameType.class);
+    private static final Map<FrameType, AbstractFrameGenerator<? extends Frame>> generatorMap = new EnumMap<>(FrameType.class);
 
     static {
         generatorMap.put(FrameType.CONTROL, new MessageFrameGenerator());
         generatorMap.put(FrameType.DATA, new MessageFrameGenerator());
         generatorMap.put(FrameType.PING, new PingGenerator());
         generatorMap.put(FrameType.DISCONNECTION, new DisconnectionFrameGenerator());
+        generatorMap.put(FrameType.WINDOW_UPDATE, new WindowUpdateFrameGenerator());
     }
 
     public static ByteBuffer generate(Frame frame) {
         return generatorMap.get(frame.getType()).generate(frame);
     }
+
+    /**
+     * Generate the frame to the buffer that is acquired from the pool.
+     * The caller must release the buffer to the pool when the buffer has been written.
+     *
+     * @param frame The frame.
+     * @param pool  The buffer pool.
+     * @return The buffer in flush mode.
+     */
+    @SuppressWarnings("unchecked")
+    public static ByteBuffer generate(Frame frame, BufferPool pool) {
+        AbstractFrameGenerator<Frame> generator = (AbstractFrameGenerator<Frame>) generatorMap.get(frame.getType());
+        return generator.generate(frame, pool);
+    }
 }
@@ -12,11 +12,15 @@ public class FrameHeaderGenerator implements Generator {
 
     @Override
     public ByteBuffer generate(Object object) {
-        Frame frame = (Frame) object;
         ByteBuffer buffer = ByteBuffer.allocate(Frame.FRAME_HEADER_LENGTH);
+        generate((Frame) object, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    public void generate(Frame frame, ByteBuffer buffer) {
         buffer.put(frame.getMagic())
               .put(frame.getType().getValue())
-              .put(frame.getVersion()).flip();
-        return buffer;
+              .put(frame.getVersion());
     }
 }
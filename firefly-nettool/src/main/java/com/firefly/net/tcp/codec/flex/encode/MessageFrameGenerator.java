@@ -1,11 +1,15 @@
 package com.firefly.net.tcp.codec.flex.encode;
 
-import com.firefly.net.tcp.codec.Generator;
 import com.firefly.net.tcp.codec.flex.protocol.Frame;
 import com.firefly.net.tcp.codec.flex.protocol.MessageFrame;
+import com.firefly.net.tcp.codec.flex.protocol.MetaInfoControlFrame;
+import com.firefly.utils.exception.CommonRuntimeException;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.Optional;
+import java.util.function.IntFunction;
 
 import static com.firefly.net.tcp.codec.flex.encode.FrameGenerator.headerGenerator;
 import static com.firefly.net.tcp.codec.flex.protocol.Frame.FRAME_HEADER_LENGTH;
@@ -14,37 +18,135 @@ import static com.firefly.net.tcp.codec.flex.protocol.MessageFrame.MESSAGE_FRAME
 /**
  * @author Pengtao Qiu
  */
-public class MessageFrameGenerator implements Generator {
+public class MessageFrameGenerator extends AbstractFrameGenerator<MessageFrame> {
 
     @Override
-    public ByteBuffer generate(Object object) {
-        MessageFrame messageFrame = (MessageFrame) object;
+    public ByteBuffer generate(MessageFrame messageFrame, IntFunction<ByteBuffer> allocator) {
+        if (messageFrame instanceof MetaInfoControlFrame) {
+            return generateMetaInfo((MetaInfoControlFrame) messageFrame, allocator);
+        }
+
         short payloadLength = Optional.ofNullable(messageFrame.getData()).map(d -> d.length)
                                       .filter(len -> len <= Frame.MAX_PAYLOAD_LENGTH)
                                       .map(Integer::shortValue).orElse((short) 0);
 
-        ByteBuffer buffer = ByteBuffer.allocate(FRAME_HEADER_LENGTH + MESSAGE_FRAME_HEADER_LENGTH + payloadLength);
+        ByteBuffer buffer = allocator.apply(FRAME_HEADER_LENGTH + MESSAGE_FRAME_HEADER_LENGTH + payloadLength);
 
         // generate header
-        buffer.put(headerGenerator.generate(messageFrame));
-        if (messageFrame.isEndStream()) {
-            buffer.putInt(Frame.addEndFlag(messageFrame.getStreamId()));
+        generateHeader(buffer, messageFrame, messageFrame.isEndStream(), messageFrame.isEndFrame(), payloadLength);
+
+        // generate payload
+        if (payloadLength > 0) {
+            buffer.put(messageFrame.getData());
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Serialize the meta info into the buffer. The serialized data that is larger than the max payload length
+     * is split into several control frames.
+     *
+     * @param frame     The meta info control frame.
+     * @param allocator It allocates the buffer of the frames.
+     * @return The buffer in flush mode.
+     */
+    protected ByteBuffer generateMetaInfo(MetaInfoControlFrame frame, IntFunction<ByteBuffer> allocator) {
+        MetaInfoGenerator.Serialized serialized = frame.getMetaInfoGenerator().serialize(frame.getMetaInfo());
+        int length = serialized.getLength();
+        int frameCount = Math.max(1, (length + Frame.MAX_PAYLOAD_LENGTH - 1) / Frame.MAX_PAYLOAD_LENGTH);
+        ByteBuffer buffer = allocator.apply(length + frameCount * (FRAME_HEADER_LENGTH + MESSAGE_FRAME_HEADER_LENGTH));
+
+        MetaInfoOutputStream out = new MetaInfoOutputStream(buffer, frame, length);
+        try {
+            serialized.writeTo(out);
+        } catch (IOException e) {
+            throw new CommonRuntimeException(e);
+        }
+        out.endFrame();
+
+        buffer.flip();
+        return buffer;
+    }
+
+    protected static void generateHeader(ByteBuffer buffer, MessageFrame frame,
+                                         boolean endStream, boolean endFrame, short payloadLength) {
+        headerGenerator.generate(frame, buffer);
+        if (endStream) {
+            buffer.putInt(Frame.addEndFlag(frame.getStreamId()));
         } else {
-            buffer.putInt(Frame.removeEndFlag(messageFrame.getStreamId()));
+            buffer.putInt(Frame.removeEndFlag(frame.getStreamId()));
         }
 
-        // generate payload
-        if (messageFrame.isEndFrame()) {
+        if (endFrame) {
             buffer.putShort(Frame.addEndFlag(payloadLength));
         } else {
             buffer.putShort(Frame.removeEndFlag(payloadLength));
         }
-        if (payloadLength > 0) {
-            buffer.put(messageFrame.getData());
+    }
+
+    /**
+     * It writes the frame header before the payload of each control frame.
+     */
+    protected static class MetaInfoOutputStream extends OutputStream {
+
+        private final ByteBuffer buffer;
+        private final MetaInfoControlFrame frame;
+        private int remaining;
+        private int framePayloadRemaining;
+        private boolean headerGenerated;
+
+        protected MetaInfoOutputStream(ByteBuffer buffer, MetaInfoControlFrame frame, int length) {
+            this.buffer = buffer;
+            this.frame = frame;
+            this.remaining = length;
+        }
+
+        @Override
+        public void write(int b) {
+            nextFrame();
+            buffer.put((byte) b);
+            framePayloadRemaining--;
+            remaining--;
+        }
+
+        @Override
+        public void write(byte[] array, int offset, int length) {
+            while (length > 0) {
+                nextFrame();
+                int size = Math.min(length, framePayloadRemaining);
+                buffer.put(array, offset, size);
+                offset += size;
+                length -= size;
+                framePayloadRemaining -= size;
+                remaining -= size;
+            }
+        }
+
+        /**
+         * Generate the header of the empty meta info.
+         */
+        protected void endFrame() {
+            if (!headerGenerated) {
+                generateHeader(buffer, frame, frame.isEndStream(), true, (short) 0);
+                headerGenerated = true;
+            }
+        }
+
+        private void nextFrame() {
+            if (framePayloadRemaining > 0) {
+                return;
+            }
+            if (remaining <= 0) {
+                throw new IllegalStateException("The meta info data is longer than the serialized length");
+            }
+
+            framePayloadRemaining = Math.min(remaining, Frame.MAX_PAYLOAD_LENGTH);
+            boolean last = framePayloadRemaining == remaining;
+            generateHeader(buffer, frame, last && frame.isEndStream(), last, (short) framePayloadRemaining);
+            headerGenerated = true;
         }
-        
-        buffer.flip();
-        return buffer;
     }
 
 }
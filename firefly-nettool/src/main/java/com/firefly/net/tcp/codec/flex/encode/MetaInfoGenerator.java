@@ -2,6 +2,9 @@ package com.firefly.net.tcp.codec.flex.encode;
 
 import com.firefly.utils.ServiceUtils;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 /**
  * @author Pengtao Qiu
  */
@@ -10,4 +13,34 @@ public interface MetaInfoGenerator {
     MetaInfoGenerator DEFAULT = ServiceUtils.loadService(MetaInfoGenerator.class, new DefaultMetaInfoGenerator());
 
     byte[] generate(Object object);
+
+    /**
+     * Serialize the meta info. The frame generator gets the length first, and then it writes the serialized data
+     * to the frame buffer, so the generator can keep the data in a reusable buffer instead of creating a byte array.
+     * The default implementation wraps the byte array of the {@link #generate(Object)}.
+     *
+     * @param object The meta info.
+     * @return The serialized meta info. It is written in the current thread before the next serialization.
+     */
+    default Serialized serialize(Object object) {
+        byte[] data = generate(object);
+        return new Serialized() {
+            @Override
+            public int getLength() {
+                return data.length;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                out.write(data);
+            }
+        };
+    }
+
+    interface Serialized {
+
+        int getLength();
+
+        void writeTo(OutputStream out) throws IOException;
+    }
 }
@@ -1,25 +1,23 @@
 package com.firefly.net.tcp.codec.flex.encode;
 
-import com.firefly.net.tcp.codec.Generator;
 import com.firefly.net.tcp.codec.flex.protocol.Frame;
 import com.firefly.net.tcp.codec.flex.protocol.PingFrame;
 
 import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
 
 import static com.firefly.net.tcp.codec.flex.encode.FrameGenerator.headerGenerator;
 
 /**
  * @author Pengtao Qiu
  */
-public class PingGenerator implements Generator {
+public class PingGenerator extends AbstractFrameGenerator<PingFrame> {
 
     @Override
-    public ByteBuffer generate(Object object) {
-        PingFrame pingFrame = (PingFrame) object;
-        
+    public ByteBuffer generate(PingFrame pingFrame, IntFunction<ByteBuffer> allocator) {
         int length = Frame.FRAME_HEADER_LENGTH + 1;
-        ByteBuffer buffer = ByteBuffer.allocate(length);
-        buffer.put(headerGenerator.generate(pingFrame));
+        ByteBuffer buffer = allocator.apply(length);
+        headerGenerator.generate(pingFrame, buffer);
 
         if (pingFrame.isReply()) {
             buffer.put((byte) 1);
@@ -0,0 +1,26 @@
+package com.firefly.net.tcp.codec.flex.encode;
+
+import com.firefly.net.tcp.codec.flex.protocol.WindowUpdateFrame;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+
+import static com.firefly.net.tcp.codec.flex.encode.FrameGenerator.headerGenerator;
+import static com.firefly.net.tcp.codec.flex.protocol.Frame.FRAME_HEADER_LENGTH;
+import static com.firefly.net.tcp.codec.flex.protocol.WindowUpdateFrame.WINDOW_UPDATE_FRAME_LENGTH;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class WindowUpdateFrameGenerator extends AbstractFrameGenerator<WindowUpdateFrame> {
+
+    @Override
+    public ByteBuffer generate(WindowUpdateFrame frame, IntFunction<ByteBuffer> allocator) {
+        ByteBuffer buffer = allocator.apply(FRAME_HEADER_LENGTH + WINDOW_UPDATE_FRAME_LENGTH);
+        headerGenerator.generate(frame, buffer);
+        buffer.putInt(frame.getStreamId());
+        buffer.putInt(frame.getWindowDelta());
+        buffer.flip();
+        return buffer;
+    }
+}
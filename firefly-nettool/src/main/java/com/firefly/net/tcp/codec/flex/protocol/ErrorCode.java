@@ -11,7 +11,8 @@ public enum ErrorCode {
     NO_ERROR((byte) 0, "No error"),
     INTERNAL((byte) 1, "Internal error"),
     BAD_MESSAGE((byte) 2, "Protocol format error"),
-    IO_ERROR((byte) 3, "I/O error");
+    IO_ERROR((byte) 3, "I/O error"),
+    FLOW_CONTROL((byte) 4, "Flow control error");
 
     private final byte value;
     private final String description;
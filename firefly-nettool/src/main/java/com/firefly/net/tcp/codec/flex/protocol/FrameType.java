@@ -11,7 +11,8 @@ public enum FrameType {
     CONTROL((byte) 1, "Control frame"),
     DATA((byte) 2, "Data frame"),
     PING((byte) 3, "Ping frame"),
-    DISCONNECTION((byte) 4, "Disconnection frame");
+    DISCONNECTION((byte) 4, "Disconnection frame"),
+    WINDOW_UPDATE((byte) 5, "Window update frame");
 
     private final byte value;
     private final String description;
@@ -0,0 +1,53 @@
+package com.firefly.net.tcp.codec.flex.protocol;
+
+import com.firefly.net.tcp.codec.flex.encode.MetaInfoGenerator;
+import com.firefly.net.tcp.codec.flex.model.MetaInfo;
+import com.firefly.utils.Assert;
+
+/**
+ * The control frame that keeps the meta info instead of the serialized data.
+ * The frame generator serializes the meta info into the frame buffer directly. If the serialized data is larger than
+ * the max payload length, it is sent as several control frames, and the last control frame has the frame end flag.
+ *
+ * @author Pengtao Qiu
+ */
+public class MetaInfoControlFrame extends ControlFrame {
+
+    protected final MetaInfo metaInfo;
+    protected final MetaInfoGenerator metaInfoGenerator;
+
+    public MetaInfoControlFrame(boolean endStream, int streamId, MetaInfo metaInfo, MetaInfoGenerator metaInfoGenerator) {
+        super(endStream, streamId, true, null);
+        Assert.notNull(metaInfo, "The meta info must be not null");
+        Assert.notNull(metaInfoGenerator, "The meta info generator must be not null");
+        this.metaInfo = metaInfo;
+        this.metaInfoGenerator = metaInfoGenerator;
+    }
+
+    public MetaInfo getMetaInfo() {
+        return metaInfo;
+    }
+
+    public MetaInfoGenerator getMetaInfoGenerator() {
+        return metaInfoGenerator;
+    }
+
+    /**
+     * Create the same frame of the other stream.
+     *
+     * @param streamId The stream id.
+     * @return The new frame.
+     */
+    public MetaInfoControlFrame newFrame(int streamId) {
+        return new MetaInfoControlFrame(endStream, streamId, metaInfo, metaInfoGenerator);
+    }
+
+    @Override
+    public String toString() {
+        return "MetaInfoControlFrame{" +
+                "endStream=" + endStream +
+                ", streamId=" + streamId +
+                ", metaInfo=" + metaInfo +
+                '}';
+    }
+}
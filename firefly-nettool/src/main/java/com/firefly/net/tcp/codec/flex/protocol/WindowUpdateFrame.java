@@ -0,0 +1,62 @@
+package com.firefly.net.tcp.codec.flex.protocol;
+
+import com.firefly.utils.Assert;
+
+/**
+ * The window update frame format:
+ * [frame header (3 bytes)] + [stream id (4 bytes)] + [window size increment (4 bytes)]
+ * <p>
+ * The receiver grants the sender the credits to send more data frames.
+ * If the stream id is 0, the frame updates the window of the whole session.
+ * The initial windows of the session and the stream are {@link #DEFAULT_SESSION_WINDOW_SIZE} and
+ * {@link #DEFAULT_STREAM_WINDOW_SIZE}. The receiver enlarges them by the window update frames.
+ *
+ * @author Pengtao Qiu
+ */
+public class WindowUpdateFrame extends Frame {
+
+    public static final int WINDOW_UPDATE_FRAME_LENGTH = 8;
+    public static final int DEFAULT_SESSION_WINDOW_SIZE = 4 * 1024 * 1024;
+    public static final int DEFAULT_STREAM_WINDOW_SIZE = 1024 * 1024;
+
+    private final int streamId;
+    private final int windowDelta;
+
+    public WindowUpdateFrame(int streamId, int windowDelta) {
+        this(MAGIC, FrameType.WINDOW_UPDATE, VERSION, streamId, windowDelta);
+    }
+
+    public WindowUpdateFrame(Frame frame, int streamId, int windowDelta) {
+        this(frame.magic, frame.type, frame.version, streamId, windowDelta);
+    }
+
+    public WindowUpdateFrame(byte magic, FrameType type, byte version, int streamId, int windowDelta) {
+        super(magic, type, version);
+        Assert.isTrue(streamId >= 0, "The stream id must be not less than 0");
+        Assert.isTrue(windowDelta > 0, "The window size increment must be greater than 0");
+        this.streamId = streamId;
+        this.windowDelta = windowDelta;
+    }
+
+    public int getStreamId() {
+        return streamId;
+    }
+
+    public int getWindowDelta() {
+        return windowDelta;
+    }
+
+    public boolean isSessionWindowUpdate() {
+        return streamId == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "WindowUpdateFrame{" +
+                "streamId=" + streamId +
+                ", windowDelta=" + windowDelta +
+                ", type=" + type +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -4,6 +4,9 @@ package com.firefly.net.tcp.codec.flex.stream;
 import com.firefly.net.tcp.codec.flex.decode.MetaInfoParser;
 import com.firefly.net.tcp.codec.flex.encode.MetaInfoGenerator;
 
+import static com.firefly.net.tcp.codec.flex.protocol.WindowUpdateFrame.DEFAULT_SESSION_WINDOW_SIZE;
+import static com.firefly.net.tcp.codec.flex.protocol.WindowUpdateFrame.DEFAULT_STREAM_WINDOW_SIZE;
+
 /**
  * @author Pengtao Qiu
  */
@@ -14,6 +17,8 @@ public class FlexConfiguration {
     private int defaultOutputBufferSize = 2 * 1024;
     private long streamMaxIdleTime = 2 * 60 * 1000;
     private int heartbeatInterval;
+    private int sessionWindowSize = DEFAULT_SESSION_WINDOW_SIZE;
+    private int streamWindowSize = DEFAULT_STREAM_WINDOW_SIZE;
 
     public MetaInfoParser getMetaInfoParser() {
         return metaInfoParser;
@@ -54,4 +59,32 @@ public class FlexConfiguration {
     public void setStreamMaxIdleTime(long streamMaxIdleTime) {
         this.streamMaxIdleTime = streamMaxIdleTime;
     }
+
+    public int getSessionWindowSize() {
+        return sessionWindowSize;
+    }
+
+    /**
+     * Set the receive window of the session. The remote endpoint can not send more data frames than the window
+     * until the received data has been consumed. It is not less than the default session window.
+     *
+     * @param sessionWindowSize The receive window of the session.
+     */
+    public void setSessionWindowSize(int sessionWindowSize) {
+        this.sessionWindowSize = sessionWindowSize;
+    }
+
+    public int getStreamWindowSize() {
+        return streamWindowSize;
+    }
+
+    /**
+     * Set the receive window of every stream. The remote endpoint can not send more data frames than the window
+     * on a stream until the received data has been consumed. It is not less than the default stream window.
+     *
+     * @param streamWindowSize The receive window of the stream.
+     */
+    public void setStreamWindowSize(int streamWindowSize) {
+        this.streamWindowSize = streamWindowSize;
+    }
 }
@@ -16,12 +16,25 @@ public interface FlexConnection extends Connection {
 
     FlexConfiguration getConfiguration();
 
+    /**
+     * The listener of the request and response messages. The received data is consumed when it is delivered:
+     * the flow control grants the credits of the data frame to the remote endpoint after the content method returns.
+     * The listener that passes the data to another thread must bound its own buffer, because the remote endpoint
+     * can send the next window of data immediately.
+     */
     interface Listener {
 
         void newRequest(Context context);
 
         void newResponse(Context context);
 
+        /**
+         * Receive the data of the message. The data is treated as consumed when this method returns,
+         * so the window update frame may be sent before the application processes the data.
+         *
+         * @param context      The context of the stream.
+         * @param receivedData The received data.
+         */
         void content(Context context, byte[] receivedData);
 
         void contentComplete(Context context);
@@ -32,6 +32,12 @@ public interface Stream extends ContextAttribute {
     interface Listener {
         void onControl(ControlFrame controlFrame);
 
+        /**
+         * Receive the data frame. The data is consumed when it is delivered,
+         * and the flow control grants the credits of the frame to the remote endpoint after this method returns.
+         *
+         * @param dataFrame The data frame.
+         */
         void onData(DataFrame dataFrame);
     }
 
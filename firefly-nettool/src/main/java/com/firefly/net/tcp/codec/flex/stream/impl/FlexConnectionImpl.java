@@ -8,6 +8,7 @@ import com.firefly.net.tcp.codec.flex.model.Response;
 import com.firefly.net.tcp.codec.flex.protocol.ControlFrame;
 import com.firefly.net.tcp.codec.flex.protocol.DataFrame;
 import com.firefly.net.tcp.codec.flex.protocol.DisconnectionFrame;
+import com.firefly.net.tcp.codec.flex.protocol.MetaInfoControlFrame;
 import com.firefly.net.tcp.codec.flex.protocol.PingFrame;
 import com.firefly.net.tcp.codec.flex.stream.FlexConfiguration;
 import com.firefly.net.tcp.codec.flex.stream.FlexConnection;
@@ -139,14 +140,17 @@ public class FlexConnectionImpl implements FlexConnection {
         return session;
     }
 
+    public TcpConnection getTcpConnection() {
+        return tcpConnection;
+    }
+
     @Override
     public void newRequest(Request request, Listener listener) {
         Assert.notNull(request, "The request must be not null");
         Assert.notNull(listener, "The context listener must be not null");
 
-        byte[] data = generate(request);
         Stream newLocalStream = getSession().newStream(
-                new ControlFrame(false, 0, true, data),
+                new MetaInfoControlFrame(false, 0, request, getMetaInfoGenerator()),
                 Callback.NOOP, new NewRequestStreamListener(listener));
 
         FlexContext context = new FlexContext(request, newLocalStream, FlexConnectionImpl.this);
@@ -155,10 +159,36 @@ public class FlexConnectionImpl implements FlexConnection {
         listener.newRequest(context);
     }
 
-    private byte[] generate(Request request) {
-        return Optional.ofNullable(configuration.getMetaInfoGenerator())
-                       .orElse(MetaInfoGenerator.DEFAULT)
-                       .generate(request);
+    protected MetaInfoGenerator getMetaInfoGenerator() {
+        return Optional.ofNullable(configuration.getMetaInfoGenerator()).orElse(MetaInfoGenerator.DEFAULT);
+    }
+
+    protected MetaInfoParser getMetaInfoParser() {
+        return Optional.ofNullable(configuration.getMetaInfoParser()).orElse(MetaInfoParser.DEFAULT);
+    }
+
+    /**
+     * Get the meta info data of the last control frame. If the meta info is sent in one control frame,
+     * the frame data is parsed directly, otherwise the data of the control frames is merged.
+     *
+     * @param out  The data of the previous control frames.
+     * @param data The data of the last control frame.
+     * @return The meta info data.
+     */
+    protected static byte[] getMetaInfoData(ByteArrayOutputStream out, byte[] data) {
+        if (out.size() == 0) {
+            return data != null ? data : new byte[0];
+        }
+        saveData(out, data);
+        byte[] metaInfoData = out.toByteArray();
+        out.reset();
+        return metaInfoData;
+    }
+
+    protected static void saveData(ByteArrayOutputStream out, byte[] data) {
+        if (data != null) {
+            out.write(data, 0, data.length);
+        }
     }
 
     @Override
@@ -205,26 +235,16 @@ public class FlexConnectionImpl implements FlexConnection {
             this.listener = listener;
         }
 
-        protected FlexContext createContext(Stream stream) {
-            IO.close(metaInfoByteArrayOutputStream);
-            Request request = Optional.ofNullable(configuration.getMetaInfoParser()).orElse(MetaInfoParser.DEFAULT)
-                                      .parse(metaInfoByteArrayOutputStream.toByteArray(), Request.class);
+        protected FlexContext createContext(Stream stream, byte[] metaInfoData) {
+            Request request = getMetaInfoParser().parse(metaInfoData, Request.class);
             Assert.state(request != null, "Parse request meta info failure");
 
             return new FlexContext(request, stream, FlexConnectionImpl.this);
         }
 
-        protected void saveData(byte[] data) {
-            try {
-                metaInfoByteArrayOutputStream.write(data);
-            } catch (IOException ignored) {
-            }
-        }
-
         protected void onControlFrame(Stream stream, ControlFrame controlFrame) {
             if (controlFrame.isEndFrame()) {
-                saveData(controlFrame.getData());
-                FlexContext context = createContext(stream);
+                FlexContext context = createContext(stream, getMetaInfoData(metaInfoByteArrayOutputStream, controlFrame.getData()));
                 stream.setAttribute(CONTEXT_KEY, context);
                 stream.setAttribute(CTX_LISTENER_KEY, listener);
 
@@ -237,7 +257,7 @@ public class FlexConnectionImpl implements FlexConnection {
                     listener.exception(context, e);
                 }
             } else {
-                saveData(controlFrame.getData());
+                saveData(metaInfoByteArrayOutputStream, controlFrame.getData());
             }
         }
 
@@ -281,26 +301,17 @@ public class FlexConnectionImpl implements FlexConnection {
             this.listener = listener;
         }
 
-        protected void saveData(byte[] data) {
-            try {
-                metaInfoByteArrayOutputStream.write(data);
-            } catch (IOException ignored) {
-            }
-        }
-
         @Override
         public void onControl(ControlFrame controlFrame) {
             if (controlFrame.isEndFrame()) {
-                saveData(controlFrame.getData());
-                IO.close(metaInfoByteArrayOutputStream);
+                byte[] metaInfoData = getMetaInfoData(metaInfoByteArrayOutputStream, controlFrame.getData());
                 Stream stream = getSession().getStream(controlFrame.getStreamId());
                 Assert.state(stream != null, "The stream has not been created");
 
                 FlexContext context = getContext(stream);
                 Assert.state(context != null, "The flex context has not been created");
 
-                context.setResponse(Optional.ofNullable(configuration.getMetaInfoParser()).orElse(MetaInfoParser.DEFAULT)
-                                            .parse(metaInfoByteArrayOutputStream.toByteArray(), Response.class));
+                context.setResponse(getMetaInfoParser().parse(metaInfoData, Response.class));
                 Assert.state(context.getResponse() != null, "Parse response meta info failure");
 
                 try {
@@ -313,7 +324,7 @@ public class FlexConnectionImpl implements FlexConnection {
                     listener.exception(context, e);
                 }
             } else {
-                saveData(controlFrame.getData());
+                saveData(metaInfoByteArrayOutputStream, controlFrame.getData());
             }
         }
 
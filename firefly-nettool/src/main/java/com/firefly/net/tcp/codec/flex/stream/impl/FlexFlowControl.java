@@ -0,0 +1,350 @@
+package com.firefly.net.tcp.codec.flex.stream.impl;
+
+import com.firefly.net.tcp.codec.flex.protocol.DataFrame;
+import com.firefly.net.tcp.codec.flex.protocol.Frame;
+import com.firefly.net.tcp.codec.flex.protocol.FrameType;
+import com.firefly.net.tcp.codec.flex.protocol.MessageFrame;
+import com.firefly.net.tcp.codec.flex.protocol.WindowUpdateFrame;
+import com.firefly.net.tcp.codec.flex.stream.Stream;
+import com.firefly.net.tcp.flex.metric.FlexMetric;
+import com.firefly.utils.concurrent.Callback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.firefly.net.tcp.codec.flex.protocol.WindowUpdateFrame.DEFAULT_SESSION_WINDOW_SIZE;
+import static com.firefly.net.tcp.codec.flex.protocol.WindowUpdateFrame.DEFAULT_STREAM_WINDOW_SIZE;
+
+/**
+ * <p>
+ * The credit-based flow control of the flex session. The data frames consume the send windows of the session
+ * and the stream, and the receiver grants the credits by the window update frames when the received data has been consumed.
+ * </p>
+ * <p>
+ * If the windows are exhausted, the message frames of the stream are queued, and the callbacks of them are completed
+ * when the frames are written. So the writer gets the backpressure by the callbacks of the {@link Stream#send}.
+ * The stalled stream does not delay the other streams until the session window is exhausted.
+ * </p>
+ *
+ * @author Pengtao Qiu
+ */
+public class FlexFlowControl {
+
+    protected static final Logger log = LoggerFactory.getLogger("firefly-system");
+
+    protected final FlexSession session;
+    protected final FlexMetric flexMetric;
+    protected final int sessionWindowSize;
+    protected final int streamWindowSize;
+
+    // the streams that are waiting for the session send window
+    private final Deque<FlexStream> sessionStalledStreams = new ArrayDeque<>();
+    private final Queue<PendingFrame> readyFrames = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private int sessionSendWindow = DEFAULT_SESSION_WINDOW_SIZE;
+    private int sessionRecvWindow = DEFAULT_SESSION_WINDOW_SIZE;
+    private int sessionConsumed;
+
+    public FlexFlowControl(FlexSession session, FlexMetric flexMetric, int sessionWindowSize, int streamWindowSize) {
+        this.session = session;
+        this.flexMetric = flexMetric;
+        this.sessionWindowSize = Math.max(sessionWindowSize, DEFAULT_SESSION_WINDOW_SIZE);
+        this.streamWindowSize = Math.max(streamWindowSize, DEFAULT_STREAM_WINDOW_SIZE);
+    }
+
+    /**
+     * Enlarge the session receive window to the configured window size.
+     */
+    public void onSessionOpened() {
+        int delta;
+        synchronized (this) {
+            delta = sessionWindowSize - sessionRecvWindow;
+            sessionRecvWindow = sessionWindowSize;
+        }
+        if (delta > 0) {
+            session.sendFrame(new WindowUpdateFrame(0, delta), Callback.NOOP);
+        }
+    }
+
+    /**
+     * Enlarge the stream receive window to the configured window size.
+     * It must be invoked after the first control frame of the stream has been sent or received,
+     * and the window update frame is written behind the first control frame.
+     *
+     * @param stream The new stream.
+     */
+    public void onStreamCreated(FlexStream stream) {
+        synchronized (this) {
+            StreamWindow window = stream.getStreamWindow();
+            int delta = streamWindowSize - window.recvWindow;
+            if (delta <= 0) {
+                return;
+            }
+            window.recvWindow = streamWindowSize;
+            readyFrames.offer(new PendingFrame(new WindowUpdateFrame(stream.getId(), delta), session));
+        }
+        write();
+    }
+
+    /**
+     * Send the message frame of the stream. The data frame is queued if the send windows are not enough,
+     * and the frames behind it are queued to keep the order of the stream.
+     *
+     * @param stream   The stream.
+     * @param frame    The control frame or data frame.
+     * @param callback The callback is completed when the frame has been written.
+     */
+    public void send(FlexStream stream, MessageFrame frame, Callback callback) {
+        synchronized (this) {
+            StreamWindow window = stream.getStreamWindow();
+            window.pendingFrames.offer(new PendingFrame(frame, callback));
+            flush(stream);
+        }
+        write();
+    }
+
+    /**
+     * Update the send windows and send the queued frames.
+     *
+     * @param frame The window update frame.
+     */
+    public void onWindowUpdate(WindowUpdateFrame frame) {
+        synchronized (this) {
+            updateSendWindow(frame);
+        }
+        write();
+    }
+
+    private void updateSendWindow(WindowUpdateFrame frame) {
+        if (frame.isSessionWindowUpdate()) {
+            sessionSendWindow += frame.getWindowDelta();
+            if (log.isDebugEnabled()) {
+                log.debug("Update the session send window by {} to {}", frame.getWindowDelta(), sessionSendWindow);
+            }
+            for (int i = sessionStalledStreams.size(); i > 0; i--) {
+                FlexStream stream = sessionStalledStreams.poll();
+                stream.getStreamWindow().sessionStalled = false;
+                flush(stream);
+                if (stream.getStreamWindow().sessionStalled) {
+                    break;
+                }
+            }
+        } else {
+            FlexStream stream = (FlexStream) session.getStream(frame.getStreamId());
+            if (stream == null) {
+                // the stream has been closed
+                return;
+            }
+            StreamWindow window = stream.getStreamWindow();
+            window.sendWindow += frame.getWindowDelta();
+            if (log.isDebugEnabled()) {
+                log.debug("Update the stream {} send window by {} to {}", stream.getId(), frame.getWindowDelta(), window.sendWindow);
+            }
+            if (!window.sessionStalled) {
+                flush(stream);
+            }
+        }
+    }
+
+    /**
+     * Consume the receive windows when the data frame is received.
+     *
+     * @param stream    The stream.
+     * @param dataFrame The data frame.
+     * @return If false, the remote endpoint sends the data beyond the receive windows.
+     */
+    public synchronized boolean onDataReceived(FlexStream stream, DataFrame dataFrame) {
+        int length = getFlowControlLength(dataFrame);
+        StreamWindow window = stream.getStreamWindow();
+        sessionRecvWindow -= length;
+        window.recvWindow -= length;
+        return sessionRecvWindow >= 0 && window.recvWindow >= 0;
+    }
+
+    /**
+     * Grant the credits to the remote endpoint when the received data has been consumed.
+     * The window update frame is sent when the consumed data reaches the half of the receive window.
+     *
+     * @param stream    The stream.
+     * @param dataFrame The consumed data frame.
+     */
+    public void onDataConsumed(FlexStream stream, DataFrame dataFrame) {
+        int length = getFlowControlLength(dataFrame);
+        if (length == 0) {
+            return;
+        }
+
+        WindowUpdateFrame sessionUpdate = null;
+        WindowUpdateFrame streamUpdate = null;
+        synchronized (this) {
+            sessionConsumed += length;
+            if (sessionConsumed >= sessionWindowSize / 2) {
+                sessionRecvWindow += sessionConsumed;
+                sessionUpdate = new WindowUpdateFrame(0, sessionConsumed);
+                sessionConsumed = 0;
+            }
+
+            Stream.State state = stream.getState();
+            if (state == Stream.State.OPEN || state == Stream.State.LOCALLY_CLOSED) {
+                StreamWindow window = stream.getStreamWindow();
+                window.consumed += length;
+                if (window.consumed >= streamWindowSize / 2) {
+                    window.recvWindow += window.consumed;
+                    streamUpdate = new WindowUpdateFrame(stream.getId(), window.consumed);
+                    window.consumed = 0;
+                }
+            }
+        }
+        if (sessionUpdate != null) {
+            session.sendFrame(sessionUpdate, Callback.NOOP);
+        }
+        if (streamUpdate != null) {
+            session.sendFrame(streamUpdate, Callback.NOOP);
+        }
+    }
+
+    /**
+     * Fail the queued frames of the closed stream.
+     *
+     * @param stream The closed stream.
+     */
+    public void onStreamClosed(FlexStream stream) {
+        List<PendingFrame> frames = new ArrayList<>();
+        synchronized (this) {
+            removePending(stream, frames);
+        }
+        failed(frames, "The stream " + stream.getId() + " is closed");
+    }
+
+    /**
+     * Fail all queued frames of the closed session.
+     */
+    public void onSessionClosed() {
+        List<PendingFrame> frames = new ArrayList<>();
+        synchronized (this) {
+            session.getAllStreams().values().forEach(s -> removePending((FlexStream) s, frames));
+            sessionStalledStreams.clear();
+        }
+        failed(frames, "The session is closed");
+    }
+
+    public synchronized int getSessionSendWindow() {
+        return sessionSendWindow;
+    }
+
+    public synchronized int getSessionRecvWindow() {
+        return sessionRecvWindow;
+    }
+
+    protected int getFlowControlLength(Frame frame) {
+        if (frame.getType() == FrameType.DATA) {
+            byte[] data = ((DataFrame) frame).getData();
+            return data == null ? 0 : data.length;
+        } else {
+            return 0;
+        }
+    }
+
+    private void flush(FlexStream stream) {
+        StreamWindow window = stream.getStreamWindow();
+        PendingFrame pending;
+        while ((pending = window.pendingFrames.peek()) != null) {
+            int length = getFlowControlLength(pending.frame);
+            if (length > 0) {
+                if (window.sendWindow < length) {
+                    stall(window);
+                    return;
+                }
+                if (sessionSendWindow < length) {
+                    stall(window);
+                    if (!window.sessionStalled) {
+                        window.sessionStalled = true;
+                        sessionStalledStreams.offer(stream);
+                    }
+                    return;
+                }
+                window.sendWindow -= length;
+                sessionSendWindow -= length;
+            }
+            window.pendingFrames.poll();
+            readyFrames.offer(pending);
+        }
+        if (window.stalled) {
+            window.stalled = false;
+            flexMetric.getStalledStreamCount().dec();
+        }
+    }
+
+    // The frames are written out of the lock in the order that they leave the stream queues
+    private void write() {
+        while (writing.compareAndSet(false, true)) {
+            PendingFrame pending;
+            while ((pending = readyFrames.poll()) != null) {
+                session._writeFrame(pending.frame, pending.callback);
+            }
+            writing.set(false);
+            if (readyFrames.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    private void stall(StreamWindow window) {
+        if (!window.stalled) {
+            window.stalled = true;
+            flexMetric.getStalledStreamCount().inc();
+            flexMetric.getStreamStallMeter().mark();
+        }
+    }
+
+    private void removePending(FlexStream stream, List<PendingFrame> frames) {
+        StreamWindow window = stream.getStreamWindow();
+        frames.addAll(window.pendingFrames);
+        window.pendingFrames.clear();
+        if (window.sessionStalled) {
+            window.sessionStalled = false;
+            sessionStalledStreams.remove(stream);
+        }
+        if (window.stalled) {
+            window.stalled = false;
+            flexMetric.getStalledStreamCount().dec();
+        }
+    }
+
+    private void failed(List<PendingFrame> frames, String message) {
+        if (!frames.isEmpty()) {
+            IOException x = new IOException(message);
+            frames.forEach(pending -> pending.callback.failed(x));
+        }
+    }
+
+    /**
+     * The flow control state of the stream. It is guarded by the flow control of the session.
+     */
+    public static class StreamWindow {
+        private final Deque<PendingFrame> pendingFrames = new ArrayDeque<>();
+        private int sendWindow = DEFAULT_STREAM_WINDOW_SIZE;
+        private int recvWindow = DEFAULT_STREAM_WINDOW_SIZE;
+        private int consumed;
+        private boolean stalled;
+        private boolean sessionStalled;
+    }
+
+    private static class PendingFrame {
+        private final Frame frame;
+        private final Callback callback;
+
+        private PendingFrame(Frame frame, Callback callback) {
+            this.frame = frame;
+            this.callback = callback;
+        }
+    }
+}
@@ -5,7 +5,6 @@ import com.firefly.net.tcp.codec.flex.model.MetaInfo;
 import com.firefly.net.tcp.codec.flex.protocol.*;
 import com.firefly.net.tcp.codec.flex.stream.Stream;
 import com.firefly.utils.Assert;
-import com.firefly.utils.codec.ByteArrayUtils;
 import com.firefly.utils.concurrent.Callback;
 import com.firefly.utils.io.BufferUtils;
 import com.firefly.utils.io.IO;
@@ -16,7 +15,6 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
 import java.util.Optional;
 
 /**
@@ -85,16 +83,7 @@ public class FlexOutputStream extends OutputStream implements Callback {
         }
 
         committed = true;
-        byte[] metaInfoData = metaInfoGenerator.generate(metaInfo);
-        if (metaInfoData.length > Frame.MAX_PAYLOAD_LENGTH) {
-            List<byte[]> splitData = ByteArrayUtils.splitData(metaInfoData, Frame.MAX_PAYLOAD_LENGTH);
-            for (int i = 0; i < splitData.size(); i++) {
-                boolean endFrame = (i == splitData.size() - 1);
-                writeFrame(new ControlFrame(noContent, getStream().getId(), endFrame, splitData.get(i)));
-            }
-        } else {
-            writeFrame(new ControlFrame(noContent, getStream().getId(), true, metaInfoData));
-        }
+        writeFrame(new MetaInfoControlFrame(noContent, getStream().getId(), metaInfo, metaInfoGenerator));
     }
 
     @Override
@@ -1,9 +1,12 @@
 package com.firefly.net.tcp.codec.flex.stream.impl;
 
+import com.firefly.net.BufferPool;
+import com.firefly.net.buffer.SlabBufferPool;
 import com.firefly.net.tcp.TcpConnection;
 import com.firefly.net.tcp.codec.flex.encode.FrameGenerator;
 import com.firefly.net.tcp.codec.flex.protocol.*;
 import com.firefly.net.tcp.codec.flex.stream.Context;
+import com.firefly.net.tcp.codec.flex.stream.FlexConfiguration;
 import com.firefly.net.tcp.codec.flex.stream.FlexConnection;
 import com.firefly.net.tcp.codec.flex.stream.Session;
 import com.firefly.net.tcp.codec.flex.stream.Stream;
@@ -17,12 +20,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
@@ -44,14 +50,23 @@ public class FlexSession implements Session, Callback {
     protected final FlexMetric flexMetric;
     protected final long streamMaxIdleTime;
     protected final Scheduler scheduler;
+    protected final BufferPool bufferPool = SlabBufferPool.DIRECT;
+    protected final FlexFlowControl flowControl;
     protected volatile Listener listener;
 
-    public FlexSession(int initStreamId, TcpConnection connection, FlexMetric flexMetric, long streamMaxIdleTime, Scheduler scheduler) {
+    public FlexSession(int initStreamId, TcpConnection connection, FlexMetric flexMetric,
+                       FlexConfiguration configuration, Scheduler scheduler) {
         this.idGenerator = new AtomicInteger(initStreamId);
         this.connection = connection;
         this.flexMetric = flexMetric;
-        this.streamMaxIdleTime = streamMaxIdleTime;
+        this.streamMaxIdleTime = configuration.getStreamMaxIdleTime();
         this.scheduler = scheduler;
+        this.flowControl = new FlexFlowControl(this, flexMetric,
+                configuration.getSessionWindowSize(), configuration.getStreamWindowSize());
+    }
+
+    public FlexFlowControl getFlowControl() {
+        return flowControl;
     }
 
     @Override
@@ -67,6 +82,7 @@ public class FlexSession implements Session, Callback {
     public void notifyCloseStream(FlexStream stream) {
         streamMap.remove(stream.getId());
         stream.onClose();
+        flowControl.onStreamClosed(stream);
         flexMetric.getActiveStreamCount().dec();
         if (log.isDebugEnabled()) {
             log.debug("Closed stream {}", stream.getId());
@@ -111,6 +127,9 @@ public class FlexSession implements Session, Callback {
                     if (listener != null) {
                         remoteNewStream.setListener(listener.onNewStream(remoteNewStream, controlFrame));
                     }
+                    if (!controlFrame.isEndStream()) {
+                        flowControl.onStreamCreated(remoteNewStream);
+                    }
                 } else {
                     FlexStream flexStream = (FlexStream) stream;
                     flexStream.notIdle();
@@ -132,19 +151,33 @@ public class FlexSession implements Session, Callback {
                 FlexStream flexStream = (FlexStream) streamMap.get(dataFrame.getStreamId());
                 Assert.state(flexStream != null, "The stream " + dataFrame.getStreamId() + " has been not created");
 
+                if (!flowControl.onDataReceived(flexStream, dataFrame)) {
+                    String err = "The stream " + flexStream.getId() + " receives the data beyond the flow control window";
+                    log.error(err);
+                    disconnect(new DisconnectionFrame(ErrorCode.FLOW_CONTROL.getValue(), err.getBytes(StandardCharsets.UTF_8)));
+                    return;
+                }
+
                 flexStream.notIdle();
+                // the data is consumed when it is delivered to the listener, see FlexConnection.Listener
                 if (dataFrame.isEndStream()) {
                     Stream.State next = getNextState(flexStream.getState(), StreamStateTransferMap.Op.RECV_ES);
                     flexStream.setState(next);
                     flexStream.getListener().onData(dataFrame);
+                    flowControl.onDataConsumed(flexStream, dataFrame);
                     if (next == Stream.State.CLOSED) {
                         notifyCloseStream(flexStream);
                     }
                 } else {
                     flexStream.getListener().onData(dataFrame);
+                    flowControl.onDataConsumed(flexStream, dataFrame);
                 }
             }
             break;
+            case WINDOW_UPDATE: {
+                flowControl.onWindowUpdate((WindowUpdateFrame) frame);
+            }
+            break;
             case PING: {
                 PingFrame pingFrame = (PingFrame) frame;
                 if (pingFrame.isReply()) {
@@ -182,7 +215,12 @@ public class FlexSession implements Session, Callback {
         int id = generateId();
         FlexStream localNewStream = new FlexStream(id, this, listener, Stream.State.OPEN, true, scheduler);
         notifyNewStream(localNewStream, true);
-        sendFrame(new ControlFrame(controlFrame.isEndStream(), id, controlFrame.isEndFrame(), controlFrame.getData()), callback);
+        if (controlFrame instanceof MetaInfoControlFrame) {
+            sendFrame(((MetaInfoControlFrame) controlFrame).newFrame(id), callback);
+        } else {
+            sendFrame(new ControlFrame(controlFrame.isEndStream(), id, controlFrame.isEndFrame(), controlFrame.getData()), callback);
+        }
+        flowControl.onStreamCreated(localNewStream);
         return localNewStream;
     }
 
@@ -263,7 +301,13 @@ public class FlexSession implements Session, Callback {
                 FlexSession.this.failed(x);
             }
         };
-        _writeFrame(frame, nested);
+        Optional<FlexStream> stream = getStream(frame, f -> true);
+        if (stream.isPresent()) {
+            // the message frames of the stream are sent by the flow control
+            flowControl.send(stream.get(), (MessageFrame) frame, nested);
+        } else {
+            _writeFrame(frame, nested);
+        }
     }
 
     protected Optional<FlexStream> getStream(Frame frame, Predicate<MessageFrame> predicate) {
@@ -290,6 +334,7 @@ public class FlexSession implements Session, Callback {
         int streamSize = streamMap.size();
         log.info("Connection closed. It will clear remaining {} streams.", streamSize);
         flexMetric.getActiveStreamCount().dec(streamSize);
+        flowControl.onSessionClosed();
         streamMap.forEach((id, stream) -> {
             FlexStream flexStream = (FlexStream) stream;
             flexStream.onClose();
@@ -307,13 +352,28 @@ public class FlexSession implements Session, Callback {
                 log.debug("Send a frame: {}", frame);
             }
             getStream(frame, s -> true).ifPresent(FlexStream::notIdle);
-            connection.write(FrameGenerator.generate(frame), callback::succeeded, callback::failed);
+            // The frame is generated to the pooled buffer, and the buffer is released when it has been written
+            ByteBuffer buffer = FrameGenerator.generate(frame, bufferPool);
+            AtomicBoolean released = new AtomicBoolean();
+            connection.write(buffer, () -> {
+                release(buffer, released);
+                callback.succeeded();
+            }, x -> {
+                release(buffer, released);
+                callback.failed(x);
+            });
         } else {
             log.warn("The connection is closed. It can not write frame {}", frame);
             callback.failed(new IOException("The connection is closed"));
         }
     }
 
+    private void release(ByteBuffer buffer, AtomicBoolean released) {
+        if (released.compareAndSet(false, true)) {
+            bufferPool.release(buffer);
+        }
+    }
+
     @Override
     public void sendFrames(List<Frame> frames, Callback callback) {
         CountingCallback countingCallback = new CountingCallback(callback, frames.size());
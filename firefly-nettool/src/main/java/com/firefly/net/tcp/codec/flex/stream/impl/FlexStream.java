@@ -30,6 +30,7 @@ public class FlexStream extends IdleTimeout implements Stream {
     protected final int id;
     protected final Session session;
     protected final LazyContextAttribute attribute = new LazyContextAttribute();
+    protected final FlexFlowControl.StreamWindow streamWindow = new FlexFlowControl.StreamWindow();
 
     protected volatile boolean committed;
     protected volatile Listener listener;
@@ -79,6 +80,10 @@ public class FlexStream extends IdleTimeout implements Stream {
         return listener;
     }
 
+    public FlexFlowControl.StreamWindow getStreamWindow() {
+        return streamWindow;
+    }
+
     @Override
     public State getState() {
         return state;
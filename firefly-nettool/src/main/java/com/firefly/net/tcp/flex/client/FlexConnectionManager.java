@@ -1,48 +1,67 @@
 package com.firefly.net.tcp.flex.client;
 
 import com.firefly.net.tcp.codec.flex.stream.FlexConnection;
+import com.firefly.net.tcp.codec.flex.stream.impl.FlexConnectionImpl;
 import com.firefly.net.tcp.flex.exception.ConnectionException;
 import com.firefly.utils.Assert;
-import com.firefly.utils.CollectionUtils;
 import com.firefly.utils.concurrent.Scheduler;
 import com.firefly.utils.concurrent.Schedulers;
+import com.firefly.utils.io.IO;
 import com.firefly.utils.lang.AbstractLifeCycle;
 import com.firefly.utils.lang.HostPort;
-import com.firefly.utils.retry.RetryTaskBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
-import static com.firefly.utils.retry.RetryStrategies.ifException;
-import static com.firefly.utils.retry.RetryStrategies.ifResult;
-import static com.firefly.utils.retry.StopStrategies.afterExecute;
-import static com.firefly.utils.retry.WaitStrategies.exponentialWait;
-
 /**
+ * <p>
+ * The connection manager keeps N connections to every server address. The connections are created and reconnected
+ * in the background with the exponential backoff, so the caller never waits for the connecting.
+ * </p>
+ * <p>
+ * The manager picks a connection by the power of two choices. It selects two open connections randomly
+ * and returns the one that has less in-flight streams.
+ * If no connection is open, the returned future is completed when a connection is open or the timeout expires.
+ * </p>
+ *
  * @author Pengtao Qiu
  */
 public class FlexConnectionManager extends AbstractLifeCycle {
 
     protected static final Logger log = LoggerFactory.getLogger("firefly-system");
 
-    private final Map<HostPort, FlexConnection> connectionMap = new HashMap<>();
+    private static final FlexConnection[] EMPTY_CONNECTIONS = new FlexConnection[0];
+
+    private final Map<HostPort, Slot[]> slotMap = new HashMap<>();
+    private final Queue<CompletableFuture<FlexConnection>> waiters = new ConcurrentLinkedQueue<>();
     private final MultiplexingClient client;
-    private final AtomicInteger index = new AtomicInteger(0);
     private final Scheduler scheduler = Schedulers.createScheduler();
     private final AddressProvider addressProvider;
+    private final int connectionsPerAddress;
+    private final long connectionTimeout;
+    private final long reconnectInitialDelay;
+    private final long reconnectMaxDelay;
     private volatile List<HostPort> activatedList;
+    private volatile FlexConnection[] connections = EMPTY_CONNECTIONS;
+    private volatile boolean stopped;
 
     public FlexConnectionManager(MultiplexingClient client, AddressProvider addressProvider) {
         Assert.notNull(addressProvider);
         Assert.notNull(client);
 
+        MultiplexingClientConfiguration configuration = client.getConfiguration();
         this.client = client;
         this.addressProvider = addressProvider;
+        this.connectionsPerAddress = Math.max(1, configuration.getConnectionsPerAddress());
+        this.connectionTimeout = configuration.getConnectionTimeout();
+        this.reconnectInitialDelay = Math.max(1, configuration.getReconnectInitialDelay());
+        this.reconnectMaxDelay = Math.max(reconnectInitialDelay, configuration.getReconnectMaxDelay());
         this.activatedList = convert(addressProvider.getAddressList());
         Assert.notEmpty(activatedList, "The address list is empty");
         start();
@@ -53,77 +72,198 @@ public class FlexConnectionManager extends AbstractLifeCycle {
     }
 
     public void updateActivatedList(Set<String> activatedList) {
-        this.activatedList = convert(activatedList);
-    }
-
-    public FlexConnection getConnection() {
-        FlexConnection ret = RetryTaskBuilder.<FlexConnection>newTask()
-                .retry(ifResult(Objects::isNull))
-                .stop(afterExecute(activatedList.size()))
-                .wait(exponentialWait(10, TimeUnit.MILLISECONDS))
-                .task(() -> {
-                    int i = Math.abs(index.getAndAdd(1)) % activatedList.size();
-                    return getConnection(activatedList.get(i));
-                })
-                .call();
-        if (ret == null) {
-            throw new ConnectionException("Can not get connection");
+        updateAddresses(convert(activatedList));
+    }
+
+    /**
+     * Get the open connection that has less in-flight streams. The method does not block the caller.
+     *
+     * @return The future of the connection. It is completed exceptionally if no connection is open in the timeout.
+     */
+    public CompletableFuture<FlexConnection> getConnection() {
+        FlexConnection connection = choose();
+        if (connection != null) {
+            return CompletableFuture.completedFuture(connection);
         }
-        return ret;
+
+        CompletableFuture<FlexConnection> future = new CompletableFuture<>();
+        waiters.offer(future);
+        scheduler.schedule(() -> {
+            if (future.completeExceptionally(new ConnectionException("Can not get connection in " + connectionTimeout + "ms"))) {
+                waiters.remove(future);
+            }
+        }, connectionTimeout, TimeUnit.MILLISECONDS);
+        // the connection may be open before the future is queued
+        notifyWaiters();
+        return future;
+    }
+
+    /**
+     * Get the in-flight streams of the connection.
+     *
+     * @param connection The flex connection.
+     * @return The in-flight stream number.
+     */
+    public static int getInFlightStreams(FlexConnection connection) {
+        return connection.getSession().getAllStreams().size();
     }
 
-    private synchronized FlexConnection getConnection(HostPort hostPort) {
-        try {
-            FlexConnection connection = connectionMap.get(hostPort);
-            if (connection != null) {
-                if (connection.isOpen()) {
-                    return connection;
+    private FlexConnection choose() {
+        FlexConnection[] array = connections;
+        int size = array.length;
+        switch (size) {
+            case 0:
+                return null;
+            case 1:
+                return array[0].isOpen() ? array[0] : null;
+            default: {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int i = random.nextInt(size);
+                int j = random.nextInt(size - 1);
+                if (j >= i) {
+                    j++;
+                }
+                FlexConnection first = array[i];
+                FlexConnection second = array[j];
+                if (first.isOpen() && second.isOpen()) {
+                    return getInFlightStreams(first) <= getInFlightStreams(second) ? first : second;
+                } else if (first.isOpen()) {
+                    return first;
+                } else if (second.isOpen()) {
+                    return second;
                 } else {
-                    FlexConnection newConnection = createConnection(hostPort);
-                    if (newConnection != null) {
-                        connectionMap.put(hostPort, newConnection);
-                        return newConnection;
-                    } else {
-                        connectionMap.remove(hostPort);
-                        updateActivatedList();
-                        return null;
-                    }
+                    return Arrays.stream(array).filter(FlexConnection::isOpen).findAny().orElse(null);
+                }
+            }
+        }
+    }
+
+    private void notifyWaiters() {
+        CompletableFuture<FlexConnection> future;
+        while (!waiters.isEmpty()) {
+            FlexConnection connection = choose();
+            if (connection == null) {
+                return;
+            }
+            if ((future = waiters.poll()) == null) {
+                return;
+            }
+            future.complete(connection);
+        }
+    }
+
+    private void connect(Slot slot) {
+        synchronized (slot) {
+            if (slot.connecting || slot.removed || stopped) {
+                return;
+            }
+            if (slot.connection != null && slot.connection.isOpen()) {
+                return;
+            }
+            slot.connecting = true;
+        }
+
+        HostPort hostPort = slot.hostPort;
+        client.connect(hostPort.getHost(), hostPort.getPort()).whenComplete((connection, ex) -> {
+            if (ex == null) {
+                boolean removed;
+                synchronized (slot) {
+                    slot.connecting = false;
+                    slot.failures = 0;
+                    slot.connection = connection;
+                    removed = slot.removed;
+                }
+                if (removed) {
+                    IO.close(connection);
+                    return;
                 }
+                if (connection instanceof FlexConnectionImpl) {
+                    ((FlexConnectionImpl) connection).getTcpConnection().onClose(() -> onClose(slot, connection));
+                }
+                log.info("Connect {} success. The connection id is {}", hostPort, connection.getSessionId());
+                updateConnections();
+                notifyWaiters();
             } else {
-                FlexConnection newConnection = createConnection(hostPort);
-                if (newConnection != null) {
-                    connectionMap.put(hostPort, newConnection);
-                    updateActivatedList();
-                    return newConnection;
-                } else {
-                    connectionMap.remove(hostPort);
-                    updateActivatedList();
-                    return null;
+                int failures;
+                synchronized (slot) {
+                    slot.connecting = false;
+                    failures = ++slot.failures;
                 }
+                long delay = getReconnectDelay(failures);
+                log.warn("Connect {} exception. It will reconnect after {}ms. {}", hostPort, delay, ex.getMessage());
+                reconnect(slot, delay);
+            }
+        });
+    }
+
+    private void onClose(Slot slot, FlexConnection connection) {
+        synchronized (slot) {
+            if (slot.connection == connection) {
+                slot.connection = null;
             }
-        } catch (Exception e) {
-            log.error("get connection exception", e);
-            updateActivatedList();
-            return null;
         }
+        log.info("The connection {} of {} is closed", connection.getSessionId(), slot.hostPort);
+        updateConnections();
+        reconnect(slot, reconnectInitialDelay);
     }
 
-    private FlexConnection createConnection(HostPort hostPort) {
-        return RetryTaskBuilder.<FlexConnection>newTask()
-                .retry(ifException(ex -> ex != null && ex.getCause() instanceof TimeoutException))
-                .stop(afterExecute(10))
-                .wait(exponentialWait(10, TimeUnit.MILLISECONDS))
-                .task(() -> this.connect(hostPort))
-                .call();
+    private void reconnect(Slot slot, long delay) {
+        if (!stopped && !slot.removed) {
+            scheduler.schedule(() -> connect(slot), delay, TimeUnit.MILLISECONDS);
+        }
     }
 
-    private FlexConnection connect(HostPort hostPort) {
-        try {
-            return client.connect(hostPort.getHost(), hostPort.getPort()).get(5, TimeUnit.SECONDS);
-        } catch (Exception e) {
-            log.error("Connect " + hostPort + " exception", e);
-            throw new ConnectionException("connection exception", e);
+    private long getReconnectDelay(int failures) {
+        int shift = Math.min(failures - 1, 20);
+        return Math.min(reconnectInitialDelay << shift, reconnectMaxDelay);
+    }
+
+    private synchronized void updateAddresses(List<HostPort> addresses) {
+        activatedList = addresses;
+        Set<HostPort> addressSet = new HashSet<>(addresses);
+
+        Iterator<Map.Entry<HostPort, Slot[]>> iterator = slotMap.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<HostPort, Slot[]> entry = iterator.next();
+            if (!addressSet.contains(entry.getKey())) {
+                log.info("The address {} is removed. It will close the connections", entry.getKey());
+                iterator.remove();
+                for (Slot slot : entry.getValue()) {
+                    FlexConnection connection;
+                    synchronized (slot) {
+                        slot.removed = true;
+                        connection = slot.connection;
+                        slot.connection = null;
+                    }
+                    Optional.ofNullable(connection).ifPresent(IO::close);
+                }
+            }
         }
+
+        addresses.forEach(hostPort -> {
+            Slot[] slots = slotMap.computeIfAbsent(hostPort, h -> {
+                Slot[] newSlots = new Slot[connectionsPerAddress];
+                for (int i = 0; i < newSlots.length; i++) {
+                    newSlots[i] = new Slot(h);
+                }
+                return newSlots;
+            });
+            // the connecting slot or the slot that is waiting to reconnect is ignored
+            for (Slot slot : slots) {
+                if (slot.failures == 0) {
+                    connect(slot);
+                }
+            }
+        });
+        updateConnections();
+    }
+
+    private synchronized void updateConnections() {
+        connections = slotMap.values().stream()
+                             .flatMap(Arrays::stream)
+                             .map(slot -> slot.connection)
+                             .filter(c -> c != null && c.isOpen())
+                             .toArray(FlexConnection[]::new);
     }
 
     private List<HostPort> convert(Set<String> urls) {
@@ -133,33 +273,34 @@ public class FlexConnectionManager extends AbstractLifeCycle {
                     .collect(Collectors.toList()));
     }
 
-    private void updateActivatedList() {
-        activatedList = Collections.unmodifiableList(new ArrayList<>(connectionMap.keySet()));
-    }
-
     @Override
     protected void init() {
-        if (!CollectionUtils.isEmpty(activatedList)) {
-            activatedList.forEach(hostPort -> {
-                try {
-                    FlexConnection connection = createConnection(hostPort);
-                    if (connection != null) {
-                        connectionMap.put(hostPort, connection);
-                    }
-                } catch (Exception e) {
-                    log.error("Connect " + hostPort + " exception", e);
-                }
-            });
-            updateActivatedList();
-        }
+        updateAddresses(activatedList);
         scheduler.scheduleWithFixedDelay(() -> {
             log.info("Client current activated address list: {}", activatedList);
-            activatedList = convert(addressProvider.getAddressList());
+            updateAddresses(convert(addressProvider.getAddressList()));
         }, 5, 5, TimeUnit.SECONDS);
     }
 
     @Override
     protected void destroy() {
+        stopped = true;
         scheduler.stop();
+        CompletableFuture<FlexConnection> future;
+        while ((future = waiters.poll()) != null) {
+            future.completeExceptionally(new ConnectionException("The connection manager is stopped"));
+        }
+    }
+
+    private static class Slot {
+        private final HostPort hostPort;
+        private volatile FlexConnection connection;
+        private volatile boolean removed;
+        private volatile int failures;
+        private boolean connecting;
+
+        private Slot(HostPort hostPort) {
+            this.hostPort = hostPort;
+        }
     }
 }
@@ -31,7 +31,7 @@ public class MultiplexingClient extends AbstractLifeCycle {
     private MultiplexingClientConfiguration configuration = new MultiplexingClientConfiguration();
     private SimpleTcpClient client;
     private Action1<FlexConnection> accept;
-    private Scheduler scheduler = Schedulers.createScheduler();
+    private Scheduler scheduler = Schedulers.createTimeoutScheduler();
     private FlexConnectionManager flexConnectionManager;
     private FlexMetric flexMetric;
 
@@ -61,7 +61,7 @@ public class MultiplexingClient extends AbstractLifeCycle {
         }
         return client.connect(host, port).thenApply(connection -> {
             // create flex connection
-            FlexSession session = new FlexSession(1, connection, flexMetric, configuration.getStreamMaxIdleTime(), scheduler);
+            FlexSession session = new FlexSession(1, connection, flexMetric, configuration, scheduler);
             FlexConnectionImpl flexConnection = new FlexConnectionImpl(configuration, connection, session);
             connection.setAttachment(flexConnection);
 
@@ -74,6 +74,8 @@ public class MultiplexingClient extends AbstractLifeCycle {
                 log.error("Connection " + connection.getSessionId() + " exception.", ex);
                 IO.close(connection);
             });
+            session.getFlowControl().onSessionOpened();
+            connection.onClose(session::clear);
 
             if (configuration.getHeartbeatInterval() > 0) {
                 session.setAttribute(HEARTBEAT_KEY, scheduler.scheduleAtFixedRate(
@@ -81,8 +83,7 @@ public class MultiplexingClient extends AbstractLifeCycle {
                         configuration.getHeartbeatInterval(),
                         configuration.getHeartbeatInterval(),
                         TimeUnit.MILLISECONDS));
-                connection.onClose(session::clear)
-                          .onClose(() -> Optional.ofNullable(session.getAttribute(HEARTBEAT_KEY))
+                connection.onClose(() -> Optional.ofNullable(session.getAttribute(HEARTBEAT_KEY))
                                                  .map(o -> (Scheduler.Future) o)
                                                  .ifPresent(Scheduler.Future::cancel));
             }
@@ -94,7 +95,12 @@ public class MultiplexingClient extends AbstractLifeCycle {
         return flexConnectionManager;
     }
 
-    public FlexConnection getConnection() {
+    /**
+     * Get the connection from the connection manager. The method does not block the caller.
+     *
+     * @return The future of the connection.
+     */
+    public CompletableFuture<FlexConnection> getConnection() {
         return flexConnectionManager.getConnection();
     }
 
@@ -13,6 +13,10 @@ public class MultiplexingClientConfiguration extends FlexConfiguration {
     private TcpConfiguration tcpConfiguration = new TcpConfiguration();
     private Set<String> serverUrlSet;
     private AddressProvider addressProvider;
+    private int connectionsPerAddress = 1;
+    private long connectionTimeout = 5 * 1000;
+    private long reconnectInitialDelay = 100;
+    private long reconnectMaxDelay = 10 * 1000;
 
     public TcpConfiguration getTcpConfiguration() {
         return tcpConfiguration;
@@ -37,4 +41,51 @@ public class MultiplexingClientConfiguration extends FlexConfiguration {
     public void setAddressProvider(AddressProvider addressProvider) {
         this.addressProvider = addressProvider;
     }
+
+    public int getConnectionsPerAddress() {
+        return connectionsPerAddress;
+    }
+
+    /**
+     * Set the number of the connections that the connection manager keeps for every server address.
+     *
+     * @param connectionsPerAddress The number of the connections of a server address.
+     */
+    public void setConnectionsPerAddress(int connectionsPerAddress) {
+        this.connectionsPerAddress = connectionsPerAddress;
+    }
+
+    public long getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    /**
+     * Set the max time (ms) that the caller waits for an open connection when all connections are closed.
+     *
+     * @param connectionTimeout The time of waiting for an open connection.
+     */
+    public void setConnectionTimeout(long connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    public long getReconnectInitialDelay() {
+        return reconnectInitialDelay;
+    }
+
+    /**
+     * Set the delay (ms) of the first reconnecting. The delay is doubled after every failed connecting.
+     *
+     * @param reconnectInitialDelay The initial reconnecting delay.
+     */
+    public void setReconnectInitialDelay(long reconnectInitialDelay) {
+        this.reconnectInitialDelay = reconnectInitialDelay;
+    }
+
+    public long getReconnectMaxDelay() {
+        return reconnectMaxDelay;
+    }
+
+    public void setReconnectMaxDelay(long reconnectMaxDelay) {
+        this.reconnectMaxDelay = reconnectMaxDelay;
+    }
 }
@@ -11,10 +11,14 @@ public class FlexMetric {
 
     private final Counter activeStreamCount;
     private final Meter requestMeter;
+    private final Counter stalledStreamCount;
+    private final Meter streamStallMeter;
 
     public FlexMetric(MetricRegistry metrics, String prefix) {
         activeStreamCount = metrics.counter(prefix + ".activeStreamCount");
         requestMeter = metrics.meter(prefix + ".requestMeter");
+        stalledStreamCount = metrics.counter(prefix + ".stalledStreamCount");
+        streamStallMeter = metrics.meter(prefix + ".streamStallMeter");
     }
 
     public Counter getActiveStreamCount() {
@@ -24,4 +28,22 @@ public class FlexMetric {
     public Meter getRequestMeter() {
         return requestMeter;
     }
+
+    /**
+     * Get the count of the streams that are waiting for the window update frames to send data.
+     *
+     * @return The count of the stalled streams.
+     */
+    public Counter getStalledStreamCount() {
+        return stalledStreamCount;
+    }
+
+    /**
+     * Get the rate of the streams that are stalled by the session or stream send window.
+     *
+     * @return The stream stall meter.
+     */
+    public Meter getStreamStallMeter() {
+        return streamStallMeter;
+    }
 }
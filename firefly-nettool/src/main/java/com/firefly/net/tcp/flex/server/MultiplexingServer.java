@@ -24,7 +24,7 @@ public class MultiplexingServer extends AbstractLifeCycle {
     private MultiplexingServerConfiguration configuration = new MultiplexingServerConfiguration();
     private SimpleTcpServer server;
     private Action1<FlexConnection> accept;
-    private Scheduler scheduler = Schedulers.createScheduler();
+    private Scheduler scheduler = Schedulers.createTimeoutScheduler();
 
     public MultiplexingServer() {
     }
@@ -63,7 +63,7 @@ public class MultiplexingServer extends AbstractLifeCycle {
         server = new SimpleTcpServer(configuration.getTcpServerConfiguration());
         server.accept(connection -> {
             // create flex connection
-            FlexSession session = new FlexSession(2, connection, flexMetric, configuration.getStreamMaxIdleTime(), scheduler);
+            FlexSession session = new FlexSession(2, connection, flexMetric, configuration, scheduler);
             FlexConnectionImpl flexConnection = new FlexConnectionImpl(configuration, connection, session);
             connection.setAttachment(flexConnection);
             accept.call(flexConnection);
@@ -75,6 +75,7 @@ public class MultiplexingServer extends AbstractLifeCycle {
                 log.error("Connection " + connection.getSessionId() + " exception.", ex);
                 IO.close(connection);
             }).onClose(session::clear);
+            session.getFlowControl().onSessionOpened();
 
         });
         server.listen(configuration.getTcpServerConfiguration().getHost(), configuration.getTcpServerConfiguration().getPort());
@@ -7,6 +7,7 @@ import com.firefly.net.Session;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLEngineResult;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 import java.nio.ByteBuffer;
 
 /**
@@ -20,6 +21,14 @@ abstract public class AbstractJdkSSLSession extends AbstractSecureSession {
         super(session, sslEngine, applicationProtocolSelector, handshakeListener);
     }
 
+    public AbstractJdkSSLSession(Session session, SSLEngine sslEngine,
+                                 ApplicationProtocolSelector applicationProtocolSelector,
+                                 SecureSessionHandshakeListener handshakeListener,
+                                 Executor handshakeExecutor,
+                                 SecureSessionMetric secureSessionMetric) throws IOException {
+        super(session, sslEngine, applicationProtocolSelector, handshakeListener, handshakeExecutor, secureSessionMetric);
+    }
+
     @Override
     protected SSLEngineResult unwrap(ByteBuffer input) throws IOException {
         if (log.isDebugEnabled()) {
@@ -1,10 +1,12 @@
 package com.firefly.net.tcp.secure;
 
 import com.firefly.net.ApplicationProtocolSelector;
+import com.firefly.net.BufferPool;
 import com.firefly.net.SecureSession;
 import com.firefly.net.SecureSessionHandshakeListener;
 import com.firefly.net.Session;
 import com.firefly.net.buffer.FileRegion;
+import com.firefly.net.buffer.SlabBufferPool;
 import com.firefly.net.exception.SecureNetException;
 import com.firefly.utils.StringUtils;
 import com.firefly.utils.concurrent.Callback;
@@ -19,10 +21,21 @@ import javax.net.ssl.SSLException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * The secure session wraps and unwraps the data by the SSL engine.
+ * <p>
+ * If the handshake executor is set, the delegated tasks of the SSL engine, such as verifying the certificate,
+ * run in the handshake executor instead of the I/O thread. The received data is kept while the tasks run,
+ * and the handshake is resumed in the executor thread when the tasks finish.
+ * The transient packet buffers are taken from the buffer pool and they are released when they are flushed.
+ *
  * @author Pengtao Qiu
  */
 abstract public class AbstractSecureSession implements SecureSession {
@@ -30,35 +43,71 @@ abstract public class AbstractSecureSession implements SecureSession {
     protected static final Logger log = LoggerFactory.getLogger("firefly-system");
 
     protected static final ByteBuffer hsBuffer = ByteBuffer.allocateDirect(0);
+    protected static final int FILE_BUFFER_SIZE = 16 * 1024;
 
     protected final Session session;
     protected final SSLEngine sslEngine;
     protected final ApplicationProtocolSelector applicationProtocolSelector;
     protected final SecureSessionHandshakeListener handshakeListener;
+    protected final Executor handshakeExecutor;
+    protected final SecureSessionMetric secureSessionMetric;
+    protected final BufferPool bufferPool = SlabBufferPool.HEAP;
 
     protected ByteBuffer receivedPacketBuf;
+    protected boolean pooledPacketBuf;
     protected ByteBuffer receivedAppBuf;
 
     protected AtomicBoolean closed = new AtomicBoolean(false);
     protected SSLEngineResult.HandshakeStatus initialHSStatus;
-    protected boolean initialHSComplete;
+    protected volatile boolean initialHSComplete;
+    protected boolean delegatedTaskRunning;
+    protected final long handshakeStartTime = System.nanoTime();
+    protected final long handshakeStartMillis = System.currentTimeMillis();
+    protected final AtomicBoolean handshakeEnded = new AtomicBoolean(false);
 
     public AbstractSecureSession(Session session, SSLEngine sslEngine,
                                  ApplicationProtocolSelector applicationProtocolSelector,
                                  SecureSessionHandshakeListener handshakeListener) throws IOException {
+        this(session, sslEngine, applicationProtocolSelector, handshakeListener, null, null);
+    }
+
+    /**
+     * Create the secure session and begin the handshake.
+     *
+     * @param session                     The TCP session.
+     * @param sslEngine                   The SSL engine.
+     * @param applicationProtocolSelector The application protocol selector.
+     * @param handshakeListener           It is invoked when the handshake is complete.
+     * @param handshakeExecutor           It runs the delegated tasks of the handshake.
+     *                                    If it is null, the delegated tasks run in the current thread.
+     * @param secureSessionMetric         The handshake metric. It can be null.
+     * @throws IOException The SSL engine exception
+     */
+    public AbstractSecureSession(Session session, SSLEngine sslEngine,
+                                 ApplicationProtocolSelector applicationProtocolSelector,
+                                 SecureSessionHandshakeListener handshakeListener,
+                                 Executor handshakeExecutor,
+                                 SecureSessionMetric secureSessionMetric) throws IOException {
         this.session = session;
         this.sslEngine = sslEngine;
         this.applicationProtocolSelector = applicationProtocolSelector;
         this.handshakeListener = handshakeListener;
+        this.handshakeExecutor = handshakeExecutor;
+        this.secureSessionMetric = secureSessionMetric;
 
         receivedAppBuf = newBuffer(sslEngine.getSession().getApplicationBufferSize());
         initialHSComplete = false;
+        if (secureSessionMetric != null) {
+            secureSessionMetric.getHandshakeInFlight().inc();
+        }
 
         // start tls
-        this.sslEngine.beginHandshake();
-        initialHSStatus = sslEngine.getHandshakeStatus();
-        if (sslEngine.getUseClientMode()) {
-            doHandshakeResponse();
+        synchronized (this) {
+            this.sslEngine.beginHandshake();
+            initialHSStatus = sslEngine.getHandshakeStatus();
+            if (sslEngine.getUseClientMode()) {
+                doHandshakeResponse();
+            }
         }
     }
 
@@ -81,6 +130,22 @@ abstract public class AbstractSecureSession implements SecureSession {
             return true;
         }
 
+        synchronized (this) {
+            if (initialHSComplete) {
+                return true;
+            }
+
+            if (delegatedTaskRunning) {
+                // keep the received data until the delegated tasks finish
+                merge(receiveBuffer);
+                keepRemainingPacket(receiveBuffer);
+                return false;
+            }
+            return handshake(receiveBuffer);
+        }
+    }
+
+    private boolean handshake(ByteBuffer receiveBuffer) throws IOException {
         switch (initialHSStatus) {
             case NOT_HANDSHAKING:
             case FINISHED: {
@@ -105,6 +170,9 @@ abstract public class AbstractSecureSession implements SecureSession {
 
     protected void doHandshakeReceive(ByteBuffer receiveBuffer) throws IOException {
         merge(receiveBuffer);
+        if (receivedPacketBuf == null) {
+            return;
+        }
         needIO:
         while (initialHSStatus == SSLEngineResult.HandshakeStatus.NEED_UNWRAP) {
 
@@ -121,7 +189,7 @@ abstract public class AbstractSecureSession implements SecureSession {
                     case OK: {
                         switch (initialHSStatus) {
                             case NEED_TASK:
-                                initialHSStatus = doTasks();
+                                initialHSStatus = doHandshakeTasks();
                                 break unwrap;
                             case NOT_HANDSHAKING:
                             case FINISHED:
@@ -166,21 +234,151 @@ abstract public class AbstractSecureSession implements SecureSession {
                 }
             }
         }
+        keepRemainingPacket(receiveBuffer);
     }
 
     protected void handshakeFinish() {
         log.info("Session {} handshake success. The application protocol is {}", session.getSessionId(), getApplicationProtocol());
+        releasePacketBufIfConsumed();
         initialHSComplete = true;
+        handshakeEnd(true);
         handshakeListener.complete(this);
     }
 
+    protected void handshakeEnd(boolean success) {
+        if (secureSessionMetric != null && handshakeEnded.compareAndSet(false, true)) {
+            secureSessionMetric.getHandshakeInFlight().dec();
+            if (success) {
+                secureSessionMetric.getHandshakeDuration().update(System.nanoTime() - handshakeStartTime, TimeUnit.NANOSECONDS);
+                if (isResumed()) {
+                    secureSessionMetric.getResumptionHitCount().inc();
+                } else {
+                    secureSessionMetric.getResumptionMissCount().inc();
+                }
+            } else {
+                secureSessionMetric.getHandshakeFailure().inc();
+            }
+        }
+    }
+
+    /**
+     * The resumed session is taken from the session cache, so it is created before the handshake begins.
+     *
+     * @return If true, the handshake resumes the cached session.
+     */
+    public boolean isResumed() {
+        return sslEngine.getSession().getCreationTime() < handshakeStartMillis;
+    }
+
+    /**
+     * Run the delegated tasks of the handshake. If the handshake executor is set, the tasks run in the executor,
+     * and the handshake is resumed when the tasks finish.
+     *
+     * @return The handshake status. It is NEED_TASK when the tasks run in the executor.
+     */
+    protected SSLEngineResult.HandshakeStatus doHandshakeTasks() {
+        if (handshakeExecutor == null) {
+            return doTasks();
+        }
+
+        delegatedTaskRunning = true;
+        if (secureSessionMetric != null) {
+            secureSessionMetric.getDelegatedTaskInFlight().inc();
+        }
+        try {
+            handshakeExecutor.execute(() -> {
+                try {
+                    doTasks();
+                } catch (Throwable e) {
+                    log.error("Session {} runs the delegated tasks exception", session.getSessionId(), e);
+                }
+                resumeHandshake();
+            });
+            return SSLEngineResult.HandshakeStatus.NEED_TASK;
+        } catch (RejectedExecutionException e) {
+            // the executor is busy, so the tasks run in the current thread
+            delegatedTaskRunning = false;
+            if (secureSessionMetric != null) {
+                secureSessionMetric.getDelegatedTaskInFlight().dec();
+            }
+            return doTasks();
+        }
+    }
+
+    /**
+     * Continue the handshake with the kept data after the delegated tasks finish.
+     */
+    protected void resumeHandshake() {
+        synchronized (this) {
+            delegatedTaskRunning = false;
+            if (secureSessionMetric != null) {
+                secureSessionMetric.getDelegatedTaskInFlight().dec();
+            }
+            initialHSStatus = sslEngine.getHandshakeStatus();
+            if (log.isDebugEnabled()) {
+                log.debug("Session {} resumes the handshake, initialHSStatus -> {}", session.getSessionId(), initialHSStatus);
+            }
+
+            try {
+                while (!initialHSComplete && !delegatedTaskRunning && session.isOpen()) {
+                    switch (initialHSStatus) {
+                        case NOT_HANDSHAKING:
+                        case FINISHED:
+                            handshakeFinish();
+                            decodeKeptRecords();
+                            return;
+                        case NEED_WRAP:
+                            doHandshakeResponse();
+                            if (initialHSStatus == SSLEngineResult.HandshakeStatus.FINISHED) {
+                                // the handshake finishes when the response is written
+                                return;
+                            }
+                            break;
+                        case NEED_UNWRAP:
+                            if (receivedPacketBuf == null || !receivedPacketBuf.hasRemaining()) {
+                                return;
+                            }
+                            int remaining = receivedPacketBuf.remaining();
+                            doHandshakeReceive(hsBuffer);
+                            if (initialHSStatus == SSLEngineResult.HandshakeStatus.NEED_UNWRAP
+                                    && (receivedPacketBuf == null || receivedPacketBuf.remaining() == remaining)) {
+                                // the kept data is consumed or it is not a complete record, wait for more data
+                                return;
+                            }
+                            break;
+                        default:
+                            return;
+                    }
+                }
+            } catch (Throwable e) {
+                log.error("Session {} resumes the handshake exception", session.getSessionId(), e);
+                close();
+            }
+        }
+    }
+
+
+    /**
+     * The peer may send the application records with the last handshake message. The inline handshake decodes them
+     * in the same read, but the I/O thread does not read them again after the handshake resumes in the executor,
+     * so they are passed to the decoder of the session.
+     */
+    protected void decodeKeptRecords() {
+        if (receivedPacketBuf != null && receivedPacketBuf.hasRemaining() && session.isOpen()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Session {} decodes the kept records after the handshake, size -> {}",
+                        session.getSessionId(), receivedPacketBuf.remaining());
+            }
+            session.decode(hsBuffer);
+        }
+    }
 
     protected void doHandshakeResponse() throws IOException {
 
         outer:
         while (initialHSStatus == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
             SSLEngineResult result;
-            ByteBuffer packetBuffer = newBuffer(sslEngine.getSession().getPacketBufferSize());
+            ByteBuffer packetBuffer = bufferPool.acquire(sslEngine.getSession().getPacketBufferSize());
 
             wrap:
             while (true) {
@@ -198,46 +396,33 @@ abstract public class AbstractSecureSession implements SecureSession {
                         }
                         switch (initialHSStatus) {
                             case NEED_TASK: {
-                                initialHSStatus = doTasks();
-                                if (packetBuffer.hasRemaining()) {
-                                    session.write(packetBuffer, Callback.NOOP);
-                                }
+                                writePacket(packetBuffer, Callback.NOOP);
+                                initialHSStatus = doHandshakeTasks();
                             }
                             break;
                             case FINISHED: {
-                                if (packetBuffer.hasRemaining()) {
-                                    session.write(packetBuffer, new Callback() {
-                                        public void succeeded() {
-                                            handshakeFinish();
-                                        }
-                                    });
-                                } else {
-                                    handshakeFinish();
-                                }
+                                writePacket(packetBuffer, new Callback() {
+                                    public void succeeded() {
+                                        handshakeFinish();
+                                    }
+                                });
                             }
                             break;
                             default: {
-                                if (packetBuffer.hasRemaining()) {
-                                    session.write(packetBuffer, Callback.NOOP);
-                                }
+                                writePacket(packetBuffer, Callback.NOOP);
                             }
                         }
                     }
                     break wrap;
 
                     case BUFFER_OVERFLOW:
-                        ByteBuffer b = newBuffer(packetBuffer.position() + sslEngine.getSession().getPacketBufferSize());
-                        packetBuffer.flip();
-                        b.put(packetBuffer);
-                        packetBuffer = b;
+                        packetBuffer = enlargePacketBuffer(packetBuffer);
                         break;
 
                     case CLOSED:
                         log.info("Session {} handshake failure. SSLEngine will close inbound", session.getSessionId());
                         packetBuffer.flip();
-                        if (packetBuffer.hasRemaining()) {
-                            session.write(packetBuffer, Callback.NOOP);
-                        }
+                        writePacket(packetBuffer, Callback.NOOP);
                         closeOutbound();
                         break outer;
 
@@ -248,6 +433,52 @@ abstract public class AbstractSecureSession implements SecureSession {
         }
     }
 
+    /**
+     * Write the handshake packet and release it to the buffer pool when it is flushed.
+     *
+     * @param packetBuffer The handshake packet
+     * @param callback     It is invoked when the packet is flushed
+     */
+    protected void writePacket(ByteBuffer packetBuffer, Callback callback) {
+        if (packetBuffer.hasRemaining()) {
+            session.write(packetBuffer, new ReleasePacketCallback(Collections.singletonList(packetBuffer), callback));
+        } else {
+            bufferPool.release(packetBuffer);
+            callback.succeeded();
+        }
+    }
+
+    protected ByteBuffer enlargePacketBuffer(ByteBuffer packetBuffer) {
+        ByteBuffer b = bufferPool.acquire(packetBuffer.position() + sslEngine.getSession().getPacketBufferSize());
+        packetBuffer.flip();
+        b.put(packetBuffer);
+        bufferPool.release(packetBuffer);
+        return b;
+    }
+
+    protected class ReleasePacketCallback implements Callback {
+
+        private final List<ByteBuffer> packetBuffers;
+        private final Callback callback;
+
+        protected ReleasePacketCallback(List<ByteBuffer> packetBuffers, Callback callback) {
+            this.packetBuffers = packetBuffers;
+            this.callback = callback;
+        }
+
+        @Override
+        public void succeeded() {
+            packetBuffers.forEach(bufferPool::release);
+            callback.succeeded();
+        }
+
+        @Override
+        public void failed(Throwable x) {
+            packetBuffers.forEach(bufferPool::release);
+            callback.failed(x);
+        }
+    }
+
     protected void resizeAppBuffer() {
         int applicationBufferSize = sslEngine.getSession().getApplicationBufferSize();
         ByteBuffer b = newBuffer(receivedAppBuf.position() + applicationBufferSize);
@@ -267,14 +498,46 @@ abstract public class AbstractSecureSession implements SecureSession {
                     log.debug("Session {} read data, merge buffer -> {}, {}", session.getSessionId(),
                             receivedPacketBuf.remaining(), now.remaining());
                 }
-                ByteBuffer ret = newBuffer(receivedPacketBuf.remaining() + now.remaining());
+                ByteBuffer ret = bufferPool.acquire(receivedPacketBuf.remaining() + now.remaining());
                 ret.put(receivedPacketBuf).put(now).flip();
-                receivedPacketBuf = ret;
+                setReceivedPacketBuf(ret, true);
             } else {
-                receivedPacketBuf = now;
+                setReceivedPacketBuf(now, false);
             }
         } else {
-            receivedPacketBuf = now;
+            setReceivedPacketBuf(now, false);
+        }
+    }
+
+    protected void setReceivedPacketBuf(ByteBuffer buf, boolean pooled) {
+        if (pooledPacketBuf && receivedPacketBuf != buf) {
+            bufferPool.release(receivedPacketBuf);
+        }
+        receivedPacketBuf = buf;
+        pooledPacketBuf = pooled;
+    }
+
+    protected void releasePacketBufIfConsumed() {
+        if (pooledPacketBuf && !receivedPacketBuf.hasRemaining()) {
+            bufferPool.release(receivedPacketBuf);
+            receivedPacketBuf = null;
+            pooledPacketBuf = false;
+        }
+    }
+
+    /**
+     * The received buffer may be returned to the pool after decoding, so copy the remaining
+     * packet data that will be unwrapped in the next time.
+     *
+     * @param receiveBuffer The received buffer
+     */
+    protected void keepRemainingPacket(ByteBuffer receiveBuffer) {
+        if (receivedPacketBuf == receiveBuffer && receivedPacketBuf.hasRemaining()) {
+            ByteBuffer buf = bufferPool.acquire(receivedPacketBuf.remaining());
+            buf.put(receivedPacketBuf).flip();
+            setReceivedPacketBuf(buf, true);
+        } else if (receivedPacketBuf != null) {
+            releasePacketBufIfConsumed();
         }
     }
 
@@ -284,12 +547,14 @@ abstract public class AbstractSecureSession implements SecureSession {
         if (receivedAppBuf.hasRemaining()) {
             ByteBuffer buf = newBuffer(receivedAppBuf.remaining());
             buf.put(receivedAppBuf).flip();
-            receivedAppBuf = newBuffer(sslEngine.getSession().getApplicationBufferSize());
+            // reuse the app buffer, the plaintext has been copied
+            receivedAppBuf.clear();
             if (log.isDebugEnabled()) {
                 log.debug("SSL session {} unwrap, app buffer -> {}", session.getSessionId(), buf.remaining());
             }
             return buf;
         } else {
+            receivedAppBuf.clear();
             return null;
         }
     }
@@ -313,6 +578,7 @@ abstract public class AbstractSecureSession implements SecureSession {
     @Override
     public void close() {
         if (closed.compareAndSet(false, true)) {
+            handshakeEnd(false);
             closeOutbound();
         }
     }
@@ -328,6 +594,7 @@ abstract public class AbstractSecureSession implements SecureSession {
     }
 
     protected void closeOutbound() {
+        handshakeEnd(false);
         sslEngine.closeOutbound();
         session.close();
     }
@@ -351,15 +618,11 @@ abstract public class AbstractSecureSession implements SecureSession {
 
     protected ByteBuffer splitBuffer(int netSize) {
         ByteBuffer buf = receivedPacketBuf.duplicate();
-        if (buf.remaining() <= netSize) {
-            return buf;
-        } else {
-            ByteBuffer splitBuf = newBuffer(netSize);
-            byte[] data = new byte[netSize];
-            buf.get(data);
-            splitBuf.put(data).flip();
-            return splitBuf;
+        if (buf.remaining() > netSize) {
+            // the view of the packets, the position of the received buffer moves after unwrapping
+            buf.limit(buf.position() + netSize);
         }
+        return buf;
     }
 
     abstract protected SSLEngineResult unwrap(ByteBuffer input) throws IOException;
@@ -391,6 +654,16 @@ abstract public class AbstractSecureSession implements SecureSession {
      */
     @Override
     public ByteBuffer read(ByteBuffer receiveBuffer) throws IOException {
+        if (handshakeExecutor == null) {
+            return decrypt(receiveBuffer);
+        }
+        // the handshake executor may decode the kept records while the I/O thread reads the new records
+        synchronized (this) {
+            return decrypt(receiveBuffer);
+        }
+    }
+
+    protected ByteBuffer decrypt(ByteBuffer receiveBuffer) throws IOException {
         if (!doHandshake(receiveBuffer))
             return null;
 
@@ -403,7 +676,7 @@ abstract public class AbstractSecureSession implements SecureSession {
         }
 
         merge(receiveBuffer);
-        if (!receivedPacketBuf.hasRemaining()) {
+        if (receivedPacketBuf == null || !receivedPacketBuf.hasRemaining()) {
             return null;
         }
 
@@ -454,6 +727,7 @@ abstract public class AbstractSecureSession implements SecureSession {
             }
         }
 
+        keepRemainingPacket(receiveBuffer);
         return getReceivedAppBuf();
     }
 
@@ -495,7 +769,7 @@ abstract public class AbstractSecureSession implements SecureSession {
 
         outer:
         while (ret < remain) {
-            ByteBuffer packetBuffer = newBuffer(packetBufferSize);
+            ByteBuffer packetBuffer = bufferPool.acquire(packetBufferSize);
 
             wrap:
             while (true) {
@@ -511,16 +785,14 @@ abstract public class AbstractSecureSession implements SecureSession {
                         packetBuffer.flip();
                         if (packetBuffer.hasRemaining()) {
                             pocketBuffers.add(packetBuffer);
+                        } else {
+                            bufferPool.release(packetBuffer);
                         }
                     }
                     break wrap;
 
                     case BUFFER_OVERFLOW: {
-                        packetBufferSize = sslEngine.getSession().getPacketBufferSize();
-                        ByteBuffer b = newBuffer(packetBuffer.position() + packetBufferSize);
-                        packetBuffer.flip();
-                        b.put(packetBuffer);
-                        packetBuffer = b;
+                        packetBuffer = enlargePacketBuffer(packetBuffer);
                     }
                     break; // retry the operation.
 
@@ -529,12 +801,16 @@ abstract public class AbstractSecureSession implements SecureSession {
                         packetBuffer.flip();
                         if (packetBuffer.hasRemaining()) {
                             pocketBuffers.add(packetBuffer);
+                        } else {
+                            bufferPool.release(packetBuffer);
                         }
                         closeOutput = true;
                     }
                     break outer;
 
                     default: {
+                        bufferPool.release(packetBuffer);
+                        pocketBuffers.forEach(bufferPool::release);
                         SecureNetException ex = new SecureNetException(StringUtils.replace("Session {} SSLEngine writes data exception. status -> {}", session.getSessionId(), result.getStatus()));
                         callback.failed(ex);
                         throw ex;
@@ -543,7 +819,7 @@ abstract public class AbstractSecureSession implements SecureSession {
             }
         }
 
-        session.write(pocketBuffers, callback);
+        session.write(pocketBuffers, new ReleasePacketCallback(pocketBuffers, callback));
         if (closeOutput) {
             closeOutbound();
         }
@@ -574,7 +850,8 @@ abstract public class AbstractSecureSession implements SecureSession {
     public long transferFileRegion(FileRegion file, Callback callback) throws IOException {
         long ret = 0;
         try (FileRegion fileRegion = file) {
-            fileRegion.transferTo(callback, new FileBufferReaderHandler(file.getLength()));
+            ret = fileRegion.transferPooledTo(callback, SlabBufferPool.DIRECT, FILE_BUFFER_SIZE,
+                    new FileBufferReaderHandler(file.getLength()));
         }
         return ret;
     }
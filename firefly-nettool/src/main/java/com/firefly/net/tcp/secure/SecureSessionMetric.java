@@ -0,0 +1,50 @@
+package com.firefly.net.tcp.secure;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class SecureSessionMetric {
+    private final Timer handshakeDuration;
+    private final Counter handshakeInFlight;
+    private final Counter handshakeFailure;
+    private final Counter delegatedTaskInFlight;
+    private final Counter resumptionHitCount;
+    private final Counter resumptionMissCount;
+
+    public SecureSessionMetric(MetricRegistry metrics, String prefix) {
+        handshakeDuration = metrics.timer(prefix + ".handshake.duration");
+        handshakeInFlight = metrics.counter(prefix + ".handshake.inFlight");
+        handshakeFailure = metrics.counter(prefix + ".handshake.failure");
+        delegatedTaskInFlight = metrics.counter(prefix + ".handshake.delegatedTask.inFlight");
+        resumptionHitCount = metrics.counter(prefix + ".handshake.resumption.hit");
+        resumptionMissCount = metrics.counter(prefix + ".handshake.resumption.miss");
+    }
+
+    public Timer getHandshakeDuration() {
+        return handshakeDuration;
+    }
+
+    public Counter getHandshakeInFlight() {
+        return handshakeInFlight;
+    }
+
+    public Counter getHandshakeFailure() {
+        return handshakeFailure;
+    }
+
+    public Counter getDelegatedTaskInFlight() {
+        return delegatedTaskInFlight;
+    }
+
+    public Counter getResumptionHitCount() {
+        return resumptionHitCount;
+    }
+
+    public Counter getResumptionMissCount() {
+        return resumptionMissCount;
+    }
+}
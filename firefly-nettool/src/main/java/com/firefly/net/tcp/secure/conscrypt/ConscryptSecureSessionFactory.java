@@ -1,11 +1,14 @@
 package com.firefly.net.tcp.secure.conscrypt;
 
+import com.codahale.metrics.MetricRegistry;
 import com.firefly.net.*;
+import com.firefly.net.tcp.secure.SecureSessionMetric;
 import com.firefly.utils.lang.Pair;
 
 import javax.net.ssl.SSLEngine;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * @author Pengtao Qiu
@@ -15,6 +18,8 @@ public class ConscryptSecureSessionFactory implements SecureSessionFactory {
     private SSLContextFactory clientSSLContextFactory = new NoCheckConscryptSSLContextFactory();
     private SSLContextFactory serverSSLContextFactory = new DefaultCredentialConscryptSSLContextFactory();
     private List<String> supportedProtocols;
+    private Executor handshakeExecutor;
+    private SecureSessionMetric secureSessionMetric;
 
     public ConscryptSecureSessionFactory() {
 
@@ -46,7 +51,8 @@ public class ConscryptSecureSessionFactory implements SecureSessionFactory {
         SSLContextFactory sslContextFactory = from(clientMode);
         sslContextFactory.setSupportedProtocols(supportedProtocols);
         Pair<SSLEngine, ApplicationProtocolSelector> p = sslContextFactory.createSSLEngine(clientMode);
-        return new ConscryptSSLSession(session, p.first, p.second, secureSessionHandshakeListener);
+        return new ConscryptSSLSession(session, p.first, p.second, secureSessionHandshakeListener,
+                handshakeExecutor, secureSessionMetric);
     }
 
     @Override
@@ -54,13 +60,32 @@ public class ConscryptSecureSessionFactory implements SecureSessionFactory {
         SSLContextFactory sslContextFactory = from(clientMode);
         sslContextFactory.setSupportedProtocols(supportedProtocols);
         Pair<SSLEngine, ApplicationProtocolSelector> p = sslContextFactory.createSSLEngine(clientMode, peerHost, peerPort);
-        return new ConscryptSSLSession(session, p.first, p.second, secureSessionHandshakeListener);
+        return new ConscryptSSLSession(session, p.first, p.second, secureSessionHandshakeListener,
+                handshakeExecutor, secureSessionMetric);
     }
 
     protected SSLContextFactory from(boolean clientMode) {
         return clientMode ? clientSSLContextFactory : serverSSLContextFactory;
     }
 
+    public Executor getHandshakeExecutor() {
+        return handshakeExecutor;
+    }
+
+    @Override
+    public void setHandshakeExecutor(Executor handshakeExecutor) {
+        this.handshakeExecutor = handshakeExecutor;
+    }
+
+    public SecureSessionMetric getSecureSessionMetric() {
+        return secureSessionMetric;
+    }
+
+    @Override
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        this.secureSessionMetric = new SecureSessionMetric(metricRegistry, "secureSession");
+    }
+
     @Override
     public List<String> getSupportedProtocols() {
         return supportedProtocols;
@@ -2,6 +2,7 @@ package com.firefly.net.tcp.secure.jdk;
 
 import com.firefly.net.ApplicationProtocolSelector;
 import com.firefly.net.SSLContextFactory;
+import com.firefly.net.tcp.secure.utils.SecureUtils;
 import com.firefly.utils.lang.Pair;
 import com.firefly.utils.time.Millisecond100Clock;
 import org.slf4j.Logger;
@@ -13,6 +14,7 @@ import java.io.InputStream;
 import java.security.*;
 import java.security.cert.CertificateException;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * @author Pengtao Qiu
@@ -21,6 +23,9 @@ abstract public class AbstractJdkSSLContextFactory implements SSLContextFactory
     protected static final Logger log = LoggerFactory.getLogger("firefly-system");
 
     private List<String> supportedProtocols;
+    private int sessionCacheSize = SecureUtils.DEFAULT_SESSION_CACHE_SIZE;
+    private int sessionTimeout = SecureUtils.DEFAULT_SESSION_TIMEOUT;
+    private volatile SSLContext sslContext;
 
     public SSLContext getSSLContextWithManager(KeyManager[] km, TrustManager[] tm, SecureRandom random) throws NoSuchAlgorithmException, KeyManagementException {
         long start = Millisecond100Clock.currentTimeMillis();
@@ -65,20 +70,77 @@ abstract public class AbstractJdkSSLContextFactory implements SSLContextFactory
 
     abstract public SSLContext getSSLContext();
 
+    /**
+     * Get the SSL context that is shared by all SSL engines of the factory.
+     * The sessions are cached in the shared context, so the reconnected peers can resume the sessions.
+     *
+     * @return The shared SSL context.
+     */
+    public SSLContext getSharedSSLContext() {
+        SSLContext context = sslContext;
+        if (context == null) {
+            synchronized (this) {
+                context = sslContext;
+                if (context == null) {
+                    context = getSSLContext();
+                    SecureUtils.configureSessionCache(context, sessionCacheSize, sessionTimeout);
+                    sslContext = context;
+                }
+            }
+        }
+        return context;
+    }
+
     @Override
     public Pair<SSLEngine, ApplicationProtocolSelector> createSSLEngine(boolean clientMode) {
-        SSLEngine sslEngine = getSSLContext().createSSLEngine();
+        SSLEngine sslEngine = getSharedSSLContext().createSSLEngine();
         sslEngine.setUseClientMode(clientMode);
         return new Pair<>(sslEngine, new JettyALPNSelector(sslEngine, supportedProtocols));
     }
 
+    /**
+     * Create the SSL engine. The client engine resumes the cached session of the peer host and port.
+     *
+     * @param clientMode If true, the engine is in the client mode.
+     * @param peerHost   The peer host. It is the key of the client session cache.
+     * @param peerPort   The peer port. It is the key of the client session cache.
+     * @return The SSL engine and the application protocol selector.
+     */
     @Override
     public Pair<SSLEngine, ApplicationProtocolSelector> createSSLEngine(boolean clientMode, String peerHost, int peerPort) {
-        SSLEngine sslEngine = getSSLContext().createSSLEngine(peerHost, peerPort);
+        SSLEngine sslEngine = getSharedSSLContext().createSSLEngine(peerHost, peerPort);
         sslEngine.setUseClientMode(clientMode);
         return new Pair<>(sslEngine, new JettyALPNSelector(sslEngine, supportedProtocols));
     }
 
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    /**
+     * Set the max number of the cached sessions of the client and the server session context.
+     *
+     * @param sessionCacheSize The max number of the cached sessions. 0 means no limit.
+     */
+    public void setSessionCacheSize(int sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+        Optional.ofNullable(sslContext).ifPresent(c -> SecureUtils.configureSessionCache(c, sessionCacheSize, sessionTimeout));
+    }
+
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    /**
+     * Set the timeout of the cached sessions.
+     *
+     * @param sessionTimeout The timeout of the cached sessions in seconds. 0 means no limit.
+     */
+    public void setSessionTimeout(int sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+        Optional.ofNullable(sslContext).ifPresent(c -> SecureUtils.configureSessionCache(c, sessionCacheSize, sessionTimeout));
+    }
+
     @Override
     public List<String> getSupportedProtocols() {
         return supportedProtocols;
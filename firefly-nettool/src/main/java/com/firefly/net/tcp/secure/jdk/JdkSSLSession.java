@@ -4,9 +4,11 @@ import com.firefly.net.ApplicationProtocolSelector;
 import com.firefly.net.SecureSessionHandshakeListener;
 import com.firefly.net.Session;
 import com.firefly.net.tcp.secure.AbstractJdkSSLSession;
+import com.firefly.net.tcp.secure.SecureSessionMetric;
 
 import javax.net.ssl.SSLEngine;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 /**
  * @author Pengtao Qiu
@@ -18,4 +20,12 @@ public class JdkSSLSession extends AbstractJdkSSLSession {
                          SecureSessionHandshakeListener handshakeListener) throws IOException {
         super(session, sslEngine, applicationProtocolSelector, handshakeListener);
     }
+
+    public JdkSSLSession(Session session, SSLEngine sslEngine,
+                         ApplicationProtocolSelector applicationProtocolSelector,
+                         SecureSessionHandshakeListener handshakeListener,
+                         Executor handshakeExecutor,
+                         SecureSessionMetric secureSessionMetric) throws IOException {
+        super(session, sslEngine, applicationProtocolSelector, handshakeListener, handshakeExecutor, secureSessionMetric);
+    }
 }
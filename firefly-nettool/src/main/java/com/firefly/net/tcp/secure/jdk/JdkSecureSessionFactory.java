@@ -1,11 +1,14 @@
 package com.firefly.net.tcp.secure.jdk;
 
+import com.codahale.metrics.MetricRegistry;
 import com.firefly.net.*;
+import com.firefly.net.tcp.secure.SecureSessionMetric;
 import com.firefly.utils.lang.Pair;
 
 import javax.net.ssl.SSLEngine;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * @author Pengtao Qiu
@@ -16,6 +19,8 @@ public class JdkSecureSessionFactory implements SecureSessionFactory {
     private SSLContextFactory serverSSLContextFactory = new DefaultCredentialJdkSSLContextFactory();
 
     private List<String> supportedProtocols;
+    private Executor handshakeExecutor;
+    private SecureSessionMetric secureSessionMetric;
 
     public JdkSecureSessionFactory() {
     }
@@ -46,7 +51,8 @@ public class JdkSecureSessionFactory implements SecureSessionFactory {
         SSLContextFactory sslContextFactory = from(clientMode);
         sslContextFactory.setSupportedProtocols(supportedProtocols);
         Pair<SSLEngine, ApplicationProtocolSelector> p = sslContextFactory.createSSLEngine(clientMode);
-        return new JdkSSLSession(session, p.first, p.second, secureSessionHandshakeListener);
+        return new JdkSSLSession(session, p.first, p.second, secureSessionHandshakeListener,
+                handshakeExecutor, secureSessionMetric);
     }
 
     @Override
@@ -54,13 +60,32 @@ public class JdkSecureSessionFactory implements SecureSessionFactory {
         SSLContextFactory sslContextFactory = from(clientMode);
         sslContextFactory.setSupportedProtocols(supportedProtocols);
         Pair<SSLEngine, ApplicationProtocolSelector> p = sslContextFactory.createSSLEngine(clientMode, peerHost, peerPort);
-        return new JdkSSLSession(session, p.first, p.second, secureSessionHandshakeListener);
+        return new JdkSSLSession(session, p.first, p.second, secureSessionHandshakeListener,
+                handshakeExecutor, secureSessionMetric);
     }
 
     protected SSLContextFactory from(boolean clientMode) {
         return clientMode ? clientSSLContextFactory : serverSSLContextFactory;
     }
 
+    public Executor getHandshakeExecutor() {
+        return handshakeExecutor;
+    }
+
+    @Override
+    public void setHandshakeExecutor(Executor handshakeExecutor) {
+        this.handshakeExecutor = handshakeExecutor;
+    }
+
+    public SecureSessionMetric getSecureSessionMetric() {
+        return secureSessionMetric;
+    }
+
+    @Override
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        this.secureSessionMetric = new SecureSessionMetric(metricRegistry, "secureSession");
+    }
+
     @Override
     public List<String> getSupportedProtocols() {
         return supportedProtocols;
@@ -0,0 +1,466 @@
+package com.firefly.net.tcp.aio;
+
+import com.codahale.metrics.MetricRegistry;
+import com.firefly.net.Config;
+import com.firefly.net.MergedOutputEntry;
+import com.firefly.net.NetEvent;
+import com.firefly.net.Session;
+import com.firefly.net.tcp.aio.metric.SessionMetric;
+import com.firefly.utils.concurrent.Callback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.SocketOption;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Test the gathering write of the session. The socket channel records the writes,
+ * and the test completes them entirely, partially or with a failure.
+ *
+ * @author Pengtao Qiu
+ */
+public class TestAsynchronousTcpSessionOutput {
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        MockSocketChannel channel = new MockSocketChannel();
+        Config config = new Config();
+        config.setMaxMergedOutputBuffers(8);
+        AsynchronousTcpSession session = createSession(config, channel);
+
+        int producers = 4;
+        int count = 2000;
+        AtomicInteger succeeded = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(producers * count);
+        ExecutorService executor = Executors.newFixedThreadPool(producers + 1);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            executor.submit(() -> {
+                for (int i = 0; i < count; i++) {
+                    session.write(ByteBuffer.wrap((producer + ":" + i + ";").getBytes(StandardCharsets.UTF_8)), new Callback() {
+                        @Override
+                        public void succeeded() {
+                            succeeded.incrementAndGet();
+                            latch.countDown();
+                        }
+                    });
+                }
+            });
+        }
+
+        // completes the writes with the random written bytes on another thread
+        Future<?> completer = executor.submit(() -> {
+            while (latch.getCount() > 0) {
+                PendingWrite write = channel.writes.poll(10, TimeUnit.MILLISECONDS);
+                if (write != null) {
+                    write.complete(ThreadLocalRandom.current().nextInt(1, 64));
+                }
+            }
+            return null;
+        });
+        Assert.assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+        completer.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        Assert.assertThat(succeeded.get(), is(producers * count));
+        int[] next = new int[producers];
+        for (String message : channel.received().split(";")) {
+            String[] m = message.split(":");
+            int producer = Integer.parseInt(m[0]);
+            Assert.assertThat(Integer.parseInt(m[1]), is(next[producer]));
+            next[producer]++;
+        }
+        for (int p = 0; p < producers; p++) {
+            Assert.assertThat(next[p], is(count));
+        }
+    }
+
+    @Test
+    public void testMaxMergedOutputBytes() {
+        MockSocketChannel channel = new MockSocketChannel();
+        Config config = new Config();
+        config.setMaxMergedOutputBytes(10);
+        AsynchronousTcpSession session = createSession(config, channel);
+
+        List<String> results = new ArrayList<>();
+        session.write(buffer("first"), callback("first", results));
+        for (int i = 0; i < 5; i++) {
+            session.write(buffer("abc" + i), callback("abc" + i, results));
+        }
+        Assert.assertThat(channel.writes.size(), is(1));
+        Assert.assertThat(channel.writes.peek().length, is(1));
+
+        // the third entry exceeds the 10 bytes
+        channel.writes.poll().completeAll();
+        Assert.assertThat(channel.writes.peek().length, is(2));
+        channel.writes.poll().completeAll();
+        Assert.assertThat(channel.writes.peek().length, is(2));
+        channel.writes.poll().completeAll();
+        Assert.assertThat(channel.writes.peek().length, is(1));
+        channel.writes.poll().completeAll();
+        Assert.assertThat(channel.writes.isEmpty(), is(true));
+
+        // the entry that is larger than the limit is written alone
+        session.write(buffer("the large entry"), callback("large", results));
+        Assert.assertThat(channel.writes.peek().length, is(1));
+        channel.writes.poll().completeAll();
+
+        Assert.assertThat(results, is(Arrays.asList(
+                "first succeeded", "abc0 succeeded", "abc1 succeeded", "abc2 succeeded",
+                "abc3 succeeded", "abc4 succeeded", "large succeeded")));
+        Assert.assertThat(channel.received(), is("firstabc0abc1abc2abc3abc4the large entry"));
+        Assert.assertThat(session.getWrittenBytes(), is((long) channel.received().length()));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testMergedOutputEntry() {
+        MockSocketChannel channel = new MockSocketChannel();
+        AsynchronousTcpSession session = createSession(new Config(), channel);
+
+        List<String> results = new ArrayList<>();
+        session.write(buffer("a"), callback("a", results));
+        session.write(new MergedOutputEntry(
+                Arrays.asList(callback("b", results), callback("c", results)),
+                Arrays.asList(buffer("b"), buffer("c"))));
+        session.write(buffer("d"), callback("d", results));
+
+        Assert.assertThat(channel.writes.poll().completeAll(), is(1));
+        Assert.assertThat(channel.writes.poll().completeAll(), is(3));
+        Assert.assertThat(channel.writes.isEmpty(), is(true));
+        Assert.assertThat(results, is(Arrays.asList("a succeeded", "b succeeded", "c succeeded", "d succeeded")));
+        Assert.assertThat(channel.received(), is("abcd"));
+    }
+
+    @Test
+    public void testMaxMergedOutputBuffers() {
+        MockSocketChannel channel = new MockSocketChannel();
+        Config config = new Config();
+        config.setMaxMergedOutputBuffers(3);
+        AsynchronousTcpSession session = createSession(config, channel);
+
+        List<String> results = new ArrayList<>();
+        session.write(buffer("a"), callback("a", results));
+        session.write(new ByteBuffer[]{buffer("b"), buffer("c")}, callback("bc", results));
+        session.write(new ByteBuffer[]{buffer("d"), buffer("e")}, callback("de", results));
+        session.write(buffer("f"), callback("f", results));
+        session.write(new ByteBuffer[]{buffer("g"), buffer("h"), buffer("i"), buffer("j")}, callback("ghij", results));
+
+        Assert.assertThat(channel.writes.poll().completeAll(), is(1));
+        // the second array exceeds the 3 buffers
+        Assert.assertThat(channel.writes.poll().completeAll(), is(2));
+        Assert.assertThat(channel.writes.poll().completeAll(), is(3));
+        // the array that is larger than the limit is written alone
+        Assert.assertThat(channel.writes.poll().completeAll(), is(4));
+        Assert.assertThat(channel.writes.isEmpty(), is(true));
+
+        Assert.assertThat(results, is(Arrays.asList("a succeeded", "bc succeeded", "de succeeded", "f succeeded", "ghij succeeded")));
+        Assert.assertThat(channel.received(), is("abcdefghij"));
+    }
+
+    @Test
+    public void testPartialWrite() {
+        MockSocketChannel channel = new MockSocketChannel();
+        AsynchronousTcpSession session = createSession(new Config(), channel);
+
+        List<String> results = new ArrayList<>();
+        session.write(new ByteBuffer[]{buffer("0123456789"), buffer("abcdefghij"), buffer("ABCDEFGHIJ")}, callback("array", results));
+        PendingWrite write = channel.writes.poll();
+        Assert.assertThat(write.length, is(3));
+
+        write.complete(15);
+        Assert.assertThat(results.isEmpty(), is(true));
+        // continues from the second buffer
+        write = channel.writes.poll();
+        Assert.assertThat(write.length, is(2));
+        Assert.assertThat(write.srcs[write.offset].remaining(), is(5));
+
+        write.complete(12);
+        Assert.assertThat(results.isEmpty(), is(true));
+        write = channel.writes.poll();
+        Assert.assertThat(write.length, is(1));
+        Assert.assertThat(write.srcs[write.offset].remaining(), is(3));
+
+        write.completeAll();
+        Assert.assertThat(results, is(Arrays.asList("array succeeded")));
+        Assert.assertThat(channel.writes.isEmpty(), is(true));
+        Assert.assertThat(channel.received(), is("0123456789abcdefghijABCDEFGHIJ"));
+    }
+
+    @Test
+    public void testWriteFailed() {
+        MockSocketChannel channel = new MockSocketChannel();
+        Config config = new Config();
+        config.setMaxMergedOutputBuffers(2);
+        AsynchronousTcpSession session = createSession(config, channel);
+
+        List<String> results = new ArrayList<>();
+        session.write(buffer("a"), callback("a", results));
+        session.write(buffer("b"), callback("b", results));
+        session.write(buffer("c"), callback("c", results));
+        session.write(buffer("d"), callback("d", results));
+        channel.writes.poll().completeAll();
+
+        // the batch [b, c] is in flight and the entry d is pending
+        channel.writes.poll().fail(new IOException("broken pipe"));
+        Assert.assertThat(results, is(Arrays.asList("a succeeded", "b failed", "c failed", "d failed")));
+        Assert.assertThat(session.isShutdownOutput(), is(true));
+        Assert.assertThat(channel.received(), is("a"));
+    }
+
+    @Test
+    public void testCloseNow() {
+        MockSocketChannel channel = new MockSocketChannel();
+        AsynchronousTcpSession session = createSession(new Config(), channel);
+
+        List<String> results = new ArrayList<>();
+        session.write(buffer("a"), callback("a", results));
+        session.write(buffer("b"), callback("b", results));
+        session.write(buffer("c"), callback("c", results));
+
+        session.closeNow();
+        Assert.assertThat(results, is(Arrays.asList("a failed", "b failed", "c failed")));
+
+        session.write(buffer("d"), callback("d", results));
+        Assert.assertThat(results, is(Arrays.asList("a failed", "b failed", "c failed", "d failed")));
+        Assert.assertThat(session.isClosed(), is(true));
+    }
+
+    @Test
+    public void testClose() {
+        MockSocketChannel channel = new MockSocketChannel();
+        AsynchronousTcpSession session = createSession(new Config(), channel);
+
+        List<String> results = new ArrayList<>();
+        session.write(buffer("a"), callback("a", results));
+        session.write(buffer("b"), callback("b", results));
+        session.close();
+        session.write(buffer("c"), callback("c", results));
+        Assert.assertThat(results, is(Arrays.asList("c failed")));
+
+        // the queued entries are written before the session closes
+        channel.writes.poll().completeAll();
+        channel.writes.poll().completeAll();
+        Assert.assertThat(results, is(Arrays.asList("c failed", "a succeeded", "b succeeded")));
+        Assert.assertThat(session.isShutdownOutput(), is(true));
+        Assert.assertThat(channel.received(), is("ab"));
+    }
+
+    private static AsynchronousTcpSession createSession(Config config, MockSocketChannel channel) {
+        return new AsynchronousTcpSession(1, config, new SessionMetric(new MetricRegistry(), "test"), null, new NetEvent() {
+            @Override
+            public void notifySessionOpened(Session session) {
+            }
+
+            @Override
+            public void notifyMessageReceived(Session session, Object message) {
+            }
+
+            @Override
+            public void notifySessionClosed(Session session) {
+            }
+
+            @Override
+            public void notifyExceptionCaught(Session session, Throwable t) {
+            }
+        }, channel);
+    }
+
+    private static ByteBuffer buffer(String data) {
+        return ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Callback callback(String name, List<String> results) {
+        return new Callback() {
+            @Override
+            public void succeeded() {
+                results.add(name + " succeeded");
+            }
+
+            @Override
+            public void failed(Throwable x) {
+                results.add(name + " failed");
+            }
+        };
+    }
+
+    private static class PendingWrite {
+        final MockSocketChannel channel;
+        final ByteBuffer[] srcs;
+        final int offset;
+        final int length;
+        final Object attachment;
+        final CompletionHandler<Long, Object> handler;
+
+        PendingWrite(MockSocketChannel channel, ByteBuffer[] srcs, int offset, int length,
+                     Object attachment, CompletionHandler<Long, Object> handler) {
+            this.channel = channel;
+            this.srcs = srcs;
+            this.offset = offset;
+            this.length = length;
+            this.attachment = attachment;
+            this.handler = handler;
+        }
+
+        int completeAll() {
+            complete(Long.MAX_VALUE);
+            return length;
+        }
+
+        void complete(long maxBytes) {
+            long written = 0;
+            for (int i = offset; i < offset + length && written < maxBytes; i++) {
+                ByteBuffer buf = srcs[i];
+                int n = (int) Math.min(buf.remaining(), maxBytes - written);
+                byte[] data = new byte[n];
+                buf.get(data);
+                channel.write(data);
+                written += n;
+            }
+            handler.completed(written, attachment);
+        }
+
+        void fail(Throwable t) {
+            handler.failed(t, attachment);
+        }
+    }
+
+    private static class MockSocketChannel extends AsynchronousSocketChannel {
+
+        final BlockingQueue<PendingWrite> writes = new LinkedBlockingQueue<>();
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        private volatile boolean open = true;
+
+        MockSocketChannel() {
+            super(null);
+        }
+
+        synchronized void write(byte[] data) {
+            received.write(data, 0, data.length);
+        }
+
+        synchronized String received() {
+            return new String(received.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <A> void write(ByteBuffer[] srcs, int offset, int length, long timeout, TimeUnit unit,
+                              A attachment, CompletionHandler<Long, ? super A> handler) {
+            if (!open) {
+                handler.failed(new ClosedChannelException(), attachment);
+                return;
+            }
+            writes.offer(new PendingWrite(this, srcs, offset, length, attachment, (CompletionHandler<Long, Object>) handler));
+        }
+
+        @Override
+        public void close() {
+            open = false;
+            PendingWrite write;
+            while ((write = writes.poll()) != null) {
+                write.fail(new AsynchronousCloseException());
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public AsynchronousSocketChannel bind(SocketAddress local) {
+            return this;
+        }
+
+        @Override
+        public <T> AsynchronousSocketChannel setOption(SocketOption<T> name, T value) {
+            return this;
+        }
+
+        @Override
+        public <T> T getOption(SocketOption<T> name) {
+            return null;
+        }
+
+        @Override
+        public Set<SocketOption<?>> supportedOptions() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public AsynchronousSocketChannel shutdownInput() {
+            return this;
+        }
+
+        @Override
+        public AsynchronousSocketChannel shutdownOutput() {
+            return this;
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public SocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public <A> void connect(SocketAddress remote, A attachment, CompletionHandler<Void, ? super A> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<Void> connect(SocketAddress remote) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <A> void read(ByteBuffer dst, long timeout, TimeUnit unit, A attachment,
+                             CompletionHandler<Integer, ? super A> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<Integer> read(ByteBuffer dst) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <A> void read(ByteBuffer[] dsts, int offset, int length, long timeout, TimeUnit unit,
+                             A attachment, CompletionHandler<Long, ? super A> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <A> void write(ByteBuffer src, long timeout, TimeUnit unit, A attachment,
+                              CompletionHandler<Integer, ? super A> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<Integer> write(ByteBuffer src) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
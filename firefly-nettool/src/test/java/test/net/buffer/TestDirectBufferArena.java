@@ -0,0 +1,91 @@
+package test.net.buffer;
+
+import com.codahale.metrics.Counter;
+import com.firefly.net.buffer.DirectBufferArena;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestDirectBufferArena {
+
+    @Test
+    public void test() {
+        Counter hit = new Counter();
+        Counter miss = new Counter();
+        Counter outstanding = new Counter();
+        DirectBufferArena arena = new DirectBufferArena(hit, miss, outstanding);
+
+        ByteBuffer buffer = arena.acquire(1000);
+        Assert.assertThat(buffer.isDirect(), is(true));
+        Assert.assertThat(buffer.remaining(), is(1024));
+        Assert.assertThat(miss.getCount(), is(1L));
+        Assert.assertThat(outstanding.getCount(), is(1024L));
+
+        buffer.put((byte) 1).flip();
+        arena.release(buffer);
+        Assert.assertThat(arena.size(), is(1));
+        Assert.assertThat(outstanding.getCount(), is(0L));
+
+        ByteBuffer buffer2 = arena.acquire(1024);
+        Assert.assertThat(buffer2 == buffer, is(true));
+        Assert.assertThat(buffer2.remaining(), is(1024));
+        Assert.assertThat(hit.getCount(), is(1L));
+        Assert.assertThat(arena.size(), is(0));
+
+        ByteBuffer buffer3 = arena.acquire(2048);
+        Assert.assertThat(buffer3 == buffer, is(false));
+        Assert.assertThat(miss.getCount(), is(2L));
+        Assert.assertThat(outstanding.getCount(), is(3072L));
+
+        arena.release(buffer2);
+        arena.release(buffer3);
+        Assert.assertThat(arena.size(), is(2));
+        Assert.assertThat(outstanding.getCount(), is(0L));
+    }
+
+    @Test
+    public void testReleaseByAnotherThread() throws InterruptedException {
+        DirectBufferArena arena = new DirectBufferArena(new Counter(), new Counter(), new Counter());
+        ByteBuffer buffer = arena.acquire(4096);
+        Thread thread = new Thread(() -> arena.release(buffer));
+        thread.start();
+        thread.join();
+        Assert.assertThat(arena.acquire(4096) == buffer, is(true));
+    }
+
+    @Test
+    public void testMaxPooledBuffers() {
+        DirectBufferArena arena = new DirectBufferArena(64 * 1024, 1, new Counter(), new Counter(), new Counter());
+        ByteBuffer buffer1 = arena.acquire(1024);
+        ByteBuffer buffer2 = arena.acquire(1024);
+        arena.release(buffer1);
+        arena.release(buffer2);
+        Assert.assertThat(arena.size(), is(1));
+
+        arena.release(ByteBuffer.allocateDirect(128 * 1024));
+        Assert.assertThat(arena.size(), is(1));
+    }
+
+    @Test
+    public void testReleaseForeignBuffer() {
+        Counter outstanding = new Counter();
+        DirectBufferArena arena = new DirectBufferArena(new Counter(), new Counter(), outstanding);
+        ByteBuffer buffer = arena.acquire(128 * 1024);
+        Assert.assertThat(outstanding.getCount(), is(128 * 1024L));
+
+        arena.release(ByteBuffer.allocate(1024));
+        arena.release(ByteBuffer.allocateDirect(1000));
+        Assert.assertThat(outstanding.getCount(), is(128 * 1024L));
+        Assert.assertThat(arena.size(), is(0));
+
+        arena.release(buffer);
+        Assert.assertThat(outstanding.getCount(), is(0L));
+        Assert.assertThat(arena.size(), is(0));
+    }
+}
@@ -0,0 +1,89 @@
+package test.net.buffer;
+
+import com.firefly.net.buffer.FileRegion;
+import com.firefly.net.buffer.SlabBufferPool;
+import com.firefly.utils.concurrent.Callback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestFileRegion {
+
+    private File createFile(int size) throws IOException {
+        File file = File.createTempFile("testFileRegion", ".txt");
+        file.deleteOnExit();
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) ('a' + (i % 26));
+        }
+        Files.write(file.toPath(), data);
+        return file;
+    }
+
+    @Test
+    public void testTransferMappedTo() throws IOException {
+        File file = createFile(20 * 1024);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicBoolean completed = new AtomicBoolean(false);
+        try (FileRegion fileRegion = new FileRegion(file, 100, 10 * 1024)) {
+            long count = fileRegion.transferMappedTo(new Callback() {
+                @Override
+                public void succeeded() {
+                    completed.set(true);
+                }
+            }, (buf, countingCallback, c) -> {
+                Assert.assertThat(buf.isDirect(), is(true));
+                out.write(toArray(buf));
+                countingCallback.succeeded();
+            });
+            Assert.assertThat(count, is(10 * 1024L));
+        }
+        Assert.assertThat(completed.get(), is(true));
+
+        byte[] expected = new byte[10 * 1024];
+        System.arraycopy(Files.readAllBytes(file.toPath()), 100, expected, 0, expected.length);
+        Assert.assertThat(out.toByteArray(), is(expected));
+    }
+
+    @Test
+    public void testTransferPooledTo() throws IOException {
+        File file = createFile(20 * 1024 + 10);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicInteger parts = new AtomicInteger();
+        AtomicBoolean completed = new AtomicBoolean(false);
+        try (FileRegion fileRegion = new FileRegion(file)) {
+            long count = fileRegion.transferPooledTo(new Callback() {
+                @Override
+                public void succeeded() {
+                    completed.set(true);
+                }
+            }, SlabBufferPool.DIRECT, 8 * 1024, (buf, countingCallback, c) -> {
+                parts.incrementAndGet();
+                out.write(toArray(buf));
+                countingCallback.succeeded();
+            });
+            Assert.assertThat(count, is(20 * 1024 + 10L));
+        }
+        Assert.assertThat(parts.get(), is(3));
+        Assert.assertThat(completed.get(), is(true));
+        Assert.assertThat(out.toByteArray(), is(Files.readAllBytes(file.toPath())));
+    }
+
+    private static byte[] toArray(ByteBuffer buf) {
+        byte[] data = new byte[buf.remaining()];
+        buf.get(data);
+        return data;
+    }
+}
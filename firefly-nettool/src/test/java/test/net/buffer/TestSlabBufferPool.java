@@ -0,0 +1,95 @@
+package test.net.buffer;
+
+import com.firefly.net.buffer.SlabBufferPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestSlabBufferPool {
+
+    @Test
+    public void testSizeClass() {
+        SlabBufferPool pool = new SlabBufferPool(true);
+        ByteBuffer buffer = pool.acquire(1000);
+        Assert.assertThat(buffer.isDirect(), is(true));
+        Assert.assertThat(buffer.capacity(), is(1024));
+
+        buffer = pool.acquire(1025);
+        Assert.assertThat(buffer.capacity(), is(2048));
+
+        buffer = pool.acquire(10 * 1024);
+        Assert.assertThat(buffer.capacity(), is(16 * 1024));
+
+        buffer = pool.acquire(2 * 1024 * 1024 + 1);
+        Assert.assertThat(buffer.capacity(), is(2 * 1024 * 1024 + 1));
+        Assert.assertThat(pool.getAllocateCount(), is(4L));
+    }
+
+    @Test
+    public void testThreadCache() {
+        SlabBufferPool pool = new SlabBufferPool(false);
+        ByteBuffer buffer = pool.acquire(4096);
+        Assert.assertThat(buffer.isDirect(), is(false));
+        buffer.put((byte) 1);
+        pool.release(buffer);
+        Assert.assertThat(pool.size(), is(0));
+
+        ByteBuffer buffer2 = pool.acquire(3000);
+        Assert.assertThat(buffer2 == buffer, is(true));
+        Assert.assertThat(buffer2.position(), is(0));
+        Assert.assertThat(buffer2.remaining(), is(4096));
+        Assert.assertThat(pool.getAcquireCount(), is(2L));
+        Assert.assertThat(pool.getReleaseCount(), is(1L));
+        Assert.assertThat(pool.getAllocateCount(), is(1L));
+    }
+
+    @Test
+    public void testReleaseByAnotherThread() throws InterruptedException {
+        SlabBufferPool pool = new SlabBufferPool(true, 1024, 64 * 1024, 64 * 1024, 0, 1024 * 1024, 0);
+        ByteBuffer buffer = pool.acquire(8 * 1024);
+        Thread thread = new Thread(() -> pool.release(buffer));
+        thread.start();
+        thread.join();
+        Assert.assertThat(pool.size(), is(1));
+        Assert.assertThat(pool.getPooledBytes(), is(8 * 1024L));
+
+        Assert.assertThat(pool.acquire(8 * 1024) == buffer, is(true));
+        Assert.assertThat(pool.size(), is(0));
+        Assert.assertThat(pool.getPooledBytes(), is(0L));
+    }
+
+    @Test
+    public void testMaxPooledBytes() {
+        SlabBufferPool pool = new SlabBufferPool(true, 1024, 64 * 1024, 64 * 1024, 0, 16 * 1024, 0);
+        ByteBuffer buffer1 = pool.acquire(16 * 1024);
+        ByteBuffer buffer2 = pool.acquire(16 * 1024);
+        pool.release(buffer1);
+        pool.release(buffer2);
+        Assert.assertThat(pool.size(), is(1));
+        Assert.assertThat(pool.getPooledBytes(), is(16 * 1024L));
+
+        pool.release(ByteBuffer.allocate(1024));
+        pool.release(ByteBuffer.allocateDirect(1000));
+        Assert.assertThat(pool.size(), is(1));
+    }
+
+    @Test
+    public void testLeakDetection() throws InterruptedException {
+        SlabBufferPool pool = new SlabBufferPool(false, 1024, 64 * 1024, 64 * 1024, 8, 1024 * 1024, 1);
+        pool.release(pool.acquire(1024));
+        Assert.assertThat(pool.getLeakCount(), is(0L));
+
+        pool.acquire(1024);
+        for (int i = 0; i < 10 && pool.getLeakCount() == 0; i++) {
+            System.gc();
+            Thread.sleep(100L);
+        }
+        Assert.assertThat(pool.getLeakCount(), is(1L));
+    }
+}
@@ -11,6 +11,7 @@ import com.firefly.net.tcp.secure.conscrypt.ConscryptSecureSessionFactory;
 import com.firefly.net.tcp.secure.conscrypt.FileConscryptSSLContextFactory;
 import com.firefly.net.tcp.secure.jdk.FileJdkSSLContextFactory;
 import com.firefly.net.tcp.secure.jdk.JdkSecureSessionFactory;
+import com.firefly.net.tcp.secure.utils.SecureUtils;
 import com.firefly.utils.RandomUtils;
 import com.firefly.utils.io.ClassPathResource;
 import com.firefly.utils.io.IO;
@@ -25,6 +26,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -52,6 +54,8 @@ public class TestSimpleTcpServerAndClient {
         }
     }
 
+    private static final ExecutorService handshakeExecutor = SecureUtils.newHandshakeExecutor(2, 16);
+
     @Parameters(name = "{0}")
     public static Collection<Run> data() throws IOException {
         List<Run> data = new ArrayList<>();
@@ -111,6 +115,20 @@ public class TestSimpleTcpServerAndClient {
         run.testName = "Test conscrypt file certificate";
         data.add(run);
 
+        run = new Run();
+        run.clientConfig = new TcpConfiguration();
+        run.clientConfig.setSecureSessionFactory(new JdkSecureSessionFactory());
+        run.clientConfig.getSecureSessionFactory().setHandshakeExecutor(handshakeExecutor);
+        run.clientConfig.setSecureConnectionEnabled(true);
+        run.serverConfig = new TcpServerConfiguration();
+        run.serverConfig.setSecureConnectionEnabled(true);
+        run.serverConfig.setSecureSessionFactory(new JdkSecureSessionFactory());
+        run.serverConfig.getSecureSessionFactory().setHandshakeExecutor(handshakeExecutor);
+        run.port = (int) RandomUtils.random(1000, 65534);
+        run.maxMsg = 20;
+        run.testName = "Test jdk handshake offload";
+        data.add(run);
+
         return data;
     }
 
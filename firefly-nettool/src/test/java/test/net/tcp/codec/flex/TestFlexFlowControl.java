@@ -0,0 +1,298 @@
+package test.net.tcp.codec.flex;
+
+import com.codahale.metrics.MetricRegistry;
+import com.firefly.net.tcp.SimpleTcpServer;
+import com.firefly.net.tcp.codec.flex.protocol.*;
+import com.firefly.net.tcp.codec.flex.stream.FlexConfiguration;
+import com.firefly.net.tcp.codec.flex.stream.FlexConnection;
+import com.firefly.net.tcp.codec.flex.stream.Session;
+import com.firefly.net.tcp.codec.flex.stream.Stream;
+import com.firefly.net.tcp.codec.flex.stream.impl.FlexSession;
+import com.firefly.net.tcp.codec.flex.stream.impl.FlexStream;
+import com.firefly.net.tcp.flex.client.MultiplexingClient;
+import com.firefly.net.tcp.flex.metric.FlexMetric;
+import com.firefly.utils.RandomUtils;
+import com.firefly.utils.concurrent.Callback;
+import com.firefly.utils.concurrent.Scheduler;
+import com.firefly.utils.concurrent.Schedulers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.firefly.net.tcp.codec.flex.protocol.Frame.MAX_PAYLOAD_LENGTH;
+import static com.firefly.net.tcp.codec.flex.protocol.WindowUpdateFrame.DEFAULT_SESSION_WINDOW_SIZE;
+import static com.firefly.net.tcp.codec.flex.protocol.WindowUpdateFrame.DEFAULT_STREAM_WINDOW_SIZE;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Test the flow control of the flex session. The session records the written frames instead of writing them to the connection.
+ *
+ * @author Pengtao Qiu
+ */
+public class TestFlexFlowControl {
+
+    private Scheduler scheduler;
+    private FlexMetric flexMetric;
+    private MockFlexSession session;
+
+    @Before
+    public void before() {
+        scheduler = Schedulers.createScheduler();
+        flexMetric = new FlexMetric(new MetricRegistry(), "test");
+        session = new MockFlexSession(1, flexMetric, new FlexConfiguration(), scheduler);
+    }
+
+    @After
+    public void after() {
+        session.clear();
+        scheduler.stop();
+    }
+
+    @Test
+    public void testStreamStalled() {
+        List<String> results = new ArrayList<>();
+        Stream stream = newStream();
+        Stream other = newStream();
+
+        send(stream, DEFAULT_STREAM_WINDOW_SIZE, callback("data1", results));
+        stream.send(new DataFrame(false, stream.getId(), false, new byte[10]), callback("data2", results));
+        // the frames behind the stalled data frame are queued to keep the order
+        stream.send(new ControlFrame(false, stream.getId(), false, null), callback("control", results));
+        Assert.assertThat(results, is(Arrays.asList("data1 succeeded")));
+        Assert.assertThat(flexMetric.getStalledStreamCount().getCount(), is(1L));
+        Assert.assertThat(flexMetric.getStreamStallMeter().getCount(), is(1L));
+
+        // the stalled stream does not delay the other streams
+        other.send(new DataFrame(false, other.getId(), false, new byte[10]), callback("other", results));
+        Assert.assertThat(results, is(Arrays.asList("data1 succeeded", "other succeeded")));
+
+        session.notifyFrame(new WindowUpdateFrame(stream.getId(), 9));
+        Assert.assertThat(results, is(Arrays.asList("data1 succeeded", "other succeeded")));
+
+        session.notifyFrame(new WindowUpdateFrame(stream.getId(), 1));
+        Assert.assertThat(results, is(Arrays.asList("data1 succeeded", "other succeeded", "data2 succeeded", "control succeeded")));
+        Assert.assertThat(flexMetric.getStalledStreamCount().getCount(), is(0L));
+        Assert.assertThat(session.getFlowControl().getSessionSendWindow(), is(DEFAULT_SESSION_WINDOW_SIZE - DEFAULT_STREAM_WINDOW_SIZE - 20));
+    }
+
+    @Test
+    public void testSessionStalled() {
+        List<String> results = new ArrayList<>();
+        Stream stream = newStream();
+        Stream other = newStream();
+
+        // the stream window is larger than the session window
+        session.notifyFrame(new WindowUpdateFrame(stream.getId(), DEFAULT_SESSION_WINDOW_SIZE));
+        send(stream, DEFAULT_SESSION_WINDOW_SIZE, Callback.NOOP);
+        Assert.assertThat(session.getFlowControl().getSessionSendWindow(), is(0));
+
+        // the session window blocks all streams, although the stream windows have the credits
+        stream.send(new DataFrame(false, stream.getId(), false, new byte[1]), callback("stream", results));
+        other.send(new DataFrame(false, other.getId(), false, new byte[1]), callback("other", results));
+        Assert.assertThat(results.isEmpty(), is(true));
+        Assert.assertThat(flexMetric.getStalledStreamCount().getCount(), is(2L));
+
+        // the stalled streams take the session window in order
+        session.notifyFrame(new WindowUpdateFrame(0, 1));
+        Assert.assertThat(results, is(Arrays.asList("stream succeeded")));
+        Assert.assertThat(flexMetric.getStalledStreamCount().getCount(), is(1L));
+
+        session.notifyFrame(new WindowUpdateFrame(0, 1));
+        Assert.assertThat(results, is(Arrays.asList("stream succeeded", "other succeeded")));
+        Assert.assertThat(flexMetric.getStalledStreamCount().getCount(), is(0L));
+        Assert.assertThat(flexMetric.getStreamStallMeter().getCount(), is(2L));
+    }
+
+    @Test
+    public void testStreamClosed() {
+        List<String> results = new ArrayList<>();
+        Stream stream = newStream();
+
+        send(stream, DEFAULT_STREAM_WINDOW_SIZE, Callback.NOOP);
+        stream.send(new DataFrame(false, stream.getId(), false, new byte[1]), callback("data", results));
+        Assert.assertThat(results.isEmpty(), is(true));
+
+        // the queued frames fail when the session is closed
+        session.clear();
+        Assert.assertThat(results, is(Arrays.asList("data failed")));
+        Assert.assertThat(flexMetric.getStalledStreamCount().getCount(), is(0L));
+    }
+
+    @Test
+    public void testWindowUpdateAfterDelivery() {
+        List<String> events = new ArrayList<>();
+        session.events = events;
+        session.setListener(new MockSessionListener(events));
+        session.notifyFrame(new ControlFrame(false, 2, false, null));
+
+        receive(2, DEFAULT_STREAM_WINDOW_SIZE / 2 - 1);
+        Assert.assertThat(events.stream().anyMatch(e -> e.startsWith("window")), is(false));
+
+        // the data is consumed when it is delivered, and the credits are granted at the half of the stream window
+        events.clear();
+        receive(2, 1);
+        Assert.assertThat(events, is(Arrays.asList("data 1", "window 2 " + DEFAULT_STREAM_WINDOW_SIZE / 2)));
+    }
+
+    @Test
+    public void testFlowControlError() {
+        List<String> events = new ArrayList<>();
+        session.setListener(new MockSessionListener(events));
+        session.notifyFrame(new ControlFrame(false, 2, false, null));
+
+        // the received data has not been consumed, so the remote endpoint has spent the stream window
+        FlexStream stream = (FlexStream) session.getStream(2);
+        for (int i = 0; i < DEFAULT_STREAM_WINDOW_SIZE / 1024; i++) {
+            Assert.assertThat(session.getFlowControl().onDataReceived(stream, new DataFrame(false, 2, false, new byte[1024])), is(true));
+        }
+
+        session.notifyFrame(new DataFrame(false, 2, false, new byte[1]));
+        Assert.assertThat(events.isEmpty(), is(true));
+        Frame frame = session.writtenFrames.get(session.writtenFrames.size() - 1);
+        Assert.assertThat(frame, instanceOf(DisconnectionFrame.class));
+        Assert.assertThat(((DisconnectionFrame) frame).getCode(), is(ErrorCode.FLOW_CONTROL.getValue()));
+    }
+
+    @Test
+    public void testClientClosedWithoutHeartbeat() throws Exception {
+        String host = "localhost";
+        int port = (int) RandomUtils.random(1000, 65534);
+
+        // the server receives the data, but it never grants the credits
+        SimpleTcpServer server = new SimpleTcpServer();
+        server.accept(connection -> connection.receive(buffer -> {
+        })).listen(host, port);
+
+        MultiplexingClient client = new MultiplexingClient();
+        client.start();
+        client.getConfiguration().setHeartbeatInterval(0);
+        try {
+            FlexConnection connection = client.connect(host, port).get(5, TimeUnit.SECONDS);
+            Stream stream = newStream(connection.getSession());
+            send(stream, DEFAULT_STREAM_WINDOW_SIZE, Callback.NOOP);
+
+            CompletableFuture<Throwable> failure = new CompletableFuture<>();
+            stream.send(new DataFrame(false, stream.getId(), false, new byte[1]), new Callback() {
+                @Override
+                public void failed(Throwable x) {
+                    failure.complete(x);
+                }
+            });
+            Assert.assertThat(failure.isDone(), is(false));
+
+            // the queued frame fails when the connection is closed
+            connection.close();
+            Assert.assertThat(failure.get(5, TimeUnit.SECONDS).getMessage(), is("The session is closed"));
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+
+    private Stream newStream() {
+        return newStream(session);
+    }
+
+    private static Stream newStream(Session session) {
+        return session.newStream(new ControlFrame(false, 0, false, null), Callback.NOOP, new Stream.Listener() {
+            @Override
+            public void onControl(ControlFrame controlFrame) {
+            }
+
+            @Override
+            public void onData(DataFrame dataFrame) {
+            }
+        });
+    }
+
+    private void send(Stream stream, int length, Callback callback) {
+        while (length > 0) {
+            int size = Math.min(length, MAX_PAYLOAD_LENGTH);
+            length -= size;
+            stream.send(new DataFrame(false, stream.getId(), false, new byte[size]), length == 0 ? callback : Callback.NOOP);
+        }
+    }
+
+    private void receive(int streamId, int length) {
+        while (length > 0) {
+            int size = Math.min(length, MAX_PAYLOAD_LENGTH);
+            length -= size;
+            session.notifyFrame(new DataFrame(false, streamId, false, new byte[size]));
+        }
+    }
+
+    private static Callback callback(String name, List<String> results) {
+        return new Callback() {
+            @Override
+            public void succeeded() {
+                results.add(name + " succeeded");
+            }
+
+            @Override
+            public void failed(Throwable x) {
+                results.add(name + " failed");
+            }
+        };
+    }
+
+    public static class MockFlexSession extends FlexSession {
+        public final List<Frame> writtenFrames = new ArrayList<>();
+        public List<String> events;
+
+        public MockFlexSession(int initStreamId, FlexMetric flexMetric, FlexConfiguration configuration, Scheduler scheduler) {
+            super(initStreamId, null, flexMetric, configuration, scheduler);
+        }
+
+        @Override
+        protected boolean canWrite() {
+            return true;
+        }
+
+        @Override
+        protected void _writeFrame(Frame frame, Callback callback) {
+            writtenFrames.add(frame);
+            if (events != null && frame.getType() == FrameType.WINDOW_UPDATE) {
+                WindowUpdateFrame windowUpdateFrame = (WindowUpdateFrame) frame;
+                events.add("window " + windowUpdateFrame.getStreamId() + " " + windowUpdateFrame.getWindowDelta());
+            }
+            callback.succeeded();
+        }
+    }
+
+    public static class MockSessionListener implements Session.Listener {
+        private final List<String> events;
+
+        public MockSessionListener(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public Stream.Listener onNewStream(Stream stream, ControlFrame controlFrame) {
+            return new Stream.Listener() {
+                @Override
+                public void onControl(ControlFrame controlFrame) {
+                }
+
+                @Override
+                public void onData(DataFrame dataFrame) {
+                    events.add("data " + dataFrame.getData().length);
+                }
+            };
+        }
+
+        @Override
+        public void onPing(Session session, PingFrame pingFrame) {
+        }
+
+        @Override
+        public void onDisconnect(Session session, DisconnectionFrame disconnectionFrame) {
+        }
+    }
+}
@@ -1,15 +1,21 @@
 package test.net.tcp.codec.flex;
 
+import com.firefly.net.buffer.SlabBufferPool;
 import com.firefly.net.tcp.codec.flex.decode.FrameParser;
+import com.firefly.net.tcp.codec.flex.decode.MetaInfoParser;
 import com.firefly.net.tcp.codec.flex.encode.FrameGenerator;
+import com.firefly.net.tcp.codec.flex.encode.MetaInfoGenerator;
+import com.firefly.net.tcp.codec.flex.model.Request;
 import com.firefly.net.tcp.codec.flex.protocol.*;
 import com.firefly.utils.io.BufferUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -97,4 +103,40 @@ public class TestMessageFrame {
         parser.receive(buffer);
     }
 
+    @Test
+    public void testMetaInfo() {
+        Request request = new Request();
+        request.setPath("flex://hello");
+        request.setFields(new HashMap<>());
+        for (int i = 0; i < 4000; i++) {
+            request.getFields().put("key" + i, "value" + i);
+        }
+
+        SlabBufferPool pool = new SlabBufferPool(true);
+        ByteBuffer buffer = FrameGenerator.generate(new MetaInfoControlFrame(true, 3, request, MetaInfoGenerator.DEFAULT), pool);
+        Assert.assertTrue(buffer.isDirect());
+
+        List<ControlFrame> controlFrames = new ArrayList<>();
+        FrameParser parser = new FrameParser();
+        parser.complete(frame -> controlFrames.add((ControlFrame) frame));
+        BufferUtils.split(buffer, 1000).forEach(parser::receive);
+        pool.release(buffer);
+
+        // the meta info is larger than the max payload length
+        Assert.assertTrue(controlFrames.size() > 1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < controlFrames.size(); i++) {
+            ControlFrame controlFrame = controlFrames.get(i);
+            boolean last = i == controlFrames.size() - 1;
+            Assert.assertThat(controlFrame.getStreamId(), is(3));
+            Assert.assertThat(controlFrame.isEndFrame(), is(last));
+            Assert.assertThat(controlFrame.isEndStream(), is(last));
+            out.write(controlFrame.getData(), 0, controlFrame.getData().length);
+        }
+
+        Request parsed = MetaInfoParser.DEFAULT.parse(out.toByteArray(), Request.class);
+        Assert.assertThat(parsed.getPath(), is("flex://hello"));
+        Assert.assertThat(parsed.getFields(), is(request.getFields()));
+    }
+
 }
@@ -0,0 +1,66 @@
+package test.net.tcp.codec.flex;
+
+import com.firefly.net.tcp.codec.flex.decode.FrameParser;
+import com.firefly.net.tcp.codec.flex.encode.FrameGenerator;
+import com.firefly.net.tcp.codec.flex.protocol.Frame;
+import com.firefly.net.tcp.codec.flex.protocol.FrameType;
+import com.firefly.net.tcp.codec.flex.protocol.WindowUpdateFrame;
+import com.firefly.utils.io.BufferUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestWindowUpdateFrame {
+
+    @Test
+    public void test() {
+        ByteBuffer buffer = FrameGenerator.generate(new WindowUpdateFrame(3, 64 * 1024));
+        Assert.assertThat(buffer.remaining(), is(Frame.FRAME_HEADER_LENGTH + WindowUpdateFrame.WINDOW_UPDATE_FRAME_LENGTH));
+
+        List<Frame> frames = new ArrayList<>();
+        FrameParser parser = new FrameParser();
+        parser.complete(frames::add);
+        parser.receive(buffer);
+
+        Assert.assertThat(frames.size(), is(1));
+        Assert.assertThat(frames.get(0).getType(), is(FrameType.WINDOW_UPDATE));
+        WindowUpdateFrame frame = (WindowUpdateFrame) frames.get(0);
+        Assert.assertThat(frame.getStreamId(), is(3));
+        Assert.assertThat(frame.getWindowDelta(), is(64 * 1024));
+        Assert.assertThat(frame.isSessionWindowUpdate(), is(false));
+    }
+
+    @Test
+    public void testSplit() {
+        int loop = 10;
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < loop; i++) {
+            buffers.add(FrameGenerator.generate(new WindowUpdateFrame(i, 1024 * (i + 1))));
+        }
+
+        List<ByteBuffer> splitBuffers = buffers.stream()
+                                               .flatMap(buf -> BufferUtils.split(buf, 5).stream())
+                                               .collect(Collectors.toList());
+        List<Frame> frames = new ArrayList<>();
+        FrameParser parser = new FrameParser();
+        parser.complete(frames::add);
+        splitBuffers.forEach(parser::receive);
+
+        Assert.assertThat(frames.size(), is(loop));
+        for (int i = 0; i < loop; i++) {
+            WindowUpdateFrame frame = (WindowUpdateFrame) frames.get(i);
+            Assert.assertThat(frame.getStreamId(), is(i));
+            Assert.assertThat(frame.getWindowDelta(), is(1024 * (i + 1)));
+            Assert.assertThat(frame.isSessionWindowUpdate(), is(i == 0));
+        }
+    }
+}
@@ -36,7 +36,7 @@ public class ConnectionManagerDemo {
             request.setPath("/connectionManager");
             request.setFields(new HashMap<>());
             request.getFields().put("taskNo", "req" + i);
-            FlexConnection connection = client.getConnection();
+            FlexConnection connection = client.getConnection().join();
             System.out.println(connection.getRemoteAddress());
             connection.newRequest(request, new FlexConnection.Listener() {
                 @Override
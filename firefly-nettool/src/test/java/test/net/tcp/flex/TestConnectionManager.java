@@ -5,6 +5,7 @@ import com.firefly.net.tcp.codec.flex.stream.Context;
 import com.firefly.net.tcp.codec.flex.stream.FlexConnection;
 import com.firefly.net.tcp.flex.client.MultiplexingClient;
 import com.firefly.net.tcp.flex.client.MultiplexingClientConfiguration;
+import com.firefly.net.tcp.flex.exception.ConnectionException;
 import com.firefly.net.tcp.flex.server.MultiplexingServer;
 import com.firefly.utils.RandomUtils;
 import com.firefly.utils.io.IO;
@@ -19,7 +20,9 @@ import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -31,7 +34,7 @@ import static org.hamcrest.Matchers.is;
 public class TestConnectionManager {
 
     @Test
-    public void test() throws InterruptedException {
+    public void test() throws Exception {
         int loop = 10;
         CountDownLatch latch = new CountDownLatch(loop);
         List<HostPort> addresses = createAddresses(1);
@@ -51,7 +54,7 @@ public class TestConnectionManager {
             request.setPath("/connectionManager");
             request.setFields(new HashMap<>());
             request.getFields().put("taskNo", "req" + i);
-            FlexConnection connection = client.getConnection();
+            FlexConnection connection = client.getConnection().get();
             System.out.println(connection.getLocalAddress());
             connection.newRequest(request, new FlexConnection.Listener() {
                 @Override
@@ -117,6 +120,29 @@ public class TestConnectionManager {
         client.stop();
     }
 
+    @Test
+    public void testConnectionTimeout() throws InterruptedException {
+        MultiplexingClientConfiguration configuration = new MultiplexingClientConfiguration();
+        configuration.setServerUrlSet(createAddresses(2).stream()
+                                                        .map(a -> a.getHost() + ":" + a.getPort())
+                                                        .collect(Collectors.toSet()));
+        configuration.setConnectionsPerAddress(2);
+        configuration.setConnectionTimeout(500);
+        MultiplexingClient client = new MultiplexingClient(configuration);
+        client.start();
+
+        // the servers are not started, the caller does not wait for the connecting
+        CompletableFuture<FlexConnection> future = client.getConnection();
+        Assert.assertThat(future.isDone(), is(false));
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertThat(e.getCause() instanceof ConnectionException, is(true));
+        }
+        client.stop();
+    }
+
     public List<HostPort> createAddresses(int number) {
         return IntStream.range(0, number).boxed()
                         .map(i -> new HostPort("localhost:" + (int) RandomUtils.random(1000, 65534)))
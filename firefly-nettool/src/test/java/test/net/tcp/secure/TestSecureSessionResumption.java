@@ -0,0 +1,55 @@
+package test.net.tcp.secure;
+
+import com.codahale.metrics.MetricRegistry;
+import com.firefly.net.tcp.SimpleTcpClient;
+import com.firefly.net.tcp.SimpleTcpServer;
+import com.firefly.net.tcp.TcpConfiguration;
+import com.firefly.net.tcp.TcpConnection;
+import com.firefly.net.tcp.TcpServerConfiguration;
+import com.firefly.net.tcp.secure.jdk.JdkSecureSessionFactory;
+import com.firefly.utils.RandomUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestSecureSessionResumption {
+
+    @Test
+    public void test() throws Exception {
+        TcpConfiguration clientConfig = new TcpConfiguration();
+        clientConfig.setSecureSessionFactory(new JdkSecureSessionFactory());
+        clientConfig.setSecureConnectionEnabled(true);
+        TcpServerConfiguration serverConfig = new TcpServerConfiguration();
+        serverConfig.setSecureSessionFactory(new JdkSecureSessionFactory());
+        serverConfig.setSecureConnectionEnabled(true);
+        int port = (int) RandomUtils.random(1000, 65534);
+
+        SimpleTcpServer server = new SimpleTcpServer(serverConfig);
+        SimpleTcpClient client = new SimpleTcpClient(clientConfig);
+        CountDownLatch accepted = new CountDownLatch(2);
+        server.accept(connection -> accepted.countDown()).listen("localhost", port);
+
+        // the second connection resumes the session of the first connection
+        TcpConnection c1 = client.connect("localhost", port).get(5, TimeUnit.SECONDS);
+        TcpConnection c2 = client.connect("localhost", port).get(5, TimeUnit.SECONDS);
+        Assert.assertThat(accepted.await(5, TimeUnit.SECONDS), is(true));
+
+        MetricRegistry serverMetrics = serverConfig.getMetricReporterFactory().getMetricRegistry();
+        Assert.assertThat(serverMetrics.counter("secureSession.handshake.resumption.miss").getCount(), is(1L));
+        Assert.assertThat(serverMetrics.counter("secureSession.handshake.resumption.hit").getCount(), is(1L));
+        MetricRegistry clientMetrics = clientConfig.getMetricReporterFactory().getMetricRegistry();
+        Assert.assertThat(clientMetrics.counter("secureSession.handshake.resumption.hit").getCount(), is(1L));
+
+        c1.close();
+        c2.close();
+        client.stop();
+        server.stop();
+    }
+}
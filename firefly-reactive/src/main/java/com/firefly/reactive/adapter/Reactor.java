@@ -24,9 +24,17 @@ public interface Reactor {
             return new ReactiveSQLClientAdapter(sqlClient);
         }
 
+        static ReactiveSQLClient fromSQLClient(SQLClient sqlClient, int fetchSize) {
+            return new ReactiveSQLClientAdapter(sqlClient, fetchSize);
+        }
+
         static ReactiveSQLConnection fromSQLConnection(SQLConnection sqlConnection) {
             return new ReactiveSQLConnectionAdapter(sqlConnection);
         }
+
+        static ReactiveSQLConnection fromSQLConnection(SQLConnection sqlConnection, int fetchSize) {
+            return new ReactiveSQLConnectionAdapter(sqlConnection, fetchSize);
+        }
     }
 
     interface http {
@@ -11,21 +11,33 @@ import reactor.core.publisher.Mono;
 public class ReactiveSQLClientAdapter implements ReactiveSQLClient {
 
     private final SQLClient sqlClient;
+    private final int fetchSize;
 
     public ReactiveSQLClientAdapter(SQLClient sqlClient) {
+        this(sqlClient, ReactiveSQLConnectionAdapter.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Create the reactive SQL client.
+     *
+     * @param sqlClient The SQL client.
+     * @param fetchSize The max number of the records that the Flux query fetches from the cursor in one round trip.
+     */
+    public ReactiveSQLClientAdapter(SQLClient sqlClient, int fetchSize) {
         this.sqlClient = sqlClient;
+        this.fetchSize = fetchSize;
     }
 
     @Override
     public Mono<ReactiveSQLConnection> getConnection() {
-        return Mono.fromCompletionStage(sqlClient.getConnection().thenApply(ReactiveSQLConnectionAdapter::new));
+        return Mono.fromCompletionStage(sqlClient.getConnection().thenApply(conn -> new ReactiveSQLConnectionAdapter(conn, fetchSize)));
     }
 
     @Override
     public <T> Mono<T> newTransaction(Func1<ReactiveSQLConnection, Mono<T>> func1) {
         return Mono.fromCompletionStage(sqlClient.newTransaction(conn -> {
             Promise.Completable<T> completable = new Promise.Completable<>();
-            func1.call(new ReactiveSQLConnectionAdapter(conn))
+            func1.call(new ReactiveSQLConnectionAdapter(conn, fetchSize))
                  .subscribe(completable::succeeded, completable::failed);
             return completable;
         }));
@@ -1,9 +1,11 @@
 package com.firefly.reactive.adapter.db;
 
+import com.firefly.db.BulkInsertOptions;
 import com.firefly.db.SQLConnection;
 import com.firefly.db.SQLResultSet;
 import com.firefly.db.TransactionIsolation;
 import com.firefly.utils.function.Func1;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -190,6 +192,60 @@ public interface ReactiveSQLConnection {
      */
     <T> Mono<List<T>> namedQueryForList(String sql, Class<T> clazz, Object paramObject);
 
+    /**
+     * Query records and emit the bound objects on demand. The records are fetched from a forward-only cursor
+     * when the subscriber requests them, so the whole result is never loaded into memory.
+     * Cancelling the subscription closes the statement.
+     *
+     * @param sql    A SQL that may contain one or more '?' placeholders.
+     * @param clazz  The Class reference of bound object.
+     * @param params SQL parameters.
+     * @param <T>    The type of bound object.
+     * @return The records that bind to Class and they are emitted by Flux.
+     */
+    <T> Flux<T> queryForFlux(String sql, Class<T> clazz, Object... params);
+
+    /**
+     * Query records and emit the bound objects on demand.
+     *
+     * @param sql      A SQL that may contain one or more placeholders. The placeholder starts with ":" or "&", such as,
+     *                 "select * from test where id in (:idList)",
+     *                 "select * from test where id = :id",
+     *                 "select * from test where id = :{id}",
+     *                 "select * from test where id = &id"
+     * @param clazz    The Class reference of bound object.
+     * @param paramMap Named SQL parameters.
+     * @param <T>      The type of bound object.
+     * @return The records that bind to Class and they are emitted by Flux.
+     */
+    <T> Flux<T> namedQueryForFlux(String sql, Class<T> clazz, Map<String, Object> paramMap);
+
+    /**
+     * Query records and emit the bound objects on demand.
+     *
+     * @param sql         A SQL that may contain one or more placeholders. The placeholder starts with ":" or "&", such as,
+     *                    "select * from test where id in (:idList)",
+     *                    "select * from test where id = :id",
+     *                    "select * from test where id = :{id}",
+     *                    "select * from test where id = &id"
+     * @param clazz       The Class reference of bound object.
+     * @param paramObject Named SQL parameters.
+     * @param <T>         The type of bound object.
+     * @return The records that bind to Class and they are emitted by Flux.
+     */
+    <T> Flux<T> namedQueryForFlux(String sql, Class<T> clazz, Object paramObject);
+
+    /**
+     * Query records and emit the converted objects on demand.
+     *
+     * @param sql       A SQL that may contain one or more '?' placeholders.
+     * @param rowMapper The function that converts the current row to javabean. It must not move the cursor of the result set.
+     * @param params    SQL parameters.
+     * @param <T>       The type of converted object.
+     * @return The converted records that are emitted by Flux.
+     */
+    <T> Flux<T> queryForFlux(String sql, Func1<SQLResultSet, T> rowMapper, Object... params);
+
     /**
      * Query records and convert result set to javabean using handler.
      *
@@ -330,6 +386,27 @@ public interface ReactiveSQLConnection {
      */
     <T, R> Mono<List<R>> insertObjectBatch(List<T> list, Class<T> clazz);
 
+    /**
+     * Insert a large number of javabeans in chunks. The parameters are only created for the current chunk.
+     *
+     * @param iterable The javabeans.
+     * @param clazz    The javabean Class.
+     * @param options  The chunk size and the statement mode.
+     * @param <T>      The type of javabean.
+     * @return The number of the inserted rows that is wrapped by Mono.
+     */
+    <T> Mono<Long> bulkInsert(Iterable<? extends T> iterable, Class<T> clazz, BulkInsertOptions options);
+
+    /**
+     * Insert a large number of javabeans in chunks using the default options.
+     *
+     * @param iterable The javabeans.
+     * @param clazz    The javabean Class.
+     * @param <T>      The type of javabean.
+     * @return The number of the inserted rows that is wrapped by Mono.
+     */
+    <T> Mono<Long> bulkInsert(Iterable<? extends T> iterable, Class<T> clazz);
+
     /**
      * Execute a sql to batch inserting data.
      *
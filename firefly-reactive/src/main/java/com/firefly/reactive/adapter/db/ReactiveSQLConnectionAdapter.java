@@ -1,10 +1,12 @@
 package com.firefly.reactive.adapter.db;
 
+import com.firefly.db.BulkInsertOptions;
 import com.firefly.db.SQLConnection;
 import com.firefly.db.SQLResultSet;
 import com.firefly.db.TransactionIsolation;
 import com.firefly.utils.concurrent.Promise;
 import com.firefly.utils.function.Func1;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -15,10 +17,28 @@ import java.util.Map;
  */
 public class ReactiveSQLConnectionAdapter implements ReactiveSQLConnection {
 
+    public static final int DEFAULT_FETCH_SIZE = 256;
+
     private final SQLConnection sqlConnection;
+    private final int fetchSize;
 
     public ReactiveSQLConnectionAdapter(SQLConnection sqlConnection) {
+        this(sqlConnection, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Create the reactive SQL connection.
+     *
+     * @param sqlConnection The SQL connection.
+     * @param fetchSize     The max number of the records that the Flux query fetches from the cursor in one round trip.
+     */
+    public ReactiveSQLConnectionAdapter(SQLConnection sqlConnection, int fetchSize) {
         this.sqlConnection = sqlConnection;
+        this.fetchSize = fetchSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
     }
 
     @Override
@@ -86,6 +106,26 @@ public class ReactiveSQLConnectionAdapter implements ReactiveSQLConnection {
         return Mono.fromCompletionStage(sqlConnection.namedQueryForList(sql, clazz, paramObject));
     }
 
+    @Override
+    public <T> Flux<T> queryForFlux(String sql, Class<T> clazz, Object... params) {
+        return Flux.from(new SQLCursorPublisher<>(() -> sqlConnection.queryForCursor(sql, clazz, fetchSize, params), fetchSize));
+    }
+
+    @Override
+    public <T> Flux<T> namedQueryForFlux(String sql, Class<T> clazz, Map<String, Object> paramMap) {
+        return Flux.from(new SQLCursorPublisher<>(() -> sqlConnection.namedQueryForCursor(sql, clazz, fetchSize, paramMap), fetchSize));
+    }
+
+    @Override
+    public <T> Flux<T> namedQueryForFlux(String sql, Class<T> clazz, Object paramObject) {
+        return Flux.from(new SQLCursorPublisher<>(() -> sqlConnection.namedQueryForCursor(sql, clazz, fetchSize, paramObject), fetchSize));
+    }
+
+    @Override
+    public <T> Flux<T> queryForFlux(String sql, Func1<SQLResultSet, T> rowMapper, Object... params) {
+        return Flux.from(new SQLCursorPublisher<>(() -> sqlConnection.queryForCursor(sql, rowMapper, fetchSize, params), fetchSize));
+    }
+
     @Override
     public <T> Mono<T> query(String sql, Func1<SQLResultSet, T> handler, Object... params) {
         return Mono.fromCompletionStage(sqlConnection.query(sql, handler, params));
@@ -151,6 +191,16 @@ public class ReactiveSQLConnectionAdapter implements ReactiveSQLConnection {
         return Mono.fromCompletionStage(sqlConnection.insertObjectBatch(list, clazz));
     }
 
+    @Override
+    public <T> Mono<Long> bulkInsert(Iterable<? extends T> iterable, Class<T> clazz, BulkInsertOptions options) {
+        return Mono.fromCompletionStage(sqlConnection.bulkInsert(iterable, clazz, options));
+    }
+
+    @Override
+    public <T> Mono<Long> bulkInsert(Iterable<? extends T> iterable, Class<T> clazz) {
+        return Mono.fromCompletionStage(sqlConnection.bulkInsert(iterable, clazz));
+    }
+
     @Override
     public <R> Mono<R> insertBatch(String sql, Object[][] params, Func1<SQLResultSet, R> handler) {
         return Mono.fromCompletionStage(sqlConnection.insertBatch(sql, params, handler));
@@ -0,0 +1,167 @@
+package com.firefly.reactive.adapter.db;
+
+import com.firefly.db.SQLCursor;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The publisher emits the records of a SQL cursor on demand. Every subscriber opens a new cursor
+ * when it requests the records at the first time, and the cursor fetches at most the fetch size records
+ * or the requested number of records in one round trip. Only one fetch is in flight at any time.
+ * The cursor is closed when the records are exhausted, the subscription is cancelled or an error occurs.
+ *
+ * @author Pengtao Qiu
+ */
+class SQLCursorPublisher<T> implements Publisher<T> {
+
+    private static Logger log = LoggerFactory.getLogger("firefly-system");
+
+    private final Supplier<CompletableFuture<SQLCursor<T>>> cursorSupplier;
+    private final int fetchSize;
+
+    SQLCursorPublisher(Supplier<CompletableFuture<SQLCursor<T>>> cursorSupplier, int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("the fetch size must be greater than 0");
+        }
+        this.cursorSupplier = cursorSupplier;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        subscriber.onSubscribe(new CursorSubscription(subscriber));
+    }
+
+    private class CursorSubscription implements Subscription {
+
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicBoolean fetching = new AtomicBoolean();
+        private volatile SQLCursor<T> cursor;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+
+        private CursorSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("the requested number must be greater than 0"));
+                return;
+            }
+            while (true) {
+                long r = requested.get();
+                long u = r + n < 0 ? Long.MAX_VALUE : r + n;
+                if (requested.compareAndSet(r, u)) {
+                    break;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                closeCursor();
+            }
+        }
+
+        private void drain() {
+            while (!cancelled && !done && requested.get() > 0) {
+                if (!fetching.compareAndSet(false, true)) {
+                    // the fetching callback drains again when the current fetch completes
+                    return;
+                }
+                if (cancelled || done || requested.get() == 0) {
+                    fetching.set(false);
+                    continue;
+                }
+
+                SQLCursor<T> c = cursor;
+                if (c == null) {
+                    cursorSupplier.get().whenComplete((openedCursor, e) -> {
+                        if (e != null) {
+                            fail(e);
+                        } else {
+                            cursor = openedCursor;
+                            if (cancelled) {
+                                closeCursor();
+                            } else {
+                                fetch(openedCursor);
+                            }
+                        }
+                    });
+                } else {
+                    fetch(c);
+                }
+                return;
+            }
+        }
+
+        private void fetch(SQLCursor<T> c) {
+            int size = (int) Math.min(requested.get(), fetchSize);
+            c.fetch(size).whenComplete((rows, e) -> {
+                if (e != null) {
+                    fail(e);
+                } else {
+                    emit(rows, size);
+                }
+            });
+        }
+
+        private void emit(List<T> rows, int size) {
+            for (T row : rows) {
+                if (cancelled) {
+                    return;
+                }
+                subscriber.onNext(row);
+            }
+            if (requested.get() != Long.MAX_VALUE) {
+                requested.addAndGet(-rows.size());
+            }
+
+            if (rows.size() < size) {
+                // the cursor closes the statement when the records are exhausted
+                done = true;
+                if (!cancelled) {
+                    subscriber.onComplete();
+                }
+            } else {
+                fetching.set(false);
+                drain();
+            }
+        }
+
+        private void fail(Throwable e) {
+            done = true;
+            closeCursor();
+            if (!cancelled) {
+                subscriber.onError(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        }
+
+        private void closeCursor() {
+            SQLCursor<T> c = cursor;
+            if (c != null && !c.isExhausted()) {
+                c.close().exceptionally(e -> {
+                    log.error("close cursor exception", e);
+                    return null;
+                });
+            }
+        }
+    }
+}
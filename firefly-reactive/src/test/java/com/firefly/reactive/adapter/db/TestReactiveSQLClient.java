@@ -313,6 +313,51 @@ public class TestReactiveSQLClient {
                     .verifyComplete();
     }
 
+    @Test
+    public void testQueryForFlux() {
+        String sql = "select * from test.user where id >= ?";
+        Mono<List<String>> userNames = exec(c -> Reactor.db.fromSQLConnection(c.getSQLConnection(), 3)
+                                                           .queryForFlux(sql, User.class, 2L)
+                                                           .map(User::getName)
+                                                           .collectList());
+        StepVerifier.create(userNames)
+                    .assertNext(names -> {
+                        Assert.assertThat(names.size(), is(size - 1));
+                        Assert.assertThat(names.get(0), is("test transaction 1"));
+                        Assert.assertThat(names.get(size - 2), is("test transaction " + (size - 1)));
+                    })
+                    .verifyComplete();
+
+        String namedSql = "select * from test.user where id >= :id";
+        Map<String, Object> paramMap = new HashMap<>();
+        paramMap.put("id", 9L);
+        StepVerifier.create(exec(c -> c.namedQueryForFlux(namedSql, User.class, paramMap).map(User::getName).collectList())
+                .flatMapIterable(names -> names))
+                    .expectNext("test transaction 8")
+                    .expectNext("test transaction 9")
+                    .verifyComplete();
+
+        StepVerifier.create(exec(c -> c.queryForFlux(sql, row -> row.getString("pt_name"), 10L).collectList())
+                .flatMapIterable(names -> names))
+                    .expectNext("test transaction 9")
+                    .verifyComplete();
+    }
+
+    @Test
+    public void testQueryForFluxDemand() {
+        String sql = "select * from test.user";
+        StepVerifier.create(sqlClient.getConnection().flatMapMany(c ->
+                Reactor.db.fromSQLConnection(c.getSQLConnection(), 3)
+                          .queryForFlux(sql, User.class)
+                          .map(User::getId)
+                          .doFinally(signal -> c.close().subscribe())), 2)
+                    .expectNext(1L, 2L)
+                    .thenRequest(3)
+                    .expectNext(3L, 4L, 5L)
+                    .thenCancel()
+                    .verify();
+    }
+
     @Test
     public void testQuery() {
         String sql = "select * from test.user where id >= ?";
@@ -17,6 +17,7 @@ public abstract class AbstractLogConfigParser implements LogConfigParser {
         fileLog.setLevel(LogLevel.fromName(c.getLevel()));
         fileLog.setMaxFileSize(c.getMaxFileSize());
         fileLog.setCharset(Charset.forName(c.getCharset()));
+        setWriter(fileLog, c);
 
         boolean success;
         if (VerifyUtils.isNotEmpty(c.getPath())) {
@@ -62,13 +63,21 @@ public abstract class AbstractLogConfigParser implements LogConfigParser {
                     return formatter.format(logItem);
                 }
 
+                @Override
+                public void format(LogItem logItem, StringBuilder builder) {
+                    init();
+                    formatter.format(logItem, builder);
+                }
+
                 private void init() {
-                    try {
-                        Class<?> clazz = AbstractLogConfigParser.class.getClassLoader().loadClass(c.getFormatter());
-                        formatter = (LogFormatter) clazz.newInstance();
-                    } catch (ClassNotFoundException | IllegalAccessException | InstantiationException e) {
-                        e.printStackTrace();
-                        formatter = new DefaultLogFormatter();
+                    if (formatter == null) {
+                        try {
+                            Class<?> clazz = AbstractLogConfigParser.class.getClassLoader().loadClass(c.getFormatter());
+                            formatter = (LogFormatter) clazz.newInstance();
+                        } catch (ClassNotFoundException | IllegalAccessException | InstantiationException e) {
+                            e.printStackTrace();
+                            formatter = new DefaultLogFormatter();
+                        }
                     }
                 }
             });
@@ -92,12 +101,14 @@ public abstract class AbstractLogConfigParser implements LogConfigParser {
                 }
 
                 private void init() {
-                    try {
-                        Class<?> clazz = AbstractLogConfigParser.class.getClassLoader().loadClass(c.getLogNameFormatter());
-                        formatter = (LogNameFormatter) clazz.newInstance();
-                    } catch (ClassNotFoundException | IllegalAccessException | InstantiationException e) {
-                        e.printStackTrace();
-                        formatter = new DefaultLogNameFormatter();
+                    if (formatter == null) {
+                        try {
+                            Class<?> clazz = AbstractLogConfigParser.class.getClassLoader().loadClass(c.getLogNameFormatter());
+                            formatter = (LogNameFormatter) clazz.newInstance();
+                        } catch (ClassNotFoundException | IllegalAccessException | InstantiationException e) {
+                            e.printStackTrace();
+                            formatter = new DefaultLogNameFormatter();
+                        }
                     }
                 }
 
@@ -133,6 +144,36 @@ public abstract class AbstractLogConfigParser implements LogConfigParser {
         return fileLog;
     }
 
+    private void setWriter(FileLog fileLog, Configuration c) {
+        FileLog.WriterMode writerMode = FileLog.WriterMode.STREAM;
+        if (StringUtils.hasText(c.getWriterMode())) {
+            try {
+                writerMode = FileLog.WriterMode.valueOf(c.getWriterMode().trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("the log writer mode " + c.getWriterMode() + " is illegal, use the default mode " + writerMode);
+            }
+        }
+
+        // the channel writer writes the direct buffer when a batch of logs has been encoded by default
+        FileLog.FlushPolicy flushPolicy = writerMode == FileLog.WriterMode.CHANNEL ? FileLog.FlushPolicy.BATCH : FileLog.FlushPolicy.INTERVAL;
+        if (StringUtils.hasText(c.getFlushPolicy())) {
+            try {
+                flushPolicy = FileLog.FlushPolicy.valueOf(c.getFlushPolicy().trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("the log flush policy " + c.getFlushPolicy() + " is illegal, use the default policy " + flushPolicy);
+            }
+        }
+
+        int bufferSize = c.getBufferSize();
+        if (bufferSize <= 0) {
+            bufferSize = writerMode == FileLog.WriterMode.CHANNEL ? FileLog.DEFAULT_CHANNEL_BUFFER_SIZE : FileLog.DEFAULT_STREAM_BUFFER_SIZE;
+        }
+
+        fileLog.setWriterMode(writerMode);
+        fileLog.setFlushPolicy(flushPolicy);
+        fileLog.setBufferSize(bufferSize);
+    }
+
     private boolean createLogDirectory(File file) {
         return file.exists() && file.isDirectory() || file.mkdirs();
     }
@@ -15,6 +15,9 @@ public class Configuration {
     private long maxLogFlushInterval = Long.getLong("com.firefly.utils.log.file.maxLogFlushInterval", 1000L);
     private String logNameFormatter;
     private String logFilter;
+    private String writerMode;
+    private String flushPolicy;
+    private int bufferSize;
 
     public String getName() {
         return name;
@@ -95,4 +98,28 @@ public class Configuration {
     public void setLogFilter(String logFilter) {
         this.logFilter = logFilter;
     }
+
+    public String getWriterMode() {
+        return writerMode;
+    }
+
+    public void setWriterMode(String writerMode) {
+        this.writerMode = writerMode;
+    }
+
+    public String getFlushPolicy() {
+        return flushPolicy;
+    }
+
+    public void setFlushPolicy(String flushPolicy) {
+        this.flushPolicy = flushPolicy;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
 }
@@ -8,4 +8,9 @@ public class DefaultLogFormatter implements LogFormatter {
     public String format(LogItem logItem) {
         return logItem.toString();
     }
+
+    @Override
+    public void format(LogItem logItem, StringBuilder builder) {
+        logItem.formatTo(builder);
+    }
 }
@@ -19,6 +19,7 @@ public interface LogConfigParser {
     String DEFAULT_LOG_FORMATTER = "com.firefly.utils.log.DefaultLogFormatter";
     String DEFAULT_LOG_NAME_FORMATTER = "com.firefly.utils.log.DefaultLogNameFormatter";
     String DEFAULT_LOG_FILTER = "com.firefly.utils.log.DefaultLogFilter";
+    String DEFAULT_WRITER_MODE = "STREAM";
 
     boolean parse(Action1<FileLog> action);
 
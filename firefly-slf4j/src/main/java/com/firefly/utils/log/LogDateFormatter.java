@@ -0,0 +1,44 @@
+package com.firefly.utils.log;
+
+import com.firefly.utils.time.SafeSimpleDateFormat;
+
+import java.util.Date;
+
+/**
+ * Format the log time and cache the text of the last millisecond.
+ * The log lines of the same millisecond share the formatted text.
+ *
+ * @author Pengtao Qiu
+ */
+public class LogDateFormatter {
+
+    public static final LogDateFormatter DEFAULT = new LogDateFormatter(SafeSimpleDateFormat.defaultDateFormat);
+
+    private final SafeSimpleDateFormat dateFormat;
+    private volatile CachedTime cachedTime = new CachedTime(Long.MIN_VALUE, null);
+
+    public LogDateFormatter(SafeSimpleDateFormat dateFormat) {
+        this.dateFormat = dateFormat;
+    }
+
+    public String format(Date date) {
+        long time = date.getTime();
+        CachedTime cached = cachedTime;
+        if (cached.time == time) {
+            return cached.text;
+        }
+        String text = dateFormat.format(date);
+        cachedTime = new CachedTime(time, text);
+        return text;
+    }
+
+    private static class CachedTime {
+        private final long time;
+        private final String text;
+
+        private CachedTime(long time, String text) {
+            this.time = time;
+            this.text = text;
+        }
+    }
+}
@@ -5,11 +5,13 @@ import com.firefly.utils.collection.Trie;
 import com.firefly.utils.lang.AbstractLifeCycle;
 import com.firefly.utils.log.file.FileLog;
 import com.firefly.utils.log.file.FileLogTask;
+import com.firefly.utils.log.file.RingBufferLogTask;
 import com.firefly.utils.time.SafeSimpleDateFormat;
 
 public class LogFactory extends AbstractLifeCycle {
 
     public static final SafeSimpleDateFormat DAY_DATE_FORMAT = new SafeSimpleDateFormat("yyyy-MM-dd");
+    public static final boolean ringBuffer = Boolean.parseBoolean(System.getProperty("com.firefly.utils.log.LogFactory.ringBuffer", "true"));
 
     private final Trie<Log> logTree = new TreeTrie<>();
     private final LogTask logTask;
@@ -23,7 +25,7 @@ public class LogFactory extends AbstractLifeCycle {
     }
 
     private LogFactory() {
-        logTask = new FileLogTask(logTree);
+        logTask = ringBuffer ? new RingBufferLogTask(logTree) : new FileLogTask(logTree);
 
         LogConfigParser parser = new XmlLogConfigParser();
         boolean success = parser.parse((fileLog) -> logTree.put(fileLog.getName(), fileLog));
@@ -6,4 +6,15 @@ package com.firefly.utils.log;
 public interface LogFormatter {
 
     String format(LogItem logItem);
+
+    /**
+     * Append the formatted log item to the builder. The asynchronous log task reuses the builder,
+     * so the formatter can override it to avoid creating the intermediate strings.
+     *
+     * @param logItem The log item.
+     * @param builder The reusable builder.
+     */
+    default void format(LogItem logItem, StringBuilder builder) {
+        builder.append(format(logItem));
+    }
 }
@@ -1,10 +1,11 @@
 package com.firefly.utils.log;
 
 import com.firefly.utils.StringUtils;
-import com.firefly.utils.time.SafeSimpleDateFormat;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.AbstractCollection;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Map;
 
@@ -103,7 +104,44 @@ public class LogItem {
     }
 
     public String renderContentTemplate() {
-        String ret = StringUtils.replace(content, objs);
+        StringBuilder builder = new StringBuilder();
+        appendContentTemplate(builder);
+        return builder.toString();
+    }
+
+    /**
+     * Replace the placeholders of the content template and append it to the builder.
+     *
+     * @param builder The builder.
+     */
+    public void appendContentTemplate(StringBuilder builder) {
+        if (content == null || objs == null || objs.length == 0) {
+            builder.append(content);
+        } else {
+            int cursor = 0;
+            int index = 0;
+            for (int start; (start = content.indexOf("{}", cursor)) != -1; ) {
+                builder.append(content, cursor, start);
+                if (index < objs.length) {
+                    Object obj = objs[index];
+                    try {
+                        if (obj instanceof AbstractCollection) {
+                            builder.append(Arrays.toString(((AbstractCollection<?>) obj).toArray()));
+                        } else {
+                            builder.append(obj);
+                        }
+                    } catch (Throwable t) {
+                        System.err.println("replace string exception, the parameter type is " + obj.getClass() + ", " + t.getMessage());
+                    }
+                } else {
+                    builder.append("{}");
+                }
+                cursor = start + 2;
+                index++;
+            }
+            builder.append(content, cursor, content.length());
+        }
+
         if (throwable != null) {
             StringWriter str = new StringWriter();
             try (PrintWriter out = new PrintWriter(str)) {
@@ -112,29 +150,61 @@ public class LogItem {
                 throwable.printStackTrace(out);
                 out.println("$err_end");
             }
-            ret += str.toString();
+            builder.append(str.getBuffer());
         }
-        return ret;
     }
 
-    @Override
-    public String toString() {
-        if (logStr == null) {
-            logStr = level + ", " + SafeSimpleDateFormat.defaultDateFormat.format(date);
+    /**
+     * Append the log text to the builder. The text is the same as the {@link #toString()},
+     * but it does not create the intermediate strings.
+     *
+     * @param builder The builder.
+     */
+    public void formatTo(StringBuilder builder) {
+        if (logStr != null) {
+            builder.append(logStr);
+            return;
+        }
 
-            if (mdcData != null && !mdcData.isEmpty()) {
-                logStr += ", " + mdcData;
-            }
+        builder.append(level).append(", ").append(LogDateFormatter.DEFAULT.format(date));
 
-            if (StringUtils.hasText(className)) {
-                logStr += ", " + className;
-            }
+        if (mdcData != null && !mdcData.isEmpty()) {
+            builder.append(", ").append(mdcData);
+        }
 
-            if (stackTraceElement != null) {
-                logStr += ", " + stackTraceElement;
-            }
+        if (StringUtils.hasText(className)) {
+            builder.append(", ").append(className);
+        }
+
+        if (stackTraceElement != null) {
+            builder.append(", ").append(stackTraceElement);
+        }
+
+        builder.append(",\t");
+        appendContentTemplate(builder);
+    }
 
-            logStr += ",\t" + renderContentTemplate();
+    /**
+     * Release the references of the log item. The date and the MDC map are kept to be reused.
+     */
+    public void clear() {
+        name = null;
+        className = null;
+        content = null;
+        level = null;
+        objs = null;
+        throwable = null;
+        stackTraceElement = null;
+        logStr = null;
+        threadName = null;
+    }
+
+    @Override
+    public String toString() {
+        if (logStr == null) {
+            StringBuilder builder = new StringBuilder();
+            formatTo(builder);
+            logStr = builder.toString();
         }
         return logStr;
     }
@@ -5,5 +5,25 @@ import com.firefly.utils.lang.LifeCycle;
 public interface LogTask extends Runnable, LifeCycle {
 	
 	void add(LogItem logItem);
+
+	/**
+	 * Add a log item that is filled by the translator. The task may provide a reusable log item,
+	 * so the translator must not keep the reference of the log item.
+	 *
+	 * @param translator The translator fills the log item.
+	 * @param level      The log level.
+	 * @param content    The log content template.
+	 * @param throwable  The exception.
+	 * @param objs       The parameters of the log content template.
+	 */
+	default void add(Translator translator, LogLevel level, String content, Throwable throwable, Object[] objs) {
+		LogItem logItem = new LogItem();
+		translator.translate(logItem, level, content, throwable, objs);
+		add(logItem);
+	}
+
+	interface Translator {
+		void translate(LogItem logItem, LogLevel level, String content, Throwable throwable, Object[] objs);
+	}
 	
 }
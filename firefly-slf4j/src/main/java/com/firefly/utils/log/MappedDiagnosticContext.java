@@ -103,6 +103,26 @@ public class MappedDiagnosticContext {
         }
     }
 
+    /**
+     * Copy the current thread's context map to the target map. If the target map is null, it creates a new map.
+     *
+     * @param target The reusable map.
+     * @return The target map, or null if the current thread does not have a context.
+     */
+    public Map<String, String> copyContextMapTo(Map<String, String> target) {
+        Map<String, String> map = inheritableThreadLocal.get();
+        if (map == null || map.isEmpty()) {
+            return null;
+        }
+        if (target == null) {
+            return new HashMap<>(map);
+        } else {
+            target.clear();
+            target.putAll(map);
+            return target;
+        }
+    }
+
     public void setContextMap(Map<String, String> contextMap) {
         inheritableThreadLocal.set(new HashMap<>(contextMap));
     }
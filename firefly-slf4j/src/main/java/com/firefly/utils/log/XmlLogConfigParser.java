@@ -38,6 +38,9 @@ public class XmlLogConfigParser extends AbstractLogConfigParser {
                 c.setFormatter(dom.getTextValueByTagName(e, "formatter", DEFAULT_LOG_FORMATTER));
                 c.setLogNameFormatter(dom.getTextValueByTagName(e, "log-name-formatter", DEFAULT_LOG_NAME_FORMATTER));
                 c.setLogFilter(dom.getTextValueByTagName(e, "log-filter", DEFAULT_LOG_FILTER));
+                c.setWriterMode(dom.getTextValueByTagName(e, "writer-mode", DEFAULT_WRITER_MODE));
+                c.setFlushPolicy(dom.getTextValueByTagName(e, "flush-policy"));
+                c.setBufferSize(ConvertUtils.convert(dom.getTextValueByTagName(e, "buffer-size"), 0));
                 action.call(createLog(c));
             }
         }
@@ -5,10 +5,16 @@ import com.firefly.utils.time.Millisecond100Clock;
 import com.firefly.utils.time.TimeUtils;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileTime;
 import java.time.LocalDate;
 import java.time.ZoneId;
@@ -19,6 +25,34 @@ import java.util.Optional;
 public class FileLog implements Log, Closeable {
 
     private static final boolean stackTrace = Boolean.getBoolean("com.firefly.utils.log.file.debugMode");
+    private static final int maxReusableBufferSize = 64 * 1024;
+
+    public static final int DEFAULT_STREAM_BUFFER_SIZE = 4 * 1024;
+    public static final int DEFAULT_CHANNEL_BUFFER_SIZE = 1024 * 1024;
+
+    public enum WriterMode {
+        /**
+         * Write the log to the buffered output stream line by line.
+         */
+        STREAM,
+
+        /**
+         * Encode the log into a direct buffer and write the buffer to the file channel.
+         */
+        CHANNEL
+    }
+
+    public enum FlushPolicy {
+        /**
+         * Flush the buffer when the log task has written a batch of the log items.
+         */
+        BATCH,
+
+        /**
+         * Flush the buffer when it is full or the max log flush interval expires.
+         */
+        INTERVAL
+    }
 
     private LogLevel level;
     private String path;
@@ -32,27 +66,53 @@ public class FileLog implements Log, Closeable {
     private long maxLogFlushInterval;
     private LogNameFormatter logNameFormatter;
     private LogFilter logFilter;
+    private WriterMode writerMode = WriterMode.STREAM;
+    private FlushPolicy flushPolicy = FlushPolicy.INTERVAL;
+    private int bufferSize = DEFAULT_STREAM_BUFFER_SIZE;
 
     private LogOutputStream output = new LogOutputStream();
+    private final LogTask.Translator translator = this::translate;
+    private StringBuilder text = new StringBuilder(256);
 
     void write(LogItem logItem) {
         Optional.ofNullable(logFilter).ifPresent(f -> f.filter(logItem));
 
+        if (!consoleOutput && !fileOutput) {
+            return;
+        }
+
+        // the log is written by the single log thread, so the text builder is reused
+        text.setLength(0);
+        logFormatter.format(logItem, text);
+
         if (consoleOutput) {
-            System.out.println(logFormatter.format(logItem));
+            System.out.println(text);
         }
 
         if (fileOutput) {
-            output.write(logFormatter.format(logItem), logItem.getDate());
+            text.append(CL);
+            output.write(text, logItem.getDate());
             intervalFlush();
         }
+
+        if (text.capacity() > maxReusableBufferSize) {
+            text = new StringBuilder(256);
+        }
     }
 
     private class LogOutputStream {
 
-        private static final int bufferSize = 4 * 1024;
         private BufferedOutputStream bufferedOutputStream;
+        private FileChannel fileChannel;
+        private ByteBuffer channelBuffer;
+        private final Date bufferedDate = new Date();
+        private long bufferedDayStart = Long.MAX_VALUE;
+        private long bufferedDayEnd = Long.MIN_VALUE;
         private long writeSize;
+        private CharsetEncoder encoder;
+        private char[] chars = new char[256];
+        private CharBuffer charBuffer = CharBuffer.wrap(chars);
+        private ByteBuffer byteBuffer = ByteBuffer.allocate(1024);
 
         private String getLogName(LocalDate localDate) {
             return logNameFormatter.format(name, localDate);
@@ -105,28 +165,139 @@ public class FileLog implements Log, Closeable {
         private void initOutputStreamAndNewFile(String logName, Path logPath, LocalDate fileLastModifiedDate) throws IOException {
             close();
             Files.move(logPath, Paths.get(path, getLogBakName(fileLastModifiedDate)));
-            bufferedOutputStream = new BufferedOutputStream(new FileOutputStream(new File(path, logName), true), bufferSize);
+            open(logName);
+        }
+
+        private void initOutputStream(String logName) throws IOException {
+            if (bufferedOutputStream == null && fileChannel == null) {
+                open(logName);
+            }
+        }
+
+        private void open(String logName) throws IOException {
+            File file = new File(path, logName);
+            if (writerMode == WriterMode.CHANNEL) {
+                fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } else {
+                bufferedOutputStream = new BufferedOutputStream(new FileOutputStream(file, true), bufferSize);
+            }
+        }
+
+        public void write(StringBuilder str, Date date) {
+            if (writerMode == WriterMode.CHANNEL) {
+                writeChannelBuffer(str, date);
+                return;
+            }
+
+            ByteBuffer text = encode(str);
+            try {
+                initializeBufferedWriter(date, text.remaining());
+                bufferedOutputStream.write(text.array(), text.arrayOffset() + text.position(), text.remaining());
+                writeSize += text.remaining();
+            } catch (IOException e) {
+                System.err.println("writer log exception, " + e.getMessage());
+            }
+        }
+
+        private CharBuffer toCharBuffer(StringBuilder str) {
+            int length = str.length();
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+                charBuffer = CharBuffer.wrap(chars);
+            }
+            str.getChars(0, length, chars, 0);
+            charBuffer.clear();
+            charBuffer.limit(length);
+            return charBuffer;
+        }
+
+        private int getMaxBytes(CharBuffer text, CharsetEncoder charsetEncoder) {
+            return (int) Math.ceil(text.remaining() * (double) charsetEncoder.maxBytesPerChar());
         }
 
-        private void initOutputStream(String logName) throws FileNotFoundException {
-            if (bufferedOutputStream == null) {
-                bufferedOutputStream = new BufferedOutputStream(new FileOutputStream(new File(path, logName), true), bufferSize);
+        private ByteBuffer encode(StringBuilder str) {
+            CharBuffer text = toCharBuffer(str);
+            CharsetEncoder charsetEncoder = getEncoder();
+            int maxBytes = getMaxBytes(text, charsetEncoder);
+            if (byteBuffer.capacity() < maxBytes) {
+                byteBuffer = ByteBuffer.allocate(Math.max(maxBytes, byteBuffer.capacity() * 2));
+            }
+            byteBuffer.clear();
+            charsetEncoder.reset();
+            charsetEncoder.encode(text, byteBuffer, true);
+            charsetEncoder.flush(byteBuffer);
+            byteBuffer.flip();
+            return byteBuffer;
+        }
+
+        private void writeChannelBuffer(StringBuilder str, Date date) {
+            if (channelBuffer == null) {
+                channelBuffer = ByteBuffer.allocateDirect(bufferSize);
+            }
+
+            long time = date.getTime();
+            if (time < bufferedDayStart || time >= bufferedDayEnd) {
+                // the log file is switched by the date, so the buffer only contains the logs of the same day
+                writeChannel();
+                bufferedDate.setTime(time);
+                LocalDate localDate = TimeUtils.toLocalDate(bufferedDate);
+                bufferedDayStart = localDate.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                bufferedDayEnd = localDate.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            }
+
+            CharBuffer text = toCharBuffer(str);
+            CharsetEncoder charsetEncoder = getEncoder();
+            if (channelBuffer.remaining() < getMaxBytes(text, charsetEncoder)) {
+                writeChannel();
+            }
+            if (channelBuffer.position() == 0) {
+                bufferedDate.setTime(time);
+            }
+
+            // encode the text into the direct buffer, and the large text is written by several times
+            charsetEncoder.reset();
+            while (charsetEncoder.encode(text, channelBuffer, true).isOverflow()) {
+                writeChannel();
+            }
+            while (charsetEncoder.flush(channelBuffer).isOverflow()) {
+                writeChannel();
             }
         }
 
-        public void write(String str, Date date) {
-            byte[] text = (str + CL).getBytes(charset);
+        private void writeChannel() {
+            if (channelBuffer == null || channelBuffer.position() == 0) {
+                return;
+            }
+
+            channelBuffer.flip();
             try {
-                initializeBufferedWriter(date, text.length);
-                bufferedOutputStream.write(text);
-                writeSize += text.length;
+                int size = channelBuffer.remaining();
+                initializeBufferedWriter(bufferedDate, size);
+                while (channelBuffer.hasRemaining()) {
+                    fileChannel.write(channelBuffer);
+                }
+                writeSize += size;
             } catch (IOException e) {
                 System.err.println("writer log exception, " + e.getMessage());
+            } finally {
+                channelBuffer.clear();
             }
         }
 
+        private CharsetEncoder getEncoder() {
+            if (encoder == null || !encoder.charset().equals(charset)) {
+                encoder = charset.newEncoder()
+                                 .onMalformedInput(CodingErrorAction.REPLACE)
+                                 .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            return encoder;
+        }
+
         public void flush() {
-            if (bufferedOutputStream != null) {
+            if (writerMode == WriterMode.CHANNEL) {
+                writeChannel();
+                lastFlushTime = Millisecond100Clock.currentTimeMillis();
+            } else if (bufferedOutputStream != null) {
                 try {
                     bufferedOutputStream.flush();
                     lastFlushTime = Millisecond100Clock.currentTimeMillis();
@@ -137,13 +308,19 @@ public class FileLog implements Log, Closeable {
         }
 
         public void close() {
-            if (bufferedOutputStream != null) {
-                try {
+            try {
+                if (bufferedOutputStream != null) {
                     bufferedOutputStream.close();
-                    writeSize = 0;
-                } catch (IOException e) {
-                    System.err.println("close log writer exception, " + e.getMessage());
                 }
+                if (fileChannel != null) {
+                    fileChannel.close();
+                }
+                writeSize = 0;
+            } catch (IOException e) {
+                System.err.println("close log writer exception, " + e.getMessage());
+            } finally {
+                bufferedOutputStream = null;
+                fileChannel = null;
             }
         }
 
@@ -160,8 +337,20 @@ public class FileLog implements Log, Closeable {
         }
     }
 
+    /**
+     * The log task invokes it when the batch of the log items has been written.
+     */
+    void endBatch() {
+        if (flushPolicy == FlushPolicy.BATCH) {
+            flush();
+        } else {
+            intervalFlush();
+        }
+    }
+
     @Override
     public void close() {
+        output.flush();
         output.close();
     }
 
@@ -246,6 +435,30 @@ public class FileLog implements Log, Closeable {
         this.logNameFormatter = logNameFormatter;
     }
 
+    public WriterMode getWriterMode() {
+        return writerMode;
+    }
+
+    public void setWriterMode(WriterMode writerMode) {
+        this.writerMode = writerMode;
+    }
+
+    public FlushPolicy getFlushPolicy() {
+        return flushPolicy;
+    }
+
+    public void setFlushPolicy(FlushPolicy flushPolicy) {
+        this.flushPolicy = flushPolicy;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
     public LogFilter getLogFilter() {
         return logFilter;
     }
@@ -254,125 +467,139 @@ public class FileLog implements Log, Closeable {
         this.logFilter = logFilter;
     }
 
-    private void add(String str, String level, Throwable throwable, Object... objs) {
-        LogItem item = new LogItem();
-        item.setLevel(level);
+    private void add(String str, LogLevel level, Throwable throwable, Object... objs) {
+        LogTask logTask = LogFactory.getInstance().getLogTask();
+        if (stackTrace) {
+            LogItem item = new LogItem();
+            translate(item, level, str, throwable, objs);
+            item.setStackTraceElement(getStackTraceElement());
+            logTask.add(item);
+        } else {
+            // the log task may fill the reusable log item of the ring buffer
+            logTask.add(translator, level, str, throwable, objs);
+        }
+    }
+
+    private void translate(LogItem item, LogLevel level, String content, Throwable throwable, Object[] objs) {
+        item.setLevel(level.getName());
         item.setName(name);
-        item.setContent(str);
+        item.setContent(content);
         item.setObjs(objs);
         item.setThrowable(throwable);
-        item.setDate(new Date());
-        item.setMdcData(mdc.getCopyOfContextMap());
+        Date date = item.getDate();
+        if (date == null) {
+            item.setDate(new Date());
+        } else {
+            date.setTime(System.currentTimeMillis());
+        }
+        item.setMdcData(mdc.copyContextMapTo(item.getMdcData()));
         item.setClassName(ClassNameLogWrap.name.get());
         item.setThreadName(Thread.currentThread().getName());
-        if (stackTrace) {
-            item.setStackTraceElement(getStackTraceElement());
-        }
-        LogFactory.getInstance().getLogTask().add(item);
+        item.setStackTraceElement(null);
     }
 
     @Override
     public void trace(String str) {
         if (isTraceEnabled()) {
-            add(str, LogLevel.TRACE.getName(), null);
+            add(str, LogLevel.TRACE, null);
         }
     }
 
     @Override
     public void trace(String str, Object... objs) {
         if (isTraceEnabled()) {
-            add(str, LogLevel.TRACE.getName(), null, objs);
+            add(str, LogLevel.TRACE, null, objs);
         }
     }
 
     @Override
     public void trace(String str, Throwable throwable, Object... objs) {
         if (isTraceEnabled()) {
-            add(str, LogLevel.TRACE.getName(), null, objs);
+            add(str, LogLevel.TRACE, throwable, objs);
         }
     }
 
     @Override
     public void debug(String str) {
         if (isDebugEnabled()) {
-            add(str, LogLevel.DEBUG.getName(), null);
+            add(str, LogLevel.DEBUG, null);
         }
     }
 
     @Override
     public void debug(String str, Object... objs) {
         if (isDebugEnabled()) {
-            add(str, LogLevel.DEBUG.getName(), null, objs);
+            add(str, LogLevel.DEBUG, null, objs);
         }
     }
 
     @Override
     public void debug(String str, Throwable throwable, Object... objs) {
         if (isDebugEnabled()) {
-            add(str, LogLevel.DEBUG.getName(), throwable, objs);
+            add(str, LogLevel.DEBUG, throwable, objs);
         }
     }
 
     @Override
     public void info(String str) {
         if (isInfoEnabled()) {
-            add(str, LogLevel.INFO.getName(), null);
+            add(str, LogLevel.INFO, null);
         }
     }
 
     @Override
     public void info(String str, Object... objs) {
         if (isInfoEnabled()) {
-            add(str, LogLevel.INFO.getName(), null, objs);
+            add(str, LogLevel.INFO, null, objs);
         }
     }
 
     @Override
     public void info(String str, Throwable throwable, Object... objs) {
         if (isInfoEnabled()) {
-            add(str, LogLevel.INFO.getName(), throwable, objs);
+            add(str, LogLevel.INFO, throwable, objs);
         }
     }
 
     @Override
     public void warn(String str) {
         if (isWarnEnabled()) {
-            add(str, LogLevel.WARN.getName(), null);
+            add(str, LogLevel.WARN, null);
         }
     }
 
     @Override
     public void warn(String str, Object... objs) {
         if (isWarnEnabled()) {
-            add(str, LogLevel.WARN.getName(), null, objs);
+            add(str, LogLevel.WARN, null, objs);
         }
     }
 
     @Override
     public void warn(String str, Throwable throwable, Object... objs) {
         if (isWarnEnabled()) {
-            add(str, LogLevel.WARN.getName(), throwable, objs);
+            add(str, LogLevel.WARN, throwable, objs);
         }
     }
 
     @Override
     public void error(String str, Object... objs) {
         if (isErrorEnabled()) {
-            add(str, LogLevel.ERROR.getName(), null, objs);
+            add(str, LogLevel.ERROR, null, objs);
         }
     }
 
     @Override
     public void error(String str, Throwable throwable, Object... objs) {
         if (isErrorEnabled()) {
-            add(str, LogLevel.ERROR.getName(), throwable, objs);
+            add(str, LogLevel.ERROR, throwable, objs);
         }
     }
 
     @Override
     public void error(String str) {
         if (isErrorEnabled()) {
-            add(str, LogLevel.ERROR.getName(), null);
+            add(str, LogLevel.ERROR, null);
         }
     }
 
@@ -413,6 +640,9 @@ public class FileLog implements Log, Closeable {
                 ", charset=" + charset +
                 ", logFormatter=" + logFormatter.getClass().getName() +
                 ", maxLogFlushInterval=" + maxLogFlushInterval +
+                ", writerMode=" + writerMode +
+                ", flushPolicy=" + flushPolicy +
+                ", bufferSize=" + bufferSize +
                 '}';
     }
 
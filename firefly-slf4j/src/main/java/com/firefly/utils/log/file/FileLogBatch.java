@@ -0,0 +1,118 @@
+package com.firefly.utils.log.file;
+
+import com.firefly.utils.collection.Trie;
+import com.firefly.utils.log.ClassNameLogWrap;
+import com.firefly.utils.log.Log;
+import com.firefly.utils.log.LogFactory;
+import com.firefly.utils.log.LogItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write the log items in batches and group them by the target file log.
+ * When the batch ends, every file log of the batch flushes its buffer once.
+ * It is only used by the single log thread.
+ *
+ * @author Pengtao Qiu
+ */
+class FileLogBatch {
+
+    static final int maxBatchSize = Integer.getInteger("com.firefly.utils.log.file.maxBatchSize", 1024);
+
+    private final Trie<Log> logTree;
+    private final List<FileLog> fileLogs = new ArrayList<>();
+    private String lastName;
+    private FileLog lastFileLog;
+    private int size;
+
+    FileLogBatch(Trie<Log> logTree) {
+        this.logTree = logTree;
+    }
+
+    void write(LogItem logItem) {
+        try {
+            FileLog fileLog = getFileLog(logItem.getName());
+            if (fileLog != null) {
+                fileLog.write(logItem);
+                if (!contains(fileLog)) {
+                    fileLogs.add(fileLog);
+                }
+            }
+        } catch (Throwable e) {
+            System.err.println("write log exception, " + e.getMessage());
+        }
+        size++;
+    }
+
+    boolean isFull() {
+        return size >= maxBatchSize;
+    }
+
+    void end() {
+        for (int i = 0; i < fileLogs.size(); i++) {
+            try {
+                fileLogs.get(i).endBatch();
+            } catch (Throwable e) {
+                System.err.println("flush log exception, " + e.getMessage());
+            }
+        }
+        fileLogs.clear();
+        size = 0;
+    }
+
+    void intervalFlushAll() {
+        for (String key : logTree.keySet()) {
+            FileLog fileLog = getFileLog(key);
+            if (fileLog != null) {
+                fileLog.intervalFlush();
+            }
+        }
+    }
+
+    void closeAll() {
+        for (String key : logTree.keySet()) {
+            FileLog fileLog = getFileLog(key);
+            if (fileLog != null) {
+                fileLog.close();
+            }
+        }
+    }
+
+    private boolean contains(FileLog fileLog) {
+        for (int i = 0; i < fileLogs.size(); i++) {
+            if (fileLogs.get(i) == fileLog) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    FileLog getFileLog(String name) {
+        if (name == null) {
+            return null;
+        }
+        // the consecutive log items usually have the same name
+        if (lastFileLog != null && name.equals(lastName)) {
+            return lastFileLog;
+        }
+
+        FileLog fileLog = null;
+        Log log = logTree.get(name);
+        if (log instanceof FileLog) {
+            fileLog = (FileLog) log;
+        } else {
+            // the log item is not created by the file log
+            log = LogFactory.getInstance().getLog(name);
+            if (log instanceof ClassNameLogWrap) {
+                ClassNameLogWrap classNameLogWrap = (ClassNameLogWrap) log;
+                if (classNameLogWrap.getLog() instanceof FileLog) {
+                    fileLog = (FileLog) classNameLogWrap.getLog();
+                }
+            }
+        }
+        lastName = name;
+        lastFileLog = fileLog;
+        return fileLog;
+    }
+}
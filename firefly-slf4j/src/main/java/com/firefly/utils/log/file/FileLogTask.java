@@ -5,6 +5,8 @@ import com.firefly.utils.collection.Trie;
 import com.firefly.utils.lang.AbstractLifeCycle;
 import com.firefly.utils.log.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.TimeUnit;
@@ -15,59 +17,34 @@ public class FileLogTask extends AbstractLifeCycle implements LogTask {
 
     private BlockingQueue<LogItem> queue = new LinkedTransferQueue<>();
     private Thread thread = new Thread(this, "firefly asynchronous log thread");
-    private final Trie<Log> logTree;
+    private final FileLogBatch batch;
 
     public FileLogTask(Trie<Log> logTree) {
         thread.setPriority(Thread.MIN_PRIORITY);
-        this.logTree = logTree;
-    }
-
-    private FileLog getFileLog(String name) {
-        Log log = LogFactory.getInstance().getLog(name);
-        if (log instanceof ClassNameLogWrap) {
-            ClassNameLogWrap classNameLogWrap = (ClassNameLogWrap) log;
-            if (classNameLogWrap.getLog() instanceof FileLog) {
-                return (FileLog) classNameLogWrap.getLog();
-            }
-        }
-        return null;
-    }
-
-    private void intervalFlushAll() {
-        for (String key : logTree.keySet()) {
-            FileLog fileLog = getFileLog(key);
-            if (fileLog != null) {
-                fileLog.intervalFlush();
-            }
-        }
+        this.batch = new FileLogBatch(logTree);
     }
 
     @Override
     public void run() {
+        List<LogItem> logItems = new ArrayList<>();
         while (true) {
             try {
                 for (LogItem logItem; (logItem = queue.poll(flushInterval, TimeUnit.MILLISECONDS)) != null; ) {
-                    try {
-                        FileLog fileLog = getFileLog(logItem.getName());
-                        if (fileLog != null) {
-                            fileLog.write(logItem);
-                        }
-                    } catch (Throwable e) {
-                        System.err.println("write log exception, " + e.getMessage());
+                    logItems.add(logItem);
+                    queue.drainTo(logItems, FileLogBatch.maxBatchSize - 1);
+                    for (int i = 0; i < logItems.size(); i++) {
+                        batch.write(logItems.get(i));
                     }
+                    batch.end();
+                    logItems.clear();
                 }
-                intervalFlushAll();
+                batch.intervalFlushAll();
             } catch (Throwable e) {
                 System.err.println("write log exception, " + e.getMessage());
             }
 
             if (!start && queue.isEmpty()) {
-                for (String key : logTree.keySet()) {
-                    FileLog fileLog = getFileLog(key);
-                    if (fileLog != null) {
-                        fileLog.close();
-                    }
-                }
+                batch.closeAll();
                 break;
             }
         }
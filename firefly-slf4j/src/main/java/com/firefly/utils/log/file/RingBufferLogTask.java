@@ -0,0 +1,265 @@
+package com.firefly.utils.log.file;
+
+import com.firefly.utils.VerifyUtils;
+import com.firefly.utils.collection.Trie;
+import com.firefly.utils.lang.AbstractLifeCycle;
+import com.firefly.utils.log.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * The asynchronous log task is built on a preallocated ring buffer of the reusable log items.
+ * The log threads claim the slots of the ring buffer and fill the log items in place,
+ * and the single log thread formats the log items and writes them to the files.
+ * So the log pipeline does not create the log items and the queue nodes.
+ * </p>
+ * <p>
+ * When the ring buffer is full, the log thread blocks, drops the log that is below the discard level,
+ * or drops all logs according to the {@link FullPolicy}.
+ * </p>
+ *
+ * @author Pengtao Qiu
+ */
+public class RingBufferLogTask extends AbstractLifeCycle implements LogTask {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final long flushInterval = Long.getLong("com.firefly.utils.log.FileLogTask.interval", 1000L);
+
+    public enum FullPolicy {
+        /**
+         * The log thread waits until the ring buffer has free slots.
+         */
+        BLOCK,
+
+        /**
+         * The log that is below the discard level is dropped, and the others wait for the free slots.
+         */
+        DISCARD_BELOW_LEVEL,
+
+        /**
+         * All logs are dropped.
+         */
+        DISCARD
+    }
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final FileLogBatch batch;
+    private final LogItem[] items;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final FullPolicy fullPolicy;
+    private final LogLevel discardLevel;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread thread = new Thread(this, "firefly asynchronous log thread");
+    private volatile boolean consumerWaiting;
+    private long reportedDropped;
+
+    public RingBufferLogTask(Trie<Log> logTree) {
+        this(logTree,
+                Integer.getInteger("com.firefly.utils.log.RingBufferLogTask.bufferSize", DEFAULT_BUFFER_SIZE),
+                FullPolicy.valueOf(System.getProperty("com.firefly.utils.log.RingBufferLogTask.fullPolicy", FullPolicy.BLOCK.name())),
+                LogLevel.fromName(System.getProperty("com.firefly.utils.log.RingBufferLogTask.discardLevel", LogLevel.INFO.getName())));
+    }
+
+    /**
+     * Create the ring buffer log task.
+     *
+     * @param logTree      The configured logs.
+     * @param bufferSize   The slot number of the ring buffer. It is rounded up to the power of two.
+     * @param fullPolicy   The policy when the ring buffer is full.
+     * @param discardLevel The log that is below this level is dropped when the ring buffer is full
+     *                     and the policy is {@link FullPolicy#DISCARD_BELOW_LEVEL}.
+     */
+    public RingBufferLogTask(Trie<Log> logTree, int bufferSize, FullPolicy fullPolicy, LogLevel discardLevel) {
+        this.batch = new FileLogBatch(logTree);
+        this.fullPolicy = fullPolicy;
+        this.discardLevel = discardLevel;
+
+        int size = Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1;
+        items = new LogItem[size];
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            items[i] = new LogItem();
+            published.set(i, -1L);
+        }
+        mask = size - 1;
+        thread.setPriority(Thread.MIN_PRIORITY);
+    }
+
+    public int getBufferSize() {
+        return items.length;
+    }
+
+    /**
+     * Get the number of the log items that are waiting to be written.
+     *
+     * @return The queue depth.
+     */
+    public long getQueueDepth() {
+        return Math.max(claimed.get() - consumed.get(), 0);
+    }
+
+    /**
+     * Get the number of the log items that are dropped because the ring buffer is full.
+     *
+     * @return The dropped count.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public FullPolicy getFullPolicy() {
+        return fullPolicy;
+    }
+
+    public LogLevel getDiscardLevel() {
+        return discardLevel;
+    }
+
+    @Override
+    public void add(LogItem logItem) {
+        if (!start)
+            return;
+
+        if (VerifyUtils.isEmpty(logItem.getName()))
+            throw new IllegalArgumentException("log name is empty");
+
+        long sequence = claim(LogLevel.fromName(logItem.getLevel()));
+        if (sequence < 0) {
+            return;
+        }
+        int index = (int) (sequence & mask);
+        items[index] = logItem;
+        publish(index, sequence);
+    }
+
+    @Override
+    public void add(Translator translator, LogLevel level, String content, Throwable throwable, Object[] objs) {
+        if (!start)
+            return;
+
+        long sequence = claim(level);
+        if (sequence < 0) {
+            return;
+        }
+        int index = (int) (sequence & mask);
+        try {
+            translator.translate(items[index], level, content, throwable, objs);
+        } finally {
+            publish(index, sequence);
+        }
+    }
+
+    private long claim(LogLevel level) {
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - consumed.get() >= items.length) {
+                switch (fullPolicy) {
+                    case DISCARD:
+                        dropped.incrementAndGet();
+                        return -1;
+                    case DISCARD_BELOW_LEVEL:
+                        if (!discardLevel.isEnabled(level)) {
+                            dropped.incrementAndGet();
+                            return -1;
+                        }
+                        break;
+                }
+                if (!start) {
+                    return -1;
+                }
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            } else if (claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    private void publish(int index, long sequence) {
+        published.set(index, sequence);
+        if (consumerWaiting) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                if (!drain()) {
+                    batch.intervalFlushAll();
+                    reportDropped();
+                    consumerWaiting = true;
+                    // check the ring buffer again to avoid missing the wakeup signal
+                    if (!isAvailable() && start) {
+                        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(flushInterval));
+                    }
+                    consumerWaiting = false;
+                }
+            } catch (Throwable e) {
+                System.err.println("write log exception, " + e.getMessage());
+            }
+
+            if (!start && consumed.get() == claimed.get()) {
+                reportDropped();
+                batch.closeAll();
+                break;
+            }
+        }
+    }
+
+    private boolean isAvailable() {
+        long sequence = consumed.get();
+        return published.get((int) (sequence & mask)) == sequence;
+    }
+
+    private boolean drain() {
+        boolean written = false;
+        long sequence = consumed.get();
+        int index;
+        while (published.get(index = (int) (sequence & mask)) == sequence) {
+            LogItem logItem = items[index];
+            batch.write(logItem);
+            logItem.clear();
+            sequence++;
+            consumed.lazySet(sequence);
+            written = true;
+            if (batch.isFull()) {
+                batch.end();
+            }
+        }
+        if (written) {
+            batch.end();
+        }
+        return written;
+    }
+
+    private void reportDropped() {
+        long count = dropped.get();
+        if (count > reportedDropped) {
+            System.err.println("the log ring buffer is full, " + (count - reportedDropped) + " logs are dropped, "
+                    + "total dropped: " + count + ", queue depth: " + getQueueDepth());
+            reportedDropped = count;
+        }
+    }
+
+    @Override
+    protected void init() {
+        start = true;
+        thread.start();
+    }
+
+    @Override
+    protected void destroy() {
+        start = false;
+        LockSupport.unpark(thread);
+    }
+}
@@ -0,0 +1,103 @@
+package test.utils.log;
+
+import com.firefly.utils.collection.TreeTrie;
+import com.firefly.utils.collection.Trie;
+import com.firefly.utils.io.FileUtils;
+import com.firefly.utils.log.*;
+import com.firefly.utils.log.file.FileLog;
+import com.firefly.utils.log.file.RingBufferLogTask;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestFileLogChannelWriter {
+
+    @Test
+    public void test() throws Exception {
+        Path dir = Files.createTempDirectory("firefly-log");
+        FileLog fileLog = new FileLog();
+        fileLog.setName("test-channel");
+        fileLog.setLevel(LogLevel.INFO);
+        fileLog.setPath(dir.toString());
+        fileLog.setFileOutput(true);
+        fileLog.setLogFormatter(new DefaultLogFormatter());
+        fileLog.setLogNameFormatter(new DefaultLogNameFormatter());
+        fileLog.setWriterMode(FileLog.WriterMode.CHANNEL);
+        fileLog.setFlushPolicy(FileLog.FlushPolicy.BATCH);
+        fileLog.setBufferSize(1024);
+        fileLog.setMaxLogFlushInterval(1000L);
+
+        try {
+            Trie<Log> logTree = new TreeTrie<>();
+            logTree.put(fileLog.getName(), fileLog);
+            RingBufferLogTask task = new RingBufferLogTask(logTree, 1024, RingBufferLogTask.FullPolicy.BLOCK, LogLevel.INFO);
+            task.start();
+
+            // the long text is larger than the direct buffer
+            StringBuilder longText = new StringBuilder();
+            for (int i = 0; i < 1000; i++) {
+                longText.append("日志");
+            }
+
+            int count = 200;
+            for (int i = 0; i < count; i++) {
+                LogItem logItem = new LogItem();
+                logItem.setName(fileLog.getName());
+                logItem.setLevel(LogLevel.INFO.getName());
+                logItem.setDate(new Date());
+                logItem.setContent(i % 50 == 0 ? longText + "{}" : "测试 log {}");
+                logItem.setObjs(new Object[]{i});
+                task.add(logItem);
+            }
+            task.stop();
+            for (int i = 0; i < 500 && task.getQueueDepth() > 0; i++) {
+                Thread.sleep(10L);
+            }
+            Thread.sleep(100L);
+
+            File file = new File(dir.toFile(), fileLog.getName() + ".txt");
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            Assert.assertThat(lines.size(), is(count));
+            for (int i = 0; i < count; i++) {
+                String content = lines.get(i).split("\t")[1];
+                Assert.assertThat(content, is(i % 50 == 0 ? longText.toString() + i : "测试 log " + i));
+            }
+        } finally {
+            fileLog.close();
+            FileUtils.recursiveDelete(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testConfiguration() throws Exception {
+        Log log = LogFactory.getInstance().getLog("test-CHANNEL");
+        FileLog fileLog = (FileLog) ((ClassNameLogWrap) log).getLog();
+        Assert.assertThat(fileLog.getWriterMode(), is(FileLog.WriterMode.CHANNEL));
+        Assert.assertThat(fileLog.getFlushPolicy(), is(FileLog.FlushPolicy.BATCH));
+        Assert.assertThat(fileLog.getBufferSize(), is(65536));
+
+        File file = new File(fileLog.getPath(), fileLog.getName() + ".txt");
+        if (file.exists()) {
+            file.delete();
+        }
+        log.info("channel log {}", 1);
+        log.info("channel log {}", 2);
+        Thread.sleep(2000L);
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        Assert.assertThat(lines.size(), is(2));
+        Assert.assertThat(lines.get(0).split("\t")[1], is("channel log 1"));
+        Assert.assertThat(lines.get(1).split("\t")[1], is("channel log 2"));
+    }
+}
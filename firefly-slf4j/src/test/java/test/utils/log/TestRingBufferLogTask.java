@@ -0,0 +1,141 @@
+package test.utils.log;
+
+import com.firefly.utils.collection.TreeTrie;
+import com.firefly.utils.collection.Trie;
+import com.firefly.utils.log.Log;
+import com.firefly.utils.log.LogItem;
+import com.firefly.utils.log.LogLevel;
+import com.firefly.utils.log.file.FileLog;
+import com.firefly.utils.log.file.RingBufferLogTask;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestRingBufferLogTask {
+
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch resume = new CountDownLatch(1);
+    private final List<String> contents = new CopyOnWriteArrayList<>();
+
+    private Trie<Log> createLogTree() {
+        FileLog fileLog = new FileLog();
+        fileLog.setName("test-ring-buffer");
+        fileLog.setLevel(LogLevel.TRACE);
+        fileLog.setLogFilter(logItem -> {
+            writing.countDown();
+            try {
+                resume.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+            // the log item is reused, so the test records the content
+            contents.add(logItem.getLevel() + ":" + logItem.renderContentTemplate());
+        });
+        Trie<Log> logTree = new TreeTrie<>();
+        logTree.put(fileLog.getName(), fileLog);
+        return logTree;
+    }
+
+    private void add(RingBufferLogTask task, LogLevel level, String content, Object... objs) {
+        task.add((logItem, l, c, t, o) -> {
+            logItem.setName("test-ring-buffer");
+            logItem.setLevel(l.getName());
+            logItem.setContent(c);
+            logItem.setObjs(o);
+        }, level, content, null, objs);
+    }
+
+    @Test
+    public void testDiscard() throws Exception {
+        RingBufferLogTask task = new RingBufferLogTask(createLogTree(), 3, RingBufferLogTask.FullPolicy.DISCARD, LogLevel.INFO);
+        Assert.assertThat(task.getBufferSize(), is(4));
+        task.start();
+
+        add(task, LogLevel.INFO, "log {}", 0);
+        Assert.assertThat(writing.await(5, TimeUnit.SECONDS), is(true));
+        for (int i = 1; i < 7; i++) {
+            add(task, LogLevel.ERROR, "log {}", i);
+        }
+        Assert.assertThat(task.getQueueDepth(), is(4L));
+        Assert.assertThat(task.getDroppedCount(), is(3L));
+
+        resume.countDown();
+        task.stop();
+        waitDrained(task);
+        Assert.assertThat(contents.size(), is(4));
+        for (int i = 0; i < 4; i++) {
+            Assert.assertThat(contents.get(i), is((i == 0 ? "INFO" : "ERROR") + ":log " + i));
+        }
+    }
+
+    @Test
+    public void testDiscardBelowLevel() throws Exception {
+        RingBufferLogTask task = new RingBufferLogTask(createLogTree(), 2, RingBufferLogTask.FullPolicy.DISCARD_BELOW_LEVEL, LogLevel.WARN);
+        task.start();
+
+        add(task, LogLevel.INFO, "log {}", 0);
+        Assert.assertThat(writing.await(5, TimeUnit.SECONDS), is(true));
+        add(task, LogLevel.INFO, "log {}", 1);
+        add(task, LogLevel.INFO, "log {}", 2);
+        add(task, LogLevel.DEBUG, "log {}", 3);
+        Assert.assertThat(task.getDroppedCount(), is(2L));
+
+        // the log that is not below the discard level waits for the free slot
+        Thread thread = new Thread(() -> add(task, LogLevel.ERROR, "log {}", 4));
+        thread.start();
+        Thread.sleep(100L);
+        Assert.assertThat(thread.isAlive(), is(true));
+
+        resume.countDown();
+        thread.join(5000L);
+        task.stop();
+        waitDrained(task);
+        Assert.assertThat(task.getDroppedCount(), is(2L));
+        Assert.assertThat(contents.size(), is(3));
+        Assert.assertThat(contents.get(0), is("INFO:log 0"));
+        Assert.assertThat(contents.get(1), is("INFO:log 1"));
+        Assert.assertThat(contents.get(2), is("ERROR:log 4"));
+    }
+
+    @Test
+    public void testLogItem() throws Exception {
+        RingBufferLogTask task = new RingBufferLogTask(createLogTree(), 16, RingBufferLogTask.FullPolicy.BLOCK, LogLevel.INFO);
+        task.start();
+        resume.countDown();
+
+        int count = 100;
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                LogItem logItem = new LogItem();
+                logItem.setName("test-ring-buffer");
+                logItem.setLevel(LogLevel.DEBUG.getName());
+                logItem.setContent("log {}");
+                logItem.setObjs(new Object[]{i});
+                task.add(logItem);
+            } else {
+                add(task, LogLevel.DEBUG, "log {}", i);
+            }
+        }
+        task.stop();
+        waitDrained(task);
+        Assert.assertThat(task.getDroppedCount(), is(0L));
+        Assert.assertThat(contents.size(), is(count));
+        for (int i = 0; i < count; i++) {
+            Assert.assertThat(contents.get(i), is("DEBUG:log " + i));
+        }
+    }
+
+    private void waitDrained(RingBufferLogTask task) throws InterruptedException {
+        for (int i = 0; i < 500 && task.getQueueDepth() > 0; i++) {
+            Thread.sleep(10L);
+        }
+    }
+}
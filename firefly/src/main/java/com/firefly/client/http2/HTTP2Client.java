@@ -48,6 +48,8 @@ public class HTTP2Client extends AbstractLifeCycle {
         HTTP2ClientContext context = new HTTP2ClientContext();
         context.setPromise(promise);
         context.setListener(listener);
+        context.setHost(host);
+        context.setPort(port);
         int id = sessionId.getAndIncrement();
         http2ClientContext.put(id, context);
         client.connect(host, port, id);
@@ -6,6 +6,8 @@ import com.firefly.utils.concurrent.Promise;
 public class HTTP2ClientContext {
     private Promise<HTTPClientConnection> promise;
     private ClientHTTP2SessionListener listener;
+    private String host;
+    private int port;
 
     public Promise<HTTPClientConnection> getPromise() {
         return promise;
@@ -22,4 +24,20 @@ public class HTTP2ClientContext {
     public void setListener(ClientHTTP2SessionListener listener) {
         this.listener = listener;
     }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
 }
@@ -7,8 +7,6 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 
-import static com.firefly.utils.io.BufferUtils.toHeapBuffer;
-
 public class HTTP2ClientDecoder extends DecoderChain {
 
     private static Logger log = LoggerFactory.getLogger("firefly-system");
@@ -27,7 +25,7 @@ public class HTTP2ClientDecoder extends DecoderChain {
         }
 
         HTTP2ClientConnection http2ClientConnection = (HTTP2ClientConnection) session.getAttachment();
-        http2ClientConnection.getParser().parse(toHeapBuffer(buffer));
+        http2ClientConnection.getParser().parse(buffer);
     }
 
 }
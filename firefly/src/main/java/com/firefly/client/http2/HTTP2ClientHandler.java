@@ -32,7 +32,7 @@ public class HTTP2ClientHandler extends AbstractHTTPHandler {
 
         if (config.isSecureConnectionEnabled()) {
             SecureSessionFactory factory = config.getSecureSessionFactory();
-            session.attachObject(factory.create(session, true, sslSession -> {
+            session.attachObject(factory.create(session, true, context.getHost(), context.getPort(), sslSession -> {
                 String protocol = Optional.ofNullable(sslSession.getApplicationProtocol())
                                           .filter(StringUtils::hasText)
                                           .orElse("http/1.1");
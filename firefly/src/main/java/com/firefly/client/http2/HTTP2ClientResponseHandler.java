@@ -179,7 +179,7 @@ public class HTTP2ClientResponseHandler extends Stream.Listener.Adapter implemen
         }
 
         @Override
-        protected Stream getStream() {
+        public Stream getStream() {
             return stream;
         }
     }
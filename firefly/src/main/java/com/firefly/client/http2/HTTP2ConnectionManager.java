@@ -0,0 +1,366 @@
+package com.firefly.client.http2;
+
+import com.firefly.codec.http2.model.HttpVersion;
+import com.firefly.codec.http2.stream.HTTP2Session;
+import com.firefly.utils.concurrent.Atomics;
+import com.firefly.utils.concurrent.Scheduler;
+import com.firefly.utils.function.Action0;
+import com.firefly.utils.function.Action1;
+import com.firefly.utils.lang.pool.PooledObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The HTTP2 connection manager spreads the requests as streams over a small set of HTTP2 connections.
+ * It tracks the active streams of every connection against the max concurrent streams of the peer's SETTINGS.
+ * The caller opens a new connection only when all existing connections are saturated,
+ * and the requests wait for a released stream when the destination has the max number of connections.
+ * The waiting request fails with a TimeoutException if no stream is released before the timeout.
+ * <p>
+ * The connection is taken from the connection pool. The manager holds the pooled HTTP2 connection until it is closed.
+ * When the destination only supports HTTP1, the requests take the connections from the pool directly.
+ *
+ * @author Pengtao Qiu
+ */
+public class HTTP2ConnectionManager {
+
+    private static Logger log = LoggerFactory.getLogger("firefly-system");
+
+    private final ConcurrentHashMap<Object, Destination> destinations = new ConcurrentHashMap<>();
+    private final int maxConnections;
+    private final int defaultMaxConcurrentStreams;
+    private final long timeout;
+    private final Scheduler scheduler;
+
+    /**
+     * Create the HTTP2 connection manager.
+     *
+     * @param maxConnections              The max number of the connections of a destination.
+     * @param defaultMaxConcurrentStreams The max concurrent streams of a connection
+     *                                    when the peer does not set MAX_CONCURRENT_STREAMS.
+     * @param timeout                     The max time that the request waits for a released stream. The unit is millisecond.
+     * @param scheduler                   The scheduler runs the timeout tasks of the waiting requests.
+     */
+    public HTTP2ConnectionManager(int maxConnections, int defaultMaxConcurrentStreams, long timeout, Scheduler scheduler) {
+        this.maxConnections = maxConnections;
+        this.defaultMaxConcurrentStreams = defaultMaxConcurrentStreams;
+        this.timeout = timeout;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Acquire a stream of the HTTP2 connection for the destination.
+     *
+     * @param destination The destination. It is the key of the connections.
+     * @param onStream    It is invoked when a connection of the destination can open a new stream.
+     * @param fallback    It is invoked when the caller should take a connection from the pool.
+     *                    The caller must report the taken connection by the register method,
+     *                    or report the failure by the connectFailed method.
+     * @param failed      It is invoked with a TimeoutException when the request waits for a released stream timeout.
+     */
+    public void acquire(Object destination, Action1<StreamSlot> onStream, Action0 fallback, Action1<Throwable> failed) {
+        Destination dest = destinations.computeIfAbsent(destination, Destination::new);
+        if (dest.http1) {
+            fallback.call();
+            return;
+        }
+
+        StreamSlot slot = dest.reserve();
+        if (slot != null) {
+            onStream.call(slot);
+        } else if (dest.prepareConnect()) {
+            fallback.call();
+        } else {
+            Waiter waiter = new Waiter(onStream, fallback, failed);
+            waiter.timeoutFuture = scheduler.schedule(() -> {
+                if (waiter.prepareComplete()) {
+                    dest.waiters.remove(waiter);
+                    failed.call(new TimeoutException("acquire the HTTP2 stream timeout"));
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+            dest.waiters.offer(waiter);
+            // the stream may be released before the waiter is queued
+            dest.dispatch();
+        }
+    }
+
+    /**
+     * Register the connection that is taken from the pool. The manager holds the HTTP2 connection,
+     * and it does not release the pooled object to the pool until the connection is closed.
+     * The HTTP1 connection is not managed, and the requests of the destination take the connections from the pool.
+     *
+     * @param destination  The destination. It is the key of the connections.
+     * @param connection   The connection that is taken from the pool.
+     * @param pooledObject The pooled object of the connection.
+     * @return The stream slot for the request that takes the connection from the pool,
+     * or null if the connection is not an HTTP2 connection.
+     */
+    public StreamSlot register(Object destination, HTTPClientConnection connection, PooledObject<HTTPClientConnection> pooledObject) {
+        Destination dest = destinations.computeIfAbsent(destination, Destination::new);
+        Atomics.getAndDecrement(dest.connecting, 0);
+        if (connection.getHttpVersion() != HttpVersion.HTTP_2) {
+            dest.http1 = true;
+            dest.dispatch();
+            return null;
+        }
+
+        Entry entry = new Entry(dest, (HTTP2ClientConnection) connection, pooledObject);
+        entry.activeStreams.incrementAndGet();
+        dest.connections.add(entry);
+        connection.onClose(c -> dest.remove(entry))
+                  .onException((c, t) -> dest.remove(entry));
+        if (!connection.isOpen()) {
+            dest.remove(entry);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("register the HTTP2 connection {}, destination: {}, connections: {}",
+                    connection.getSessionId(), destination, dest.connections.size());
+        }
+        dest.dispatch();
+        return new StreamSlot(entry);
+    }
+
+    /**
+     * Report that the caller takes the connection from the pool unsuccessfully.
+     *
+     * @param destination The destination. It is the key of the connections.
+     */
+    public void connectFailed(Object destination) {
+        Optional.ofNullable(destinations.get(destination)).ifPresent(dest -> {
+            Atomics.getAndDecrement(dest.connecting, 0);
+            dest.dispatch();
+        });
+    }
+
+    /**
+     * Get the number of the HTTP2 connections of the destination.
+     *
+     * @param destination The destination.
+     * @return The number of the HTTP2 connections.
+     */
+    public int getConnectionSize(Object destination) {
+        Destination dest = destinations.get(destination);
+        return dest != null ? dest.connections.size() : 0;
+    }
+
+    /**
+     * Get the number of the active streams of the destination.
+     *
+     * @param destination The destination.
+     * @return The number of the active streams.
+     */
+    public int getActiveStreamSize(Object destination) {
+        Destination dest = destinations.get(destination);
+        return dest != null ? dest.connections.stream().mapToInt(e -> e.activeStreams.get()).sum() : 0;
+    }
+
+    /**
+     * Remove the destination and release the pooled connections. The waiting requests acquire the streams again.
+     *
+     * @param destination The destination.
+     */
+    public void remove(Object destination) {
+        Optional.ofNullable(destinations.remove(destination)).ifPresent(Destination::clear);
+    }
+
+    /**
+     * Remove all destinations.
+     */
+    public void clear() {
+        new ArrayList<>(destinations.keySet()).forEach(this::remove);
+    }
+
+    protected int getMaxConcurrentStreams(HTTP2ClientConnection connection) {
+        HTTP2Session session = (HTTP2Session) connection.getHttp2Session();
+        int max = session.getMaxLocalStreams();
+        return max >= 0 ? max : defaultMaxConcurrentStreams;
+    }
+
+    private class Destination {
+        private final Object key;
+        private final CopyOnWriteArrayList<Entry> connections = new CopyOnWriteArrayList<>();
+        private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger connecting = new AtomicInteger();
+        private volatile boolean http1;
+
+        private Destination(Object key) {
+            this.key = key;
+        }
+
+        /**
+         * Reserve a stream of the least loaded connection.
+         */
+        private StreamSlot reserve() {
+            while (true) {
+                Entry selected = null;
+                int min = Integer.MAX_VALUE;
+                for (Entry entry : connections) {
+                    int active = entry.activeStreams.get();
+                    if (active < min && active < getMaxConcurrentStreams(entry.connection) && entry.connection.isOpen()) {
+                        selected = entry;
+                        min = active;
+                    }
+                }
+                if (selected == null) {
+                    return null;
+                }
+                if (selected.activeStreams.compareAndSet(min, min + 1)) {
+                    return new StreamSlot(selected);
+                }
+            }
+        }
+
+        /**
+         * Count the connection that is being taken from the pool.
+         */
+        private boolean prepareConnect() {
+            while (true) {
+                int current = connecting.get();
+                if (current + connections.size() >= maxConnections) {
+                    return false;
+                }
+                if (connecting.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void dispatch() {
+            Waiter waiter;
+            if (http1) {
+                while ((waiter = pollWaiter()) != null) {
+                    waiter.fallback.call();
+                }
+                return;
+            }
+
+            while (!waiters.isEmpty()) {
+                StreamSlot slot = reserve();
+                if (slot != null) {
+                    waiter = pollWaiter();
+                    if (waiter != null) {
+                        waiter.onStream.call(slot);
+                    } else {
+                        slot.release();
+                    }
+                } else if (prepareConnect()) {
+                    // the destination can open a new connection, because the connection is closed
+                    waiter = pollWaiter();
+                    if (waiter != null) {
+                        waiter.fallback.call();
+                    } else {
+                        Atomics.getAndDecrement(connecting, 0);
+                    }
+                } else {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Poll the waiter that has not timed out, and cancel its timeout task.
+         */
+        private Waiter pollWaiter() {
+            Waiter waiter;
+            while ((waiter = waiters.poll()) != null) {
+                if (waiter.prepareComplete()) {
+                    waiter.timeoutFuture.cancel();
+                    return waiter;
+                }
+            }
+            return null;
+        }
+
+        private void remove(Entry entry) {
+            if (connections.remove(entry)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("remove the HTTP2 connection {}", entry.connection.getSessionId());
+                }
+                entry.pooledObject.release();
+                dispatch();
+            }
+        }
+
+        private void clear() {
+            connections.forEach(entry -> entry.pooledObject.release());
+            connections.clear();
+            Waiter waiter;
+            while ((waiter = pollWaiter()) != null) {
+                // the taken connection is registered to the new destination, so it counts the connecting
+                acquire(key, waiter.onStream, waiter.fallback, waiter.failed);
+            }
+        }
+    }
+
+    private static class Entry {
+        private final Destination destination;
+        private final HTTP2ClientConnection connection;
+        private final PooledObject<HTTPClientConnection> pooledObject;
+        private final AtomicInteger activeStreams = new AtomicInteger();
+
+        private Entry(Destination destination, HTTP2ClientConnection connection, PooledObject<HTTPClientConnection> pooledObject) {
+            this.destination = destination;
+            this.connection = connection;
+            this.pooledObject = pooledObject;
+        }
+    }
+
+    private static class Waiter {
+        private final Action1<StreamSlot> onStream;
+        private final Action0 fallback;
+        private final Action1<Throwable> failed;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private volatile Scheduler.Future timeoutFuture;
+
+        private Waiter(Action1<StreamSlot> onStream, Action0 fallback, Action1<Throwable> failed) {
+            this.onStream = onStream;
+            this.fallback = fallback;
+            this.failed = failed;
+        }
+
+        /**
+         * Only one of the dispatcher and the timeout task can complete the waiter.
+         *
+         * @return If return true, the current thread completes the waiter.
+         */
+        private boolean prepareComplete() {
+            return done.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * The reserved stream of the HTTP2 connection. It must be released when the response is complete.
+     */
+    public static class StreamSlot {
+        private final Entry entry;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private StreamSlot(Entry entry) {
+            this.entry = entry;
+        }
+
+        public HTTP2ClientConnection getConnection() {
+            return entry.connection;
+        }
+
+        /**
+         * Release the stream. The waiter of the destination takes the released stream.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                entry.activeStreams.decrementAndGet();
+                entry.destination.dispatch();
+            }
+        }
+    }
+}
@@ -2,14 +2,20 @@ package com.firefly.client.http2;
 
 import com.codahale.metrics.*;
 import com.firefly.codec.http2.encode.UrlEncoded;
+import com.firefly.codec.http2.frame.ErrorCode;
+import com.firefly.codec.http2.frame.ResetFrame;
 import com.firefly.codec.http2.frame.SettingsFrame;
 import com.firefly.codec.http2.model.*;
 import com.firefly.codec.http2.model.MetaData.Response;
 import com.firefly.codec.http2.stream.HTTPOutputStream;
+import com.firefly.codec.http2.stream.Stream;
 import com.firefly.utils.CollectionUtils;
 import com.firefly.utils.StringUtils;
 import com.firefly.utils.concurrent.Callback;
 import com.firefly.utils.concurrent.Promise;
+import com.firefly.utils.concurrent.Scheduler;
+import com.firefly.utils.concurrent.Schedulers;
+import com.firefly.utils.function.Action0;
 import com.firefly.utils.function.Action1;
 import com.firefly.utils.function.Action3;
 import com.firefly.utils.function.Func1;
@@ -20,6 +26,7 @@ import com.firefly.utils.io.EofException;
 import com.firefly.utils.io.IO;
 import com.firefly.utils.json.Json;
 import com.firefly.utils.lang.AbstractLifeCycle;
+import com.firefly.utils.lang.LeakDetector;
 import com.firefly.utils.lang.pool.AsynchronousPool;
 import com.firefly.utils.lang.pool.BoundedAsynchronousPool;
 import com.firefly.utils.lang.pool.PooledObject;
@@ -51,6 +58,9 @@ public class SimpleHTTPClient extends AbstractLifeCycle {
     private final Timer responseTimer;
     private final Meter errorMeter;
     private final Counter leakedConnectionCounter;
+    private final Histogram poolWaitTimeHistogram;
+    private final HTTP2ConnectionManager http2ConnectionManager;
+    private final Scheduler timeoutScheduler = Schedulers.createScheduler();
 
     public SimpleHTTPClient() {
         this(new SimpleHTTPClientConfiguration());
@@ -63,6 +73,9 @@ public class SimpleHTTPClient extends AbstractLifeCycle {
         responseTimer = metrics.timer("http2.SimpleHTTPClient.response.time");
         errorMeter = metrics.meter("http2.SimpleHTTPClient.error.count");
         leakedConnectionCounter = metrics.counter("http2.SimpleHTTPClient.leak.count");
+        poolWaitTimeHistogram = metrics.histogram("http2.SimpleHTTPClient.pool.wait.time");
+        http2ConnectionManager = new HTTP2ConnectionManager(config.getPoolSize(), config.getHttp2DefaultMaxConcurrentStreams(),
+                config.getConnectTimeout(), timeoutScheduler);
         metrics.register("http2.SimpleHTTPClient.error.ratio.1m", new RatioGauge() {
             @Override
             protected Ratio getRatio() {
@@ -585,6 +598,7 @@ public class SimpleHTTPClient extends AbstractLifeCycle {
     }
 
     private void removePool(RequestBuilder req) {
+        http2ConnectionManager.remove(req);
         AsynchronousPool<HTTPClientConnection> pool = poolMap.remove(req);
         pool.stop();
     }
@@ -634,7 +648,7 @@ public class SimpleHTTPClient extends AbstractLifeCycle {
     private int _getPoolSize(RequestBuilder req) {
         AsynchronousPool<HTTPClientConnection> pool = poolMap.get(req);
         if (pool != null) {
-            return pool.size();
+            return pool.size() + http2ConnectionManager.getConnectionSize(req);
         } else {
             return 0;
         }
@@ -763,33 +777,35 @@ public class SimpleHTTPClient extends AbstractLifeCycle {
 
     protected void send(RequestBuilder reqBuilder) {
         Timer.Context resTimerCtx = responseTimer.time();
-        getPool(reqBuilder).take().thenAccept(pooledConn -> {
-            HTTPClientConnection connection = pooledConn.getObject();
+        http2ConnectionManager.acquire(reqBuilder,
+                slot -> send(reqBuilder, resTimerCtx, slot.getConnection(), slot::release),
+                () -> takeConnection(reqBuilder, resTimerCtx),
+                e -> {
+                    log.error("SimpleHTTPClient acquires the HTTP2 stream exception", e);
+                    resTimerCtx.stop();
+                    errorMeter.mark();
+                    Optional.ofNullable(reqBuilder.future).ifPresent(f -> f.failed(e));
+                });
+    }
 
-            if (connection.getHttpVersion() == HttpVersion.HTTP_2) {
-                if (reqBuilder.settingsFrame != null) {
-                    HTTP2ClientConnection http2ClientConnection = (HTTP2ClientConnection) connection;
-                    http2ClientConnection.getHttp2Session().settings(reqBuilder.settingsFrame, Callback.NOOP);
-                }
-                pooledConn.release();
-            }
+    protected void takeConnection(RequestBuilder reqBuilder, Timer.Context resTimerCtx) {
+        CompletableFuture<PooledObject<HTTPClientConnection>> future = getPool(reqBuilder).take();
+        future.exceptionally(e -> {
+            http2ConnectionManager.connectFailed(reqBuilder);
+            return null;
+        });
+        future.thenAccept(pooledConn -> {
+            HTTPClientConnection connection = pooledConn.getObject();
             if (log.isDebugEnabled()) {
-                log.debug("take the connection {} from pool, released: {}, {}", connection.getSessionId(), pooledConn.isReleased(), connection.getHttpVersion());
+                log.debug("take the connection {} from pool, {}", connection.getSessionId(), connection.getHttpVersion());
             }
 
-            if (reqBuilder.connect != null) {
-                reqBuilder.connect.call(connection).thenAccept(isSendReq -> {
-                    if (isSendReq) {
-                        send(reqBuilder, resTimerCtx, connection, createClientHTTPHandler(reqBuilder, resTimerCtx, pooledConn));
-                    } else {
-                        IO.close(connection);
-                    }
-                }).exceptionally(ex -> {
-                    IO.close(connection);
-                    return null;
-                });
+            // the HTTP2 connection manager holds the HTTP2 connection and spreads the requests as streams
+            HTTP2ConnectionManager.StreamSlot slot = http2ConnectionManager.register(reqBuilder, connection, pooledConn);
+            if (slot != null) {
+                send(reqBuilder, resTimerCtx, connection, slot::release);
             } else {
-                send(reqBuilder, resTimerCtx, connection, createClientHTTPHandler(reqBuilder, resTimerCtx, pooledConn));
+                send(reqBuilder, resTimerCtx, connection, pooledConn::release);
             }
         }).exceptionally(e -> {
             log.error("SimpleHTTPClient sends message exception", e);
@@ -799,6 +815,30 @@ public class SimpleHTTPClient extends AbstractLifeCycle {
         });
     }
 
+    protected void send(RequestBuilder reqBuilder, Timer.Context resTimerCtx, HTTPClientConnection connection, Action0 release) {
+        if (connection.getHttpVersion() == HttpVersion.HTTP_2 && reqBuilder.settingsFrame != null) {
+            HTTP2ClientConnection http2ClientConnection = (HTTP2ClientConnection) connection;
+            http2ClientConnection.getHttp2Session().settings(reqBuilder.settingsFrame, Callback.NOOP);
+        }
+
+        if (reqBuilder.connect != null) {
+            reqBuilder.connect.call(connection).thenAccept(isSendReq -> {
+                if (isSendReq) {
+                    send(reqBuilder, resTimerCtx, connection, createClientHTTPHandler(reqBuilder, resTimerCtx, connection, release));
+                } else {
+                    release.call();
+                    IO.close(connection);
+                }
+            }).exceptionally(ex -> {
+                release.call();
+                IO.close(connection);
+                return null;
+            });
+        } else {
+            send(reqBuilder, resTimerCtx, connection, createClientHTTPHandler(reqBuilder, resTimerCtx, connection, release));
+        }
+    }
+
     protected void send(RequestBuilder reqBuilder, Timer.Context resTimerCtx, HTTPClientConnection connection, ClientHTTPHandler handler) {
         if (!CollectionUtils.isEmpty(reqBuilder.requestBody)) {
             connection.send(reqBuilder.request, reqBuilder.requestBody.toArray(BufferUtils.EMPTY_BYTE_BUFFER_ARRAY), handler);
@@ -844,7 +884,8 @@ public class SimpleHTTPClient extends AbstractLifeCycle {
 
     protected ClientHTTPHandler createClientHTTPHandler(RequestBuilder reqBuilder,
                                                         Timer.Context resTimerCtx,
-                                                        PooledObject<HTTPClientConnection> pooledConn) {
+                                                        HTTPClientConnection connection,
+                                                        Action0 release) {
         return new ClientHTTPHandler.Adapter().headerComplete((req, resp, outputStream, conn) -> {
             Optional.ofNullable(reqBuilder.headerComplete).ifPresent(header -> header.call(resp));
             if (reqBuilder.future != null) {
@@ -852,7 +893,7 @@ public class SimpleHTTPClient extends AbstractLifeCycle {
                     reqBuilder.simpleResponse = new SimpleResponse(resp);
                 }
             }
-            return HttpMethod.HEAD.is(req.getMethod()) && messageComplete(reqBuilder, resTimerCtx, pooledConn, resp);
+            return HttpMethod.HEAD.is(req.getMethod()) && messageComplete(reqBuilder, resTimerCtx, connection, release, resp);
         }).content((buffer, req, resp, outputStream, conn) -> {
             Optional.ofNullable(reqBuilder.content).ifPresent(c -> c.call(buffer));
             if (reqBuilder.future != null) {
@@ -874,10 +915,10 @@ public class SimpleHTTPClient extends AbstractLifeCycle {
             } finally {
                 errorMeter.mark();
                 resTimerCtx.stop();
-                IO.close(pooledConn.getObject());
-                pooledConn.release();
+                abort(connection, outputStream);
+                release.call();
                 if (log.isDebugEnabled()) {
-                    log.debug("bad message of the connection {}, released: {}", pooledConn.getObject().getSessionId(), pooledConn.isReleased());
+                    log.debug("bad message of the connection {}", connection.getSessionId());
                 }
             }
         }).earlyEOF((req, resp, outputStream, conn) -> {
@@ -892,18 +933,39 @@ public class SimpleHTTPClient extends AbstractLifeCycle {
             } finally {
                 errorMeter.mark();
                 resTimerCtx.stop();
-                IO.close(pooledConn.getObject());
-                pooledConn.release();
+                abort(connection, outputStream);
+                release.call();
                 if (log.isDebugEnabled()) {
-                    log.debug("early EOF of the connection {}, released: {}", pooledConn.getObject().getSessionId(), pooledConn.isReleased());
+                    log.debug("early EOF of the connection {}", connection.getSessionId());
                 }
             }
-        }).messageComplete((req, resp, outputStream, conn) -> messageComplete(reqBuilder, resTimerCtx, pooledConn, resp));
+        }).messageComplete((req, resp, outputStream, conn) -> messageComplete(reqBuilder, resTimerCtx, connection, release, resp));
+    }
+
+    /**
+     * Abort the failed request. The HTTP2 connection is shared by the other streams, so only the stream is reset.
+     * The HTTP1 connection is closed.
+     *
+     * @param connection   The HTTP connection.
+     * @param outputStream The output stream of the request.
+     */
+    protected void abort(HTTPClientConnection connection, HTTPOutputStream outputStream) {
+        if (connection.getHttpVersion() == HttpVersion.HTTP_2) {
+            if (outputStream instanceof HTTP2ClientResponseHandler.ClientHttp2OutputStream) {
+                Stream stream = ((HTTP2ClientResponseHandler.ClientHttp2OutputStream) outputStream).getStream();
+                if (!stream.isReset() && !stream.isClosed()) {
+                    stream.reset(new ResetFrame(stream.getId(), ErrorCode.CANCEL_STREAM_ERROR.code), Callback.NOOP);
+                }
+            }
+        } else {
+            IO.close(connection);
+        }
     }
 
     private boolean messageComplete(RequestBuilder reqBuilder,
                                     Timer.Context resTimerCtx,
-                                    PooledObject<HTTPClientConnection> pooledConn,
+                                    HTTPClientConnection connection,
+                                    Action0 release,
                                     Response resp) {
         try {
             Optional.ofNullable(reqBuilder.messageComplete).ifPresent(msg -> msg.call(resp));
@@ -911,9 +973,9 @@ public class SimpleHTTPClient extends AbstractLifeCycle {
             return true;
         } finally {
             resTimerCtx.stop();
-            pooledConn.release();
+            release.call();
             if (log.isDebugEnabled()) {
-                log.debug("complete request of the connection {} , released: {}", pooledConn.getObject().getSessionId(), pooledConn.isReleased());
+                log.debug("complete request of the connection {}", connection.getSessionId());
             }
         }
     }
@@ -925,9 +987,10 @@ public class SimpleHTTPClient extends AbstractLifeCycle {
     protected AsynchronousPool<HTTPClientConnection> createConnectionPool(RequestBuilder request) {
         String host = request.host;
         int port = request.port;
-        return new BoundedAsynchronousPool<>(
+        BoundedAsynchronousPool<HTTPClientConnection> connectionPool = new BoundedAsynchronousPool<>(
                 config.getPoolSize(),
                 config.getConnectTimeout(),
+                timeoutScheduler,
                 pool -> { // The pooled object factory
                     Promise.Completable<PooledObject<HTTPClientConnection>> pooledConn = new Promise.Completable<>();
                     Promise.Completable<HTTPClientConnection> connFuture = http2Client.connect(host, port);
@@ -956,7 +1019,10 @@ public class SimpleHTTPClient extends AbstractLifeCycle {
                         log.warn("close http connection exception", e);
                     }
                 },
-                () -> log.info("The Firefly HTTP client has not any connections leaked. host -> {}:{}", host, port));
+                new LeakDetector<>(() -> log.info("The Firefly HTTP client has not any connections leaked. host -> {}:{}", host, port)));
+        connectionPool.setHandoffMode(config.getPoolHandoffMode());
+        connectionPool.setWaitTimeListener(poolWaitTimeHistogram::update);
+        return connectionPool;
     }
 
     @Override
@@ -966,8 +1032,10 @@ public class SimpleHTTPClient extends AbstractLifeCycle {
 
     @Override
     protected void destroy() {
+        http2ConnectionManager.clear();
         http2Client.stop();
         poolMap.forEach((k, v) -> v.stop());
+        timeoutScheduler.stop();
         Optional.ofNullable(config.getHealthCheck()).ifPresent(HealthCheck::stop);
     }
 }
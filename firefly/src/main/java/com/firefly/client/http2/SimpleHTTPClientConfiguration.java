@@ -3,6 +3,7 @@ package com.firefly.client.http2;
 import com.firefly.codec.http2.stream.HTTP2Configuration;
 import com.firefly.utils.ServiceUtils;
 import com.firefly.utils.heartbeat.HealthCheck;
+import com.firefly.utils.lang.pool.BoundedAsynchronousPool;
 
 /**
  * @author Pengtao Qiu
@@ -10,10 +11,13 @@ import com.firefly.utils.heartbeat.HealthCheck;
 public class SimpleHTTPClientConfiguration extends HTTP2Configuration {
 
     public static final int defaultPoolSize = Integer.getInteger("com.firefly.client.http2.connection.defaultPoolSize", 16);
+    public static final int defaultHTTP2MaxConcurrentStreams = Integer.getInteger("com.firefly.client.http2.connection.defaultMaxConcurrentStreams", 100);
     public static final long defaultConnectTimeout = Long.getLong("com.firefly.client.http2.connection.defaultConnectTimeout", 10 * 1000L);
 
     private int poolSize = defaultPoolSize;
     private long connectTimeout = defaultConnectTimeout;
+    private int http2DefaultMaxConcurrentStreams = defaultHTTP2MaxConcurrentStreams;
+    private BoundedAsynchronousPool.HandoffMode poolHandoffMode = BoundedAsynchronousPool.HandoffMode.FIFO;
     private HealthCheck healthCheck = ServiceUtils.loadService(HealthCheck.class, new HealthCheck());
 
     /**
@@ -52,6 +56,44 @@ public class SimpleHTTPClientConfiguration extends HTTP2Configuration {
         this.connectTimeout = connectTimeout;
     }
 
+    /**
+     * Get the max concurrent streams of an HTTP2 connection when the server does not set the MAX_CONCURRENT_STREAMS.
+     * The HTTP client opens a new HTTP2 connection when the streams of all connections reach the max concurrent streams.
+     *
+     * @return The default max concurrent streams of an HTTP2 connection.
+     */
+    public int getHttp2DefaultMaxConcurrentStreams() {
+        return http2DefaultMaxConcurrentStreams;
+    }
+
+    /**
+     * Set the max concurrent streams of an HTTP2 connection when the server does not set the MAX_CONCURRENT_STREAMS.
+     *
+     * @param http2DefaultMaxConcurrentStreams The default max concurrent streams of an HTTP2 connection.
+     */
+    public void setHttp2DefaultMaxConcurrentStreams(int http2DefaultMaxConcurrentStreams) {
+        this.http2DefaultMaxConcurrentStreams = http2DefaultMaxConcurrentStreams;
+    }
+
+    /**
+     * Get the order of the requests that wait for the released connections when the connection pool is exhausted.
+     *
+     * @return The order of the requests that wait for the released connections.
+     */
+    public BoundedAsynchronousPool.HandoffMode getPoolHandoffMode() {
+        return poolHandoffMode;
+    }
+
+    /**
+     * Set the order of the requests that wait for the released connections when the connection pool is exhausted.
+     * The default mode is FIFO. The LIFO mode serves the latest requests first when the pool is overloaded.
+     *
+     * @param poolHandoffMode The order of the requests that wait for the released connections.
+     */
+    public void setPoolHandoffMode(BoundedAsynchronousPool.HandoffMode poolHandoffMode) {
+        this.poolHandoffMode = poolHandoffMode;
+    }
+
     /**
      * Get the HealthCheck. It checks the HTTP client connection is alive.
      *
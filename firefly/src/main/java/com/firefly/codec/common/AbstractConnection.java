@@ -22,7 +22,7 @@ abstract public class AbstractConnection implements Connection, ConnectionExtInf
 
     protected static Logger log = LoggerFactory.getLogger("firefly-system");
 
-    public static final Scheduler scheduler = Schedulers.createScheduler();
+    public static final Scheduler scheduler = Schedulers.createTimeoutScheduler();
 
     protected final SecureSession secureSession;
     protected final Session tcpSession;
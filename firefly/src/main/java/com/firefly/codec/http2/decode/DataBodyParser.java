@@ -61,7 +61,8 @@ public class DataBodyParser extends BodyParser {
 				int position = buffer.position();
 				int limit = buffer.limit();
 				buffer.limit(position + size);
-				ByteBuffer slice = buffer.slice();
+				// the direct buffer is reused after parsing, so the data frame keeps a copy
+				ByteBuffer slice = BufferUtils.toHeapBuffer(buffer.slice());
 				buffer.limit(limit);
 				buffer.position(position + size);
 
@@ -4,6 +4,7 @@ import java.nio.ByteBuffer;
 
 import com.firefly.codec.http2.hpack.HpackDecoder;
 import com.firefly.codec.http2.model.MetaData;
+import com.firefly.net.buffer.SlabBufferPool;
 import com.firefly.utils.io.BufferUtils;
 
 public class HeaderBlockParser {
@@ -24,7 +25,7 @@ public class HeaderBlockParser {
 
 		if (buffer.remaining() < remaining) {
 			if (blockBuffer == null) {
-				blockBuffer = ByteBuffer.allocate(blockLength);
+				blockBuffer = SlabBufferPool.HEAP.acquire(blockLength);
 				BufferUtils.clearToFill(blockBuffer);
 			}
 			blockBuffer.put(buffer);
@@ -41,13 +42,15 @@ public class HeaderBlockParser {
 				toDecode = buffer;
 			}
 
-			MetaData result = hpackDecoder.decode(toDecode);
-			buffer.limit(limit);
-			
-			if(blockBuffer != null) {
-				blockBuffer = null;
+			try {
+				return hpackDecoder.decode(toDecode);
+			} finally {
+				buffer.limit(limit);
+				if (blockBuffer != null) {
+					SlabBufferPool.HEAP.release(blockBuffer);
+					blockBuffer = null;
+				}
 			}
-			return result;
 		}
 	}
 }
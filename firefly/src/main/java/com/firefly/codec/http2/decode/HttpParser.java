@@ -628,8 +628,25 @@ public class HttpParser {
                                 }
                                 _uri.append(array, p - 1, len + 1);
                                 buffer.position(i - buffer.arrayOffset());
-                            } else
+                            } else {
+                                int p = buffer.position();
+                                int l = buffer.limit();
+                                int i = p;
+                                while (i < l && buffer.get(i) > HttpTokens.SPACE)
+                                    i++;
+
+                                int len = i - p;
+                                _headerBytes += len;
+
+                                if (_maxHeaderBytes > 0 && ++_headerBytes > _maxHeaderBytes) {
+                                    LOG.warn("URI is too large >" + _maxHeaderBytes);
+                                    throw new BadMessageException(HttpStatus.URI_TOO_LONG_414);
+                                }
                                 _uri.append(ch);
+                                for (int j = p; j < i; j++)
+                                    _uri.append(buffer.get(j));
+                                buffer.position(i);
+                            }
                         }
                     } else if (ch < HttpTokens.SPACE) {
                         throw new BadMessageException(HttpStatus.BAD_REQUEST_400, _requestHandler != null ? "No URI" : "No Status");
@@ -1278,6 +1295,17 @@ public class HttpParser {
             _handler.badMessage(x._code, x._reason);
     }
 
+    /**
+     * The direct buffer is the pooled read buffer of the session, and it is reused after parsing.
+     * The handler may keep the content, so the content of the direct buffer is copied.
+     *
+     * @param content The content chunk.
+     * @return The content chunk that the handler can keep.
+     */
+    protected ByteBuffer retainContent(ByteBuffer content) {
+        return content.isDirect() ? BufferUtils.toHeapBuffer(content) : content;
+    }
+
     protected boolean parseContent(ByteBuffer buffer) {
         int remaining = buffer.remaining();
         if (remaining == 0 && _state == State.CONTENT) {
@@ -1296,7 +1324,7 @@ public class HttpParser {
                     _contentChunk = buffer.asReadOnlyBuffer();
                     _contentPosition += remaining;
                     buffer.position(buffer.position() + remaining);
-                    if (_handler.content(_contentChunk))
+                    if (_handler.content(retainContent(_contentChunk)))
                         return true;
                     break;
 
@@ -1321,7 +1349,7 @@ public class HttpParser {
                         _contentPosition += _contentChunk.remaining();
                         buffer.position(buffer.position() + _contentChunk.remaining());
 
-                        if (_handler.content(_contentChunk))
+                        if (_handler.content(retainContent(_contentChunk)))
                             return true;
 
                         if (_contentPosition == _contentLength) {
@@ -1388,7 +1416,7 @@ public class HttpParser {
                         _contentPosition += chunk;
                         _chunkPosition += chunk;
                         buffer.position(buffer.position() + chunk);
-                        if (_handler.content(_contentChunk))
+                        if (_handler.content(retainContent(_contentChunk)))
                             return true;
                     }
                     break;
@@ -5,6 +5,9 @@ import java.util.List;
 
 import com.firefly.codec.http2.frame.Frame;
 import com.firefly.codec.http2.frame.FrameType;
+import com.firefly.codec.http2.hpack.HpackEncoder;
+import com.firefly.codec.http2.model.MetaData;
+import com.firefly.net.buffer.SlabBufferPool;
 
 public abstract class FrameGenerator {
 	private final HeaderGenerator headerGenerator;
@@ -21,5 +24,27 @@ public abstract class FrameGenerator {
 		return headerGenerator.generate(frameType, Frame.HEADER_LENGTH + length, length, flags, streamId);
 	}
 
+	/**
+	 * Encode the header block into a pooled buffer, then copy it into a buffer of the exact size.
+	 *
+	 * @param encoder  The HPACK encoder
+	 * @param metaData The HTTP metadata
+	 * @param maxSize  The max size of the header block
+	 * @return The header block
+	 */
+	protected ByteBuffer encodeHeaderBlock(HpackEncoder encoder, MetaData metaData, int maxSize) {
+		ByteBuffer buffer = SlabBufferPool.HEAP.acquire(maxSize);
+		try {
+			buffer.limit(maxSize);
+			encoder.encode(buffer, metaData);
+			buffer.flip();
+			ByteBuffer hpacked = ByteBuffer.allocate(buffer.remaining());
+			hpacked.put(buffer).flip();
+			return hpacked;
+		} finally {
+			SlabBufferPool.HEAP.release(buffer);
+		}
+	}
+
 	public abstract List<ByteBuffer> generate(Frame frame);
 }
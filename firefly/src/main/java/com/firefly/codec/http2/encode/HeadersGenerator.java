@@ -48,11 +48,8 @@ public class HeadersGenerator extends FrameGenerator {
 			flags = Flags.PRIORITY;
 
 		int maxFrameSize = getMaxFrameSize();
-		ByteBuffer hpacked = ByteBuffer.allocate(maxFrameSize);
-		BufferUtils.clearToFill(hpacked);
-		encoder.encode(hpacked, metaData);
-		int hpackedLength = hpacked.position();
-		BufferUtils.flipToFlush(hpacked, 0);
+		ByteBuffer hpacked = encodeHeaderBlock(encoder, metaData, maxFrameSize);
+		int hpackedLength = hpacked.remaining();
 
 		// Split into CONTINUATION frames if necessary.
 		if (maxHeaderBlockFragment > 0 && hpackedLength > maxHeaderBlockFragment) {
@@ -1,16 +1,13 @@
 package com.firefly.codec.http2.hpack;
 
 import com.firefly.codec.http2.model.*;
-import com.firefly.utils.StringUtils;
 import com.firefly.utils.collection.ArrayTernaryTrie;
 import com.firefly.utils.collection.Trie;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -94,7 +91,7 @@ public class HpackContext {
         /* 61 */ {"www-authenticate", EMPTY},
             };
 
-    private static final Map<HttpField, Entry> __staticFieldMap = new HashMap<>();
+    private static final EntryIndex __staticFieldMap = new EntryIndex(false);
     private static final Trie<StaticEntry> __staticNameMap = new ArrayTernaryTrie<>(true, 512);
     private static final StaticEntry[] __staticTableByHeader = new StaticEntry[HttpHeader.UNKNOWN.ordinal()];
     private static final StaticEntry[] __staticTable = new StaticEntry[STATIC_TABLE.length];
@@ -143,7 +140,7 @@ public class HpackContext {
             __staticTable[i] = entry;
 
             if (entry._field.getValue() != null)
-                __staticFieldMap.put(entry._field, entry);
+                __staticFieldMap.put(entry);
 
             if (!added.contains(entry._field.getName())) {
                 added.add(entry._field.getName());
@@ -163,8 +160,8 @@ public class HpackContext {
     private int _maxDynamicTableSizeInBytes;
     private int _dynamicTableSizeInBytes;
     private final DynamicTable _dynamicTable;
-    private final Map<HttpField, Entry> _fieldMap = new HashMap<>();
-    private final Map<String, Entry> _nameMap = new HashMap<>();
+    private final EntryIndex _fieldMap = new EntryIndex(false);
+    private final EntryIndex _nameMap = new EntryIndex(true);
 
     public HpackContext(int maxDynamicTableSize) {
         _maxDynamicTableSizeInBytes = maxDynamicTableSize;
@@ -192,7 +189,7 @@ public class HpackContext {
         Entry entry = __staticNameMap.get(name);
         if (entry != null)
             return entry;
-        return _nameMap.get(StringUtils.asciiToLowerCase(name));
+        return _nameMap.get(name);
     }
 
     public Entry get(int index) {
@@ -223,8 +220,8 @@ public class HpackContext {
         }
         _dynamicTableSizeInBytes += size;
         _dynamicTable.add(entry);
-        _fieldMap.put(field, entry);
-        _nameMap.put(StringUtils.asciiToLowerCase(field.getName()), entry);
+        _fieldMap.put(entry);
+        _nameMap.put(entry);
 
         if (LOG.isDebugEnabled())
             LOG.debug(String.format("HdrTbl[%x] added %s", hashCode(), entry));
@@ -330,11 +327,8 @@ public class HpackContext {
                     LOG.debug(String.format("HdrTbl[%x] evict %s", hashCode(), entry));
                 _dynamicTableSizeInBytes -= entry.getSize();
                 entry._slot = -1;
-                _fieldMap.remove(entry.getHttpField());
-                String lc = StringUtils.asciiToLowerCase(entry.getHttpField().getName());
-                if (entry == _nameMap.get(lc))
-                    _nameMap.remove(lc);
-
+                _fieldMap.remove(entry);
+                _nameMap.remove(entry);
             }
             if (LOG.isDebugEnabled())
                 LOG.debug(String.format("HdrTbl[%x] entries=%d, size=%d, max=%d", hashCode(), _dynamicTable.size(), _dynamicTableSizeInBytes, _maxDynamicTableSizeInBytes));
@@ -342,6 +336,126 @@ public class HpackContext {
 
     }
 
+    /**
+     * The open addressing index of the dynamic table entries. It is keyed by the field or by the case insensitive name.
+     * <p>
+     * The hash codes are kept in a primitive array, and the linear probing compares the hash codes before the fields,
+     * so the lookup neither allocates the lower case name nor the map nodes.
+     * A newer entry replaces the older entry of the same key, and the removed slot is filled by the backward shift.
+     * </p>
+     */
+    private static class EntryIndex {
+        private final boolean _byName;
+        private int[] _hashes = new int[16];
+        private Entry[] _entries = new Entry[16];
+        private int _size;
+
+        private EntryIndex(boolean byName) {
+            _byName = byName;
+        }
+
+        Entry get(HttpField field) {
+            int hash = field.hashCode();
+            int mask = _entries.length - 1;
+            for (int i = spread(hash) & mask; _entries[i] != null; i = (i + 1) & mask) {
+                if (_hashes[i] == hash && _entries[i]._field.equals(field))
+                    return _entries[i];
+            }
+            return null;
+        }
+
+        Entry get(String name) {
+            int hash = nameHash(name);
+            int mask = _entries.length - 1;
+            for (int i = spread(hash) & mask; _entries[i] != null; i = (i + 1) & mask) {
+                if (_hashes[i] == hash && _entries[i]._field.getName().equalsIgnoreCase(name))
+                    return _entries[i];
+            }
+            return null;
+        }
+
+        void put(Entry entry) {
+            if ((_size + 1) * 2 > _entries.length)
+                rehash(_entries.length * 2);
+
+            int hash = hash(entry);
+            int mask = _entries.length - 1;
+            int i = spread(hash) & mask;
+            for (; _entries[i] != null; i = (i + 1) & mask) {
+                if (_hashes[i] == hash && sameKey(_entries[i], entry)) {
+                    _entries[i] = entry;
+                    return;
+                }
+            }
+            _hashes[i] = hash;
+            _entries[i] = entry;
+            _size++;
+        }
+
+        void remove(Entry entry) {
+            int mask = _entries.length - 1;
+            int i = spread(hash(entry)) & mask;
+            while (_entries[i] != entry) {
+                if (_entries[i] == null)
+                    return;
+                i = (i + 1) & mask;
+            }
+            _entries[i] = null;
+            _size--;
+
+            // Move the following entries of the probe sequence to the removed slot
+            for (int j = (i + 1) & mask; _entries[j] != null; j = (j + 1) & mask) {
+                int k = spread(_hashes[j]) & mask;
+                if (i <= j ? (i < k && k <= j) : (i < k || k <= j))
+                    continue;
+                _hashes[i] = _hashes[j];
+                _entries[i] = _entries[j];
+                _entries[j] = null;
+                i = j;
+            }
+        }
+
+        private void rehash(int capacity) {
+            int[] hashes = _hashes;
+            Entry[] entries = _entries;
+            _hashes = new int[capacity];
+            _entries = new Entry[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i] != null) {
+                    int j = spread(hashes[i]) & mask;
+                    while (_entries[j] != null)
+                        j = (j + 1) & mask;
+                    _hashes[j] = hashes[i];
+                    _entries[j] = entries[i];
+                }
+            }
+        }
+
+        private int hash(Entry entry) {
+            return _byName ? nameHash(entry._field.getName()) : entry._field.hashCode();
+        }
+
+        private boolean sameKey(Entry e1, Entry e2) {
+            return _byName ? e1._field.getName().equalsIgnoreCase(e2._field.getName()) : e1._field.equals(e2._field);
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private static int nameHash(String name) {
+            int h = 0;
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c >= 'A' && c <= 'Z')
+                    c += 0x20;
+                h = 31 * h + c;
+            }
+            return h;
+        }
+    }
+
     public static class Entry {
         final HttpField _field;
         int _slot; // The index within it's array
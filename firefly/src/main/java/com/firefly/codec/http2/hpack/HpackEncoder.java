@@ -10,11 +10,28 @@ import org.slf4j.LoggerFactory;
 import java.nio.ByteBuffer;
 import java.util.EnumSet;
 
+/**
+ * HPACK encoder of the HTTP2 header block.
+ * <p>
+ * The encoder has the fast paths for the fields that are sent in many header blocks.
+ * The {@link PreEncodedHttpField} instances keep the Huffman encoded field,
+ * and the encoder caches the dynamic table entries of these instances, so the next header block
+ * encodes the index without looking up the table. The pseudo header fields of the common schemes and methods
+ * and the response status are the pre-encoded constants.
+ * The Date value changes once per second, so its Huffman encoded value is shared by all encoders
+ * and it is encoded once per second.
+ * </p>
+ */
 public class HpackEncoder {
 
     private static final Logger log = LoggerFactory.getLogger("firefly-system");
 
     private final static HttpField[] __status = new HttpField[599];
+    private final static HttpField[] __method = new HttpField[HttpMethod.values().length];
+    private final static HttpField __http;
+    private final static HttpField __https;
+    private final static int FIELD_CACHE_SIZE = 64;
+    private static volatile EncodedValue __date = new EncodedValue("");
 
 
     final static EnumSet<HttpHeader> __DO_NOT_HUFFMAN =
@@ -55,9 +72,15 @@ public class HpackEncoder {
     static {
         for (HttpStatus.Code code : HttpStatus.Code.values())
             __status[code.getCode()] = new PreEncodedHttpField(HttpHeader.C_STATUS, Integer.toString(code.getCode()));
+        for (HttpMethod method : HttpMethod.values())
+            __method[method.ordinal()] = new PreEncodedHttpField(HttpHeader.C_METHOD, method.asString());
+        __http = new PreEncodedHttpField(HttpHeader.C_SCHEME, HttpScheme.HTTP.asString());
+        __https = new PreEncodedHttpField(HttpHeader.C_SCHEME, HttpScheme.HTTPS.asString());
     }
 
     private final HpackContext _context;
+    private final HttpField[] _cachedFields = new HttpField[FIELD_CACHE_SIZE];
+    private final Entry[] _cachedEntries = new Entry[FIELD_CACHE_SIZE];
     private final boolean _debug;
     private int _remoteMaxDynamicTableSize;
     private int _localMaxDynamicTableSize;
@@ -120,10 +143,20 @@ public class HpackEncoder {
         if (metadata.isRequest()) {
             MetaData.Request request = (MetaData.Request) metadata;
 
-            // TODO optimise these to avoid HttpField creation
             String scheme = request.getURI().getScheme();
-            encode(buffer, new HttpField(HttpHeader.C_SCHEME, scheme == null ? HttpScheme.HTTP.asString() : scheme));
-            encode(buffer, new HttpField(HttpHeader.C_METHOD, request.getMethod()));
+            if (scheme == null || HttpScheme.HTTP.is(scheme))
+                encode(buffer, __http);
+            else if (HttpScheme.HTTPS.is(scheme))
+                encode(buffer, __https);
+            else
+                encode(buffer, new HttpField(HttpHeader.C_SCHEME, scheme));
+            // the method lookup ignores case, the pre-encoded field is used only if the method is the same
+            HttpMethod method = HttpMethod.fromString(request.getMethod());
+            if (method != null && method.asString().equals(request.getMethod()))
+                encode(buffer, __method[method.ordinal()]);
+            else
+                encode(buffer, new HttpField(HttpHeader.C_METHOD, request.getMethod()));
+            // TODO optimise these to avoid HttpField creation
             encode(buffer, new HttpField(HttpHeader.C_AUTHORITY, request.getURI().getAuthority()));
             encode(buffer, new HttpField(HttpHeader.C_PATH, request.getURI().getPathQuery()));
         } else if (metadata.isResponse()) {
@@ -170,7 +203,19 @@ public class HpackEncoder {
         String encoding = null;
 
         // Is there an entry for the field?
-        Entry entry = _context.get(field);
+        int cacheSlot = -1;
+        Entry entry = null;
+        if (field instanceof PreEncodedHttpField) {
+            // The cached entry is valid until it is evicted from the dynamic table
+            cacheSlot = System.identityHashCode(field) & (FIELD_CACHE_SIZE - 1);
+            if (_cachedFields[cacheSlot] == field && _cachedEntries[cacheSlot]._slot >= 0)
+                entry = _cachedEntries[cacheSlot];
+        }
+        if (entry == null) {
+            entry = _context.get(field);
+            if (entry != null && cacheSlot >= 0)
+                cacheEntry(cacheSlot, field, entry);
+        }
         if (entry != null) {
             // Known field entry, so encode it as indexed
             if (entry.isStatic()) {
@@ -241,7 +286,7 @@ public class HpackEncoder {
                     boolean never_index = __NEVER_INDEX.contains(header);
                     boolean huffman = !__DO_NOT_HUFFMAN.contains(header);
                     encodeName(buffer, never_index ? (byte) 0x10 : (byte) 0x00, 4, header.asString(), name);
-                    encodeValue(buffer, huffman, field.getValue());
+                    encodeValue(buffer, huffman, header, field.getValue());
 
                     if (_debug)
                         encoding = "Lit" +
@@ -252,7 +297,7 @@ public class HpackEncoder {
                     // Non indexed if field too large or a content length for 3 digits or more
                     indexed = false;
                     encodeName(buffer, (byte) 0x00, 4, header.asString(), name);
-                    encodeValue(buffer, true, field.getValue());
+                    encodeValue(buffer, true, header, field.getValue());
                     if (_debug)
                         encoding = "LitIdxNS" + (1 + NBitInteger.octectsNeeded(4, _context.index(name))) + "HuffV!Idx";
                 } else {
@@ -260,7 +305,7 @@ public class HpackEncoder {
                     indexed = true;
                     boolean huffman = !__DO_NOT_HUFFMAN.contains(header);
                     encodeName(buffer, (byte) 0x40, 6, header.asString(), name);
-                    encodeValue(buffer, huffman, field.getValue());
+                    encodeValue(buffer, huffman, header, field.getValue());
                     if (_debug)
                         encoding = ((name == null) ? "LitHuffN" : ("LitIdxN" + (name.isStatic() ? "S" : "") + (1 + NBitInteger.octectsNeeded(6, _context.index(name))))) +
                                 (huffman ? "HuffVIdx" : "LitVIdx");
@@ -269,9 +314,13 @@ public class HpackEncoder {
 
             // If we want the field referenced, then we add it to our
             // table and reference set.
-            if (indexed)
-                if (_context.add(field) == null)
+            if (indexed) {
+                Entry added = _context.add(field);
+                if (added == null)
                     throw new IllegalStateException();
+                if (cacheSlot >= 0)
+                    cacheEntry(cacheSlot, field, added);
+            }
         }
 
         if (_debug) {
@@ -281,6 +330,11 @@ public class HpackEncoder {
         }
     }
 
+    private void cacheEntry(int cacheSlot, HttpField field, Entry entry) {
+        _cachedFields[cacheSlot] = field;
+        _cachedEntries[cacheSlot] = entry;
+    }
+
     private void encodeName(ByteBuffer buffer, byte mask, int bits, String name, Entry entry) {
         buffer.put(mask);
         if (entry == null) {
@@ -294,6 +348,18 @@ public class HpackEncoder {
         }
     }
 
+    private static void encodeValue(ByteBuffer buffer, boolean huffman, HttpHeader header, String value) {
+        if (huffman && header == HttpHeader.DATE) {
+            EncodedValue date = __date;
+            if (!date.value.equals(value)) {
+                date = new EncodedValue(value);
+                __date = date;
+            }
+            buffer.put(date.encoded);
+        } else
+            encodeValue(buffer, huffman, value);
+    }
+
     static void encodeValue(ByteBuffer buffer, boolean huffman, String value) {
         if (huffman) {
             // huffman literal value
@@ -312,4 +378,21 @@ public class HpackEncoder {
             }
         }
     }
+
+    /**
+     * The Huffman encoded value that is shared by the encoders.
+     */
+    private static class EncodedValue {
+        private final String value;
+        private final byte[] encoded;
+
+        private EncodedValue(String value) {
+            this.value = value;
+            ByteBuffer buffer = ByteBuffer.allocate(Huffman.octetsNeeded(value) + 6);
+            encodeValue(buffer, true, value);
+            buffer.flip();
+            this.encoded = new byte[buffer.remaining()];
+            buffer.get(this.encoded);
+        }
+    }
 }
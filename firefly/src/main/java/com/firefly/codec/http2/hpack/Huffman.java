@@ -331,14 +331,16 @@ public class Huffman {
 		int current = 0;
 		int bits = 0;
 
-		byte[] array = buffer.array();
+		// the direct buffer is read by the absolute get method
+		boolean hasArray = buffer.hasArray();
+		byte[] array = hasArray ? buffer.array() : null;
+		int offset = hasArray ? buffer.arrayOffset() : 0;
 		int position = buffer.position();
-		int start = buffer.arrayOffset() + position;
-		int end = start + length;
-		buffer.position(position + length);
+		int end = position + length;
+		buffer.position(end);
 
-		for (int i = start; i < end; i++) {
-			int b = array[i] & 0xFF;
+		for (int i = position; i < end; i++) {
+			int b = (hasArray ? array[offset + i] : buffer.get(i)) & 0xFF;
 			current = (current << 8) | b;
 			bits += 8;
 			while (bits >= 8) {
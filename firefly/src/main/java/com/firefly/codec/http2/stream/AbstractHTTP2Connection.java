@@ -27,12 +27,25 @@ abstract public class AbstractHTTP2Connection extends AbstractHTTPConnection {
             case "simple":
                 flowControl = new SimpleFlowControlStrategy(config.getInitialStreamSendWindow());
                 break;
+            case "adaptive":
+                flowControl = new AdaptiveFlowControlStrategy(config.getInitialStreamSendWindow(), 0.5f,
+                        config.getMaxSessionRecvWindow(), config.getMaxStreamRecvWindow(),
+                        config.getTcpConfiguration().getMetricReporterFactory().getMetricRegistry());
+                break;
             default:
                 flowControl = new SimpleFlowControlStrategy(config.getInitialStreamSendWindow());
                 break;
         }
         this.generator = new Generator(config.getMaxDynamicTableSize(), config.getMaxHeaderBlockFragment());
         this.http2Session = initHTTP2Session(config, flowControl, listener);
+        http2Session.setMetrics(config.getTcpConfiguration().getMetricReporterFactory().getMetricRegistry());
+        switch (config.getFrameScheduling()) {
+            case "priority":
+                http2Session.setPriorityScheduling(config.getDataQuantum());
+                break;
+            default:
+                break;
+        }
         this.parser = initParser(config);
     }
 
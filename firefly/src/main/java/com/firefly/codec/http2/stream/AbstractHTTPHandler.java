@@ -14,6 +14,9 @@ public abstract class AbstractHTTPHandler implements Handler {
 
     public AbstractHTTPHandler(HTTP2Configuration config) {
         this.config = config;
+        if (config.isSecureConnectionEnabled()) {
+            config.getSecureSessionFactory().setMetricRegistry(config.getTcpConfiguration().getMetricReporterFactory().getMetricRegistry());
+        }
     }
 
     @Override
@@ -0,0 +1,238 @@
+package com.firefly.codec.http2.stream;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.firefly.codec.http2.frame.Frame;
+import com.firefly.codec.http2.frame.PingFrame;
+import com.firefly.codec.http2.frame.WindowUpdateFrame;
+import com.firefly.utils.concurrent.Atomics;
+import com.firefly.utils.concurrent.Callback;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * A flow control strategy that grows the receive windows by the bandwidth-delay product of the connection.
+ * </p>
+ * <p>
+ * The fixed receive window limits the throughput to window / round-trip time, so the large uploads
+ * on the high-latency links stall waiting for the window update frames. The strategy estimates the bandwidth-delay
+ * product by the PING round trips and the data arrival rate (see {@link BandwidthDelayEstimator}),
+ * and it grows the session and stream receive windows up to the max receive windows.
+ * </p>
+ * <p>
+ * Like the {@link BufferingFlowControlStrategy}, the consumed data is accumulated and the window update frame
+ * is sent when the accumulated value reaches a fraction of the receive window, so the larger window
+ * sends fewer and larger window update frames. The window growth is sent with the next window update frame.
+ * </p>
+ *
+ * @author Pengtao Qiu
+ */
+public class AdaptiveFlowControlStrategy extends AbstractFlowControlStrategy {
+
+    public static final long DEFAULT_MIN_PING_INTERVAL = 100;
+
+    private final AtomicInteger maxSessionRecvWindow = new AtomicInteger(DEFAULT_WINDOW_SIZE);
+    private final AtomicInteger sessionLevel = new AtomicInteger();
+    private final Map<StreamSPI, StreamLevel> streamLevels = new ConcurrentHashMap<>();
+    private final BandwidthDelayEstimator estimator;
+    private final float bufferRatio;
+    private final int maxStreamRecvWindow;
+    private final Histogram sessionWindowHistogram;
+    private final Histogram streamWindowHistogram;
+    private final Histogram rttHistogram;
+    private volatile int sessionRecvWindowTarget = DEFAULT_WINDOW_SIZE;
+    private volatile int streamRecvWindowTarget = DEFAULT_WINDOW_SIZE;
+
+    /**
+     * Create the adaptive flow control strategy.
+     *
+     * @param initialStreamSendWindow The initial stream send window.
+     * @param bufferRatio             The window update frame is sent when the consumed data exceeds receive window * ratio.
+     * @param maxSessionRecvWindow    The max session receive window. It is the memory cap of a connection.
+     * @param maxStreamRecvWindow     The max stream receive window.
+     * @param metrics                 The metric registry. It records the chosen windows and the round-trip time.
+     */
+    public AdaptiveFlowControlStrategy(int initialStreamSendWindow, float bufferRatio,
+                                       int maxSessionRecvWindow, int maxStreamRecvWindow,
+                                       MetricRegistry metrics) {
+        super(initialStreamSendWindow);
+        this.bufferRatio = bufferRatio;
+        this.maxStreamRecvWindow = Math.max(DEFAULT_WINDOW_SIZE, Math.min(maxStreamRecvWindow, maxSessionRecvWindow));
+        this.estimator = new BandwidthDelayEstimator(DEFAULT_WINDOW_SIZE, maxSessionRecvWindow,
+                DEFAULT_MIN_PING_INTERVAL, TimeUnit.MILLISECONDS);
+        if (metrics != null) {
+            sessionWindowHistogram = metrics.histogram("http2.AdaptiveFlowControlStrategy.session.recvWindow");
+            streamWindowHistogram = metrics.histogram("http2.AdaptiveFlowControlStrategy.stream.recvWindow");
+            rttHistogram = metrics.histogram("http2.AdaptiveFlowControlStrategy.rtt");
+        } else {
+            sessionWindowHistogram = null;
+            streamWindowHistogram = null;
+            rttHistogram = null;
+        }
+    }
+
+    public float getBufferRatio() {
+        return bufferRatio;
+    }
+
+    /**
+     * Get the session receive window that is chosen by the estimated bandwidth-delay product.
+     *
+     * @return The session receive window.
+     */
+    public int getSessionRecvWindowTarget() {
+        return sessionRecvWindowTarget;
+    }
+
+    /**
+     * Get the stream receive window that is chosen by the estimated bandwidth-delay product.
+     *
+     * @return The stream receive window.
+     */
+    public int getStreamRecvWindowTarget() {
+        return streamRecvWindowTarget;
+    }
+
+    public BandwidthDelayEstimator getEstimator() {
+        return estimator;
+    }
+
+    @Override
+    public void onStreamCreated(StreamSPI stream) {
+        super.onStreamCreated(stream);
+        streamLevels.put(stream, new StreamLevel(getInitialStreamRecvWindow()));
+    }
+
+    @Override
+    public void onStreamDestroyed(StreamSPI stream) {
+        streamLevels.remove(stream);
+        super.onStreamDestroyed(stream);
+    }
+
+    @Override
+    public void onDataReceived(SessionSPI session, StreamSPI stream, int length) {
+        super.onDataReceived(session, stream, length);
+        if (estimator.onDataReceived(length, System.nanoTime())) {
+            session.ping(new PingFrame(estimator.getPingPayload(), false), Callback.NOOP);
+        }
+    }
+
+    @Override
+    public boolean onPingReply(SessionSPI session, PingFrame frame) {
+        int window = estimator.getWindow();
+        if (!estimator.onPingReply(frame.getPayloadAsLong(), System.nanoTime())) {
+            return false;
+        }
+        if (rttHistogram != null) {
+            rttHistogram.update(TimeUnit.NANOSECONDS.toMicros(estimator.getMinRtt()));
+        }
+
+        int newWindow = estimator.getWindow();
+        if (newWindow > window) {
+            streamRecvWindowTarget = Math.max(DEFAULT_WINDOW_SIZE, Math.min(newWindow, maxStreamRecvWindow));
+            sessionRecvWindowTarget = Math.max(newWindow, streamRecvWindowTarget);
+            if (log.isDebugEnabled()) {
+                log.debug("BDP {} bytes, rtt {}us, grow the recv window, session: {}, stream: {} for {}",
+                        estimator.getBdp(), TimeUnit.NANOSECONDS.toMicros(estimator.getMinRtt()),
+                        sessionRecvWindowTarget, streamRecvWindowTarget, session);
+            }
+            if (sessionWindowHistogram != null) {
+                sessionWindowHistogram.update(sessionRecvWindowTarget);
+                streamWindowHistogram.update(streamRecvWindowTarget);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void onDataConsumed(SessionSPI session, StreamSPI stream, int length) {
+        if (length <= 0) {
+            return;
+        }
+        float ratio = bufferRatio;
+
+        WindowUpdateFrame windowFrame = null;
+        int level = sessionLevel.addAndGet(length);
+        int max = maxSessionRecvWindow.get();
+        int growth = Math.max(0, sessionRecvWindowTarget - max);
+        int maxLevel = (int) (max * ratio);
+        if (level > maxLevel || growth > 0) {
+            if (sessionLevel.compareAndSet(level, 0)) {
+                if (growth > 0 && maxSessionRecvWindow.compareAndSet(max, max + growth)) {
+                    level += growth;
+                }
+                session.updateRecvWindow(level);
+                if (log.isDebugEnabled()) {
+                    log.debug("Data consumed, {} bytes, updated session recv window by {}/{} for {}", length, level,
+                            maxLevel, session);
+                }
+                windowFrame = new WindowUpdateFrame(0, level);
+            }
+        }
+
+        Frame[] windowFrames = Frame.EMPTY_ARRAY;
+        if (stream != null && !stream.isRemotelyClosed()) {
+            StreamLevel streamLevel = streamLevels.get(stream);
+            if (streamLevel != null) {
+                level = streamLevel.level.addAndGet(length);
+                max = streamLevel.max.get();
+                growth = Math.max(0, streamRecvWindowTarget - max);
+                maxLevel = (int) (max * ratio);
+                if (level > maxLevel || growth > 0) {
+                    level = streamLevel.level.getAndSet(0);
+                    if (growth > 0 && streamLevel.max.compareAndSet(max, max + growth)) {
+                        level += growth;
+                    }
+                    if (level > 0) {
+                        stream.updateRecvWindow(level);
+                        if (log.isDebugEnabled()) {
+                            log.debug("Data consumed, {} bytes, updated stream recv window by {}/{} for {}", length, level, maxLevel, stream);
+                        }
+                        WindowUpdateFrame frame = new WindowUpdateFrame(stream.getId(), level);
+                        if (windowFrame == null) {
+                            windowFrame = frame;
+                        } else {
+                            windowFrames = new Frame[]{frame};
+                        }
+                    }
+                }
+            }
+        }
+
+        if (windowFrame != null) {
+            session.frames(stream, Callback.NOOP, windowFrame, windowFrames);
+        }
+    }
+
+    @Override
+    public void windowUpdate(SessionSPI session, StreamSPI stream, WindowUpdateFrame frame) {
+        super.windowUpdate(session, stream, frame);
+
+        // the session window may be enlarged without the data consumption, e.g. by the client preface,
+        // so adding 0 reads the current recv window to track its max value
+        if (frame.getStreamId() == 0) {
+            int sessionWindow = session.updateRecvWindow(0);
+            Atomics.updateMax(maxSessionRecvWindow, sessionWindow);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s@%x[ratio=%.2f,sessionLevel=%s,sessionRecvWindow=%d,streamRecvWindow=%d,bdp=%d,sessionStallTime=%dms,streamsStallTime=%dms]",
+                getClass().getSimpleName(), hashCode(), bufferRatio, sessionLevel, sessionRecvWindowTarget,
+                streamRecvWindowTarget, estimator.getBdp(), getSessionStallTime(), getStreamsStallTime());
+    }
+
+    private static class StreamLevel {
+        private final AtomicInteger level = new AtomicInteger();
+        private final AtomicInteger max;
+
+        private StreamLevel(int initialWindow) {
+            this.max = new AtomicInteger(initialWindow);
+        }
+    }
+}
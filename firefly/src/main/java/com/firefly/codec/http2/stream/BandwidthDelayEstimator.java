@@ -0,0 +1,134 @@
+package com.firefly.codec.http2.stream;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * It estimates the bandwidth-delay product (BDP) of the connection by the BDP ping.
+ * <p>
+ * When the data arrives and no BDP ping is outstanding, the receiver sends a PING frame
+ * and counts the data bytes that arrive until the PING reply. The round-trip time of the PING and
+ * the data arrival rate give a sample of the bandwidth. The BDP is the max bandwidth multiplied by the min round-trip time.
+ * <p>
+ * If the data received in a round trip is close to the receive window, the window limits the throughput,
+ * so the window grows to twice the estimated BDP, and it is not greater than the max window.
+ *
+ * @author Pengtao Qiu
+ */
+public class BandwidthDelayEstimator {
+
+    private final int maxWindow;
+    private final long minPingInterval;
+    private int window;
+    private boolean pinging;
+    private long pingPayload;
+    private long pingTime;
+    private long lastPingTime;
+    private long sampleBytes;
+    private long minRtt = Long.MAX_VALUE;
+    private double maxBandwidth;
+    private long bdp;
+
+    /**
+     * Create the BDP estimator.
+     *
+     * @param initialWindow   The initial receive window.
+     * @param maxWindow       The max receive window.
+     * @param minPingInterval The min interval of the BDP pings.
+     * @param unit            The time unit of the ping interval.
+     */
+    public BandwidthDelayEstimator(int initialWindow, int maxWindow, long minPingInterval, TimeUnit unit) {
+        this.window = initialWindow;
+        this.maxWindow = Math.max(initialWindow, maxWindow);
+        this.minPingInterval = unit.toNanos(minPingInterval);
+    }
+
+    /**
+     * Count the received data.
+     *
+     * @param length The data length.
+     * @param now    The current time in nanoseconds.
+     * @return If true, the receiver sends the PING frame that the payload is {@link #getPingPayload()}.
+     */
+    public synchronized boolean onDataReceived(int length, long now) {
+        if (pinging) {
+            sampleBytes += length;
+            return false;
+        }
+        if (window >= maxWindow || (lastPingTime != 0 && now - lastPingTime < minPingInterval)) {
+            return false;
+        }
+        pinging = true;
+        pingTime = now;
+        lastPingTime = now;
+        // the keep-alive PING frame has the empty payload
+        pingPayload = now == 0 ? 1 : now;
+        sampleBytes = 0;
+        return true;
+    }
+
+    /**
+     * Update the estimated BDP when the receiver receives the PING reply.
+     *
+     * @param payload The payload of the PING reply.
+     * @param now     The current time in nanoseconds.
+     * @return If true, the PING reply is the reply of the BDP ping.
+     */
+    public synchronized boolean onPingReply(long payload, long now) {
+        if (!pinging || payload != pingPayload) {
+            return false;
+        }
+        pinging = false;
+        long rtt = Math.max(now - pingTime, 1L);
+        minRtt = Math.min(minRtt, rtt);
+        maxBandwidth = Math.max(maxBandwidth, sampleBytes * (double) TimeUnit.SECONDS.toNanos(1) / rtt);
+        bdp = (long) (maxBandwidth * minRtt / TimeUnit.SECONDS.toNanos(1));
+
+        if (sampleBytes * 3 >= window * 2L) {
+            long target = Math.min(Math.max(sampleBytes, bdp) * 2, maxWindow);
+            if (target > window) {
+                window = (int) target;
+            }
+        }
+        return true;
+    }
+
+    public synchronized long getPingPayload() {
+        return pingPayload;
+    }
+
+    /**
+     * Get the receive window that is chosen by the estimated BDP.
+     *
+     * @return The receive window.
+     */
+    public synchronized int getWindow() {
+        return window;
+    }
+
+    /**
+     * Get the estimated BDP.
+     *
+     * @return The estimated BDP. The unit is byte.
+     */
+    public synchronized long getBdp() {
+        return bdp;
+    }
+
+    /**
+     * Get the min round-trip time.
+     *
+     * @return The min round-trip time in nanoseconds, or 0 if the receiver does not receive any BDP ping reply.
+     */
+    public synchronized long getMinRtt() {
+        return minRtt == Long.MAX_VALUE ? 0 : minRtt;
+    }
+
+    /**
+     * Get the max bandwidth.
+     *
+     * @return The max bandwidth. The unit is byte per second.
+     */
+    public synchronized double getMaxBandwidth() {
+        return maxBandwidth;
+    }
+}
@@ -1,5 +1,6 @@
 package com.firefly.codec.http2.stream;
 
+import com.firefly.codec.http2.frame.PingFrame;
 import com.firefly.codec.http2.frame.WindowUpdateFrame;
 
 public interface FlowControlStrategy {
@@ -22,4 +23,15 @@ public interface FlowControlStrategy {
 	public void onDataSending(StreamSPI stream, int length);
 
 	public void onDataSent(StreamSPI stream, int length);
+
+	/**
+	 * The strategy may send the PING frame to measure the round-trip time.
+	 *
+	 * @param session The HTTP2 session.
+	 * @param frame   The PING reply.
+	 * @return If true, the PING reply is the reply of the PING frame that the strategy sent.
+	 */
+	default boolean onPingReply(SessionSPI session, PingFrame frame) {
+		return false;
+	}
 }
@@ -16,8 +16,12 @@ public class HTTP2Configuration {
     private int maxDynamicTableSize = 4096;
     private int streamIdleTimeout = 10 * 1000;
     private String flowControlStrategy = "buffer";
+    private String frameScheduling = "priority";
+    private int dataQuantum = 16 * 1024;
     private int initialStreamSendWindow = FlowControlStrategy.DEFAULT_WINDOW_SIZE;
     private int initialSessionRecvWindow = FlowControlStrategy.DEFAULT_WINDOW_SIZE;
+    private int maxSessionRecvWindow = 16 * 1024 * 1024;
+    private int maxStreamRecvWindow = 8 * 1024 * 1024;
     private int maxConcurrentStreams = -1;
     private int maxHeaderBlockFragment = 0;
     private int maxRequestHeadLength = 4 * 1024;
@@ -86,27 +90,73 @@ public class HTTP2Configuration {
     }
 
     /**
-     * Get the HTTP2 flow control strategy. The value is "simple" or "buffer".
+     * Get the HTTP2 flow control strategy. The value is "simple", "buffer" or "adaptive".
      * If you use the "simple" flow control strategy, once the server or client receives the data, it will send the WindowUpdateFrame.
      * If you use the "buffer" flow control strategy, the server or client will send WindowUpdateFrame when the consumed data exceed the threshold.
+     * If you use the "adaptive" flow control strategy, the receive windows grow by the estimated bandwidth-delay product
+     * up to the max receive windows.
      *
-     * @return The HTTP2 flow control strategy. The value is "simple" or "buffer".
+     * @return The HTTP2 flow control strategy. The value is "simple", "buffer" or "adaptive".
      */
     public String getFlowControlStrategy() {
         return flowControlStrategy;
     }
 
     /**
-     * Set the HTTP2 flow control strategy. The value is "simple" or "buffer".
+     * Set the HTTP2 flow control strategy. The value is "simple", "buffer" or "adaptive".
      * If you use the "simple" flow control strategy, once the server or client receives the data, it will send the WindowUpdateFrame.
      * If you use the "buffer" flow control strategy, the server or client will send WindowUpdateFrame when the consumed data exceed the threshold.
+     * If you use the "adaptive" flow control strategy, the receive windows grow by the estimated bandwidth-delay product
+     * up to the max receive windows.
      *
-     * @param flowControlStrategy The HTTP2 flow control strategy. The value is "simple" or "buffer".
+     * @param flowControlStrategy The HTTP2 flow control strategy. The value is "simple", "buffer" or "adaptive".
      */
     public void setFlowControlStrategy(String flowControlStrategy) {
         this.flowControlStrategy = flowControlStrategy;
     }
 
+    /**
+     * Get the HTTP2 frame scheduling. The value is "priority" or "fifo".
+     * If you use the "priority" frame scheduling, the streams share the bandwidth of the connection by the weight
+     * of the HEADERS and PRIORITY frames, and the stream sends data only when the stream it depends on is blocked or idle.
+     * If you use the "fifo" frame scheduling, the frames are sent in the order they are queued.
+     *
+     * @return The HTTP2 frame scheduling. The value is "priority" or "fifo".
+     */
+    public String getFrameScheduling() {
+        return frameScheduling;
+    }
+
+    /**
+     * Set the HTTP2 frame scheduling. The value is "priority" or "fifo".
+     * If you use the "priority" frame scheduling, the streams share the bandwidth of the connection by the weight
+     * of the HEADERS and PRIORITY frames, and the stream sends data only when the stream it depends on is blocked or idle.
+     * If you use the "fifo" frame scheduling, the frames are sent in the order they are queued.
+     *
+     * @param frameScheduling The HTTP2 frame scheduling. The value is "priority" or "fifo".
+     */
+    public void setFrameScheduling(String frameScheduling) {
+        this.frameScheduling = frameScheduling;
+    }
+
+    /**
+     * Get the data bytes that a stream of the default weight can send in a round of the priority scheduling.
+     *
+     * @return The data bytes that a stream of the default weight can send in a round.
+     */
+    public int getDataQuantum() {
+        return dataQuantum;
+    }
+
+    /**
+     * Set the data bytes that a stream of the default weight can send in a round of the priority scheduling.
+     *
+     * @param dataQuantum The data bytes that a stream of the default weight can send in a round.
+     */
+    public void setDataQuantum(int dataQuantum) {
+        this.dataQuantum = dataQuantum;
+    }
+
     /**
      * Get the HTTP2 initial receiving window size. The unit is byte.
      *
@@ -125,6 +175,44 @@ public class HTTP2Configuration {
         this.initialSessionRecvWindow = initialSessionRecvWindow;
     }
 
+    /**
+     * Get the max session receive window of the "adaptive" flow control strategy. The unit is byte.
+     * It is the memory cap of the received data that is not consumed in a connection.
+     *
+     * @return The max session receive window. The unit is byte.
+     */
+    public int getMaxSessionRecvWindow() {
+        return maxSessionRecvWindow;
+    }
+
+    /**
+     * Set the max session receive window of the "adaptive" flow control strategy. The unit is byte.
+     * It is the memory cap of the received data that is not consumed in a connection.
+     *
+     * @param maxSessionRecvWindow The max session receive window. The unit is byte.
+     */
+    public void setMaxSessionRecvWindow(int maxSessionRecvWindow) {
+        this.maxSessionRecvWindow = maxSessionRecvWindow;
+    }
+
+    /**
+     * Get the max stream receive window of the "adaptive" flow control strategy. The unit is byte.
+     *
+     * @return The max stream receive window. The unit is byte.
+     */
+    public int getMaxStreamRecvWindow() {
+        return maxStreamRecvWindow;
+    }
+
+    /**
+     * Set the max stream receive window of the "adaptive" flow control strategy. The unit is byte.
+     *
+     * @param maxStreamRecvWindow The max stream receive window. The unit is byte.
+     */
+    public void setMaxStreamRecvWindow(int maxStreamRecvWindow) {
+        this.maxStreamRecvWindow = maxStreamRecvWindow;
+    }
+
     /**
      * Get the HTTP2 initial sending window size. The unit is byte.
      *
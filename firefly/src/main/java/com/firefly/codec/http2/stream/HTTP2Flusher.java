@@ -1,6 +1,10 @@
 package com.firefly.codec.http2.stream;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
 import com.firefly.codec.http2.frame.Frame;
+import com.firefly.codec.http2.frame.FrameType;
+import com.firefly.codec.http2.frame.PriorityFrame;
 import com.firefly.codec.http2.frame.WindowUpdateFrame;
 import com.firefly.utils.concurrent.Callback;
 import com.firefly.utils.concurrent.IteratingCallback;
@@ -12,15 +16,34 @@ import org.slf4j.LoggerFactory;
 import java.nio.ByteBuffer;
 import java.util.*;
 
+/**
+ * The flusher generates the queued frames and writes them to the connection.
+ * <p>
+ * By default, the frames are sent in FIFO order. If the priority scheduling is enabled,
+ * the frames of the streams are scheduled by the stream dependency tree, and the streams share
+ * the bandwidth of the connection by the weight. The control frames are sent first.
+ */
 public class HTTP2Flusher extends IteratingCallback {
     private static Logger log = LoggerFactory.getLogger("firefly-system");
 
+    /**
+     * The max data bytes of a write when the priority scheduling is enabled. The frames that are queued during the write
+     * take part in the scheduling of the next write.
+     */
+    private static final int MAX_SCHEDULED_BYTES = 64 * 1024;
+
     private final Queue<WindowEntry> windows = new ArrayDeque<>();
+    private final Queue<PriorityFrame> priorities = new ArrayDeque<>();
+    private final Queue<Integer> removedStreams = new ArrayDeque<>();
     private final Deque<Entry> frames = new ArrayDeque<>();
     private final Queue<Entry> entries = new ArrayDeque<>();
     private final List<Entry> actives = new ArrayList<>();
     private final HTTP2Session session;
     private final Queue<ByteBuffer> buffers = new LinkedList<>();
+    private final Set<Entry> generated = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final StreamPriorityTree.Sender<Entry> sender = new PrioritySender();
+    private StreamPriorityTree<Entry> priorityTree;
+    private Histogram streamBytesSentHistogram;
     private Entry stalled;
     private Throwable terminated;
 
@@ -28,6 +51,65 @@ public class HTTP2Flusher extends IteratingCallback {
         this.session = session;
     }
 
+    /**
+     * Enable the priority scheduling. It must be set before the flusher sends any frame.
+     *
+     * @param priorityTree The stream dependency tree. If it is null, the frames are sent in FIFO order.
+     */
+    public void setPriorityTree(StreamPriorityTree<Entry> priorityTree) {
+        this.priorityTree = priorityTree;
+    }
+
+    public StreamPriorityTree<Entry> getPriorityTree() {
+        return priorityTree;
+    }
+
+    /**
+     * Record the data bytes that are sent on a stream in the "http2.HTTP2Flusher.stream.bytesSent" histogram
+     * when the stream is removed.
+     *
+     * @param metrics The metric registry. If it is null, the bytes sent are not recorded.
+     */
+    public void setMetrics(MetricRegistry metrics) {
+        streamBytesSentHistogram = metrics != null ? metrics.histogram("http2.HTTP2Flusher.stream.bytesSent") : null;
+    }
+
+    /**
+     * Update the stream dependency tree. The priority is applied when the flusher processes the frames.
+     *
+     * @param frame The priority of the stream.
+     */
+    public void priority(PriorityFrame frame) {
+        if (priorityTree == null) {
+            return;
+        }
+        synchronized (this) {
+            if (terminated == null) {
+                priorities.offer(frame);
+            }
+        }
+    }
+
+    /**
+     * Record the bytes sent on the closed stream, and remove it from the stream dependency tree.
+     *
+     * @param stream The closed stream.
+     */
+    public void removeStream(StreamSPI stream) {
+        Histogram histogram = streamBytesSentHistogram;
+        if (histogram != null) {
+            histogram.update(stream.getBytesSent());
+        }
+        if (priorityTree == null) {
+            return;
+        }
+        synchronized (this) {
+            if (terminated == null) {
+                removedStreams.offer(stream.getId());
+            }
+        }
+    }
+
     public void window(StreamSPI stream, WindowUpdateFrame frame) {
         Throwable closed;
         synchronized (this) {
@@ -98,13 +180,28 @@ public class HTTP2Flusher extends IteratingCallback {
                 entry.perform();
             }
 
+            if (priorityTree != null) {
+                while (!priorities.isEmpty()) {
+                    PriorityFrame frame = priorities.poll();
+                    priorityTree.prioritize(frame.getStreamId(), frame.getParentStreamId(), frame.getWeight(), frame.isExclusive());
+                }
+                while (!removedStreams.isEmpty()) {
+                    priorityTree.remove(removedStreams.poll());
+                }
+            }
+
             for (Entry entry : frames) {
                 entries.offer(entry);
-                actives.add(entry);
+                if (priorityTree == null) {
+                    actives.add(entry);
+                }
             }
             frames.clear();
         }
 
+        if (priorityTree != null) {
+            return processPriority();
+        }
 
         if (entries.isEmpty()) {
             if (log.isDebugEnabled()) {
@@ -127,7 +224,9 @@ public class HTTP2Flusher extends IteratingCallback {
             }
 
             try {
+                int dataRemaining = entry.dataRemaining();
                 if (entry.generate(buffers)) {
+                    entry.dataSent(dataRemaining - entry.dataRemaining());
                     if (entry.dataRemaining() > 0)
                         entries.offer(entry);
                 } else {
@@ -144,6 +243,41 @@ public class HTTP2Flusher extends IteratingCallback {
             }
         }
 
+        return flush();
+    }
+
+    private Action processPriority() {
+        if (entries.isEmpty() && !priorityTree.hasPending()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Flushed {}", session.toString());
+            }
+            return Action.IDLE;
+        }
+
+        try {
+            while (!entries.isEmpty()) {
+                Entry entry = entries.poll();
+                if (entry.stream == null || (entry.isProtocol() && entry.frame.getType() != FrameType.RST_STREAM)) {
+                    // The control frames are sent first. The RST_STREAM frame follows the frames of the stream.
+                    actives.add(entry);
+                    entry.generate(buffers);
+                } else {
+                    priorityTree.offer(entry.stream.getId(), entry);
+                }
+            }
+            priorityTree.schedule(sender, MAX_SCHEDULED_BYTES);
+        } catch (Throwable failure) {
+            // Failure to generate the entry is catastrophic.
+            if (log.isDebugEnabled()) {
+                log.debug("Failure generating frames", failure);
+            }
+            failed(failure);
+            return Action.SUCCEEDED;
+        }
+        return flush();
+    }
+
+    private Action flush() {
         if (buffers.isEmpty()) {
             complete();
             return Action.IDLE;
@@ -173,6 +307,7 @@ public class HTTP2Flusher extends IteratingCallback {
         buffers.clear();
 
         actives.forEach(Entry::complete);
+        generated.clear();
 
         if (stalled != null) {
             // We have written part of the frame, but there is more to write.
@@ -214,6 +349,12 @@ public class HTTP2Flusher extends IteratingCallback {
             }
             actives.addAll(frames);
             frames.clear();
+            if (priorityTree != null) {
+                List<Entry> queued = new ArrayList<>();
+                priorityTree.drainTo(queued);
+                queued.stream().filter(entry -> !generated.contains(entry)).forEach(actives::add);
+                generated.clear();
+            }
         }
 
         actives.forEach(entry -> entry.failed(x));
@@ -267,6 +408,12 @@ public class HTTP2Flusher extends IteratingCallback {
 
         protected abstract boolean generate(Queue<ByteBuffer> buffers);
 
+        private void dataSent(int length) {
+            if (length > 0 && stream != null) {
+                stream.updateBytesSent(length);
+            }
+        }
+
         private void complete() {
             if (isStale())
                 failed(new EofException("reset"));
@@ -314,6 +461,45 @@ public class HTTP2Flusher extends IteratingCallback {
         }
     }
 
+    /**
+     * It generates the frames of the streams that are scheduled by the stream dependency tree.
+     */
+    private class PrioritySender implements StreamPriorityTree.Sender<Entry> {
+
+        @Override
+        public int send(Entry entry) {
+            if (log.isDebugEnabled()) {
+                log.debug("Processing {}", entry.toString());
+            }
+            // If the stream has been reset or removed, don't send the frame.
+            if (entry.isStale()) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Stale {}", entry.toString());
+                }
+                if (generated.add(entry)) {
+                    actives.add(entry);
+                }
+                return 0;
+            }
+
+            int dataRemaining = entry.dataRemaining();
+            if (!entry.generate(buffers)) {
+                return StreamPriorityTree.BLOCKED;
+            }
+            if (generated.add(entry)) {
+                actives.add(entry);
+            }
+            int sent = dataRemaining - entry.dataRemaining();
+            entry.dataSent(sent);
+            return sent;
+        }
+
+        @Override
+        public boolean isComplete(Entry entry) {
+            return entry.isStale() || entry.dataRemaining() == 0;
+        }
+    }
+
     private class WindowEntry {
         private final StreamSPI stream;
         private final WindowUpdateFrame frame;
@@ -1,5 +1,6 @@
 package com.firefly.codec.http2.stream;
 
+import com.codahale.metrics.MetricRegistry;
 import com.firefly.codec.http2.decode.Parser;
 import com.firefly.codec.http2.encode.Generator;
 import com.firefly.codec.http2.frame.*;
@@ -71,6 +72,25 @@ public abstract class HTTP2Session implements SessionSPI, Parser.Listener {
         return flowControl;
     }
 
+    /**
+     * Enable the priority scheduling of the streams. The streams share the bandwidth of the connection
+     * by the weight of the HEADERS and PRIORITY frames. If it is not enabled, the frames are sent in FIFO order.
+     *
+     * @param dataQuantum The bytes that a stream of the default weight can send in a round.
+     */
+    public void setPriorityScheduling(int dataQuantum) {
+        flusher.setPriorityTree(new StreamPriorityTree<>(dataQuantum));
+    }
+
+    /**
+     * Record the data bytes that are sent on every stream in the metric registry.
+     *
+     * @param metrics The metric registry.
+     */
+    public void setMetrics(MetricRegistry metrics) {
+        flusher.setMetrics(metrics);
+    }
+
     public int getMaxLocalStreams() {
         return maxLocalStreams;
     }
@@ -171,6 +191,13 @@ public abstract class HTTP2Session implements SessionSPI, Parser.Listener {
         if (log.isDebugEnabled()) {
             log.debug("Received {}", frame.toString());
         }
+        prioritize(frame);
+    }
+
+    protected void prioritize(PriorityFrame frame) {
+        if (frame != null) {
+            flusher.priority(frame);
+        }
     }
 
     @Override
@@ -277,6 +304,9 @@ public abstract class HTTP2Session implements SessionSPI, Parser.Listener {
             log.debug("Received {}", frame.toString());
         }
         if (frame.isReply()) {
+            if (flowControl.onPingReply(this, frame)) {
+                return;
+            }
             log.info("The session {} received ping reply", endPoint.getSessionId());
             notifyPing(this, frame);
         } else {
@@ -606,6 +636,7 @@ public abstract class HTTP2Session implements SessionSPI, Parser.Listener {
             onStreamClosed(stream);
 
             flowControl.onStreamDestroyed(stream);
+            flusher.removeStream(stream);
 
             if (log.isDebugEnabled()) {
                 log.debug("Removed {} {}", local ? "local" : "remote", stream.toString());
@@ -14,6 +14,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class HTTP2Stream extends IdleTimeout implements StreamSPI {
@@ -24,6 +25,7 @@ public class HTTP2Stream extends IdleTimeout implements StreamSPI {
     private final AtomicReference<CloseState> closeState = new AtomicReference<>(CloseState.NOT_CLOSED);
     private final AtomicInteger sendWindow = new AtomicInteger();
     private final AtomicInteger recvWindow = new AtomicInteger();
+    private final AtomicLong bytesSent = new AtomicLong();
     private final SessionSPI session;
     private final int streamId;
     private final boolean local;
@@ -284,6 +286,16 @@ public class HTTP2Stream extends IdleTimeout implements StreamSPI {
         return recvWindow.getAndAdd(delta);
     }
 
+    @Override
+    public long updateBytesSent(int delta) {
+        return bytesSent.getAndAdd(delta);
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
     @Override
     public void close() {
         if (closeState.getAndSet(CloseState.CLOSED) != CloseState.CLOSED)
@@ -0,0 +1,326 @@
+package com.firefly.codec.http2.stream;
+
+import java.util.*;
+
+/**
+ * The stream dependency tree of the HTTP2 connection. It is built from the priority of the HEADERS and PRIORITY frames.
+ * <p>
+ * The queued items of a stream are sent by the deficit round-robin. In every round, the ready streams share
+ * the data quantum by the weight, and a stream sends the items until its deficit is used up.
+ * A stream that depends on another stream is ready only when the parent stream has nothing to send
+ * or the parent stream is blocked by the flow control.
+ * <p>
+ * The tree is not thread safe. The flusher changes it when it processes the frames.
+ *
+ * @author Pengtao Qiu
+ */
+public class StreamPriorityTree<T> {
+
+    public static final int DEFAULT_WEIGHT = 16;
+    public static final int DEFAULT_MAX_NODES = 1024;
+
+    /**
+     * The sender returns it when the stream can not send data.
+     */
+    public static final int BLOCKED = -1;
+
+    private final Map<Integer, Node> nodes = new HashMap<>();
+    private final Node root = new Node(0);
+    private final int quantum;
+    private final int maxNodes;
+
+    public StreamPriorityTree(int quantum) {
+        this(quantum, DEFAULT_MAX_NODES);
+    }
+
+    /**
+     * Create the stream dependency tree.
+     *
+     * @param quantum  The bytes that a stream of the default weight can send in a round.
+     * @param maxNodes The max number of the streams that are created by the priority frames only.
+     */
+    public StreamPriorityTree(int quantum, int maxNodes) {
+        if (quantum <= 0) {
+            throw new IllegalArgumentException("the quantum must be greater than 0");
+        }
+        this.quantum = quantum;
+        this.maxNodes = maxNodes;
+        root.weight = DEFAULT_WEIGHT;
+    }
+
+    /**
+     * Update the dependency and the weight of the stream.
+     *
+     * @param streamId       The stream id.
+     * @param parentStreamId The stream id of the parent stream.
+     * @param weight         The weight of the stream. The value is between 1 and 256.
+     * @param exclusive      If true, the stream becomes the sole child of the parent stream.
+     */
+    public void prioritize(int streamId, int parentStreamId, int weight, boolean exclusive) {
+        if (streamId <= 0 || streamId == parentStreamId) {
+            return;
+        }
+        Node node = nodes.get(streamId);
+        if (node == null) {
+            if (nodes.size() >= maxNodes) {
+                return;
+            }
+            node = createNode(streamId);
+        }
+
+        Node parent = parentStreamId == 0 ? root : nodes.get(parentStreamId);
+        if (parent == null) {
+            parent = nodes.size() < maxNodes ? createNode(parentStreamId) : root;
+        }
+
+        // SPEC: the new parent that depends on the stream is moved to the former parent of the stream.
+        if (isAncestor(node, parent)) {
+            parent.detach();
+            node.parent.attach(parent);
+        }
+        node.detach();
+        if (exclusive) {
+            for (Node child : new ArrayList<>(parent.children)) {
+                child.detach();
+                node.attach(child);
+            }
+        }
+        node.weight = Math.max(1, Math.min(weight, 256));
+        parent.attach(node);
+    }
+
+    /**
+     * Queue the item of the stream.
+     *
+     * @param streamId The stream id.
+     * @param item     The item.
+     */
+    public void offer(int streamId, T item) {
+        Node node = nodes.get(streamId);
+        if (node == null) {
+            node = createNode(streamId);
+        }
+        node.items.offer(item);
+    }
+
+    /**
+     * Remove the closed stream. The children of the stream depend on the parent of the stream,
+     * and they share the weight of the stream by their weights.
+     * If the stream has queued items, it is removed when the items are sent.
+     *
+     * @param streamId The stream id.
+     */
+    public void remove(int streamId) {
+        Node node = nodes.get(streamId);
+        if (node != null) {
+            node.closed = true;
+            if (node.items.isEmpty()) {
+                removeNode(node);
+            }
+        }
+    }
+
+    public boolean hasPending() {
+        return nodes.values().stream().anyMatch(node -> !node.items.isEmpty());
+    }
+
+    public int getNodeSize() {
+        return nodes.size();
+    }
+
+    /**
+     * Get the parent stream id of the stream.
+     *
+     * @param streamId The stream id.
+     * @return The parent stream id, or -1 if the stream is not in the tree.
+     */
+    public int getParentStreamId(int streamId) {
+        Node node = nodes.get(streamId);
+        return node != null && node.parent != null ? node.parent.streamId : -1;
+    }
+
+    /**
+     * Get the weight of the stream.
+     *
+     * @param streamId The stream id.
+     * @return The weight of the stream, or 0 if the stream is not in the tree.
+     */
+    public int getWeight(int streamId) {
+        Node node = nodes.get(streamId);
+        return node != null ? node.weight : 0;
+    }
+
+    /**
+     * Send the queued items until all streams are empty or blocked, or the sent bytes exceed the max bytes.
+     * The rest of the items are sent in the next scheduling, so the items that are queued later can take part in it.
+     *
+     * @param sender   The sender of the items.
+     * @param maxBytes The max bytes of a scheduling. The last round may exceed it.
+     * @return The data bytes that are sent.
+     */
+    public long schedule(Sender<T> sender, long maxBytes) {
+        nodes.values().forEach(node -> node.blocked = false);
+        List<Node> ready = new ArrayList<>();
+        long total = 0;
+        while (total < maxBytes) {
+            ready.clear();
+            updateReady(root);
+            collectReady(root, 1.0, ready);
+            if (ready.isEmpty()) {
+                break;
+            }
+
+            for (Node node : ready) {
+                node.deficit += Math.max(1L, (long) (quantum * ready.size() * node.share));
+                while (node.deficit > 0 && !node.items.isEmpty()) {
+                    T item = node.items.peek();
+                    int sent = sender.send(item);
+                    boolean complete = sender.isComplete(item);
+                    if (sent == BLOCKED || (sent == 0 && !complete)) {
+                        node.blocked = true;
+                        break;
+                    }
+                    node.deficit -= sent;
+                    total += sent;
+                    if (complete) {
+                        node.items.poll();
+                    }
+                }
+                if (node.items.isEmpty()) {
+                    node.deficit = 0;
+                    if (node.closed) {
+                        removeNode(node);
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Remove all queued items.
+     *
+     * @param collection The collection receives the items.
+     */
+    public void drainTo(Collection<T> collection) {
+        nodes.values().forEach(node -> {
+            collection.addAll(node.items);
+            node.items.clear();
+        });
+    }
+
+    private Node createNode(int streamId) {
+        Node node = new Node(streamId);
+        node.weight = DEFAULT_WEIGHT;
+        nodes.put(streamId, node);
+        root.attach(node);
+        return node;
+    }
+
+    private void removeNode(Node node) {
+        nodes.remove(node.streamId);
+        Node parent = node.parent;
+        node.detach();
+        int sum = node.children.stream().mapToInt(child -> child.weight).sum();
+        new ArrayList<>(node.children).forEach(child -> {
+            child.detach();
+            child.weight = Math.max(1, node.weight * child.weight / sum);
+            (parent != null ? parent : root).attach(child);
+        });
+    }
+
+    private boolean isAncestor(Node ancestor, Node node) {
+        for (Node n = node.parent; n != null; n = n.parent) {
+            if (n == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean updateReady(Node node) {
+        boolean ready = node.isReady();
+        for (Node child : node.children) {
+            ready |= updateReady(child);
+        }
+        node.subtreeReady = ready;
+        return ready;
+    }
+
+    private void collectReady(Node node, double share, List<Node> ready) {
+        int sum = 0;
+        for (Node child : node.children) {
+            if (child.subtreeReady) {
+                sum += child.weight;
+            }
+        }
+        for (Node child : node.children) {
+            if (child.subtreeReady) {
+                double childShare = share * child.weight / sum;
+                if (child.isReady()) {
+                    child.share = childShare;
+                    ready.add(child);
+                } else {
+                    collectReady(child, childShare, ready);
+                }
+            }
+        }
+    }
+
+    /**
+     * The sender of the queued items.
+     *
+     * @param <T> The item type.
+     */
+    public interface Sender<T> {
+
+        /**
+         * Send the item.
+         *
+         * @param item The item.
+         * @return The data bytes that are sent, or BLOCKED if the stream can not send data.
+         */
+        int send(T item);
+
+        /**
+         * Test whether the item is sent completely.
+         *
+         * @param item The item.
+         * @return If true, the item is removed from the queue.
+         */
+        boolean isComplete(T item);
+    }
+
+    private class Node {
+        private final int streamId;
+        private final List<Node> children = new ArrayList<>();
+        private final Queue<T> items = new ArrayDeque<>();
+        private Node parent;
+        private int weight;
+        private long deficit;
+        private double share;
+        private boolean closed;
+        private boolean blocked;
+        private boolean subtreeReady;
+
+        private Node(int streamId) {
+            this.streamId = streamId;
+        }
+
+        private boolean isReady() {
+            return !blocked && !items.isEmpty();
+        }
+
+        private void attach(Node child) {
+            child.parent = this;
+            children.add(child);
+        }
+
+        private void detach() {
+            if (parent != null) {
+                parent.children.remove(this);
+                parent = null;
+            }
+        }
+    }
+}
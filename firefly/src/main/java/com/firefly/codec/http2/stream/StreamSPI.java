@@ -96,6 +96,21 @@ public interface StreamSPI extends Stream, Closeable {
      */
     public int updateRecvWindow(int delta);
 
+    /**
+     * <p>
+     * Adds the data bytes that are sent by the flusher.
+     * </p>
+     *
+     * @param delta the data bytes that are sent
+     * @return the previous value of the sent data bytes
+     */
+    public long updateBytesSent(int delta);
+
+    /**
+     * @return the data bytes that are sent on this stream.
+     */
+    public long getBytesSent();
+
     /**
      * <p>
      * Marks this stream as not idle
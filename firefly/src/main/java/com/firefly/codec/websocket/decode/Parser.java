@@ -487,8 +487,9 @@ public class Parser {
             maskProcessor.process(window);
 
             if (window.remaining() == payloadLength) {
-                // We have the whole content, no need to copy.
-                frame.setPayload(window);
+                // We have the whole content, no need to copy the heap buffer.
+                // The direct buffer is reused after parsing, so the frame keeps a copy.
+                frame.setPayload(BufferUtils.toHeapBuffer(window));
                 return true;
             } else {
                 if (payload == null) {
@@ -24,43 +24,42 @@ public class HTTP1ServerDecoder extends DecoderChain {
 
     @Override
     public void decode(ByteBuffer buffer, Session session) {
-        ByteBuffer buf = toHeapBuffer(buffer);
         AbstractConnection abstractConnection = (AbstractConnection) session.getAttachment();
         switch (abstractConnection.getConnectionType()) {
             case HTTP1: {
                 final HTTP1ServerConnection http1Connection = (HTTP1ServerConnection) session.getAttachment();
                 if (http1Connection.getTunnelConnectionPromise() == null) {
                     final HttpParser parser = http1Connection.getParser();
-                    while (buf.hasRemaining()) {
-                        parser.parseNext(buf);
+                    while (buffer.hasRemaining()) {
+                        parser.parseNext(buffer);
                         if (http1Connection.getUpgradeHTTP2Complete()) {
-                            http2ServerDecoder.decode(buf, session);
+                            http2ServerDecoder.decode(buffer, session);
                             break;
                         } else if (http1Connection.getUpgradeWebSocketComplete()) {
-                            webSocketDecoder.decode(buf, session);
+                            webSocketDecoder.decode(buffer, session);
                             break;
                         }
                     }
                 } else {
                     HTTP1ServerTunnelConnection tunnelConnection = http1Connection.createHTTPTunnel();
                     if (tunnelConnection.content != null) {
-                        tunnelConnection.content.call(buf);
+                        tunnelConnection.content.call(toHeapBuffer(buffer));
                     }
                 }
             }
             break;
             case HTTP2: {
-                http2ServerDecoder.decode(buf, session);
+                http2ServerDecoder.decode(buffer, session);
             }
             break;
             case WEB_SOCKET: {
-                webSocketDecoder.decode(buf, session);
+                webSocketDecoder.decode(buffer, session);
             }
             break;
             case HTTP_TUNNEL: {
                 HTTP1ServerTunnelConnection tunnelConnection = (HTTP1ServerTunnelConnection) session.getAttachment();
                 if (tunnelConnection.content != null) {
-                    tunnelConnection.content.call(buf);
+                    tunnelConnection.content.call(toHeapBuffer(buffer));
                 }
             }
             break;
@@ -61,7 +61,7 @@ public class HTTP2ServerBuilder {
             RoutingContext ctx = new RoutingContextImpl(request, Collections.emptyNavigableSet());
             handler.render(ctx, status, new BadMessageException(reason));
         });
-        routerManager = RouterManager.create(httpBodyConfiguration);
+        routerManager = RouterManager.create(httpBodyConfiguration, serverConfiguration.isCompiledRouting());
         return this;
     }
 
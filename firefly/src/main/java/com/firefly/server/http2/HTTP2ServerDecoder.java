@@ -7,8 +7,6 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 
-import static com.firefly.utils.io.BufferUtils.toHeapBuffer;
-
 public class HTTP2ServerDecoder extends DecoderChain {
 
     private static Logger log = LoggerFactory.getLogger("firefly-system");
@@ -28,7 +26,7 @@ public class HTTP2ServerDecoder extends DecoderChain {
         }
 
         HTTP2ServerConnection connection = (HTTP2ServerConnection) session.getAttachment();
-        connection.getParser().parse(toHeapBuffer(buffer));
+        connection.getParser().parse(buffer);
     }
 
 }
@@ -122,14 +122,16 @@ public class HTTP2ServerRequestHandler extends ServerSessionListener.Adapter {
 
         public static final String X_POWERED_BY_VALUE = "Firefly " + Version.value;
         public static final String SERVER_VALUE = "Firefly " + Version.value;
+        public static final HttpField X_POWERED_BY_FIELD = new PreEncodedHttpField(HttpHeader.X_POWERED_BY, X_POWERED_BY_VALUE);
+        public static final HttpField SERVER_FIELD = new PreEncodedHttpField(HttpHeader.SERVER, SERVER_VALUE);
 
         private final Stream stream;
 
         public ServerHttp2OutputStream(MetaData info, Stream stream) {
             super(info, false);
             this.stream = stream;
-            info.getFields().put(HttpHeader.X_POWERED_BY, X_POWERED_BY_VALUE);
-            info.getFields().put(HttpHeader.SERVER, SERVER_VALUE);
+            info.getFields().put(X_POWERED_BY_FIELD);
+            info.getFields().put(SERVER_FIELD);
         }
 
         @Override
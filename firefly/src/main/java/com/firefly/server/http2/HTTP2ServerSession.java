@@ -56,6 +56,7 @@ public class HTTP2ServerSession extends HTTP2Session implements ServerParser.Lis
         if (metaData.isRequest()) {
             StreamSPI stream = createRemoteStream(frame.getStreamId());
             if (stream != null) {
+                prioritize(frame.getPriority());
                 stream.process(frame, Callback.NOOP);
                 Stream.Listener listener = notifyNewStream(stream, frame);
                 stream.setListener(listener);
@@ -6,6 +6,7 @@ public class SimpleHTTPServerConfiguration extends HTTP2Configuration {
 
     private String host;
     private int port;
+    private boolean compiledRouting;
 
     /**
      * Get the HTTP server host name.
@@ -43,4 +44,23 @@ public class SimpleHTTPServerConfiguration extends HTTP2Configuration {
         this.port = port;
     }
 
+    /**
+     * If true, the router manager compiles the routers into a radix tree and bitsets to find the routers.
+     * It is faster than the matchers when the server has a large number of routers. The default value is false.
+     *
+     * @return Whether the compiled routing is enabled.
+     */
+    public boolean isCompiledRouting() {
+        return compiledRouting;
+    }
+
+    /**
+     * Set whether the compiled routing is enabled.
+     *
+     * @param compiledRouting Whether the compiled routing is enabled.
+     */
+    public void setCompiledRouting(boolean compiledRouting) {
+        this.compiledRouting = compiledRouting;
+    }
+
 }
@@ -5,10 +5,14 @@ import com.firefly.codec.http2.model.MetaData.Response;
 import com.firefly.codec.http2.stream.BufferedHTTPOutputStream;
 import com.firefly.codec.http2.stream.HTTPOutputStream;
 import com.firefly.utils.io.IO;
+import com.firefly.utils.json.Json;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.Spliterator;
 import java.util.function.Consumer;
@@ -202,6 +206,22 @@ public class SimpleResponse implements Closeable {
         return this;
     }
 
+    /**
+     * Serialize the object to JSON. If the character encoding is UTF-8 and the print writer is not used,
+     * the JSON bytes are encoded into the output stream directly without building a string.
+     *
+     * @param object The object.
+     * @return The response.
+     */
+    public SimpleResponse writeJson(Object object) {
+        if (printWriter == null && StandardCharsets.UTF_8.equals(Charset.forName(characterEncoding))) {
+            Json.writeTo(object, getOutputStream());
+            return this;
+        } else {
+            return write(Json.toJson(object));
+        }
+    }
+
     public SimpleResponse end(String value) {
         return write(value).end();
     }
@@ -227,4 +247,26 @@ public class SimpleResponse implements Closeable {
     public SimpleResponse end(byte[] b) {
         return write(b).end();
     }
+
+    /**
+     * Write the buffer to the HTTP output stream directly without copying it.
+     * The buffered data of the output stream is flushed before writing the buffer.
+     * The buffer must not be modified after it is written, because it may be sent asynchronously.
+     *
+     * @param buffer The data buffer.
+     * @return The response.
+     */
+    public SimpleResponse write(ByteBuffer buffer) {
+        try {
+            getOutputStream().flush();
+            output.write(buffer);
+        } catch (IOException e) {
+            log.error("write data exception " + uri, e);
+        }
+        return this;
+    }
+
+    public SimpleResponse end(ByteBuffer buffer) {
+        return write(buffer).end();
+    }
 }
@@ -71,7 +71,11 @@ public interface RouterManager extends RequestAcceptor {
     }
 
     static RouterManager create(HTTPBodyConfiguration configuration) {
-        RouterManagerImpl routerManager = new RouterManagerImpl();
+        return create(configuration, false);
+    }
+
+    static RouterManager create(HTTPBodyConfiguration configuration, boolean compiledRouting) {
+        RouterManagerImpl routerManager = new RouterManagerImpl(compiledRouting);
         routerManager.register().path("*").handler(new HTTPBodyHandler(configuration));
         routerManager.register(DEFAULT_LAST_ROUTER_ID).path("*").handler(DefaultErrorResponseHandlerLoader.getInstance().getHandler());
         return routerManager;
@@ -6,7 +6,6 @@ import com.firefly.server.http2.SimpleResponse;
 import com.firefly.server.http2.router.handler.error.DefaultErrorResponseHandlerLoader;
 import com.firefly.utils.concurrent.Promise;
 import com.firefly.utils.function.Action1;
-import com.firefly.utils.json.Json;
 import com.firefly.utils.json.JsonArray;
 import com.firefly.utils.json.JsonObject;
 import com.firefly.utils.lang.GenericTypeReference;
@@ -208,7 +207,8 @@ public interface RoutingContext extends Closeable {
     }
 
     default RoutingContext writeJson(Object object) {
-        put(HttpHeader.CONTENT_TYPE, MimeTypes.Type.APPLICATION_JSON_UTF_8.asString()).write(Json.toJson(object));
+        put(HttpHeader.CONTENT_TYPE, MimeTypes.Type.APPLICATION_JSON_UTF_8.asString());
+        getResponse().writeJson(object);
         return this;
     }
 
@@ -17,7 +17,9 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +37,7 @@ public class HTTPBodyHandlerSPIImpl implements HTTPBodyHandlerSPI {
     String charset;
     private BufferedReader bufferedReader;
     private String stringBody;
+    private ByteBuffer byteBody;
 
 
     @Override
@@ -117,6 +120,10 @@ public class HTTPBodyHandlerSPIImpl implements HTTPBodyHandlerSPI {
     public String getStringBody(String charset) {
         if (stringBody != null) {
             return stringBody;
+        } else if (byteBody != null) {
+            stringBody = new String(byteBody.array(), byteBody.arrayOffset() + byteBody.position(),
+                    byteBody.remaining(), Charset.forName(charset));
+            return stringBody;
         } else {
             if (getInputStream() == null) {
                 return null;
@@ -137,24 +144,52 @@ public class HTTPBodyHandlerSPIImpl implements HTTPBodyHandlerSPI {
         return getStringBody(charset);
     }
 
+    /**
+     * Read the body bytes once. The UTF-8 JSON body is parsed from the bytes directly without decoding a string.
+     *
+     * @return The body bytes or null if the body is not a UTF-8 string or it has been read as a string.
+     */
+    private ByteBuffer getUTF8ByteBody() {
+        if (byteBody != null) {
+            return byteBody;
+        }
+        if (stringBody != null || !StandardCharsets.UTF_8.equals(Charset.forName(charset))) {
+            return null;
+        }
+        if (getInputStream() == null) {
+            return null;
+        }
+        try (InputStream inputStream = getInputStream()) {
+            byteBody = ByteBuffer.wrap(IO.readBytes(inputStream));
+            return byteBody;
+        } catch (IOException e) {
+            log.error("get byte body exception", e);
+            return null;
+        }
+    }
+
     @Override
     public <T> T getJsonBody(Class<T> clazz) {
-        return Json.toObject(getStringBody(), clazz);
+        ByteBuffer body = getUTF8ByteBody();
+        return body != null ? Json.toObject(body, clazz) : Json.toObject(getStringBody(), clazz);
     }
 
     @Override
     public <T> T getJsonBody(GenericTypeReference<T> typeReference) {
-        return Json.toObject(getStringBody(),typeReference);
+        ByteBuffer body = getUTF8ByteBody();
+        return body != null ? Json.toObject(body, typeReference) : Json.toObject(getStringBody(), typeReference);
     }
 
     @Override
     public JsonObject getJsonObjectBody() {
-        return Json.toJsonObject(getStringBody());
+        ByteBuffer body = getUTF8ByteBody();
+        return body != null ? Json.toJsonObject(body) : Json.toJsonObject(getStringBody());
     }
 
     @Override
     public JsonArray getJsonArrayBody() {
-        return Json.toJsonArray(getStringBody());
+        ByteBuffer body = getUTF8ByteBody();
+        return body != null ? Json.toJsonArray(body) : Json.toJsonArray(getStringBody());
     }
 
 }
@@ -0,0 +1,213 @@
+package com.firefly.server.http2.router.handler.file;
+
+import com.firefly.codec.http2.model.DateGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+
+/**
+ * The static file keeps the metadata and the immutable content of a file.
+ * The content is an immutable heap buffer for the small file, a read-only memory-mapped buffer for the large file,
+ * or null if the file is not cached.
+ *
+ * @author Pengtao Qiu
+ */
+public class StaticFile {
+
+    public static final String GZIP = "gzip";
+    public static final String BR = "br";
+
+    private final File file;
+    private final long length;
+    private final long lastModified;
+    private final String mimeType;
+    private final String contentEncoding;
+    private final String etag;
+    private final String lastModifiedDate;
+    private final ByteBuffer content;
+    private final StaticFile gzip;
+    private final StaticFile br;
+    private volatile long checkTime;
+
+    private StaticFile(File file, long length, long lastModified, String mimeType, String contentEncoding,
+                       ByteBuffer content, StaticFile gzip, StaticFile br) {
+        this.file = file;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.mimeType = mimeType;
+        this.contentEncoding = contentEncoding;
+        this.content = content;
+        this.gzip = gzip;
+        this.br = br;
+        this.etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length)
+                + (contentEncoding == null ? "" : "--" + contentEncoding) + "\"";
+        this.lastModifiedDate = DateGenerator.formatDate(lastModified);
+        this.checkTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Load the file and its precompressed siblings.
+     *
+     * @param file          The file.
+     * @param mimeType      The MIME type of the file.
+     * @param configuration The static file configuration.
+     * @param loadContent   If true, read or map the file content into the memory.
+     * @return The static file or null if the file does not exist.
+     * @throws IOException If reading the file fails.
+     */
+    public static StaticFile load(File file, String mimeType, StaticFileConfiguration configuration,
+                                  boolean loadContent) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        StaticFile gzip = null;
+        StaticFile br = null;
+        if (configuration.isPrecompressedEnabled()) {
+            gzip = loadFile(new File(file.getPath() + ".gz"), mimeType, GZIP, configuration, loadContent, null, null);
+            br = loadFile(new File(file.getPath() + ".br"), mimeType, BR, configuration, loadContent, null, null);
+        }
+        return loadFile(file, mimeType, null, configuration, loadContent, gzip, br);
+    }
+
+    private static StaticFile loadFile(File file, String mimeType, String contentEncoding,
+                                       StaticFileConfiguration configuration, boolean loadContent,
+                                       StaticFile gzip, StaticFile br) throws IOException {
+        long lastModified = file.lastModified();
+        long length = file.length();
+        if (lastModified == 0L || !file.isFile()) {
+            return null;
+        }
+
+        ByteBuffer content = null;
+        if (loadContent) {
+            if (length <= configuration.getMaxInMemoryFileSize()) {
+                content = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).asReadOnlyBuffer();
+                length = content.remaining();
+            } else if (length <= configuration.getMaxMappedFileSize()) {
+                try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                     FileChannel channel = raf.getChannel()) {
+                    length = Math.min(length, channel.size());
+                    content = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+                }
+            }
+        }
+        return new StaticFile(file, length, lastModified, mimeType, contentEncoding, content, gzip, br);
+    }
+
+    /**
+     * Check whether the file or its precompressed siblings have been modified, created, or deleted.
+     *
+     * @return If true, the file needs to be reloaded.
+     */
+    public boolean isModified() {
+        return isModified(file, this)
+                || (gzip != null ? isModified(gzip.file, gzip) : new File(file.getPath() + ".gz").isFile())
+                || (br != null ? isModified(br.file, br) : new File(file.getPath() + ".br").isFile());
+    }
+
+    private static boolean isModified(File file, StaticFile staticFile) {
+        return file.lastModified() != staticFile.lastModified || file.length() != staticFile.length;
+    }
+
+    /**
+     * Select the precompressed sibling file.
+     *
+     * @param encoding The content encoding, gzip or br.
+     * @return The precompressed file or null if the file has no sibling of the encoding.
+     */
+    public StaticFile getPrecompressedFile(String encoding) {
+        if (GZIP.equalsIgnoreCase(encoding)) {
+            return gzip;
+        } else if (BR.equalsIgnoreCase(encoding)) {
+            return br;
+        } else {
+            return null;
+        }
+    }
+
+    public boolean hasPrecompressedFile() {
+        return gzip != null || br != null;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public String getETag() {
+        return etag;
+    }
+
+    public String getLastModifiedDate() {
+        return lastModifiedDate;
+    }
+
+    /**
+     * Get the duplicate of the cached content. The caller can change the position and limit of the returned buffer
+     * freely, but the content is read-only.
+     *
+     * @return The cached content or null if the file content is not cached.
+     */
+    public ByteBuffer getContent() {
+        return content != null ? content.duplicate() : null;
+    }
+
+    public boolean isContentCached() {
+        return content != null;
+    }
+
+    /**
+     * Get the bytes of the cached content including the precompressed siblings.
+     *
+     * @return The bytes of the cached content.
+     */
+    public long getCachedSize() {
+        long size = content != null ? content.capacity() : 0L;
+        if (gzip != null) {
+            size += gzip.getCachedSize();
+        }
+        if (br != null) {
+            size += br.getCachedSize();
+        }
+        return size;
+    }
+
+    long getCheckTime() {
+        return checkTime;
+    }
+
+    void setCheckTime(long checkTime) {
+        this.checkTime = checkTime;
+    }
+
+    @Override
+    public String toString() {
+        return "StaticFile{" +
+                "file=" + file +
+                ", length=" + length +
+                ", lastModified=" + lastModified +
+                ", contentEncoding='" + contentEncoding + '\'' +
+                ", contentCached=" + isContentCached() +
+                '}';
+    }
+}
@@ -0,0 +1,106 @@
+package com.firefly.server.http2.router.handler.file;
+
+import com.firefly.codec.http2.model.MimeTypes;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The static file cache evicts the least recently used files when the cached content exceeds the max cache size.
+ * The cached file is checked at most once per the check interval, and it is reloaded when it has been modified.
+ *
+ * @author Pengtao Qiu
+ */
+public class StaticFileCache {
+
+    private final StaticFileConfiguration configuration;
+    private final LinkedHashMap<String, StaticFile> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cacheSize;
+
+    public StaticFileCache(StaticFileConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Get the static file from the cache. If the file is not cached or has been modified, load it.
+     *
+     * @param file The file.
+     * @return The static file or null if the file does not exist.
+     * @throws IOException If reading the file fails.
+     */
+    public StaticFile get(File file) throws IOException {
+        String key = file.getPath();
+        StaticFile staticFile;
+        synchronized (this) {
+            staticFile = cache.get(key);
+        }
+
+        if (staticFile != null) {
+            long now = System.currentTimeMillis();
+            if (now - staticFile.getCheckTime() < configuration.getCacheCheckInterval()) {
+                return staticFile;
+            }
+            if (!staticFile.isModified()) {
+                staticFile.setCheckTime(now);
+                return staticFile;
+            }
+            remove(key, staticFile);
+        }
+
+        String mimeType = MimeTypes.getDefaultMimeByExtension(file.getName());
+        StaticFile loaded = StaticFile.load(file, mimeType, configuration, fitsCache(file));
+        if (loaded != null) {
+            put(key, loaded);
+        }
+        return loaded;
+    }
+
+    private boolean fitsCache(File file) {
+        long length = file.length();
+        return length <= configuration.getMaxMappedFileSize() && length <= configuration.getMaxCacheSize();
+    }
+
+    private synchronized void put(String key, StaticFile staticFile) {
+        StaticFile old = cache.put(key, staticFile);
+        if (old != null) {
+            cacheSize -= old.getCachedSize();
+        }
+        cacheSize += staticFile.getCachedSize();
+
+        Iterator<Map.Entry<String, StaticFile>> iterator = cache.entrySet().iterator();
+        while (cacheSize > configuration.getMaxCacheSize() && iterator.hasNext()) {
+            Map.Entry<String, StaticFile> eldest = iterator.next();
+            if (eldest.getValue() != staticFile) {
+                cacheSize -= eldest.getValue().getCachedSize();
+                iterator.remove();
+            }
+        }
+    }
+
+    private synchronized void remove(String key, StaticFile staticFile) {
+        if (cache.remove(key, staticFile)) {
+            cacheSize -= staticFile.getCachedSize();
+        }
+    }
+
+    /**
+     * Get the bytes of the cached file content.
+     *
+     * @return The bytes of the cached file content.
+     */
+    public synchronized long getCacheSize() {
+        return cacheSize;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        cacheSize = 0L;
+    }
+}
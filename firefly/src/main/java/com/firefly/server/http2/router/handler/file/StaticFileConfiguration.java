@@ -8,6 +8,13 @@ public class StaticFileConfiguration {
     private String rootPath;
     private int maxRangePart = 8;
 
+    private boolean cacheEnabled = true;
+    private long maxCacheSize = 256L * 1024 * 1024;
+    private int maxInMemoryFileSize = 256 * 1024;
+    private long maxMappedFileSize = 64L * 1024 * 1024;
+    private long cacheCheckInterval = 1000L;
+    private boolean precompressedEnabled = true;
+
     public String getRootPath() {
         return rootPath;
     }
@@ -23,4 +30,87 @@ public class StaticFileConfiguration {
     public void setMaxRangePart(int maxRangePart) {
         this.maxRangePart = maxRangePart;
     }
+
+    /**
+     * If true, the static file handler caches the file metadata and content. The default value is true.
+     *
+     * @return Whether the content cache is enabled.
+     */
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    /**
+     * Get the max bytes of the cached file content. When the cache exceeds it,
+     * the least recently used files are evicted. The default value is 256MB.
+     *
+     * @return The max bytes of the cached file content.
+     */
+    public long getMaxCacheSize() {
+        return maxCacheSize;
+    }
+
+    public void setMaxCacheSize(long maxCacheSize) {
+        this.maxCacheSize = maxCacheSize;
+    }
+
+    /**
+     * Get the max size of the file that is read into an immutable heap buffer. The default value is 256KB.
+     *
+     * @return The max size of the in-memory file.
+     */
+    public int getMaxInMemoryFileSize() {
+        return maxInMemoryFileSize;
+    }
+
+    public void setMaxInMemoryFileSize(int maxInMemoryFileSize) {
+        this.maxInMemoryFileSize = maxInMemoryFileSize;
+    }
+
+    /**
+     * Get the max size of the file that is memory-mapped. The file that is larger than the in-memory size and
+     * smaller than this value is memory-mapped. The larger file is not cached and it is read from the disk
+     * for every request. The default value is 64MB.
+     *
+     * @return The max size of the memory-mapped file.
+     */
+    public long getMaxMappedFileSize() {
+        return maxMappedFileSize;
+    }
+
+    public void setMaxMappedFileSize(long maxMappedFileSize) {
+        this.maxMappedFileSize = maxMappedFileSize;
+    }
+
+    /**
+     * Get the interval (millisecond) of checking the last modified time of the cached file.
+     * The cached file is reloaded when it is modified. The default value is 1000ms.
+     *
+     * @return The interval of checking the cached file.
+     */
+    public long getCacheCheckInterval() {
+        return cacheCheckInterval;
+    }
+
+    public void setCacheCheckInterval(long cacheCheckInterval) {
+        this.cacheCheckInterval = cacheCheckInterval;
+    }
+
+    /**
+     * If true, the static file handler sends the precompressed sibling file (.br or .gz)
+     * according to the Accept-Encoding header. The default value is true.
+     *
+     * @return Whether the precompressed file is enabled.
+     */
+    public boolean isPrecompressedEnabled() {
+        return precompressedEnabled;
+    }
+
+    public void setPrecompressedEnabled(boolean precompressedEnabled) {
+        this.precompressedEnabled = precompressedEnabled;
+    }
 }
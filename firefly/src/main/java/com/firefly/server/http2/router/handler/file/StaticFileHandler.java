@@ -13,6 +13,7 @@ import com.firefly.utils.io.IO;
 import com.firefly.utils.lang.URIUtils;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -20,12 +21,16 @@ import java.util.List;
  */
 public class StaticFileHandler implements Handler {
 
+    private static final String[] PRECOMPRESSED_ENCODINGS = {StaticFile.BR, StaticFile.GZIP};
+
     private StaticFileConfiguration configuration;
     private AbstractErrorResponseHandler errorResponseHandler;
+    private StaticFileCache staticFileCache;
 
     public StaticFileHandler(StaticFileConfiguration configuration) {
         this.configuration = configuration;
         errorResponseHandler = DefaultErrorResponseHandlerLoader.getInstance().getHandler();
+        staticFileCache = new StaticFileCache(configuration);
     }
 
     public StaticFileHandler(String rootPath) {
@@ -34,16 +39,53 @@ public class StaticFileHandler implements Handler {
         errorResponseHandler = DefaultErrorResponseHandlerLoader.getInstance().getHandler();
     }
 
+    public StaticFileCache getStaticFileCache() {
+        return staticFileCache;
+    }
+
     @Override
     public void handle(RoutingContext ctx) {
         File file = new File(configuration.getRootPath(), URIUtils.canonicalPath(ctx.getURI().getPath()));
-        if (file.exists()) {
-            long contentLength = file.length();
-            String mimeType = MimeTypes.getDefaultMimeByExtension(file.getName());
+        StaticFile staticFile;
+        try {
+            if (configuration.isCacheEnabled()) {
+                staticFile = staticFileCache.get(file);
+            } else {
+                staticFile = StaticFile.load(file, MimeTypes.getDefaultMimeByExtension(file.getName()), configuration, false);
+            }
+        } catch (IOException e) {
+            errorResponseHandler.render(ctx, HttpStatus.INTERNAL_SERVER_ERROR_500, e);
+            return;
+        }
 
+        if (staticFile != null) {
             List<String> reqRanges = ctx.getFields().getValuesList(HttpHeader.RANGE.asString());
-            if (reqRanges == null || reqRanges.isEmpty()) {
-                responseNoRange(ctx, file, contentLength, mimeType);
+            boolean noRange = reqRanges == null || reqRanges.isEmpty();
+            if (staticFile.hasPrecompressedFile()) {
+                ctx.put(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING.asString());
+                if (noRange) {
+                    staticFile = selectPrecompressedFile(ctx, staticFile);
+                }
+            }
+
+            ctx.put(HttpHeader.ETAG, staticFile.getETag());
+            ctx.put(HttpHeader.LAST_MODIFIED, staticFile.getLastModifiedDate());
+            if (isNotModified(ctx, staticFile)) {
+                ctx.setStatus(HttpStatus.NOT_MODIFIED_304).end();
+                return;
+            }
+
+            long contentLength = staticFile.getLength();
+            String mimeType = staticFile.getMimeType();
+            if (noRange) {
+                if (staticFile.getContentEncoding() != null) {
+                    ctx.put(HttpHeader.CONTENT_ENCODING, staticFile.getContentEncoding());
+                }
+                if (staticFile.isContentCached()) {
+                    responseCachedContent(ctx, staticFile.getContent(), HttpStatus.OK_200, contentLength, mimeType);
+                } else {
+                    responseNoRange(ctx, staticFile.getFile(), contentLength, mimeType);
+                }
             } else {
                 // Parse the satisfiable ranges
                 List<InclusiveByteRange> ranges = InclusiveByteRange.satisfiableRanges(reqRanges, contentLength);
@@ -55,11 +97,20 @@ public class StaticFileHandler implements Handler {
                     //  if there is only a single valid range (must be satisfiable
                     //  since were here now), send that range with a 206 response
                     if (ranges.size() == 1) {
-                        responseOneRange(ctx, file, contentLength, mimeType, ranges);
+                        if (staticFile.isContentCached()) {
+                            InclusiveByteRange range = ranges.get(0);
+                            ByteBuffer content = staticFile.getContent();
+                            content.position((int) range.getFirst(contentLength));
+                            content.limit((int) (range.getLast(contentLength) + 1));
+                            ctx.put(HttpHeader.CONTENT_RANGE, range.toHeaderRangeString(contentLength));
+                            responseCachedContent(ctx, content, HttpStatus.PARTIAL_CONTENT_206, content.remaining(), mimeType);
+                        } else {
+                            responseOneRange(ctx, staticFile.getFile(), contentLength, mimeType, ranges);
+                        }
                     } else {
                         //  multiple non-overlapping valid ranges cause a multipart
                         //  206 response which does not require an overall content-length header
-                        responseMultiRanges(ctx, file, contentLength, mimeType, ranges);
+                        responseMultiRanges(ctx, staticFile.getFile(), contentLength, mimeType, ranges);
                     }
                 }
             }
@@ -68,6 +119,66 @@ public class StaticFileHandler implements Handler {
         }
     }
 
+    protected StaticFile selectPrecompressedFile(RoutingContext ctx, StaticFile staticFile) {
+        List<String> acceptEncodings = ctx.getFields().getValuesList(HttpHeader.ACCEPT_ENCODING.asString());
+        if (acceptEncodings == null || acceptEncodings.isEmpty()) {
+            return staticFile;
+        }
+
+        QuotedQualityCSV csv = new QuotedQualityCSV(PRECOMPRESSED_ENCODINGS);
+        acceptEncodings.forEach(csv::addValue);
+        for (String encoding : csv) {
+            if ("*".equals(encoding)) {
+                for (String e : PRECOMPRESSED_ENCODINGS) {
+                    StaticFile precompressedFile = staticFile.getPrecompressedFile(e);
+                    if (precompressedFile != null) {
+                        return precompressedFile;
+                    }
+                }
+            } else {
+                StaticFile precompressedFile = staticFile.getPrecompressedFile(encoding);
+                if (precompressedFile != null) {
+                    return precompressedFile;
+                }
+            }
+        }
+        return staticFile;
+    }
+
+    protected boolean isNotModified(RoutingContext ctx, StaticFile staticFile) {
+        String ifNoneMatch = ctx.getFields().get(HttpHeader.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String etag : new QuotedCSV(true, ifNoneMatch)) {
+                if (etag.equals("*")) {
+                    return true;
+                }
+                if (etag.startsWith("W/")) {
+                    etag = etag.substring(2);
+                }
+                if (etag.equals(staticFile.getETag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String ifModifiedSince = ctx.getFields().get(HttpHeader.IF_MODIFIED_SINCE);
+        if (ifModifiedSince != null) {
+            long date = DateParser.parseDate(ifModifiedSince);
+            return date != -1 && staticFile.getLastModified() / 1000 <= date / 1000;
+        }
+        return false;
+    }
+
+    protected void responseCachedContent(RoutingContext ctx, ByteBuffer content, int status, long contentLength, String mimeType) {
+        ctx.setStatus(status);
+        ctx.put(HttpHeader.CONTENT_LENGTH, String.valueOf(contentLength));
+        if (StringUtils.hasText(mimeType)) {
+            ctx.put(HttpHeader.CONTENT_TYPE, mimeType);
+        }
+        ctx.getResponse().end(content);
+    }
+
     protected void responseMultiRanges(RoutingContext ctx, File file, long contentLength, String mimeType, List<InclusiveByteRange> ranges) {
         ctx.setStatus(HttpStatus.PARTIAL_CONTENT_206);
 
@@ -0,0 +1,594 @@
+package com.firefly.server.http2.router.impl;
+
+import com.firefly.codec.http2.model.MimeTypes;
+import com.firefly.server.http2.router.Matcher;
+import com.firefly.server.http2.router.Router;
+import com.firefly.server.http2.router.RouterManager.RouterMatchResult;
+import com.firefly.utils.StringUtils;
+import com.firefly.utils.pattern.Pattern;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * The compiled router is an immutable snapshot of the registered routers.
+ * The precise, parameter and wildcard paths are put into a radix tree. The wildcard path is indexed by the literal
+ * prefix before the first wildcard, and the rest of it is checked by the pattern. The regex paths are checked one by one.
+ * <p>
+ * Every router has an index in the order of the router id. The results of the method, content type and accept
+ * matching are the bitsets of the router indexes, so the path tree only visits the routers that pass the other checks.
+ * The lookup uses the thread local scratch space, it only allocates the result set and the parameter maps.
+ *
+ * @author Pengtao Qiu
+ */
+public class CompiledRouter {
+
+    private static final char[] EMPTY_CHARS = new char[0];
+    private static final Node[] EMPTY_NODES = new Node[0];
+    private static final Route[] EMPTY_ROUTES = new Route[0];
+    private static final WildcardRoute[] EMPTY_WILDCARD_ROUTES = new WildcardRoute[0];
+
+    private final int version;
+    private final Router[] routers;
+    private final int words;
+    private final long[] matchable;
+    private final long[] pathNotRequired;
+    private final long[] methodNotRequired;
+    private final long[] contentTypeNotRequired;
+    private final long[] acceptNotRequired;
+    private final Map<Router, Integer> routerIndexes;
+
+    private final Map<String, long[]> methods;
+    private final Map<String, long[]> contentTypes;
+    private final WildcardRoute[] contentTypePatterns;
+    private final Matcher acceptHeaderMatcher;
+    private final Node root;
+    private final RegexRoute[] regexRoutes;
+    private final int maxParameters;
+    private final ThreadLocal<Scratch> scratch;
+
+    public CompiledRouter(int version, RouterManagerImpl routerManager) {
+        this.version = version;
+
+        AbstractPreciseMatcher precisePathMatcher = (AbstractPreciseMatcher) routerManager.getPrecisePathMather();
+        AbstractPatternMatcher patternPathMatcher = (AbstractPatternMatcher) routerManager.getPatternPathMatcher();
+        ParameterPathMatcher parameterPathMatcher = (ParameterPathMatcher) routerManager.getParameterPathMatcher();
+        AbstractRegexMatcher regexPathMatcher = (AbstractRegexMatcher) routerManager.getRegexPathMatcher();
+        AbstractPreciseMatcher httpMethodMatcher = (AbstractPreciseMatcher) routerManager.getHttpMethodMatcher();
+        AbstractPreciseMatcher contentTypePreciseMatcher = (AbstractPreciseMatcher) routerManager.getContentTypePreciseMatcher();
+        AbstractPatternMatcher contentTypePatternMatcher = (AbstractPatternMatcher) routerManager.getContentTypePatternMatcher();
+        AbstractPreciseMatcher acceptHeaderMatcher = (AbstractPreciseMatcher) routerManager.getAcceptHeaderMatcher();
+
+        // index the routers in the order of the router id
+        TreeSet<Router> routerSet = new TreeSet<>();
+        Consumer<Map<?, Set<Router>>> collector = map -> {
+            if (map != null) {
+                map.values().forEach(routerSet::addAll);
+            }
+        };
+        collector.accept(precisePathMatcher.map);
+        collector.accept(patternPathMatcher.patternMap);
+        collector.accept(parameterPathMatcher.rules());
+        collector.accept(regexPathMatcher.regexMap);
+        collector.accept(httpMethodMatcher.map);
+        collector.accept(contentTypePreciseMatcher.map);
+        collector.accept(contentTypePatternMatcher.patternMap);
+        collector.accept(acceptHeaderMatcher.map);
+
+        routers = routerSet.toArray(new Router[0]);
+        words = (routers.length + 63) >>> 6;
+        routerIndexes = new HashMap<>();
+        for (int i = 0; i < routers.length; i++) {
+            routerIndexes.put(routers[i], i);
+        }
+
+        matchable = new long[words];
+        pathNotRequired = new long[words];
+        methodNotRequired = new long[words];
+        contentTypeNotRequired = new long[words];
+        acceptNotRequired = new long[words];
+        for (int i = 0; i < routers.length; i++) {
+            Set<Matcher.MatchType> matchTypes = routers[i].getMatchTypes();
+            if (!matchTypes.isEmpty()) {
+                set(matchable, i);
+            }
+            if (!matchTypes.contains(Matcher.MatchType.PATH)) {
+                set(pathNotRequired, i);
+            }
+            if (!matchTypes.contains(Matcher.MatchType.METHOD)) {
+                set(methodNotRequired, i);
+            }
+            if (!matchTypes.contains(Matcher.MatchType.CONTENT_TYPE)) {
+                set(contentTypeNotRequired, i);
+            }
+            if (!matchTypes.contains(Matcher.MatchType.ACCEPT)) {
+                set(acceptNotRequired, i);
+            }
+        }
+
+        methods = toBitsets(httpMethodMatcher.map);
+        contentTypes = toBitsets(contentTypePreciseMatcher.map);
+        contentTypePatterns = toWildcardRoutes(contentTypePatternMatcher.patternMap);
+        this.acceptHeaderMatcher = acceptHeaderMatcher.map != null ? acceptHeaderMatcher : null;
+
+        // build the path tree
+        root = new Node("");
+        int parameters = 0;
+        if (precisePathMatcher.map != null) {
+            for (Map.Entry<String, Set<Router>> e : precisePathMatcher.map.entrySet()) {
+                insertLiteral(root, e.getKey()).addRoute(new Route(toIndexes(e.getValue()), new String[0]));
+            }
+        }
+        Map<String, Set<Router>> parameterRules = parameterPathMatcher.rules();
+        if (parameterRules != null) {
+            for (Map.Entry<String, Set<Router>> e : parameterRules.entrySet()) {
+                parameters = Math.max(parameters, insertParameterPath(e.getKey(), toIndexes(e.getValue())));
+            }
+        }
+        if (patternPathMatcher.patternMap != null) {
+            for (Map.Entry<AbstractPatternMatcher.PatternRule, Set<Router>> e : patternPathMatcher.patternMap.entrySet()) {
+                String rule = e.getKey().rule;
+                int wildcard = rule.indexOf('*');
+                Node node = insertLiteral(root, wildcard < 0 ? rule : rule.substring(0, wildcard));
+                node.addWildcardRoute(new WildcardRoute(e.getKey().pattern, toIndexes(e.getValue())));
+            }
+        }
+        maxParameters = parameters;
+
+        if (regexPathMatcher.regexMap != null) {
+            regexRoutes = regexPathMatcher.regexMap.entrySet().stream()
+                                                   .map(e -> new RegexRoute(e.getKey().pattern, toIndexes(e.getValue())))
+                                                   .toArray(RegexRoute[]::new);
+        } else {
+            regexRoutes = new RegexRoute[0];
+        }
+
+        scratch = ThreadLocal.withInitial(Scratch::new);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public NavigableSet<RouterMatchResult> findRouter(String method, String path, String contentType, String accept) {
+        Scratch s = scratch.get();
+        long[] mask = s.mask;
+        System.arraycopy(matchable, 0, mask, 0, words);
+
+        // method
+        long[] methodBits = method != null ? methods.get(method.toUpperCase()) : null;
+        and(mask, methodNotRequired, methodBits);
+
+        // content type
+        if (!contentTypes.isEmpty() || contentTypePatterns.length > 0) {
+            String mimeType = getMIMEType(contentType);
+            long[] contentTypeBits = s.contentTypeMatched;
+            Arrays.fill(contentTypeBits, 0L);
+            if (StringUtils.hasText(mimeType)) {
+                or(contentTypeBits, contentTypes.get(mimeType));
+                for (int i = 0; i < contentTypePatterns.length; i++) {
+                    WildcardRoute route = contentTypePatterns[i];
+                    if (route.intersects(mask)) {
+                        String[] strings = route.pattern.match(mimeType);
+                        s.contentTypeParameters[i] = strings;
+                        if (strings != null) {
+                            route.setAll(contentTypeBits);
+                        }
+                    }
+                }
+            }
+            and(mask, contentTypeNotRequired, contentTypeBits);
+        }
+
+        // accept
+        if (acceptHeaderMatcher != null && !isEmpty(mask)) {
+            long[] acceptBits = s.acceptMatched;
+            Arrays.fill(acceptBits, 0L);
+            Matcher.MatchResult result = acceptHeaderMatcher.match(accept);
+            if (result != null) {
+                for (Router router : result.getRouters()) {
+                    set(acceptBits, routerIndexes.get(router));
+                }
+            }
+            and(mask, acceptNotRequired, acceptBits);
+        }
+
+        // path
+        long[] pathBits = s.pathMatched;
+        Arrays.fill(pathBits, 0L);
+        if (path != null && !isEmpty(mask)) {
+            int length = path.length();
+            if (length == 0 || path.charAt(length - 1) != '/') {
+                length++; // the path is always matched with the trailing slash
+            }
+            search(root, path, length, 0, 0, s);
+
+            for (RegexRoute route : regexRoutes) {
+                if (route.intersects(mask)) {
+                    java.util.regex.Matcher m = route.pattern.matcher(path);
+                    if (m.matches()) {
+                        Map<String, String> param = null;
+                        m.reset();
+                        while (m.find()) {
+                            for (int i = 1; i <= m.groupCount(); i++) {
+                                if (param == null) {
+                                    param = new HashMap<>();
+                                }
+                                param.put("group" + i, m.group(i));
+                            }
+                        }
+                        for (int index : route.routers) {
+                            if (get(mask, index)) {
+                                set(pathBits, index);
+                                if (param != null) {
+                                    s.parameters(index).putAll(param);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // collect the results in the order of the router id
+        NavigableSet<RouterMatchResult> ret = new TreeSet<>();
+        for (int i = 0; i < words; i++) {
+            long bits = mask[i] & (pathBits[i] | pathNotRequired[i]);
+            while (bits != 0L) {
+                int index = (i << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                Router router = routers[index];
+                if (router.isEnable()) {
+                    ret.add(new RouterMatchResult(router, getParameters(index, s), router.getMatchTypes()));
+                }
+            }
+        }
+        s.clear();
+        return ret;
+    }
+
+    private Map<String, String> getParameters(int index, Scratch s) {
+        Map<String, String> param = s.parameters[index];
+        for (int i = 0; i < contentTypePatterns.length; i++) {
+            String[] strings = s.contentTypeParameters[i];
+            if (strings != null && strings.length > 0 && contentTypePatterns[i].contains(index)) {
+                if (param == null) {
+                    param = s.parameters(index);
+                }
+                for (int j = 0; j < strings.length; j++) {
+                    param.put("param" + j, strings[j]);
+                }
+            }
+        }
+        return param;
+    }
+
+    private void search(Node node, String path, int length, int position, int depth, Scratch s) {
+        for (WildcardRoute route : node.wildcardRoutes) {
+            if (route.intersects(s.mask)) {
+                String[] strings = route.pattern.match(path);
+                if (strings != null) {
+                    for (int index : route.routers) {
+                        if (get(s.mask, index)) {
+                            set(s.pathMatched, index);
+                            if (strings.length > 0) {
+                                Map<String, String> param = s.parameters(index);
+                                for (int i = 0; i < strings.length; i++) {
+                                    param.put("param" + i, strings[i]);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        if (position == length) {
+            for (Route route : node.routes) {
+                for (int index : route.routers) {
+                    if (get(s.mask, index)) {
+                        set(s.pathMatched, index);
+                        if (route.parameterNames.length > 0) {
+                            Map<String, String> param = s.parameters(index);
+                            for (int i = 0; i < route.parameterNames.length; i++) {
+                                param.put(route.parameterNames[i], path.substring(s.parameterStart[i], s.parameterEnd[i]).trim());
+                            }
+                        }
+                    }
+                }
+            }
+            return;
+        }
+
+        Node child = node.child(charAt(path, position));
+        if (child != null && regionMatches(path, length, position, child.label)) {
+            search(child, path, length, position + child.label.length(), depth, s);
+        }
+
+        if (node.parameter != null) {
+            int end = position;
+            while (end < length && charAt(path, end) != '/') {
+                end++;
+            }
+            s.parameterStart[depth] = position;
+            s.parameterEnd[depth] = Math.min(end, path.length());
+            search(node.parameter, path, length, end, depth + 1, s);
+        }
+    }
+
+    private static char charAt(String path, int index) {
+        return index < path.length() ? path.charAt(index) : '/';
+    }
+
+    private static boolean regionMatches(String path, int length, int position, String label) {
+        if (position + label.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < label.length(); i++) {
+            if (charAt(path, position + i) != label.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getMIMEType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        if (contentType.length() > 0 && contentType.indexOf(';') < 0) {
+            return contentType;
+        }
+        return MimeTypes.getContentTypeMIMEType(contentType);
+    }
+
+    private int insertParameterPath(String rule, int[] indexes) {
+        List<String> names = new ArrayList<>();
+        Node node = root;
+        int start = 0;
+        int i = 1;
+        while (i < rule.length()) {
+            int end = rule.indexOf('/', i);
+            if (end < 0) {
+                end = rule.length();
+            }
+            if (rule.charAt(i) == ':') {
+                node = insertLiteral(node, rule.substring(start, i));
+                if (node.parameter == null) {
+                    node.parameter = new Node("");
+                }
+                node = node.parameter;
+                names.add(rule.substring(i + 1, end).trim());
+                start = end;
+            }
+            i = end + 1;
+        }
+        node = insertLiteral(node, rule.substring(start));
+        node.addRoute(new Route(indexes, names.toArray(new String[0])));
+        return names.size();
+    }
+
+    private static Node insertLiteral(Node node, String value) {
+        int i = 0;
+        while (i < value.length()) {
+            int childIndex = node.childIndex(value.charAt(i));
+            if (childIndex < 0) {
+                Node child = new Node(value.substring(i));
+                node.addChild(child);
+                return child;
+            }
+
+            Node child = node.children[childIndex];
+            String label = child.label;
+            int j = 0;
+            while (j < label.length() && i + j < value.length() && label.charAt(j) == value.charAt(i + j)) {
+                j++;
+            }
+            if (j < label.length()) {
+                // split the edge at the end of the common prefix
+                Node prefix = new Node(label.substring(0, j));
+                child.label = label.substring(j);
+                prefix.addChild(child);
+                node.children[childIndex] = prefix;
+                child = prefix;
+            }
+            node = child;
+            i += j;
+        }
+        return node;
+    }
+
+    private int[] toIndexes(Set<Router> set) {
+        return set.stream().mapToInt(routerIndexes::get).sorted().toArray();
+    }
+
+    private Map<String, long[]> toBitsets(Map<String, Set<Router>> map) {
+        Map<String, long[]> ret = new HashMap<>();
+        if (map != null) {
+            map.forEach((key, value) -> {
+                long[] bits = new long[words];
+                for (int index : toIndexes(value)) {
+                    set(bits, index);
+                }
+                ret.put(key, bits);
+            });
+        }
+        return ret;
+    }
+
+    private WildcardRoute[] toWildcardRoutes(Map<AbstractPatternMatcher.PatternRule, Set<Router>> map) {
+        if (map == null) {
+            return EMPTY_WILDCARD_ROUTES;
+        }
+        return map.entrySet().stream()
+                  .map(e -> new WildcardRoute(e.getKey().pattern, toIndexes(e.getValue())))
+                  .toArray(WildcardRoute[]::new);
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0L;
+    }
+
+    private static void and(long[] mask, long[] notRequired, long[] matched) {
+        for (int i = 0; i < mask.length; i++) {
+            mask[i] &= matched != null ? (notRequired[i] | matched[i]) : notRequired[i];
+        }
+    }
+
+    private static void or(long[] bits, long[] other) {
+        if (other != null) {
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] |= other[i];
+            }
+        }
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        for (long b : bits) {
+            if (b != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Node {
+        String label;
+        char[] indexes = EMPTY_CHARS;
+        Node[] children = EMPTY_NODES;
+        Node parameter;
+        Route[] routes = EMPTY_ROUTES;
+        WildcardRoute[] wildcardRoutes = EMPTY_WILDCARD_ROUTES;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int childIndex(char c) {
+            for (int i = 0; i < indexes.length; i++) {
+                if (indexes[i] == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Node child(char c) {
+            int i = childIndex(c);
+            return i < 0 ? null : children[i];
+        }
+
+        void addChild(Node child) {
+            indexes = Arrays.copyOf(indexes, indexes.length + 1);
+            indexes[indexes.length - 1] = child.label.charAt(0);
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+        }
+
+        void addRoute(Route route) {
+            routes = Arrays.copyOf(routes, routes.length + 1);
+            routes[routes.length - 1] = route;
+        }
+
+        void addWildcardRoute(WildcardRoute route) {
+            wildcardRoutes = Arrays.copyOf(wildcardRoutes, wildcardRoutes.length + 1);
+            wildcardRoutes[wildcardRoutes.length - 1] = route;
+        }
+    }
+
+    private static class IndexedRoute {
+        final int[] routers;
+        final long[] bits;
+
+        IndexedRoute(int[] routers) {
+            this.routers = routers;
+            int max = routers.length > 0 ? routers[routers.length - 1] : 0;
+            bits = new long[(max >>> 6) + 1];
+            for (int index : routers) {
+                set(bits, index);
+            }
+        }
+
+        boolean intersects(long[] mask) {
+            for (int i = 0; i < bits.length; i++) {
+                if ((bits[i] & mask[i]) != 0L) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean contains(int index) {
+            return (index >>> 6) < bits.length && get(bits, index);
+        }
+
+        void setAll(long[] target) {
+            for (int i = 0; i < bits.length; i++) {
+                target[i] |= bits[i];
+            }
+        }
+    }
+
+    private static class Route extends IndexedRoute {
+        final String[] parameterNames;
+
+        Route(int[] routers, String[] parameterNames) {
+            super(routers);
+            this.parameterNames = parameterNames;
+        }
+    }
+
+    private static class WildcardRoute extends IndexedRoute {
+        final Pattern pattern;
+
+        WildcardRoute(Pattern pattern, int[] routers) {
+            super(routers);
+            this.pattern = pattern;
+        }
+    }
+
+    private static class RegexRoute extends IndexedRoute {
+        final java.util.regex.Pattern pattern;
+
+        RegexRoute(java.util.regex.Pattern pattern, int[] routers) {
+            super(routers);
+            this.pattern = pattern;
+        }
+    }
+
+    private class Scratch {
+        final long[] mask = new long[words];
+        final long[] pathMatched = new long[words];
+        final long[] contentTypeMatched = new long[words];
+        final long[] acceptMatched = new long[words];
+        final int[] parameterStart = new int[maxParameters];
+        final int[] parameterEnd = new int[maxParameters];
+        final String[][] contentTypeParameters = new String[contentTypePatterns.length][];
+        @SuppressWarnings("unchecked")
+        final Map<String, String>[] parameters = new Map[routers.length];
+        final int[] touched = new int[routers.length];
+        int touchedCount;
+
+        Map<String, String> parameters(int index) {
+            Map<String, String> param = parameters[index];
+            if (param == null) {
+                param = new HashMap<>();
+                parameters[index] = param;
+                touched[touchedCount++] = index;
+            }
+            return param;
+        }
+
+        void clear() {
+            for (int i = 0; i < touchedCount; i++) {
+                parameters[touched[i]] = null;
+            }
+            touchedCount = 0;
+            Arrays.fill(contentTypeParameters, null);
+        }
+    }
+}
@@ -60,6 +60,16 @@ public class ParameterPathMatcher implements Matcher {
         return parameterPath;
     }
 
+    Map<String, Set<Router>> rules() {
+        if (parameterPath == null) {
+            return null;
+        }
+
+        Map<String, Set<Router>> rules = new HashMap<>();
+        parameterPath.values().forEach(map -> map.forEach((key, routers) -> rules.put(key.rule, routers)));
+        return rules;
+    }
+
     @Override
     public void add(String rule, Router router) {
         ParameterPath parameterPath = new ParameterPath(rule);
@@ -65,6 +65,7 @@ public class RouterImpl implements Router {
         }
         urlList.add(url);
         matchTypes.add(MatchType.PATH);
+        routerManager.routerChanged();
         return this;
     }
 
@@ -100,6 +101,7 @@ public class RouterImpl implements Router {
         routerManager.getRegexPathMatcher().add(regex, this);
         urlList.add(regex);
         matchTypes.add(MatchType.PATH);
+        routerManager.routerChanged();
         return this;
     }
 
@@ -112,6 +114,7 @@ public class RouterImpl implements Router {
     public Router method(String method) {
         routerManager.getHttpMethodMatcher().add(method, this);
         matchTypes.add(MatchType.METHOD);
+        routerManager.routerChanged();
         return this;
     }
 
@@ -143,6 +146,7 @@ public class RouterImpl implements Router {
             routerManager.getContentTypePatternMatcher().add(contentType, this);
         }
         matchTypes.add(MatchType.CONTENT_TYPE);
+        routerManager.routerChanged();
         return this;
     }
 
@@ -150,6 +154,7 @@ public class RouterImpl implements Router {
     public Router produces(String accept) {
         routerManager.getAcceptHeaderMatcher().add(accept, this);
         matchTypes.add(MatchType.ACCEPT);
+        routerManager.routerChanged();
         return this;
     }
 
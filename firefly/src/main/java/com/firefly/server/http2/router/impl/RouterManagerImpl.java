@@ -26,8 +26,23 @@ public class RouterManagerImpl implements RouterManager {
     private final Matcher contentTypePreciseMatcher;
     private final Matcher contentTypePatternMatcher;
     private final Matcher acceptHeaderMatcher;
+    private final boolean compiledRouting;
+    private final AtomicInteger version = new AtomicInteger();
+    private volatile CompiledRouter compiledRouter;
 
     public RouterManagerImpl() {
+        this(false);
+    }
+
+    /**
+     * Create a router manager.
+     *
+     * @param compiledRouting If true, the router manager compiles the registered routers into a radix tree and bitsets
+     *                        to find the routers. The result is the same as the matchers, but the lookup is faster.
+     *                        The routers are recompiled at the next lookup after they are changed.
+     */
+    public RouterManagerImpl(boolean compiledRouting) {
+        this.compiledRouting = compiledRouting;
         matcherMap = new HashMap<>();
         precisePathMather = new PrecisePathMatcher();
         patternPathMatcher = new PatternPathMatcher();
@@ -78,8 +93,35 @@ public class RouterManagerImpl implements RouterManager {
         return contentTypePatternMatcher;
     }
 
+    public boolean isCompiledRouting() {
+        return compiledRouting;
+    }
+
+    void routerChanged() {
+        version.incrementAndGet();
+    }
+
+    private CompiledRouter getCompiledRouter() {
+        CompiledRouter router = compiledRouter;
+        if (router == null || router.getVersion() != version.get()) {
+            synchronized (this) {
+                router = compiledRouter;
+                int currentVersion = version.get();
+                if (router == null || router.getVersion() != currentVersion) {
+                    router = new CompiledRouter(currentVersion, this);
+                    compiledRouter = router;
+                }
+            }
+        }
+        return router;
+    }
+
     @Override
     public NavigableSet<RouterMatchResult> findRouter(String method, String path, String contentType, String accept) {
+        if (compiledRouting) {
+            return getCompiledRouter().findRouter(method, path, contentType, accept);
+        }
+
         Map<Router, Set<Matcher.MatchType>> routerMatchTypes = new HashMap<>();
         Map<Router, Map<String, String>> routerParameters = new HashMap<>();
         findRouter(method, Matcher.MatchType.METHOD, routerMatchTypes, routerParameters);
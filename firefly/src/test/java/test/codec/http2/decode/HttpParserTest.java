@@ -742,6 +742,36 @@ public class HttpParserTest {
         Assert.assertTrue(_messageCompleted);
     }
 
+    @Test
+    public void testChunkParseDirect() throws Exception {
+        ByteBuffer b0 = BufferUtils.toBuffer(
+                "POST /chunk/direct?a=1 HTTP/1.1\r\n"
+                        + "Host: localhost\r\n"
+                        + "Transfer-Encoding: chunked\r\n"
+                        + "\r\n"
+                        + "a;\r\n"
+                        + "0123456789\r\n"
+                        + "1a\r\n"
+                        + "ABCDEFGHIJKLMNOPQRSTUVWXYZ\r\n"
+                        + "0\r\n"
+                        + "\r\n");
+        ByteBuffer buffer = BufferUtils.allocateDirect(b0.capacity());
+        int pos = BufferUtils.flipToFill(buffer);
+        BufferUtils.put(b0, buffer);
+        BufferUtils.flipToFlush(buffer, pos);
+
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        parseAll(parser, buffer);
+
+        Assert.assertEquals("POST", _methodOrVersion);
+        Assert.assertEquals("/chunk/direct?a=1", _uriOrStatus);
+        Assert.assertEquals("HTTP/1.1", _versionOrReason);
+        Assert.assertEquals("0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ", _content);
+        Assert.assertTrue(_headerCompleted);
+        Assert.assertTrue(_messageCompleted);
+    }
+
     @Test
     public void testChunkParseTrailer() throws Exception {
         ByteBuffer buffer = BufferUtils.toBuffer(
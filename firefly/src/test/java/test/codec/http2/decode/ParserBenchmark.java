@@ -0,0 +1,186 @@
+package test.codec.http2.decode;
+
+import com.firefly.codec.http2.decode.HttpParser;
+import com.firefly.codec.http2.decode.Parser;
+import com.firefly.codec.http2.encode.DataGenerator;
+import com.firefly.codec.http2.encode.HeaderGenerator;
+import com.firefly.codec.http2.encode.HeadersGenerator;
+import com.firefly.codec.http2.frame.DataFrame;
+import com.firefly.codec.http2.frame.HeadersFrame;
+import com.firefly.codec.http2.hpack.HpackEncoder;
+import com.firefly.codec.http2.model.*;
+import com.firefly.utils.io.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Compare the bytes per second of the HTTP1 and HTTP2 parsers when they parse the heap buffers and the direct buffers.
+ * The pooled read buffers of the TCP session are direct buffers, and the decoders pass them to the parsers without copying.
+ *
+ * @author Pengtao Qiu
+ */
+public class ParserBenchmark {
+
+    public static void main(String[] args) {
+        final int times = 1000 * 200;
+        byte[] http1 = http1Requests(16);
+        byte[] http2 = http2Frames(16);
+
+        System.out.println("warm up start");
+        parseHttp1(http1, false, times / 2);
+        parseHttp1(http1, true, times / 2);
+        parseHttp2(http2, false, times / 2);
+        parseHttp2(http2, true, times / 2);
+        System.out.println("warm up end");
+        System.out.println("=======================");
+
+        System.out.println("HTTP1 heap: " + format(parseHttp1(http1, false, times)));
+        System.out.println("HTTP1 direct: " + format(parseHttp1(http1, true, times)));
+        System.out.println("HTTP2 heap: " + format(parseHttp2(http2, false, times)));
+        System.out.println("HTTP2 direct: " + format(parseHttp2(http2, true, times)));
+    }
+
+    private static String format(double bytesPerSecond) {
+        return String.format("%.2f MB/s", bytesPerSecond / (1024 * 1024));
+    }
+
+    private static ByteBuffer toBuffer(byte[] data, boolean direct) {
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(data.length) : ByteBuffer.allocate(data.length);
+        buffer.put(data).flip();
+        return buffer;
+    }
+
+    private static byte[] http1Requests(int number) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < number; i++) {
+            s.append("POST /benchmark/path/").append(i).append("?query=value&number=").append(i).append(" HTTP/1.1\r\n")
+             .append("Host: localhost:8080\r\n")
+             .append("User-Agent: Mozilla/5.0 (X11; Linux x86_64) Firefly ParserBenchmark\r\n")
+             .append("Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n")
+             .append("Accept-Encoding: gzip, deflate\r\n")
+             .append("Cookie: session=0123456789abcdef; theme=dark\r\n")
+             .append("Content-Type: application/json\r\n")
+             .append("Content-Length: 64\r\n")
+             .append("\r\n");
+            for (int j = 0; j < 64; j++) {
+                s.append((char) ('a' + (j % 26)));
+            }
+        }
+        return s.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] http2Frames(int number) {
+        // the frames are parsed repeatedly, so the encoder does not use the dynamic table
+        HeadersGenerator headersGenerator = new HeadersGenerator(new HeaderGenerator(), new HpackEncoder(4096, 0));
+        DataGenerator dataGenerator = new DataGenerator(new HeaderGenerator());
+        ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+        byte[] content = new byte[1024];
+        for (int i = 0; i < number; i++) {
+            int streamId = i * 2 + 1;
+            HttpFields fields = new HttpFields();
+            fields.put("User-Agent", "Mozilla/5.0 (X11; Linux x86_64) Firefly ParserBenchmark");
+            fields.put("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8");
+            fields.put("Cookie", "session=0123456789abcdef; number=" + i);
+            MetaData.Request metaData = new MetaData.Request("POST", HttpScheme.HTTP,
+                    new HostPortHttpField("localhost:8080"), "/benchmark/path/" + i, HttpVersion.HTTP_2, fields);
+            headersGenerator.generateHeaders(streamId, metaData, null, false).forEach(out::put);
+            List<ByteBuffer> data = dataGenerator.generateData(streamId, ByteBuffer.wrap(content), true, content.length).second;
+            data.forEach(out::put);
+        }
+        out.flip();
+        return BufferUtils.toArray(out);
+    }
+
+    private static double parseHttp1(byte[] data, boolean direct, int times) {
+        ByteBuffer buffer = toBuffer(data, direct);
+        HttpParser parser = new HttpParser(new HttpParser.RequestHandler() {
+            @Override
+            public boolean startRequest(String method, String uri, HttpVersion version) {
+                return false;
+            }
+
+            @Override
+            public boolean content(ByteBuffer item) {
+                return false;
+            }
+
+            @Override
+            public boolean headerComplete() {
+                return false;
+            }
+
+            @Override
+            public boolean contentComplete() {
+                return false;
+            }
+
+            @Override
+            public boolean messageComplete() {
+                return true;
+            }
+
+            @Override
+            public void parsedHeader(HttpField field) {
+            }
+
+            @Override
+            public void earlyEOF() {
+            }
+
+            @Override
+            public void badMessage(int status, String reason) {
+                throw new IllegalStateException(reason);
+            }
+
+            @Override
+            public int getHeaderCacheSize() {
+                return 1024;
+            }
+        });
+
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            buffer.clear();
+            while (buffer.hasRemaining()) {
+                parser.parseNext(buffer);
+                if (parser.isState(HttpParser.State.END)) {
+                    parser.reset();
+                }
+            }
+        }
+        return bytesPerSecond((long) data.length * times, System.nanoTime() - start);
+    }
+
+    private static double parseHttp2(byte[] data, boolean direct, int times) {
+        ByteBuffer buffer = toBuffer(data, direct);
+        int[] frames = new int[1];
+        Parser parser = new Parser(new Parser.Listener.Adapter() {
+            @Override
+            public void onHeaders(HeadersFrame frame) {
+                frames[0]++;
+            }
+
+            @Override
+            public void onData(DataFrame frame) {
+                frames[0]++;
+            }
+        }, 4096, 8192);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            buffer.clear();
+            parser.parse(buffer);
+        }
+        long time = System.nanoTime() - start;
+        if (frames[0] == 0) {
+            throw new IllegalStateException("no frame is parsed");
+        }
+        return bytesPerSecond((long) data.length * times, time);
+    }
+
+    private static double bytesPerSecond(long bytes, long nanos) {
+        return bytes * 1000_000_000.0 / nanos;
+    }
+}
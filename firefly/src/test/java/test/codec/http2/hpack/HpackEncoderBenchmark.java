@@ -0,0 +1,70 @@
+package test.codec.http2.hpack;
+
+import com.firefly.codec.http2.hpack.HpackEncoder;
+import com.firefly.codec.http2.model.*;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Measure the header fields per second of the HPACK encoder when it encodes the response header blocks.
+ * The stable fields are the {@link PreEncodedHttpField} constants like the server response fields,
+ * and the other fields are created for every response.
+ *
+ * @author Pengtao Qiu
+ */
+public class HpackEncoderBenchmark {
+
+    private static final HttpField SERVER = new PreEncodedHttpField(HttpHeader.SERVER, "Firefly Benchmark");
+    private static final HttpField X_POWERED_BY = new PreEncodedHttpField(HttpHeader.X_POWERED_BY, "Firefly Benchmark");
+    private static final HttpField CONTENT_TYPE = MimeTypes.Type.APPLICATION_JSON_UTF_8.getContentTypeField();
+
+    public static void main(String[] args) {
+        final int times = 1000 * 1000;
+
+        System.out.println("warm up start");
+        encode(false, times / 2);
+        encode(true, times / 2);
+        System.out.println("warm up end");
+        System.out.println("=======================");
+
+        System.out.println("new fields: " + format(encode(false, times)));
+        System.out.println("pre-encoded fields: " + format(encode(true, times)));
+    }
+
+    private static String format(double fieldsPerSecond) {
+        return String.format("%.2f headers/s", fieldsPerSecond);
+    }
+
+    private static double encode(boolean preEncoded, int times) {
+        HpackEncoder encoder = new HpackEncoder();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long fields = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_2, 200, response(preEncoded, i));
+            buffer.clear();
+            encoder.encode(buffer, response);
+            fields += response.getFields().size() + 1;
+        }
+        long time = System.nanoTime() - start;
+        return fields * 1000_000_000D / time;
+    }
+
+    private static HttpFields response(boolean preEncoded, int i) {
+        HttpFields fields = new HttpFields();
+        if (preEncoded) {
+            fields.put(SERVER);
+            fields.put(X_POWERED_BY);
+            fields.put(CONTENT_TYPE);
+        } else {
+            fields.put(HttpHeader.SERVER, SERVER.getValue());
+            fields.put(HttpHeader.X_POWERED_BY, X_POWERED_BY.getValue());
+            fields.put(HttpHeader.CONTENT_TYPE, CONTENT_TYPE.getValue());
+        }
+        // the date of a second is used by 1000 responses
+        fields.putDateField(HttpHeader.DATE, 1000L * (i / 1000));
+        fields.putLongField(HttpHeader.CONTENT_LENGTH, 100 + i % 1000);
+        fields.put(HttpHeader.CACHE_CONTROL, "no-cache");
+        return fields;
+    }
+}
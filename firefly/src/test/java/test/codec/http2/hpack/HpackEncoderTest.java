@@ -1,11 +1,9 @@
 package test.codec.http2.hpack;
 
 import com.firefly.codec.http2.hpack.HpackContext;
+import com.firefly.codec.http2.hpack.HpackDecoder;
 import com.firefly.codec.http2.hpack.HpackEncoder;
-import com.firefly.codec.http2.model.HttpField;
-import com.firefly.codec.http2.model.HttpFields;
-import com.firefly.codec.http2.model.HttpVersion;
-import com.firefly.codec.http2.model.MetaData;
+import com.firefly.codec.http2.model.*;
 import com.firefly.utils.io.BufferUtils;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
@@ -223,4 +221,61 @@ public class HpackEncoderTest {
 
     }
 
+    @Test
+    public void testPreEncodedFieldCache() {
+        HpackEncoder encoder = new HpackEncoder(38 * 3);
+        HpackDecoder decoder = new HpackDecoder(38 * 3, 8192);
+        HttpField server = new PreEncodedHttpField(HttpHeader.SERVER, "firefly");
+        ByteBuffer buffer = BufferUtils.allocate(4096);
+
+        for (int i = 0; i < 8; i++) {
+            HttpFields fields = new HttpFields();
+            fields.add(server);
+            // the custom fields evict the cached entry
+            fields.add(new HttpField("x-custom-" + (i % 4), "value"));
+            fields.putDateField(HttpHeader.DATE, 1000L * i);
+
+            BufferUtils.clearToFill(buffer);
+            encoder.encode(buffer, new MetaData(HttpVersion.HTTP_2, fields));
+            BufferUtils.flipToFlush(buffer, 0);
+
+            MetaData decoded = decoder.decode(buffer);
+            assertThat(decoded.getFields().get(HttpHeader.SERVER), equalTo("firefly"));
+            assertThat(decoded.getFields().get("x-custom-" + (i % 4)), equalTo("value"));
+            assertThat(decoded.getFields().get(HttpHeader.DATE), equalTo(DateGenerator.formatDate(1000L * i)));
+        }
+
+        // the cached dynamic table entry is encoded as the index
+        HttpFields fields = new HttpFields();
+        fields.add(server);
+        for (int i = 0; i < 2; i++) {
+            BufferUtils.clearToFill(buffer);
+            encoder.encode(buffer, new MetaData(HttpVersion.HTTP_2, fields));
+            BufferUtils.flipToFlush(buffer, 0);
+            if (i > 0)
+                assertThat(buffer.remaining(), equalTo(1));
+            assertThat(decoder.decode(buffer).getFields().get(HttpHeader.SERVER), equalTo("firefly"));
+        }
+    }
+
+    @Test
+    public void testRequestPseudoHeaderCase() {
+        HpackEncoder encoder = new HpackEncoder();
+        HpackDecoder decoder = new HpackDecoder(4096, 8192);
+        ByteBuffer buffer = BufferUtils.allocate(4096);
+
+        // the methods that differ from the known methods in case are encoded as they are
+        for (String method : new String[]{"GET", "get", "Patch", "post", "CUSTOM"}) {
+            MetaData.Request request = new MetaData.Request(method, HttpScheme.HTTP,
+                    new HostPortHttpField("localhost:8080"), "/path", HttpVersion.HTTP_2, new HttpFields());
+
+            BufferUtils.clearToFill(buffer);
+            encoder.encode(buffer, request);
+            BufferUtils.flipToFlush(buffer, 0);
+
+            MetaData.Request decoded = (MetaData.Request) decoder.decode(buffer);
+            assertThat(decoded.getMethod(), equalTo(method));
+            assertThat(decoded.getURI().getPath(), equalTo("/path"));
+        }
+    }
 }
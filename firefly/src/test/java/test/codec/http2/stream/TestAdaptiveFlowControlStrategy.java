@@ -0,0 +1,209 @@
+package test.codec.http2.stream;
+
+import com.firefly.codec.http2.frame.Frame;
+import com.firefly.codec.http2.frame.PingFrame;
+import com.firefly.codec.http2.frame.WindowUpdateFrame;
+import com.firefly.codec.http2.stream.AdaptiveFlowControlStrategy;
+import com.firefly.codec.http2.stream.FlowControlStrategy;
+import com.firefly.codec.http2.stream.SessionSPI;
+import com.firefly.codec.http2.stream.StreamSPI;
+import com.firefly.utils.concurrent.Callback;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.firefly.codec.http2.stream.FlowControlStrategy.DEFAULT_WINDOW_SIZE;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestAdaptiveFlowControlStrategy {
+
+    private MockSession session;
+    private MockStream stream;
+
+    @Before
+    public void before() {
+        session = mock(MockSession.class, withSettings().useConstructor().defaultAnswer(CALLS_REAL_METHODS));
+        stream = mock(MockStream.class, withSettings().useConstructor(1).defaultAnswer(CALLS_REAL_METHODS));
+    }
+
+    @Test
+    public void testWindowUpdateThreshold() {
+        AdaptiveFlowControlStrategy flowControl = createFlowControl(1024 * 1024, 256 * 1024);
+
+        receive(flowControl, 4, 10000);
+        flowControl.onDataConsumed(session, stream, 32767);
+        Assert.assertThat(session.windowUpdates.isEmpty(), is(true));
+
+        // the consumed data exceeds the receive window * 0.5
+        flowControl.onDataConsumed(session, stream, 1);
+        Assert.assertThat(session.windowUpdates.size(), is(2));
+        assertWindowUpdate(session.windowUpdates.get(0), 0, 32768);
+        assertWindowUpdate(session.windowUpdates.get(1), 1, 32768);
+        Assert.assertThat(session.recvWindow.get(), is(DEFAULT_WINDOW_SIZE - 40000 + 32768));
+        Assert.assertThat(stream.recvWindow.get(), is(DEFAULT_WINDOW_SIZE - 40000 + 32768));
+    }
+
+    @Test
+    public void testGrowRecvWindow() {
+        AdaptiveFlowControlStrategy flowControl = createFlowControl(1024 * 1024, 256 * 1024);
+
+        // the BDP sample is 45000 bytes, and the window grows to the double sample
+        receive(flowControl, 4, 15000);
+        pingReply(flowControl);
+        Assert.assertThat(flowControl.getSessionRecvWindowTarget(), is(90000));
+        Assert.assertThat(flowControl.getStreamRecvWindowTarget(), is(90000));
+
+        // the growth is sent with the next window update frames
+        flowControl.onDataConsumed(session, stream, 60000);
+        Assert.assertThat(session.windowUpdates.size(), is(2));
+        assertWindowUpdate(session.windowUpdates.get(0), 0, 60000 + 90000 - DEFAULT_WINDOW_SIZE);
+        assertWindowUpdate(session.windowUpdates.get(1), 1, 60000 + 90000 - DEFAULT_WINDOW_SIZE);
+        Assert.assertThat(session.recvWindow.get(), is(90000));
+        Assert.assertThat(stream.recvWindow.get(), is(90000));
+
+        // the threshold is a half of the grown window
+        session.windowUpdates.clear();
+        flowControl.onDataReceived(session, stream, 45001);
+        flowControl.onDataConsumed(session, stream, 45000);
+        Assert.assertThat(session.windowUpdates.isEmpty(), is(true));
+        flowControl.onDataConsumed(session, stream, 1);
+        assertWindowUpdate(session.windowUpdates.get(0), 0, 45001);
+        assertWindowUpdate(session.windowUpdates.get(1), 1, 45001);
+    }
+
+    @Test
+    public void testMaxRecvWindow() {
+        AdaptiveFlowControlStrategy flowControl = createFlowControl(80000, 70000);
+
+        receive(flowControl, 4, 15000);
+        pingReply(flowControl);
+        Assert.assertThat(flowControl.getSessionRecvWindowTarget(), is(80000));
+        Assert.assertThat(flowControl.getStreamRecvWindowTarget(), is(70000));
+
+        flowControl.onDataConsumed(session, stream, 60000);
+        assertWindowUpdate(session.windowUpdates.get(0), 0, 60000 + 80000 - DEFAULT_WINDOW_SIZE);
+        assertWindowUpdate(session.windowUpdates.get(1), 1, 60000 + 70000 - DEFAULT_WINDOW_SIZE);
+        Assert.assertThat(session.recvWindow.get(), is(80000));
+        Assert.assertThat(stream.recvWindow.get(), is(70000));
+
+        // the estimator does not send the BDP ping when the window reaches the max window
+        receive(flowControl, 4, 15000);
+        Assert.assertThat(session.pings.size(), is(1));
+    }
+
+    @Test
+    public void testEnlargedSessionWindow() {
+        AdaptiveFlowControlStrategy flowControl = createFlowControl(1024 * 1024, 256 * 1024);
+
+        // the client preface enlarges the session window without the data consumption
+        int delta = 1024 * 1024 - DEFAULT_WINDOW_SIZE;
+        session.updateRecvWindow(delta);
+        session.frames(null, Callback.NOOP, new WindowUpdateFrame(0, delta));
+        session.windowUpdates.clear();
+
+        receive(flowControl, 4, 15000);
+        pingReply(flowControl);
+
+        // the session window is greater than the target, so only the stream window grows
+        flowControl.onDataConsumed(session, stream, 60000);
+        Assert.assertThat(session.windowUpdates.size(), is(1));
+        assertWindowUpdate(session.windowUpdates.get(0), 1, 60000 + 90000 - DEFAULT_WINDOW_SIZE);
+        Assert.assertThat(session.recvWindow.get(), is(1024 * 1024 - 60000));
+    }
+
+    private AdaptiveFlowControlStrategy createFlowControl(int maxSessionRecvWindow, int maxStreamRecvWindow) {
+        AdaptiveFlowControlStrategy flowControl = new AdaptiveFlowControlStrategy(DEFAULT_WINDOW_SIZE, 0.5f,
+                maxSessionRecvWindow, maxStreamRecvWindow, null);
+        session.flowControl = flowControl;
+        flowControl.onStreamCreated(stream);
+        return flowControl;
+    }
+
+    private void receive(AdaptiveFlowControlStrategy flowControl, int frames, int length) {
+        for (int i = 0; i < frames; i++) {
+            flowControl.onDataReceived(session, stream, length);
+        }
+    }
+
+    private void pingReply(AdaptiveFlowControlStrategy flowControl) {
+        Assert.assertThat(session.pings.size(), is(1));
+        long payload = session.pings.get(0).getPayloadAsLong();
+        Assert.assertThat(flowControl.onPingReply(session, new PingFrame(payload, true)), is(true));
+    }
+
+    private static void assertWindowUpdate(WindowUpdateFrame frame, int streamId, int delta) {
+        Assert.assertThat(frame.getStreamId(), is(streamId));
+        Assert.assertThat(frame.getWindowDelta(), is(delta));
+    }
+
+    abstract public static class MockSession implements SessionSPI {
+        public final AtomicInteger recvWindow = new AtomicInteger(DEFAULT_WINDOW_SIZE);
+        public final List<WindowUpdateFrame> windowUpdates = new ArrayList<>();
+        public final List<PingFrame> pings = new ArrayList<>();
+        public FlowControlStrategy flowControl;
+
+        @Override
+        public int updateRecvWindow(int delta) {
+            return recvWindow.getAndAdd(delta);
+        }
+
+        @Override
+        public void ping(PingFrame frame, Callback callback) {
+            pings.add(frame);
+            callback.succeeded();
+        }
+
+        @Override
+        public void frames(StreamSPI stream, Callback callback, Frame frame, Frame... frames) {
+            // the session notifies the flow control after the window update frame is written
+            windowUpdate(stream, (WindowUpdateFrame) frame);
+            for (Frame f : frames) {
+                windowUpdate(stream, (WindowUpdateFrame) f);
+            }
+            callback.succeeded();
+        }
+
+        private void windowUpdate(StreamSPI stream, WindowUpdateFrame frame) {
+            windowUpdates.add(frame);
+            flowControl.windowUpdate(this, frame.getStreamId() == 0 ? null : stream, frame);
+        }
+    }
+
+    abstract public static class MockStream implements StreamSPI {
+        public final int id;
+        public final AtomicInteger sendWindow = new AtomicInteger();
+        public final AtomicInteger recvWindow = new AtomicInteger();
+
+        public MockStream(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public int updateSendWindow(int delta) {
+            return sendWindow.getAndAdd(delta);
+        }
+
+        @Override
+        public int updateRecvWindow(int delta) {
+            return recvWindow.getAndAdd(delta);
+        }
+
+        @Override
+        public boolean isRemotelyClosed() {
+            return false;
+        }
+    }
+}
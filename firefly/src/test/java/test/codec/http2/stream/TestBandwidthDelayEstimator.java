@@ -0,0 +1,62 @@
+package test.codec.http2.stream;
+
+import com.firefly.codec.http2.stream.BandwidthDelayEstimator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestBandwidthDelayEstimator {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testGrowWindow() {
+        BandwidthDelayEstimator estimator = new BandwidthDelayEstimator(65535, 1024 * 1024, 100, TimeUnit.MILLISECONDS);
+        long now = 1000 * MS;
+
+        Assert.assertThat(estimator.onDataReceived(16 * 1024, now), is(true));
+        long payload = estimator.getPingPayload();
+        for (int i = 0; i < 4; i++) {
+            Assert.assertThat(estimator.onDataReceived(16 * 1024, now + i * MS), is(false));
+        }
+        Assert.assertThat(estimator.onPingReply(payload + 1, now + 10 * MS), is(false));
+        Assert.assertThat(estimator.onPingReply(payload, now + 10 * MS), is(true));
+        Assert.assertThat(estimator.getMinRtt(), is(10 * MS));
+        Assert.assertThat(estimator.getBdp(), is(64 * 1024L));
+        Assert.assertThat(estimator.getWindow(), is(128 * 1024));
+
+        // the min interval of the BDP pings
+        Assert.assertThat(estimator.onDataReceived(16 * 1024, now + 50 * MS), is(false));
+        now += 110 * MS;
+        Assert.assertThat(estimator.onDataReceived(16 * 1024, now), is(true));
+        estimator.onDataReceived(200 * 1024, now + MS);
+        Assert.assertThat(estimator.onPingReply(estimator.getPingPayload(), now + 10 * MS), is(true));
+        Assert.assertThat(estimator.getWindow(), is(400 * 1024));
+
+        // the window is not greater than the max window
+        now += 110 * MS;
+        Assert.assertThat(estimator.onDataReceived(16 * 1024, now), is(true));
+        estimator.onDataReceived(800 * 1024, now + MS);
+        Assert.assertThat(estimator.onPingReply(estimator.getPingPayload(), now + 10 * MS), is(true));
+        Assert.assertThat(estimator.getWindow(), is(1024 * 1024));
+        Assert.assertThat(estimator.onDataReceived(16 * 1024, now + 200 * MS), is(false));
+    }
+
+    @Test
+    public void testWindowIsNotLimit() {
+        BandwidthDelayEstimator estimator = new BandwidthDelayEstimator(65535, 1024 * 1024, 100, TimeUnit.MILLISECONDS);
+        long now = 1000 * MS;
+
+        Assert.assertThat(estimator.onDataReceived(1024, now), is(true));
+        estimator.onDataReceived(8 * 1024, now + MS);
+        Assert.assertThat(estimator.onPingReply(estimator.getPingPayload(), now + 10 * MS), is(true));
+        Assert.assertThat(estimator.getBdp(), is(8 * 1024L));
+        Assert.assertThat(estimator.getWindow(), is(65535));
+    }
+}
@@ -0,0 +1,97 @@
+package test.codec.http2.stream;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.firefly.client.http2.HTTP2ClientSession;
+import com.firefly.codec.http2.encode.Generator;
+import com.firefly.codec.http2.frame.DataFrame;
+import com.firefly.codec.http2.frame.ErrorCode;
+import com.firefly.codec.http2.frame.HeadersFrame;
+import com.firefly.codec.http2.frame.ResetFrame;
+import com.firefly.codec.http2.model.*;
+import com.firefly.codec.http2.stream.HTTP2Session;
+import com.firefly.codec.http2.stream.Session;
+import com.firefly.codec.http2.stream.SimpleFlowControlStrategy;
+import com.firefly.codec.http2.stream.Stream;
+import com.firefly.utils.concurrent.Callback;
+import com.firefly.utils.concurrent.FuturePromise;
+import com.firefly.utils.concurrent.Scheduler;
+import com.firefly.utils.concurrent.Schedulers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test the bytes sent of the streams that the flusher records. The frames are written to a mock connection.
+ *
+ * @author Pengtao Qiu
+ */
+public class TestHTTP2Flusher {
+
+    private Scheduler scheduler;
+    private MetricRegistry metrics;
+    private HTTP2Session session;
+
+    @Before
+    public void before() {
+        scheduler = Schedulers.createScheduler();
+        metrics = new MetricRegistry();
+        com.firefly.net.Session endPoint = mock(com.firefly.net.Session.class);
+        when(endPoint.isOpen()).thenReturn(true);
+        session = new HTTP2ClientSession(scheduler, endPoint, new Generator(), new Session.Listener.Adapter(),
+                new SimpleFlowControlStrategy(), 30 * 1000);
+        session.setMetrics(metrics);
+    }
+
+    @After
+    public void after() {
+        scheduler.stop();
+    }
+
+    @Test
+    public void testBytesSent() throws Exception {
+        sendAndReset();
+    }
+
+    @Test
+    public void testBytesSentByPriority() throws Exception {
+        session.setPriorityScheduling(16 * 1024);
+        sendAndReset();
+    }
+
+    private void sendAndReset() throws Exception {
+        Stream stream1 = newStream();
+        Stream stream2 = newStream();
+        stream1.data(new DataFrame(stream1.getId(), ByteBuffer.allocate(1000), false), Callback.NOOP);
+        stream2.data(new DataFrame(stream2.getId(), ByteBuffer.allocate(3000), false), Callback.NOOP);
+        stream1.data(new DataFrame(stream1.getId(), ByteBuffer.allocate(500), false), Callback.NOOP);
+
+        // the bytes sent are recorded when the stream is removed
+        Histogram histogram = metrics.histogram("http2.HTTP2Flusher.stream.bytesSent");
+        Assert.assertThat(histogram.getCount(), is(0L));
+        stream1.reset(new ResetFrame(stream1.getId(), ErrorCode.CANCEL_STREAM_ERROR.code), Callback.NOOP);
+        stream2.reset(new ResetFrame(stream2.getId(), ErrorCode.CANCEL_STREAM_ERROR.code), Callback.NOOP);
+        Assert.assertThat(session.getStreams().isEmpty(), is(true));
+        Assert.assertThat(histogram.getCount(), is(2L));
+        Assert.assertThat(histogram.getSnapshot().getMin(), is(1500L));
+        Assert.assertThat(histogram.getSnapshot().getMax(), is(3000L));
+    }
+
+    private Stream newStream() throws Exception {
+        MetaData.Request request = new MetaData.Request("GET", HttpScheme.HTTP,
+                new HostPortHttpField("localhost:8080"), "/", HttpVersion.HTTP_2, new HttpFields());
+        FuturePromise<Stream> promise = new FuturePromise<>();
+        session.newStream(new HeadersFrame(request, null, false), promise, new Stream.Listener.Adapter());
+        Stream stream = promise.get(2, TimeUnit.SECONDS);
+        Assert.assertThat(stream.getId() > 0, is(true));
+        return stream;
+    }
+}
@@ -0,0 +1,135 @@
+package test.codec.http2.stream;
+
+import com.firefly.codec.http2.stream.StreamPriorityTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestStreamPriorityTree {
+
+    private static class Item {
+        private final int streamId;
+        private int remaining;
+
+        private Item(int streamId, int remaining) {
+            this.streamId = streamId;
+            this.remaining = remaining;
+        }
+    }
+
+    private static class ItemSender implements StreamPriorityTree.Sender<Item> {
+        private final Map<Integer, Integer> bytesSent = new HashMap<>();
+        private final Map<Integer, Boolean> blocked = new HashMap<>();
+        private final int frameSize;
+
+        private ItemSender(int frameSize) {
+            this.frameSize = frameSize;
+        }
+
+        @Override
+        public int send(Item item) {
+            if (blocked.getOrDefault(item.streamId, false)) {
+                return StreamPriorityTree.BLOCKED;
+            }
+            int length = Math.min(item.remaining, frameSize);
+            item.remaining -= length;
+            bytesSent.merge(item.streamId, length, Integer::sum);
+            return length;
+        }
+
+        @Override
+        public boolean isComplete(Item item) {
+            return item.remaining == 0;
+        }
+
+        private int getBytesSent(int streamId) {
+            return bytesSent.getOrDefault(streamId, 0);
+        }
+    }
+
+    @Test
+    public void testWeight() {
+        StreamPriorityTree<Item> tree = new StreamPriorityTree<>(1024);
+        tree.prioritize(1, 0, 64, false);
+        tree.prioritize(3, 0, 16, false);
+        tree.offer(1, new Item(1, 1024 * 1024));
+        tree.offer(3, new Item(3, 1024 * 1024));
+
+        ItemSender sender = new ItemSender(512);
+        long sent = tree.schedule(sender, 100 * 1024);
+        Assert.assertThat(sent, greaterThanOrEqualTo(100 * 1024L));
+        Assert.assertThat(sender.getBytesSent(1) + sender.getBytesSent(3), is((int) sent));
+
+        double ratio = (double) sender.getBytesSent(1) / sender.getBytesSent(3);
+        Assert.assertThat(ratio, greaterThan(3.5));
+        Assert.assertThat(ratio, lessThan(4.5));
+        Assert.assertThat(tree.hasPending(), is(true));
+
+        // the items are sent completely
+        tree.schedule(sender, Long.MAX_VALUE);
+        Assert.assertThat(sender.getBytesSent(1), is(1024 * 1024));
+        Assert.assertThat(sender.getBytesSent(3), is(1024 * 1024));
+        Assert.assertThat(tree.hasPending(), is(false));
+    }
+
+    @Test
+    public void testDependency() {
+        StreamPriorityTree<Item> tree = new StreamPriorityTree<>(1024);
+        tree.prioritize(1, 0, 16, false);
+        tree.prioritize(3, 1, 16, false);
+        tree.offer(1, new Item(1, 8 * 1024));
+        tree.offer(3, new Item(3, 8 * 1024));
+
+        ItemSender sender = new ItemSender(1024);
+        tree.schedule(sender, 8 * 1024);
+        Assert.assertThat(sender.getBytesSent(1), is(8 * 1024));
+        Assert.assertThat(sender.getBytesSent(3), is(0));
+
+        // the dependent stream sends data when the parent stream is blocked
+        tree.offer(1, new Item(1, 8 * 1024));
+        sender.blocked.put(1, true);
+        tree.schedule(sender, Long.MAX_VALUE);
+        Assert.assertThat(sender.getBytesSent(1), is(8 * 1024));
+        Assert.assertThat(sender.getBytesSent(3), is(8 * 1024));
+        Assert.assertThat(tree.hasPending(), is(true));
+
+        sender.blocked.put(1, false);
+        tree.schedule(sender, Long.MAX_VALUE);
+        Assert.assertThat(sender.getBytesSent(1), is(16 * 1024));
+        Assert.assertThat(tree.hasPending(), is(false));
+    }
+
+    @Test
+    public void testReprioritize() {
+        StreamPriorityTree<Item> tree = new StreamPriorityTree<>(1024);
+        tree.prioritize(3, 0, 16, false);
+        tree.prioritize(5, 0, 16, false);
+        tree.prioritize(7, 0, 32, true);
+        Assert.assertThat(tree.getParentStreamId(3), is(7));
+        Assert.assertThat(tree.getParentStreamId(5), is(7));
+        Assert.assertThat(tree.getParentStreamId(7), is(0));
+
+        // the new parent depends on the stream, so it is moved to the former parent of the stream
+        tree.prioritize(7, 3, 32, false);
+        Assert.assertThat(tree.getParentStreamId(3), is(0));
+        Assert.assertThat(tree.getParentStreamId(7), is(3));
+        Assert.assertThat(tree.getParentStreamId(5), is(7));
+
+        // the children share the weight of the removed stream
+        tree.prioritize(9, 7, 16, false);
+        tree.remove(7);
+        Assert.assertThat(tree.getParentStreamId(7), is(-1));
+        Assert.assertThat(tree.getParentStreamId(5), is(3));
+        Assert.assertThat(tree.getParentStreamId(9), is(3));
+        Assert.assertThat(tree.getWeight(5), is(16));
+        Assert.assertThat(tree.getWeight(9), is(16));
+        Assert.assertThat(tree.getNodeSize(), is(3));
+    }
+}
@@ -0,0 +1,142 @@
+package test.http;
+
+import com.firefly.client.http2.HTTP2ClientConnection;
+import com.firefly.client.http2.HTTP2ConnectionManager;
+import com.firefly.client.http2.HTTP2ConnectionManager.StreamSlot;
+import com.firefly.client.http2.HTTPClientConnection;
+import com.firefly.codec.http2.model.HttpVersion;
+import com.firefly.utils.concurrent.Scheduler;
+import com.firefly.utils.concurrent.Schedulers;
+import com.firefly.utils.lang.pool.PooledObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestHTTP2ConnectionManager {
+
+    private static final String destination = "localhost:8080";
+
+    private Scheduler scheduler;
+    private HTTP2ConnectionManager manager;
+
+    @Before
+    public void before() {
+        scheduler = Schedulers.createScheduler();
+        // one connection that has one stream
+        manager = new HTTP2ConnectionManager(1, 1, 200, scheduler) {
+            @Override
+            protected int getMaxConcurrentStreams(HTTP2ClientConnection connection) {
+                return 1;
+            }
+        };
+    }
+
+    @After
+    public void after() {
+        manager.clear();
+        scheduler.stop();
+    }
+
+    @Test
+    public void testWaiterTimeout() throws Exception {
+        StreamSlot slot = register();
+        Assert.assertThat(manager.getActiveStreamSize(destination), is(1));
+
+        AtomicInteger streams = new AtomicInteger();
+        AtomicInteger fallbacks = new AtomicInteger();
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        manager.acquire(destination, s -> streams.incrementAndGet(), fallbacks::incrementAndGet, failure::complete);
+
+        Throwable t = failure.get(2, TimeUnit.SECONDS);
+        Assert.assertThat(t, instanceOf(TimeoutException.class));
+        Assert.assertThat(streams.get(), is(0));
+        Assert.assertThat(fallbacks.get(), is(0));
+
+        // the timed out waiter does not take the released stream
+        slot.release();
+        Assert.assertThat(streams.get(), is(0));
+        Assert.assertThat(manager.getActiveStreamSize(destination), is(0));
+    }
+
+    @Test
+    public void testWaiterTakesReleasedStream() throws Exception {
+        StreamSlot slot = register();
+
+        CompletableFuture<StreamSlot> stream = new CompletableFuture<>();
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        manager.acquire(destination, stream::complete, () -> Assert.fail("the destination has the max connections"),
+                failure::complete);
+        Assert.assertThat(stream.isDone(), is(false));
+
+        slot.release();
+        StreamSlot next = stream.get(2, TimeUnit.SECONDS);
+        Assert.assertThat(next.getConnection(), is(slot.getConnection()));
+        Assert.assertThat(manager.getActiveStreamSize(destination), is(1));
+
+        // the timeout task is cancelled
+        try {
+            failure.get(500, TimeUnit.MILLISECONDS);
+            Assert.fail("the waiter takes the stream before the timeout");
+        } catch (TimeoutException e) {
+            Assert.assertThat(failure.isDone(), is(false));
+        }
+        next.release();
+        Assert.assertThat(manager.getActiveStreamSize(destination), is(0));
+    }
+
+    @Test
+    public void testRemoveDestination() throws Exception {
+        AtomicInteger fallbacks = new AtomicInteger();
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        manager.acquire(destination, s -> Assert.fail("the destination has not any connections"),
+                fallbacks::incrementAndGet, failure::complete);
+        manager.acquire(destination, s -> Assert.fail("the destination has not any connections"),
+                fallbacks::incrementAndGet, failure::complete);
+        Assert.assertThat(fallbacks.get(), is(1));
+
+        // the waiter takes the connection of the new destination
+        manager.remove(destination);
+        Assert.assertThat(fallbacks.get(), is(2));
+
+        // the new destination counts the connection of the waiter
+        manager.acquire(destination, s -> Assert.fail("the destination has not any connections"),
+                fallbacks::incrementAndGet, failure::complete);
+        Assert.assertThat(fallbacks.get(), is(2));
+
+        manager.connectFailed(destination);
+        Assert.assertThat(fallbacks.get(), is(3));
+        Assert.assertThat(failure.isDone(), is(false));
+    }
+
+    @SuppressWarnings("unchecked")
+    private StreamSlot register() {
+        AtomicInteger fallbacks = new AtomicInteger();
+        manager.acquire(destination, s -> Assert.fail("the destination has not any connections"),
+                fallbacks::incrementAndGet, t -> Assert.fail(t.getMessage()));
+        Assert.assertThat(fallbacks.get(), is(1));
+
+        HTTP2ClientConnection connection = mock(HTTP2ClientConnection.class);
+        when(connection.getHttpVersion()).thenReturn(HttpVersion.HTTP_2);
+        when(connection.isOpen()).thenReturn(true);
+        when(connection.onClose(any())).thenReturn(connection);
+        when(connection.onException(any())).thenReturn(connection);
+        PooledObject<HTTPClientConnection> pooledObject = mock(PooledObject.class);
+
+        StreamSlot slot = manager.register(destination, connection, pooledObject);
+        Assert.assertThat(slot, notNullValue());
+        Assert.assertThat(manager.getConnectionSize(destination), is(1));
+        return slot;
+    }
+}
@@ -7,6 +7,7 @@ import com.firefly.server.http2.router.impl.RouterManagerImpl;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Iterator;
 import java.util.NavigableSet;
 
 import static org.hamcrest.Matchers.*;
@@ -209,4 +210,77 @@ public class TestMatcher {
         Assert.assertThat(result.getParameters().get(router1).get("param0"), is("fruit/apple/"));
         Assert.assertThat(result.getParameters().get(router1).get("param1"), is(""));
     }
+
+    @Test
+    public void testCompiledRouter() {
+        RouterManagerImpl routerManager = new RouterManagerImpl();
+        RouterManagerImpl compiledRouterManager = new RouterManagerImpl(true);
+        Assert.assertThat(compiledRouterManager.isCompiledRouting(), is(true));
+
+        for (RouterManagerImpl manager : new RouterManagerImpl[]{routerManager, compiledRouterManager}) {
+            manager.register().path("*");
+            manager.register().get("/hello/get").produces("application/json");
+            manager.register().get("/hello/:testParam0").produces("application/json");
+            manager.register().get("/hello/:testParam1").produces("text/html");
+            manager.register().post("/book/update/:id").consumes("*/json");
+            manager.register().post("/book/update/:id").consumes("application/json");
+            manager.register().path("/");
+            manager.register().path("/hello*");
+            manager.register().path("/he*/*");
+            manager.register().path("/:hello/:foo/");
+            manager.register().path("/hello/:foo/:bar");
+            manager.register().pathRegex("/hello(\\d*)");
+            manager.register().path("/*create*");
+            manager.register().method("PUT").path("/user/:id/profile").path("/user/*/avatar");
+            manager.register().path("/a:b/c");
+            manager.register().path("/product/list").disable();
+            for (int i = 0; i < 100; i++) {
+                manager.register().get("/api/v" + i + "/item/:id").consumes("application/json");
+                manager.register().post("/api/v" + i + "/item");
+            }
+        }
+
+        String[][] requests = {
+                {"GET", "/hello/get", null, "application/json,text/html;q=0.9,*/*;q=0.8"},
+                {"GET", "/hello/get", null, "text/html"},
+                {"GET", "/hello/get", null, null},
+                {"get", "/hello/foo/", null, "*/*"},
+                {"POST", "/book/update/3", "application/json;charset=UTF-8", null},
+                {"POST", "/book/update/3", null, null},
+                {"GET", "/", null, null},
+                {"GET", "/hello", null, null},
+                {"GET", "/hello123", null, null},
+                {"GET", "/hello/11/2333", null, null},
+                {"GET", "/hello//", null, null},
+                {"DELETE", "/fruit/apple/create", null, null},
+                {"PUT", "/user/7/profile", null, null},
+                {"PUT", "/user/7/avatar", null, null},
+                {"PUT", "/user/7/avatar/", null, null},
+                {"GET", "/a:b/c/", null, null},
+                {"GET", "/product/list", null, null},
+                {"GET", "/api/v42/item/100", "application/json", null},
+                {"GET", "/api/v42/item/100", "text/plain", null},
+                {"POST", "/api/v99/item", null, null},
+                {"POST", "/api/v100/item", null, null},
+        };
+
+        for (String[] r : requests) {
+            NavigableSet<RouterManager.RouterMatchResult> expected = routerManager.findRouter(r[0], r[1], r[2], r[3]);
+            NavigableSet<RouterManager.RouterMatchResult> result = compiledRouterManager.findRouter(r[0], r[1], r[2], r[3]);
+            Assert.assertThat(result.size(), is(expected.size()));
+            Iterator<RouterManager.RouterMatchResult> iterator = result.iterator();
+            for (RouterManager.RouterMatchResult e : expected) {
+                RouterManager.RouterMatchResult actual = iterator.next();
+                Assert.assertThat(actual.getRouter().getId(), is(e.getRouter().getId()));
+                Assert.assertThat(actual.getParameters(), is(e.getParameters()));
+                Assert.assertThat(actual.getMatchTypes(), is(e.getMatchTypes()));
+            }
+        }
+
+        // the compiled router is rebuilt after the routers are changed
+        Router router = compiledRouterManager.register().get("/new/router");
+        NavigableSet<RouterManager.RouterMatchResult> result = compiledRouterManager.findRouter("GET", "/new/router", null, null);
+        Assert.assertThat(result.size(), is(3));
+        Assert.assertThat(result.last().getRouter(), is(router));
+    }
 }
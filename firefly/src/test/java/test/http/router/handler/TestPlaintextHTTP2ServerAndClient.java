@@ -2,13 +2,22 @@ package test.http.router.handler;
 
 import com.firefly.$;
 import com.firefly.client.http2.SimpleHTTPClient;
+import com.firefly.client.http2.SimpleHTTPClientConfiguration;
+import com.firefly.codec.http2.model.HttpVersion;
+import com.firefly.utils.concurrent.ThreadUtils;
 import com.firefly.server.http2.HTTP2ServerBuilder;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 /**
  * @author Pengtao Qiu
@@ -51,4 +60,41 @@ public class TestPlaintextHTTP2ServerAndClient extends AbstractHTTPHandlerTest {
         server.stop();
         client.stop();
     }
+
+    @Test
+    public void testMultiplexing() throws Exception {
+        int times = 20;
+
+        HTTP2ServerBuilder server = $.plaintextHTTP2Server();
+        server.router().get("/multiplexing").asyncHandler(ctx -> {
+            ThreadUtils.sleep(200L);
+            ctx.end("test multiplexing");
+        }).listen(host, port);
+
+        SimpleHTTPClientConfiguration configuration = new SimpleHTTPClientConfiguration();
+        configuration.setProtocol(HttpVersion.HTTP_2.asString());
+        configuration.setPoolSize(4);
+        configuration.setHttp2DefaultMaxConcurrentStreams(2);
+        SimpleHTTPClient client = new SimpleHTTPClient(configuration);
+
+        try {
+            // open the first HTTP2 connection
+            Assert.assertThat(client.get(uri + "/multiplexing").submit().thenApply(res -> res.getStringBody()).join(),
+                    is("test multiplexing"));
+            List<CompletableFuture<String>> futures = new ArrayList<>(times);
+            for (int i = 0; i < times; i++) {
+                futures.add(client.get(uri + "/multiplexing").submit().thenApply(res -> res.getStringBody()));
+            }
+
+            for (CompletableFuture<String> future : futures) {
+                Assert.assertThat(future.get(10, TimeUnit.SECONDS), is("test multiplexing"));
+            }
+            int connections = client.getConnectionPoolSize(host, port);
+            Assert.assertThat(connections, greaterThan(1));
+            Assert.assertThat(connections, lessThanOrEqualTo(4));
+        } finally {
+            server.stop();
+            client.stop();
+        }
+    }
 }
@@ -5,9 +5,11 @@ import com.firefly.client.http2.SimpleHTTPClient;
 import com.firefly.codec.http2.encode.UrlEncoded;
 import com.firefly.codec.http2.model.HttpHeader;
 import com.firefly.codec.http2.model.HttpStatus;
+import com.firefly.codec.http2.model.MimeTypes;
 import com.firefly.codec.http2.stream.HTTPOutputStream;
 import com.firefly.server.http2.HTTP2ServerBuilder;
 import com.firefly.utils.concurrent.Promise;
+import com.firefly.utils.json.JsonObject;
 import org.junit.Assert;
 import org.junit.Test;
 import test.http.router.handler.AbstractHTTPHandlerTest;
@@ -228,4 +230,35 @@ public class TestHTTPBodyHandler extends AbstractHTTPHandlerTest {
         $.httpClient().stop();
     }
 
+    @Test
+    public void testPostJson() {
+        Phaser phaser = new Phaser(3);
+
+        HTTP2ServerBuilder httpServer = $.httpServer();
+        httpServer.router().post("/json").handler(ctx -> {
+            JsonObject object = ctx.getJsonObjectBody();
+            Assert.assertThat(object.getString("name"), is("你的名字"));
+            Assert.assertThat(ctx.getStringBody(), is("{\"name\":\"你的名字\"}"));
+            object.put("intro", "我要送些东西给你 \"我的孩子\"");
+            ctx.writeJson(object).end();
+            phaser.arrive();
+        }).listen(host, port);
+
+        $.httpClient().post(uri + "/json").body("{\"name\":\"你的名字\"}")
+         .submit()
+         .thenAccept(res -> {
+             Assert.assertThat(res.getStatus(), is(HttpStatus.OK_200));
+             String contentType = res.getFields().get(HttpHeader.CONTENT_TYPE);
+             Assert.assertThat(contentType.equalsIgnoreCase(MimeTypes.Type.APPLICATION_JSON_UTF_8.asString()), is(true));
+             JsonObject object = res.getJsonObjectBody();
+             Assert.assertThat(object.getString("name"), is("你的名字"));
+             Assert.assertThat(object.getString("intro"), is("我要送些东西给你 \"我的孩子\""));
+             phaser.arrive();
+         });
+
+        phaser.arriveAndAwaitAdvance();
+        httpServer.stop();
+        $.httpClient().stop();
+    }
+
 }
@@ -0,0 +1,134 @@
+package test.http.router.handler.file;
+
+import com.firefly.server.http2.router.handler.file.StaticFile;
+import com.firefly.server.http2.router.handler.file.StaticFileCache;
+import com.firefly.server.http2.router.handler.file.StaticFileConfiguration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestStaticFileCache {
+
+    private File dir;
+
+    @Before
+    public void init() throws IOException {
+        dir = Files.createTempDirectory("testStaticFileCache").toFile();
+        dir.deleteOnExit();
+    }
+
+    private File createFile(String name, int size) throws IOException {
+        File file = new File(dir, name);
+        file.deleteOnExit();
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) ('a' + (i % 26));
+        }
+        Files.write(file.toPath(), data);
+        return file;
+    }
+
+    @Test
+    public void testInMemoryAndMapped() throws IOException {
+        StaticFileConfiguration configuration = new StaticFileConfiguration();
+        configuration.setMaxInMemoryFileSize(1024);
+        StaticFileCache cache = new StaticFileCache(configuration);
+
+        StaticFile small = cache.get(createFile("small.txt", 100));
+        Assert.assertThat(small.isContentCached(), is(true));
+        Assert.assertThat(small.getContent().isReadOnly(), is(true));
+        Assert.assertThat(small.getContent().remaining(), is(100));
+        Assert.assertThat(small.getMimeType(), is("text/plain"));
+
+        StaticFile large = cache.get(createFile("large.txt", 4096));
+        ByteBuffer content = large.getContent();
+        Assert.assertThat(content instanceof MappedByteBuffer, is(true));
+        Assert.assertThat(content.remaining(), is(4096));
+        Assert.assertThat(content.get(26), is((byte) 'a'));
+
+        Assert.assertThat(cache.get(new File(dir, "small.txt")) == small, is(true));
+        Assert.assertThat(cache.size(), is(2));
+        Assert.assertThat(cache.getCacheSize(), is(4196L));
+        Assert.assertThat(cache.get(new File(dir, "none.txt")) == null, is(true));
+    }
+
+    @Test
+    public void testLRUEviction() throws IOException {
+        StaticFileConfiguration configuration = new StaticFileConfiguration();
+        configuration.setMaxCacheSize(2048);
+        StaticFileCache cache = new StaticFileCache(configuration);
+
+        File a = createFile("a.txt", 1000);
+        File b = createFile("b.txt", 1000);
+        File c = createFile("c.txt", 1000);
+        StaticFile fileA = cache.get(a);
+        cache.get(b);
+        Assert.assertThat(cache.get(a) == fileA, is(true));
+        cache.get(c);
+        Assert.assertThat(cache.size(), is(2));
+        Assert.assertThat(cache.getCacheSize(), is(2000L));
+
+        // b is the least recently used file
+        Assert.assertThat(cache.get(a) == fileA, is(true));
+        StaticFile fileB = cache.get(b);
+        Assert.assertThat(fileB.isContentCached(), is(true));
+        Assert.assertThat(cache.size(), is(2));
+    }
+
+    @Test
+    public void testInvalidation() throws IOException {
+        StaticFileConfiguration configuration = new StaticFileConfiguration();
+        configuration.setCacheCheckInterval(0);
+        StaticFileCache cache = new StaticFileCache(configuration);
+
+        File file = createFile("hello.txt", 10);
+        StaticFile staticFile = cache.get(file);
+        Assert.assertThat(cache.get(file) == staticFile, is(true));
+
+        Files.write(file.toPath(), "hello world".getBytes(StandardCharsets.UTF_8));
+        Assert.assertThat(file.setLastModified(staticFile.getLastModified() + 2000), is(true));
+        StaticFile modified = cache.get(file);
+        Assert.assertThat(modified == staticFile, is(false));
+        Assert.assertThat(modified.getLength(), is(11L));
+        Assert.assertThat(modified.getETag().equals(staticFile.getETag()), is(false));
+        Assert.assertThat(cache.getCacheSize(), is(11L));
+
+        Assert.assertThat(file.delete(), is(true));
+        Assert.assertThat(cache.get(file) == null, is(true));
+        Assert.assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void testPrecompressedFile() throws IOException {
+        StaticFileConfiguration configuration = new StaticFileConfiguration();
+        configuration.setCacheCheckInterval(0);
+        StaticFileCache cache = new StaticFileCache(configuration);
+
+        File file = createFile("app.js", 1000);
+        StaticFile staticFile = cache.get(file);
+        Assert.assertThat(staticFile.hasPrecompressedFile(), is(false));
+
+        createFile("app.js.gz", 100);
+        staticFile = cache.get(file);
+        Assert.assertThat(staticFile.hasPrecompressedFile(), is(true));
+        StaticFile gzip = staticFile.getPrecompressedFile(StaticFile.GZIP);
+        Assert.assertThat(gzip.getContentEncoding(), is("gzip"));
+        Assert.assertThat(gzip.getMimeType(), is(staticFile.getMimeType()));
+        Assert.assertThat(gzip.getLength(), is(100L));
+        Assert.assertThat(gzip.getETag().equals(staticFile.getETag()), is(false));
+        Assert.assertThat(staticFile.getPrecompressedFile(StaticFile.BR) == null, is(true));
+        Assert.assertThat(cache.getCacheSize(), is(1100L));
+    }
+}
@@ -24,7 +24,7 @@ public class TestStaticFileHandler extends AbstractHTTPHandlerTest {
 
     @Test
     public void test() throws URISyntaxException {
-        Phaser phaser = new Phaser(4);
+        Phaser phaser = new Phaser(5);
 
         HTTP2ServerBuilder httpServer = $.httpServer();
         Path path = Paths.get(TestStaticFileHandler.class.getResource("/").toURI());
@@ -40,6 +40,19 @@ public class TestStaticFileHandler extends AbstractHTTPHandlerTest {
              phaser.arrive();
          });
 
+        $.httpClient().get(uri + "/static/hello.txt")
+         .submit()
+         .thenCompose(res -> {
+             Assert.assertThat(res.getFields().get(HttpHeader.LAST_MODIFIED) != null, is(true));
+             return $.httpClient().get(uri + "/static/hello.txt")
+                     .put(HttpHeader.IF_NONE_MATCH, res.getFields().get(HttpHeader.ETAG))
+                     .submit();
+         })
+         .thenAccept(res -> {
+             Assert.assertThat(res.getStatus(), is(HttpStatus.NOT_MODIFIED_304));
+             phaser.arrive();
+         });
+
         $.httpClient().get(uri + "/static/hello.txt")
          .put(HttpHeader.RANGE, "bytes=10-16")
          .submit()